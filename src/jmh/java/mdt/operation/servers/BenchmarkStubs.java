@@ -0,0 +1,60 @@
+package mdt.operation.servers;
+
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.withSettings;
+
+import java.io.IOException;
+
+import utils.rpc.restful.RESTfulAsyncRpcServer;
+
+import mdt.model.instance.MDTInstanceManager;
+import mdt.model.sm.ref.MDTElementReference;
+import mdt.model.sm.value.ElementValue;
+
+
+/**
+ * 벤치마크용 메모리 내 스텁.
+ * <p>
+ * 원격 MDT 인스턴스 관리자와 RPC 서버 대신 호출 기록을 남기지 않는({@code stubOnly}) 스텁을 사용하므로,
+ * 반복 호출해도 메모리가 늘지 않으며 측정값에는 스텁 호출의 고정 비용만 더해진다.
+ *
+ * @author Kang-Woo Lee (ETRI)
+ */
+final class BenchmarkStubs {
+	private BenchmarkStubs() {
+		throw new AssertionError("Should not be called: class=" + getClass());
+	}
+
+	/**
+	 * 아무 인스턴스도 갖지 않는 MDT 인스턴스 관리자를 반환한다. 벤치마크 대상 경로는 원격 호출을 하지 않아야
+	 * 하므로 호출되지 않는다.
+	 */
+	static MDTInstanceManager instanceManager() {
+		return mock(MDTInstanceManager.class, withSettings().stubOnly());
+	}
+
+	/**
+	 * 값 읽기는 {@code value}를 반환하고 값 갱신은 버리는 활성화된 참조를 반환한다.
+	 */
+	static MDTElementReference reference(ElementValue value) throws IOException {
+		MDTElementReference ref = mock(MDTElementReference.class, withSettings().stubOnly());
+		doReturn(value).when(ref).readValue();
+		return ref;
+	}
+
+	/**
+	 * 주어진 세션만 보유하는 RPC 서버를 반환한다.
+	 *
+	 * @param sessionEndpoint	보유 세션 엔드포인트. {@code null}이면 아무 세션도 보유하지 않는다.
+	 */
+	static RESTfulAsyncRpcServer rpcServer(String sessionEndpoint) throws ReflectiveOperationException {
+		RESTfulAsyncRpcServer server = mock(RESTfulAsyncRpcServer.class, withSettings().stubOnly());
+		if ( sessionEndpoint != null ) {
+			Class<?> sessionType = RESTfulAsyncRpcServer.class.getMethod("getSession", String.class)
+																.getReturnType();
+			doReturn(mock(sessionType, withSettings().stubOnly())).when(server).getSession(sessionEndpoint);
+		}
+		return server;
+	}
+}
@@ -0,0 +1,139 @@
+package mdt.operation.servers;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.io.FileUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+
+import utils.KeyValue;
+import utils.async.command.CommandVariable;
+
+import mdt.model.MDTModelSerDe;
+import mdt.model.sm.ref.MDTElementReference;
+import mdt.model.sm.value.ElementValue;
+import mdt.model.sm.value.ElementValues;
+
+
+/**
+ * {@link MDTCommandVariableSerDe}와 {@link MDTCommandVariable#toJsonNode()}의 요청당 비용을 측정하는 벤치마크.
+ * <p>
+ * 역직렬화는 일반 값, {@code mdt:value:*}, {@code mdt:ref:*} 입력을, 직렬화와 {@code toJsonNode}는 일반 값,
+ * 프로토타입, 요소 참조 분기를 각각 측정한다. {@code mdt:ref:*} 역직렬화는 디스패처와 같이
+ * {@link MDTCommandVariableSerDe#resolveAll}이 미리 해석해 둔 결과({@link ReferenceBatch})를 사용하는 경로이며,
+ * 요소 참조는 메모리 내 스텁({@link BenchmarkStubs})이다. 변수 파일 기록은 실제 임시 디렉토리에 수행되므로
+ * 측정값에 포함된다. {@code FileValue} 첨부 파일 경로는 파일 크기에 좌우되므로 다루지 않는다.
+ *
+ * @author Kang-Woo Lee (ETRI)
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class MDTCommandVariableSerDeBenchmark {
+	private static final JsonMapper MAPPER = MDTModelSerDe.getJsonMapper();
+	private static final String PLAIN = "{\"speed\":1200,\"unit\":\"rpm\",\"tags\":[\"a\",\"b\"]}";
+	private static final String PROPERTY_VALUE = "{\"@type\":\"mdt:value:property\",\"value\":\"1200\"}";
+	private static final String REFERENCE = "{\"@type\":\"mdt:ref:elm\",\"ref\":\"param:bench:speed\"}";
+
+	private File m_dir;
+	private MDTCommandVariableSerDe m_serde;
+	private JsonNode m_plain;
+	private JsonNode m_value;
+	private JsonNode m_reference;
+	private ElementValue m_proto;
+	private MDTElementReference m_ref;
+
+	private MDTCommandVariable m_plainVar;
+	private MDTCommandVariable m_protoVar;
+	private MDTCommandVariable m_refVar;
+
+	@Setup(Level.Trial)
+	public void setup() throws IOException {
+		m_dir = Files.createTempDirectory("mdt-serde-bench-").toFile();
+		m_serde = new MDTCommandVariableSerDe(BenchmarkStubs.instanceManager());
+
+		m_plain = MAPPER.readTree(PLAIN);
+		m_value = MAPPER.readTree(PROPERTY_VALUE);
+		m_reference = MAPPER.readTree(REFERENCE);
+		m_proto = ElementValues.parseJsonNode(m_value);
+		m_ref = BenchmarkStubs.reference(m_proto);
+
+		m_plainVar = (MDTCommandVariable)m_serde.deserialize("plain", m_dir, m_plain);
+		m_protoVar = (MDTCommandVariable)m_serde.deserialize("value", m_dir, m_value);
+		String refValue = MAPPER.writeValueAsString(m_proto.toValueObject());
+		m_refVar = new MDTCommandVariable("ref", refValue, new File(m_dir, "ref"), m_ref, m_proto);
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		FileUtils.deleteQuietly(m_dir);
+	}
+
+	// ----- deserialize -----
+
+	@Benchmark
+	public CommandVariable deserializePlain() throws IOException {
+		return m_serde.deserialize("plain", m_dir, m_plain);
+	}
+
+	@Benchmark
+	public CommandVariable deserializeElementValue() throws IOException {
+		return m_serde.deserialize("value", m_dir, m_value);
+	}
+
+	@Benchmark
+	public CommandVariable deserializeReference() throws IOException {
+		try ( ReferenceBatch batch = new ReferenceBatch(Set.of(), new OutputWriteBack(1)) ) {
+			batch.put("ref", new ReferenceBatch.Resolution(m_reference, m_ref, m_proto, null, null));
+			return m_serde.deserialize("ref", m_dir, m_reference);
+		}
+	}
+
+	// ----- serialize -----
+
+	@Benchmark
+	public KeyValue<String,JsonNode> serializePlain() throws IOException {
+		return m_serde.serialize(m_plainVar);
+	}
+
+	@Benchmark
+	public KeyValue<String,JsonNode> serializePrototype() throws IOException {
+		return m_serde.serialize(m_protoVar);
+	}
+
+	@Benchmark
+	public KeyValue<String,JsonNode> serializeReference() throws IOException {
+		return m_serde.serialize(m_refVar);
+	}
+
+	// ----- MDTCommandVariable.toJsonNode -----
+
+	@Benchmark
+	public JsonNode toJsonNodePlain() throws IOException {
+		return m_plainVar.toJsonNode();
+	}
+
+	@Benchmark
+	public JsonNode toJsonNodePrototype() throws IOException {
+		return m_protoVar.toJsonNode();
+	}
+
+	@Benchmark
+	public JsonNode toJsonNodeReference() throws IOException {
+		return m_refVar.toJsonNode();
+	}
+}
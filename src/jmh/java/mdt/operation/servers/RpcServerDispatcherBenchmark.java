@@ -0,0 +1,121 @@
+package mdt.operation.servers;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.io.FileUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.http.ResponseEntity;
+
+
+/**
+ * {@link RpcServerDispatcher}의 요청당 고정 비용을 측정하는 벤치마크.
+ * <p>
+ * {@link RpcServerDispatcher#findRpcServer}는 등록된 연산 수({@code operations})별로 세션 색인 적중과 없는
+ * 세션의 탐색을 측정한다. 세션은 마지막에 등록된 연산의 RPC 서버가 보유하며 세션 색인에 등록되어 있다.
+ * 요청 파싱은 입력 변수 수({@code inputs})별로 {@link RpcServerDispatcher#run}에 등록되지 않은 연산을 요청하여,
+ * 요청 본문 파싱부터 연산 조회(부재 캐시 적중)와 {@code 404} 응답 생성까지를 측정한다.
+ *
+ * @author Kang-Woo Lee (ETRI)
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class RpcServerDispatcherBenchmark {
+	private static final String SESSION = "/sessions/bench-session";
+
+	@State(Scope.Benchmark)
+	public static class Registered {
+		@Param({ "1", "100", "1000" })
+		public int operations;
+
+		private File m_opsDir;
+		private RpcServerDispatcher m_dispatcher;
+		private SessionIndex m_sessionIndex;
+
+		@Setup(Level.Trial)
+		public void setup() throws Exception {
+			m_opsDir = Files.createTempDirectory("mdt-dispatch-bench-").toFile();
+			m_dispatcher = newDispatcher(m_opsDir);
+			m_sessionIndex = m_dispatcher.getSessionIndex();
+
+			OperationRegistry registry = m_dispatcher.getRegistry();
+			for ( int i = 0; i < operations; ++i ) {
+				String session = (i == operations - 1) ? SESSION : null;
+				registry.put("op-" + i, BenchmarkStubs.rpcServer(session));
+			}
+			m_sessionIndex.register(SESSION, registry.get("op-" + (operations - 1)));
+		}
+
+		@TearDown(Level.Trial)
+		public void tearDown() {
+			FileUtils.deleteQuietly(m_opsDir);
+		}
+	}
+
+	@State(Scope.Benchmark)
+	public static class Request {
+		@Param({ "1", "16" })
+		public int inputs;
+
+		private File m_opsDir;
+		private RpcServerDispatcher m_dispatcher;
+		private byte[] m_body;
+
+		@Setup(Level.Trial)
+		public void setup() throws Exception {
+			m_opsDir = Files.createTempDirectory("mdt-dispatch-bench-").toFile();
+			m_dispatcher = newDispatcher(m_opsDir);
+
+			StringBuilder body = new StringBuilder("{\"inputs\":{");
+			for ( int i = 0; i < inputs; ++i ) {
+				if ( i > 0 ) {
+					body.append(',');
+				}
+				body.append(String.format("\"in%d\":{\"@type\":\"mdt:ref:elm\",\"ref\":\"param:bench:p%d\"}", i, i));
+			}
+			body.append("},\"outputs\":{\"out\":{\"@type\":\"mdt:ref:elm\",\"ref\":\"oparg:bench:op:out\"}},")
+				.append("\"priority\":1}");
+			m_body = body.toString().getBytes(StandardCharsets.UTF_8);
+		}
+
+		@TearDown(Level.Trial)
+		public void tearDown() {
+			FileUtils.deleteQuietly(m_opsDir);
+		}
+	}
+
+	@Benchmark
+	public RpcServerInfo findRpcServerIndexed(Registered state) {
+		return state.m_dispatcher.findRpcServer(SESSION);
+	}
+
+	@Benchmark
+	public RpcServerInfo findRpcServerMiss(Registered state) {
+		return state.m_dispatcher.findRpcServer("/sessions/unknown");
+	}
+
+	@Benchmark
+	public ResponseEntity<?> parseRequest(Request state) throws IOException {
+		return state.m_dispatcher.run("unknown", new ByteArrayInputStream(state.m_body));
+	}
+
+	private static RpcServerDispatcher newDispatcher(File opsDir) {
+		RpcServersConfiguration config = new RpcServersConfiguration();
+		config.setOperationsDir(opsDir);
+
+		return new RpcServerDispatcher(config);
+	}
+}
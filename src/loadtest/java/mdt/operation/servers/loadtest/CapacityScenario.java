@@ -0,0 +1,48 @@
+package mdt.operation.servers.loadtest;
+
+import java.io.File;
+import java.io.IOException;
+
+import com.fasterxml.jackson.databind.json.JsonMapper;
+
+import utils.Preconditions;
+
+
+/**
+ * 동시 세션 용량 시험 시나리오.
+ * <p>
+ * JSON 파일로 기술하며, 예는 {@code src/loadtest/resources/scenarios/session-capacity.json}을 참고한다.
+ * 시험 연산은 세션 프로세스가 시험 동안 끝나지 않도록 충분히 오래 수행되어야 한다.
+ *
+ * @param initialSessions	첫 단계의 목표 동시 세션 수.
+ * @param maxSessions		마지막 단계의 목표 동시 세션 수. 이 수에 이르면 더 늘리지 않는다.
+ * @param growth			단계마다 목표 동시 세션 수를 늘리는 배수.
+ * @param settleSeconds		단계마다 목표 수의 세션 프로세스가 실행될 때까지 기다리는 최대 시간(초).
+ * @param operation			시험 연산.
+ *
+ * @author Kang-Woo Lee (ETRI)
+ */
+public record CapacityScenario(int initialSessions, int maxSessions, double growth, int settleSeconds,
+								Scenario.OperationSpec operation) {
+	public CapacityScenario {
+		Preconditions.checkArgument(initialSessions > 0, "initialSessions must be positive: " + initialSessions);
+		Preconditions.checkArgument(maxSessions >= initialSessions,
+									"maxSessions must not be less than initialSessions: " + maxSessions);
+		Preconditions.checkNotNullArgument(operation, "operation is not specified");
+
+		growth = (growth > 1) ? growth : 2;
+		settleSeconds = (settleSeconds > 0) ? settleSeconds : 30;
+	}
+
+	/**
+	 * 시나리오 파일을 읽는다.
+	 *
+	 * @param file	시나리오 파일.
+	 * @param mapper	JSON 변환기.
+	 * @return	시나리오.
+	 * @throws IOException	파일을 읽거나 해석하는 중 오류가 발생한 경우.
+	 */
+	public static CapacityScenario load(File file, JsonMapper mapper) throws IOException {
+		return mapper.readValue(file, CapacityScenario.class);
+	}
+}
@@ -0,0 +1,199 @@
+package mdt.operation.servers.loadtest;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import utils.Preconditions;
+
+
+/**
+ * 부하 시험용 MDT 인스턴스 관리자 대역.
+ * <p>
+ * 프로세스 내 HTTP 서버로, 시나리오에 기술된 경로별 응답({@link Scenario.RouteSpec})만 제공한다.
+ * {@code GET}에는 요소 값 JSON 또는 합성 첨부 파일을 반환하고, {@code PUT}/{@code POST}/{@code PATCH}(출력 기록)는
+ * 본문을 끝까지 읽어 버린 뒤 {@code 204}로 응답한다. 등록되지 않은 경로는 {@code 404}로 응답하며,
+ * 경로별 횟수를 {@link #getMisses()}로 보고하므로 시나리오에 빠진 경로를 찾는 데 사용할 수 있다.
+ * <p>
+ * 응답 JSON의 문자열 값에 포함된 {@value #BASE_URL_VARIABLE}은 대역 서버의 URL({@link #getUrl()})로 바뀐다.
+ * 인스턴스 기술자의 서비스 엔드포인트가 대역 서버를 가리키게 하여, 요소·첨부 파일 요청도 대역이 받도록 하는 데
+ * 사용한다.
+ *
+ * @author Kang-Woo Lee (ETRI)
+ */
+public class InstanceManagerStandIn implements AutoCloseable {
+	private static final Logger s_logger = LoggerFactory.getLogger(InstanceManagerStandIn.class);
+	private static final int CHUNK_SIZE = 64 * 1024;
+	private static final int MAX_MISS_PATHS = 100;
+	private static final String BASE_URL_VARIABLE = "${baseUrl}";
+
+	private final HttpServer m_server;
+	private final ExecutorService m_executor;
+	private final String m_basePath;
+	private final Map<String,Route> m_routes;
+	private final AtomicLong m_reads = new AtomicLong();
+	private final AtomicLong m_writes = new AtomicLong();
+	private final Map<String,AtomicLong> m_misses = new ConcurrentHashMap<>();
+
+	private record Route(Scenario.RouteSpec spec, byte[] body) { }
+
+	/**
+	 * 대역 서버를 생성하고 임의의 지역 포트에서 시작한다.
+	 *
+	 * @param basePath	MDT 인스턴스 관리자 기준 경로 (예: {@code /instance-manager}).
+	 * @param routes	기준 경로 이하의 경로별 응답.
+	 * @param mapper	JSON 변환기.
+	 * @throws IOException	서버 소켓을 열지 못한 경우.
+	 */
+	public InstanceManagerStandIn(String basePath, Map<String,Scenario.RouteSpec> routes, JsonMapper mapper)
+		throws IOException {
+		Preconditions.checkNotNullArgument(basePath, "basePath is null");
+		Preconditions.checkNotNullArgument(routes, "routes is null");
+
+		m_basePath = basePath.endsWith("/") ? basePath.substring(0, basePath.length() - 1) : basePath;
+		m_executor = Executors.newVirtualThreadPerTaskExecutor();
+		m_server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+		m_server.setExecutor(m_executor);
+
+		// 응답 본문에 대역 서버 URL을 넣어야 하므로, 포트가 정해진 뒤(서버 시작 전) 경로들을 등록한다.
+		m_routes = new ConcurrentHashMap<>();
+		for ( Map.Entry<String,Scenario.RouteSpec> ent: routes.entrySet() ) {
+			m_routes.put(m_basePath + ent.getKey(), toRoute(ent.getValue(), mapper, getUrl()));
+		}
+		m_server.createContext("/", this::handle);
+		m_server.start();
+	}
+
+	/**
+	 * 디스패처의 {@code rpc-servers.instanceManagerUrl}로 사용할 URL을 반환한다.
+	 *
+	 * @return	대역 서버의 MDT 인스턴스 관리자 URL.
+	 */
+	public String getUrl() {
+		InetSocketAddress addr = m_server.getAddress();
+		return String.format("http://%s:%d%s", addr.getHostString(), addr.getPort(), m_basePath);
+	}
+
+	/**
+	 * 등록된 경로에 대해 처리한 {@code GET} 요청 수를 반환한다.
+	 */
+	public long getReadCount() {
+		return m_reads.get();
+	}
+
+	/**
+	 * 등록된 경로에 대해 처리한 기록 요청 수를 반환한다.
+	 */
+	public long getWriteCount() {
+		return m_writes.get();
+	}
+
+	/**
+	 * 등록되지 않은 경로별 요청 수를 반환한다. 최대 {@value #MAX_MISS_PATHS}개 경로까지 기록한다.
+	 */
+	public Map<String,Long> getMisses() {
+		Map<String,Long> misses = new TreeMap<>();
+		m_misses.forEach((path, count) -> misses.put(path, count.get()));
+		return misses;
+	}
+
+	@Override
+	public void close() {
+		m_server.stop(0);
+		m_executor.shutdownNow();
+	}
+
+	private void handle(HttpExchange exchange) throws IOException {
+		try ( exchange ) {
+			String path = exchange.getRequestURI().getRawPath();
+			Route route = m_routes.get(path);
+			if ( route == null ) {
+				drain(exchange.getRequestBody());
+				if ( m_misses.size() < MAX_MISS_PATHS || m_misses.containsKey(path) ) {
+					m_misses.computeIfAbsent(path, k -> new AtomicLong()).incrementAndGet();
+				}
+				s_logger.debug("stand-in miss: {} {}", exchange.getRequestMethod(), path);
+				exchange.sendResponseHeaders(404, -1);
+				return;
+			}
+
+			if ( route.spec().delayMillis() > 0 ) {
+				Thread.sleep(route.spec().delayMillis());
+			}
+			switch ( exchange.getRequestMethod() ) {
+				case "GET":
+					m_reads.incrementAndGet();
+					serve(exchange, route);
+					break;
+				case "PUT":
+				case "POST":
+				case "PATCH":
+					m_writes.incrementAndGet();
+					drain(exchange.getRequestBody());
+					exchange.sendResponseHeaders(204, -1);
+					break;
+				default:
+					exchange.sendResponseHeaders(405, -1);
+					break;
+			}
+		}
+		catch ( InterruptedException e ) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private static void serve(HttpExchange exchange, Route route) throws IOException {
+		Scenario.RouteSpec spec = route.spec();
+		exchange.getResponseHeaders().set("Content-Type", spec.contentType());
+		if ( route.body() != null ) {
+			exchange.sendResponseHeaders(spec.status(), route.body().length);
+			exchange.getResponseBody().write(route.body());
+			return;
+		}
+
+		// 합성 첨부 파일: 같은 내용의 청크를 반복하여 크기만큼 흘려 보낸다.
+		exchange.sendResponseHeaders(spec.status(), spec.size() > 0 ? spec.size() : -1);
+		byte[] chunk = new byte[CHUNK_SIZE];
+		for ( int i = 0; i < chunk.length; ++i ) {
+			chunk[i] = (byte)('a' + (i % 26));
+		}
+		OutputStream out = exchange.getResponseBody();
+		for ( long remains = spec.size(); remains > 0; ) {
+			int len = (int)Math.min(remains, chunk.length);
+			out.write(chunk, 0, len);
+			remains -= len;
+		}
+	}
+
+	private static Route toRoute(Scenario.RouteSpec spec, JsonMapper mapper, String baseUrl)
+		throws JsonProcessingException {
+		byte[] body = null;
+		if ( spec.json() != null ) {
+			// JSON 문자열 안에서 바꾸므로 URL에 따옴표 등 이스케이프할 문자가 없어야 한다. (루프백 주소와 포트뿐)
+			String json = mapper.writeValueAsString(spec.json()).replace(BASE_URL_VARIABLE, baseUrl);
+			body = json.getBytes(StandardCharsets.UTF_8);
+		}
+		return new Route(spec, body);
+	}
+
+	private static void drain(InputStream is) throws IOException {
+		is.transferTo(OutputStream.nullOutputStream());
+	}
+}
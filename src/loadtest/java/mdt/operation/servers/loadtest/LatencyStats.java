@@ -0,0 +1,168 @@
+package mdt.operation.servers.loadtest;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+import javax.annotation.concurrent.GuardedBy;
+
+
+/**
+ * 한 요청 종류의 지연 시간과 응답 코드 집계.
+ * <p>
+ * 지연 시간은 요청이 예정된 시각부터 응답을 받을 때까지로 측정하므로, 서버가 밀려 요청 발생이 늦어진 시간도
+ * 포함된다. 모든 측정값을 보관하였다가 {@link #report(double)}에서 정렬하여 백분위를 계산한다.
+ * 응답 코드가 {@code 5xx}이거나 응답을 받지 못한 요청은 오류로, {@code 429}/{@code 503}은 수락 거부로
+ * 따로 센다. 종료되어 회수된 세션에 대한 {@code 404}는 오류로 세지 않는다.
+ *
+ * @author Kang-Woo Lee (ETRI)
+ */
+public class LatencyStats {
+	/** 응답을 받지 못한 요청(연결 실패, 시간 초과 등)의 응답 코드. */
+	public static final int NO_RESPONSE = -1;
+
+	private final ReentrantLock m_lock = new ReentrantLock();
+	@GuardedBy("m_lock") private long[] m_latencies = new long[1024];
+	@GuardedBy("m_lock") private int m_count = 0;
+	@GuardedBy("m_lock") private long m_errors = 0;
+	@GuardedBy("m_lock") private long m_rejected = 0;
+	@GuardedBy("m_lock") private long m_dropped = 0;
+	@GuardedBy("m_lock") private final Map<String,Long> m_codes = new TreeMap<>();
+
+	/**
+	 * 집계 결과.
+	 *
+	 * @param count			응답을 기다린 요청 수.
+	 * @param dropped		동시 요청 수 제한으로 보내지 못한 요청 수.
+	 * @param errors		오류 요청 수.
+	 * @param rejected		수락 거부된 요청 수.
+	 * @param errorRate		오류 비율. ({@code errors / count})
+	 * @param throughput	초당 완료 요청 수.
+	 * @param p50Ms			50 백분위 지연 시간(밀리초).
+	 * @param p99Ms			99 백분위 지연 시간(밀리초).
+	 * @param p999Ms		99.9 백분위 지연 시간(밀리초).
+	 * @param maxMs			최대 지연 시간(밀리초).
+	 * @param statusCodes	응답 코드별 요청 수. 응답을 받지 못한 요청은 {@code "none"}.
+	 */
+	public record Report(long count, long dropped, long errors, long rejected, double errorRate,
+						double throughput, double p50Ms, double p99Ms, double p999Ms, double maxMs,
+						Map<String,Long> statusCodes) { }
+
+	/**
+	 * 완료된 요청을 기록한다.
+	 *
+	 * @param latencyNanos	지연 시간(나노초).
+	 * @param status		응답 코드. 응답을 받지 못했으면 {@link #NO_RESPONSE}.
+	 */
+	public void record(long latencyNanos, int status) {
+		m_lock.lock();
+		try {
+			if ( m_count == m_latencies.length ) {
+				m_latencies = Arrays.copyOf(m_latencies, m_count * 2);
+			}
+			m_latencies[m_count++] = latencyNanos;
+			m_codes.merge((status == NO_RESPONSE) ? "none" : Integer.toString(status), 1L, Long::sum);
+			if ( status == NO_RESPONSE || status >= 500 && status != 503 ) {
+				++m_errors;
+			}
+			else if ( status == 429 || status == 503 ) {
+				++m_rejected;
+			}
+		}
+		finally {
+			m_lock.unlock();
+		}
+	}
+
+	/**
+	 * 동시 요청 수 제한으로 보내지 못한 요청을 기록한다.
+	 */
+	public void recordDropped() {
+		m_lock.lock();
+		try {
+			++m_dropped;
+		}
+		finally {
+			m_lock.unlock();
+		}
+	}
+
+	/**
+	 * 다른 집계를 이 집계에 더한다.
+	 *
+	 * @param other	더할 집계.
+	 */
+	public void addAll(LatencyStats other) {
+		long[] latencies;
+		int count;
+		long errors, rejected, dropped;
+		Map<String,Long> codes;
+		other.m_lock.lock();
+		try {
+			latencies = Arrays.copyOf(other.m_latencies, other.m_count);
+			count = other.m_count;
+			errors = other.m_errors;
+			rejected = other.m_rejected;
+			dropped = other.m_dropped;
+			codes = new TreeMap<>(other.m_codes);
+		}
+		finally {
+			other.m_lock.unlock();
+		}
+
+		m_lock.lock();
+		try {
+			if ( m_count + count > m_latencies.length ) {
+				m_latencies = Arrays.copyOf(m_latencies, Math.max(m_count + count, m_latencies.length * 2));
+			}
+			System.arraycopy(latencies, 0, m_latencies, m_count, count);
+			m_count += count;
+			m_errors += errors;
+			m_rejected += rejected;
+			m_dropped += dropped;
+			codes.forEach((code, n) -> m_codes.merge(code, n, Long::sum));
+		}
+		finally {
+			m_lock.unlock();
+		}
+	}
+
+	/**
+	 * 현재까지의 집계 결과를 반환한다.
+	 *
+	 * @param elapsedSeconds	측정 시간(초). 처리량 계산에 사용된다.
+	 * @return	집계 결과.
+	 */
+	public Report report(double elapsedSeconds) {
+		m_lock.lock();
+		try {
+			long[] sorted = Arrays.copyOf(m_latencies, m_count);
+			Arrays.sort(sorted);
+
+			double errorRate = (m_count > 0) ? m_errors / (double)m_count : 0;
+			double throughput = (elapsedSeconds > 0) ? m_count / elapsedSeconds : 0;
+			return new Report(m_count, m_dropped, m_errors, m_rejected, errorRate, throughput,
+								percentile(sorted, 0.50), percentile(sorted, 0.99), percentile(sorted, 0.999),
+								(sorted.length > 0) ? toMillis(sorted[sorted.length - 1]) : 0,
+								new TreeMap<>(m_codes));
+		}
+		finally {
+			m_lock.unlock();
+		}
+	}
+
+	static double percentile(long[] sorted, double quantile) {
+		if ( sorted.length == 0 ) {
+			return 0;
+		}
+		// nearest-rank 방식
+		int rank = (int)Math.ceil(quantile * sorted.length);
+		return toMillis(sorted[Math.max(rank, 1) - 1]);
+	}
+
+	private static double toMillis(long nanos) {
+		return nanos / (double)TimeUnit.MILLISECONDS.toNanos(1);
+	}
+}
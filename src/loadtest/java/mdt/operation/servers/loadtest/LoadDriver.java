@@ -0,0 +1,293 @@
+package mdt.operation.servers.loadtest;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+
+import utils.Preconditions;
+
+
+/**
+ * 목표 요청률로 디스패처에 요청을 보내는 부하 발생기.
+ * <p>
+ * 요청은 응답을 기다리지 않고 {@code 1 / rate} 간격으로 예정되며(open-loop), 예정 시각이 되면 요청 종류 비율에
+ * 따라 연산 시작, 세션 상태 조회, 세션 취소 중 하나를 가상 스레드에서 보낸다. 상태 조회와 취소는 연산 시작
+ * 응답으로 받은 세션들 중 하나를 임의로 골라 대상으로 하며, 아직 세션이 없으면 연산 시작으로 대신한다.
+ * 동시 요청 수가 {@link Scenario#maxInFlight()}에 이르면 해당 요청은 보내지 않고 {@code dropped}로 센다.
+ *
+ * @author Kang-Woo Lee (ETRI)
+ */
+public class LoadDriver {
+	private static final Logger s_logger = LoggerFactory.getLogger(LoadDriver.class);
+	private static final int SESSION_POOL_SIZE = 4096;
+	private static final int SESSION_PICK_ATTEMPTS = 8;
+	private static final Duration REQUEST_TIMEOUT = Duration.ofMinutes(1);
+
+	/** 요청 종류. */
+	public enum Action {
+		RUN, STATUS, DELETE;
+
+		public String tag() {
+			return name().toLowerCase(Locale.ROOT);
+		}
+	}
+
+	private final Scenario m_scenario;
+	private final String m_baseUrl;
+	private final JsonMapper m_mapper;
+	private final HttpClient m_client;
+	private final Map<Action,LatencyStats> m_stats = new EnumMap<>(Action.class);
+	private final AtomicReferenceArray<String> m_sessions = new AtomicReferenceArray<>(SESSION_POOL_SIZE);
+	private final AtomicLong m_sessionCursor = new AtomicLong();
+	private final AtomicLong m_sessionCount = new AtomicLong();
+	private final byte[][] m_requestBodies;
+	private final double m_totalWeight;
+
+	/**
+	 * 부하 발생 결과.
+	 *
+	 * @param elapsedSeconds	측정 시간(초). 예열 시간은 제외된다.
+	 * @param scheduled			측정 시간 중 예정된 요청 수.
+	 * @param actions			요청 종류별 집계.
+	 */
+	public record Result(double elapsedSeconds, long scheduled, Map<Action,LatencyStats> actions) { }
+
+	/**
+	 * 부하 발생기를 생성한다.
+	 *
+	 * @param scenario	시나리오.
+	 * @param baseUrl	디스패처 API 기준 URL (예: {@code http://127.0.0.1:8080/api/v1}).
+	 * @param mapper	JSON 변환기.
+	 * @throws IOException	연산 시작 요청 본문을 직렬화하지 못한 경우.
+	 */
+	public LoadDriver(Scenario scenario, String baseUrl, JsonMapper mapper) throws IOException {
+		Preconditions.checkNotNullArgument(scenario, "scenario is null");
+		Preconditions.checkNotNullArgument(baseUrl, "baseUrl is null");
+
+		m_scenario = scenario;
+		m_baseUrl = baseUrl;
+		m_mapper = mapper;
+		m_client = HttpClient.newBuilder()
+							.version(HttpClient.Version.HTTP_1_1)
+							.connectTimeout(Duration.ofSeconds(10))
+							.executor(Executors.newVirtualThreadPerTaskExecutor())
+							.build();
+		for ( Action action: Action.values() ) {
+			m_stats.put(action, new LatencyStats());
+		}
+
+		List<Scenario.OperationSpec> ops = scenario.operations();
+		m_requestBodies = new byte[ops.size()][];
+		double total = 0;
+		for ( int i = 0; i < ops.size(); ++i ) {
+			m_requestBodies[i] = mapper.writeValueAsBytes(ops.get(i).request());
+			total += ops.get(i).weight();
+		}
+		m_totalWeight = total;
+	}
+
+	/**
+	 * 예열 시간과 측정 시간 동안 부하를 발생시키고, 보낸 요청들이 모두 끝날 때까지 기다린다.
+	 *
+	 * @return	측정 시간 중의 집계.
+	 * @throws InterruptedException	대기 중 인터럽트된 경우.
+	 */
+	public Result run() throws InterruptedException {
+		long intervalNanos = Math.max(1, (long)(TimeUnit.SECONDS.toNanos(1) / m_scenario.rate()));
+		long startNanos = System.nanoTime();
+		long measureFrom = startNanos + TimeUnit.SECONDS.toNanos(m_scenario.warmupSeconds());
+		long endNanos = measureFrom + TimeUnit.SECONDS.toNanos(m_scenario.durationSeconds());
+
+		LatencyStats warmup = new LatencyStats();
+		Semaphore inFlight = new Semaphore(m_scenario.maxInFlight());
+		long scheduled = 0;
+		try ( ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor() ) {
+			for ( long next = startNanos; next < endNanos; next += intervalNanos ) {
+				for ( long wait = next - System.nanoTime(); wait > 0; wait = next - System.nanoTime() ) {
+					LockSupport.parkNanos(wait);
+				}
+				if ( Thread.interrupted() ) {
+					throw new InterruptedException();
+				}
+
+				boolean measured = next >= measureFrom;
+				Action action = pickAction();
+				LatencyStats stats = measured ? m_stats.get(action) : warmup;
+				if ( measured ) {
+					++scheduled;
+				}
+				if ( !inFlight.tryAcquire() ) {
+					stats.recordDropped();
+					continue;
+				}
+
+				long scheduledAt = next;
+				executor.execute(() -> {
+					try {
+						int status = send(action);
+						stats.record(System.nanoTime() - scheduledAt, status);
+					}
+					finally {
+						inFlight.release();
+					}
+				});
+			}
+		}
+
+		return new Result(m_scenario.durationSeconds(), scheduled, m_stats);
+	}
+
+	private Action pickAction() {
+		Scenario.Mix mix = m_scenario.mix();
+		double r = ThreadLocalRandom.current().nextDouble(mix.run() + mix.status() + mix.delete());
+		Action action = (r < mix.run()) ? Action.RUN
+						: (r < mix.run() + mix.status()) ? Action.STATUS : Action.DELETE;
+		return (action != Action.RUN && m_sessionCount.get() == 0) ? Action.RUN : action;
+	}
+
+	private int send(Action action) {
+		try {
+			return switch ( action ) {
+				case RUN -> startOperation();
+				case STATUS -> pollStatus();
+				case DELETE -> cancelSession();
+			};
+		}
+		catch ( InterruptedException e ) {
+			Thread.currentThread().interrupt();
+			return LatencyStats.NO_RESPONSE;
+		}
+		catch ( IOException e ) {
+			s_logger.debug("request failed: action={}, cause={}", action.tag(), e.toString());
+			return LatencyStats.NO_RESPONSE;
+		}
+	}
+
+	private int startOperation() throws IOException, InterruptedException {
+		int idx = pickOperation();
+		String opId = m_scenario.operations().get(idx).id();
+		HttpRequest req = newRequest("/operations/" + opId)
+							.header("Content-Type", "application/json")
+							.POST(HttpRequest.BodyPublishers.ofByteArray(m_requestBodies[idx]))
+							.build();
+		HttpResponse<byte[]> resp = m_client.send(req, HttpResponse.BodyHandlers.ofByteArray());
+		if ( resp.statusCode() / 100 == 2 ) {
+			String sessionId = findSessionId(m_mapper.readTree(resp.body()));
+			if ( sessionId != null ) {
+				addSession(sessionId);
+			}
+		}
+		return resp.statusCode();
+	}
+
+	private int pollStatus() throws IOException, InterruptedException {
+		int slot = pickSession();
+		String sessionId = (slot >= 0) ? m_sessions.get(slot) : null;
+		if ( sessionId == null ) {
+			return startOperation();
+		}
+
+		HttpRequest req = newRequest("/sessions/" + sessionId + "/state").GET().build();
+		HttpResponse<Void> resp = m_client.send(req, HttpResponse.BodyHandlers.discarding());
+		if ( resp.statusCode() == 404 ) {
+			// 종료되어 회수된 세션은 더 이상 대상으로 삼지 않는다.
+			removeSession(slot, sessionId);
+		}
+		return resp.statusCode();
+	}
+
+	private int cancelSession() throws IOException, InterruptedException {
+		int slot = pickSession();
+		String sessionId = (slot >= 0) ? m_sessions.get(slot) : null;
+		if ( sessionId == null || !removeSession(slot, sessionId) ) {
+			return startOperation();
+		}
+
+		HttpRequest req = newRequest("/sessions/" + sessionId).DELETE().build();
+		return m_client.send(req, HttpResponse.BodyHandlers.discarding()).statusCode();
+	}
+
+	private HttpRequest.Builder newRequest(String path) {
+		return HttpRequest.newBuilder(URI.create(m_baseUrl + path)).timeout(REQUEST_TIMEOUT);
+	}
+
+	private int pickOperation() {
+		List<Scenario.OperationSpec> ops = m_scenario.operations();
+		double r = ThreadLocalRandom.current().nextDouble(m_totalWeight);
+		for ( int i = 0; i < ops.size() - 1; ++i ) {
+			r -= ops.get(i).weight();
+			if ( r < 0 ) {
+				return i;
+			}
+		}
+		return ops.size() - 1;
+	}
+
+	private void addSession(String sessionId) {
+		int slot = (int)(m_sessionCursor.getAndIncrement() % SESSION_POOL_SIZE);
+		if ( m_sessions.getAndSet(slot, sessionId) == null ) {
+			m_sessionCount.incrementAndGet();
+		}
+	}
+
+	private int pickSession() {
+		int bound = (int)Math.min(m_sessionCursor.get(), SESSION_POOL_SIZE);
+		if ( bound == 0 ) {
+			return -1;
+		}
+		for ( int i = 0; i < SESSION_PICK_ATTEMPTS; ++i ) {
+			int slot = ThreadLocalRandom.current().nextInt(bound);
+			if ( m_sessions.get(slot) != null ) {
+				return slot;
+			}
+		}
+		return -1;
+	}
+
+	private boolean removeSession(int slot, String sessionId) {
+		if ( m_sessions.compareAndSet(slot, sessionId, null) ) {
+			m_sessionCount.decrementAndGet();
+			return true;
+		}
+		return false;
+	}
+
+	/**
+	 * 연산 시작 응답에서 세션 엔드포인트({@code /sessions/<id>})를 찾아 세션 식별자를 반환한다.
+	 */
+	static @Nullable String findSessionId(JsonNode node) {
+		if ( node.isTextual() ) {
+			String text = node.asText();
+			return text.startsWith("/sessions/") ? text.substring("/sessions/".length()) : null;
+		}
+		for ( JsonNode child: node ) {
+			String found = findSessionId(child);
+			if ( found != null ) {
+				return found;
+			}
+		}
+		return null;
+	}
+}
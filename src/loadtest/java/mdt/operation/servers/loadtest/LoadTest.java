@@ -0,0 +1,214 @@
+package mdt.operation.servers.loadtest;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.io.FileUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import mdt.operation.servers.RpcServerDispatcherApplication;
+
+
+/**
+ * 디스패처 종단간 부하 시험 진입점.
+ * <p>
+ * 실제 MDT 배치 없이 용량 산정을 하기 위한 도구로, 다음 순서로 수행된다.
+ * <ol>
+ * 	<li>임시 디렉토리에 시나리오의 연산들({@code operations/<id>/operation.json})을 기록한다.
+ * 	<li>MDT 인스턴스 관리자 대역({@link InstanceManagerStandIn})을 지역 포트에서 시작한다.
+ * 	<li>디스패처를 임의 포트에서 시작한다. 연산·메모·작업자 풀 디렉토리는 모두 임시 디렉토리를,
+ * 		MDT 인스턴스 관리자는 대역을 사용하며, 환경 파일({@code config/env.file})은 읽지 않는다.
+ * 	<li>{@link LoadDriver}로 예열 후 측정 시간 동안 부하를 발생시킨다.
+ * 	<li>처리량, 지연 시간 백분위, 오류 비율을 JSON으로 표준 출력(및 {@code --report} 파일)에 기록한다.
+ * </ol>
+ * 사용법: {@code LoadTest <scenario.json> [--report <file>] [--rate <n>] [--duration <seconds>]}.
+ * Gradle에서는 {@code ./gradlew loadTest -PloadTest.scenario=<file>}로 실행한다.
+ *
+ * @author Kang-Woo Lee (ETRI)
+ */
+public class LoadTest {
+	private static final Logger s_logger = LoggerFactory.getLogger(LoadTest.class);
+	private static final String DESCRIPTOR_FILE_NAME = "operation.json";
+	private static final String POLICY_FILE_NAME = "dispatch.json";
+
+	/**
+	 * 부하 시험 보고서.
+	 *
+	 * @param startedAt			측정 시작 시각(ISO-8601).
+	 * @param durationSeconds	측정 시간(초).
+	 * @param targetRate		목표 요청률(초당 요청 수).
+	 * @param achievedRate		실제 보낸 요청률(초당 요청 수). 보내지 못한({@code dropped}) 요청은 제외된다.
+	 * @param total				전체 집계.
+	 * @param actions			요청 종류별 집계.
+	 * @param instanceManager	MDT 인스턴스 관리자 대역의 처리 현황.
+	 */
+	public record Report(String startedAt, double durationSeconds, double targetRate, double achievedRate,
+						LatencyStats.Report total, Map<String,LatencyStats.Report> actions,
+						StandInReport instanceManager) { }
+
+	/**
+	 * MDT 인스턴스 관리자 대역의 처리 현황.
+	 *
+	 * @param reads		등록된 경로의 {@code GET} 요청 수.
+	 * @param writes	등록된 경로의 기록 요청 수.
+	 * @param misses	등록되지 않은 경로별 요청 수.
+	 */
+	public record StandInReport(long reads, long writes, Map<String,Long> misses) { }
+
+	public static void main(String[] args) throws Exception {
+		if ( args.length < 1 ) {
+			System.err.println("usage: LoadTest <scenario.json> [--report <file>] [--rate <n>] [--duration <seconds>]");
+			System.exit(2);
+		}
+
+		JsonMapper mapper = JsonMapper.builder().findAndAddModules().build();
+		Scenario scenario = Scenario.load(new File(args[0]), mapper);
+		File reportFile = null;
+		for ( int i = 1; i + 1 < args.length; i += 2 ) {
+			switch ( args[i] ) {
+				case "--report" -> reportFile = new File(args[i + 1]);
+				case "--rate" -> scenario = withRate(scenario, Double.parseDouble(args[i + 1]));
+				case "--duration" -> scenario = withDuration(scenario, Integer.parseInt(args[i + 1]));
+				default -> throw new IllegalArgumentException("unknown option: " + args[i]);
+			}
+		}
+
+		Report report = run(scenario, mapper);
+		String json = mapper.writerWithDefaultPrettyPrinter().writeValueAsString(report);
+		System.out.println(json);
+		if ( reportFile != null ) {
+			FileUtils.writeStringToFile(reportFile, json, "utf-8");
+		}
+		System.exit(0);
+	}
+
+	/**
+	 * 시나리오에 따라 부하 시험을 수행한다.
+	 *
+	 * @param scenario	시나리오.
+	 * @param mapper	JSON 변환기.
+	 * @return	부하 시험 보고서.
+	 * @throws IOException	임시 디렉토리를 구성하거나 대역 서버를 시작하지 못한 경우.
+	 * @throws InterruptedException	부하 발생 중 인터럽트된 경우.
+	 */
+	public static Report run(Scenario scenario, JsonMapper mapper) throws IOException, InterruptedException {
+		File workDir = Files.createTempDirectory("mdt-loadtest-").toFile();
+		try ( InstanceManagerStandIn standIn = new InstanceManagerStandIn(scenario.instanceManagerPath(),
+																		scenario.routes(), mapper) ) {
+			File opsDir = writeOperations(scenario.operations(), new File(workDir, "operations"), mapper);
+
+			ConfigurableApplicationContext context;
+			try {
+				context = startDispatcher(workDir, opsDir, standIn.getUrl(), Map.of());
+			}
+			catch ( RuntimeException e ) {
+				s_logger.error("failed to start dispatcher: stand-in misses={}", standIn.getMisses());
+				throw e;
+			}
+
+			try ( context ) {
+				String port = context.getEnvironment().getProperty("local.server.port");
+				String baseUrl = String.format("http://127.0.0.1:%s/api/v1", port);
+				s_logger.info("load test: dispatcher={}, instance-manager={}, rate={}/s, duration={}s (+{}s warmup)",
+								baseUrl, standIn.getUrl(), scenario.rate(), scenario.durationSeconds(),
+								scenario.warmupSeconds());
+
+				Instant startedAt = Instant.now().plusSeconds(scenario.warmupSeconds());
+				LoadDriver.Result result = new LoadDriver(scenario, baseUrl, mapper).run();
+
+				LatencyStats total = new LatencyStats();
+				Map<String,LatencyStats.Report> actions = new LinkedHashMap<>();
+				result.actions().forEach((action, stats) -> {
+					actions.put(action.tag(), stats.report(result.elapsedSeconds()));
+					total.addAll(stats);
+				});
+				LatencyStats.Report totalReport = total.report(result.elapsedSeconds());
+				double achievedRate = (result.scheduled() - totalReport.dropped()) / result.elapsedSeconds();
+
+				StandInReport standInReport = new StandInReport(standIn.getReadCount(), standIn.getWriteCount(),
+																standIn.getMisses());
+				return new Report(startedAt.toString(), result.elapsedSeconds(), scenario.rate(), achievedRate,
+									totalReport, actions, standInReport);
+			}
+		}
+		finally {
+			FileUtils.deleteQuietly(workDir);
+		}
+	}
+
+	/**
+	 * 작업 디렉토리와 MDT 인스턴스 관리자 대역을 사용하는 디스패처를 임의 포트에서 시작한다.
+	 *
+	 * @param workDir				작업 디렉토리.
+	 * @param opsDir				연산 디렉토리.
+	 * @param instanceManagerUrl	MDT 인스턴스 관리자 대역의 URL.
+	 * @param properties			추가로 지정할 설정들.
+	 * @return	시작된 디스패처의 애플리케이션 컨텍스트.
+	 */
+	static ConfigurableApplicationContext startDispatcher(File workDir, File opsDir, String instanceManagerUrl,
+															Map<String,Object> properties) {
+		// 작업 디렉토리의 환경 파일이 아래 설정을 덮어쓰지 않도록 존재하지 않는 경로를 지정한다.
+		System.setProperty("env.file", new File(workDir, "env.file").getAbsolutePath());
+
+		Map<String,Object> props = new LinkedHashMap<>(Map.of(
+			"server.port", "0",
+			"rpc-servers.operationsDir", opsDir.getAbsolutePath(),
+			"rpc-servers.instanceManagerUrl", instanceManagerUrl,
+			"rpc-servers.workerPoolDir", new File(workDir, "worker-pools").getAbsolutePath(),
+			"rpc-servers.memoDir", new File(workDir, "memo").getAbsolutePath(),
+			"rpc-servers.watchOperations", "false"));
+		props.putAll(properties);
+		return new SpringApplicationBuilder(RpcServerDispatcherApplication.class)
+					.properties(props)
+					.run();
+	}
+
+	/**
+	 * 연산 디렉토리에 시험용 연산들을 기록한다.
+	 *
+	 * @param operations	시험용 연산들.
+	 * @param opsDir		연산 디렉토리.
+	 * @param mapper		JSON 변환기.
+	 * @return	연산 디렉토리.
+	 * @throws IOException	연산 파일을 기록하지 못한 경우.
+	 */
+	static File writeOperations(List<Scenario.OperationSpec> operations, File opsDir, JsonMapper mapper)
+		throws IOException {
+		for ( Scenario.OperationSpec op: operations ) {
+			File opDir = new File(opsDir, op.id());
+			FileUtils.forceMkdir(opDir);
+
+			ObjectNode descriptor = op.descriptor().deepCopy();
+			if ( !descriptor.hasNonNull("workingDirectory") ) {
+				descriptor.put("workingDirectory", opDir.getAbsolutePath());
+			}
+			mapper.writerWithDefaultPrettyPrinter()
+					.writeValue(new File(opDir, DESCRIPTOR_FILE_NAME), descriptor);
+			if ( op.dispatch() != null ) {
+				mapper.writerWithDefaultPrettyPrinter().writeValue(new File(opDir, POLICY_FILE_NAME), op.dispatch());
+			}
+		}
+		return opsDir;
+	}
+
+	private static Scenario withRate(Scenario s, double rate) {
+		return new Scenario(s.durationSeconds(), s.warmupSeconds(), rate, s.maxInFlight(), s.mix(), s.operations(),
+							s.instanceManagerPath(), s.routes());
+	}
+
+	private static Scenario withDuration(Scenario s, int durationSeconds) {
+		return new Scenario(durationSeconds, s.warmupSeconds(), s.rate(), s.maxInFlight(), s.mix(), s.operations(),
+							s.instanceManagerPath(), s.routes());
+	}
+}
@@ -0,0 +1,115 @@
+package mdt.operation.servers.loadtest;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+
+import org.jetbrains.annotations.Nullable;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+
+import utils.Preconditions;
+
+
+/**
+ * 부하 시험 시나리오.
+ * <p>
+ * JSON 파일로 기술하며, 예는 {@code src/loadtest/resources/scenarios/default.json}을 참고한다.
+ *
+ * @param durationSeconds	측정 시간(초).
+ * @param warmupSeconds		측정 전 예열 시간(초). 예열 중의 요청은 집계하지 않는다.
+ * @param rate				목표 요청률(초당 요청 수). 요청은 응답과 무관하게 일정 간격으로 발생한다.
+ * @param maxInFlight		최대 동시 요청 수. 넘으면 해당 요청은 보내지 않고 {@code dropped}로 집계한다.
+ * @param mix				요청 종류별 비율.
+ * @param operations		시험용 연산들.
+ * @param instanceManagerPath	MDT 인스턴스 관리자 대역의 기준 경로.
+ * @param routes			MDT 인스턴스 관리자 대역이 응답할 경로별 응답.
+ *
+ * @author Kang-Woo Lee (ETRI)
+ */
+public record Scenario(int durationSeconds, int warmupSeconds, double rate, int maxInFlight, Mix mix,
+						List<OperationSpec> operations, @Nullable String instanceManagerPath,
+						@Nullable Map<String,RouteSpec> routes) {
+	public Scenario {
+		Preconditions.checkArgument(durationSeconds > 0, "durationSeconds must be positive: " + durationSeconds);
+		Preconditions.checkArgument(warmupSeconds >= 0, "warmupSeconds must not be negative: " + warmupSeconds);
+		Preconditions.checkArgument(rate > 0, "rate must be positive: " + rate);
+		Preconditions.checkArgument(operations != null && !operations.isEmpty(), "operations are not specified");
+
+		maxInFlight = (maxInFlight > 0) ? maxInFlight : 256;
+		mix = (mix != null) ? mix : new Mix(1, 0, 0);
+		instanceManagerPath = (instanceManagerPath != null) ? instanceManagerPath : "/instance-manager";
+		routes = (routes != null) ? routes : Map.of();
+	}
+
+	/**
+	 * 요청 종류별 비율. 합이 1일 필요는 없다.
+	 *
+	 * @param run		연산 시작({@code POST /operations/{id}}) 비율.
+	 * @param status	세션 상태 조회({@code GET /sessions/{id}/state}) 비율.
+	 * @param delete	세션 취소({@code DELETE /sessions/{id}}) 비율.
+	 */
+	public record Mix(double run, double status, double delete) {
+		public Mix {
+			Preconditions.checkArgument(run >= 0 && status >= 0 && delete >= 0 && run + status + delete > 0,
+										"invalid request mix: run=" + run + ", status=" + status + ", delete=" + delete);
+		}
+	}
+
+	/**
+	 * 시험용 연산.
+	 *
+	 * @param id			연산 식별자.
+	 * @param weight		연산 시작 요청 중 이 연산이 차지하는 비중. 0이면 1로 간주한다.
+	 * @param descriptor	연산 디렉토리에 기록할 {@code operation.json} 내용. {@code workingDirectory}가 없으면
+	 * 						연산 디렉토리로 설정된다.
+	 * @param dispatch		연산 디렉토리에 기록할 {@code dispatch.json} 내용. 없으면 {@code null}.
+	 * @param request		연산 시작 요청 본문.
+	 */
+	public record OperationSpec(String id, double weight, JsonNode descriptor, @Nullable JsonNode dispatch,
+								JsonNode request) {
+		public OperationSpec {
+			Preconditions.checkNotNullArgument(id, "operation id is not specified");
+			Preconditions.checkNotNullArgument(descriptor, "descriptor is not specified: op=" + id);
+			Preconditions.checkNotNullArgument(request, "request is not specified: op=" + id);
+
+			weight = (weight > 0) ? weight : 1;
+		}
+	}
+
+	/**
+	 * MDT 인스턴스 관리자 대역의 한 경로에 대한 응답.
+	 * <p>
+	 * {@code GET}에는 {@code json}(요소 값 등) 또는 {@code size} 바이트의 합성 첨부 파일로 응답하고,
+	 * {@code PUT}/{@code POST}/{@code PATCH}(출력 기록)는 본문을 버리고 {@code 204}로 응답한다.
+	 * {@code json}의 문자열 값에 포함된 {@code ${baseUrl}}은 대역 서버의 URL로 바뀐다.
+	 *
+	 * @param status		{@code GET} 응답 코드. 0이면 {@code 200}.
+	 * @param json			{@code GET} 응답 본문(JSON). 없으면 {@code null}.
+	 * @param size			{@code json}이 없을 때 응답할 합성 첨부 파일 크기(바이트).
+	 * @param contentType	응답 본문의 형식. 없으면 {@code json}에 따라 정해진다.
+	 * @param delayMillis	응답 전 지연 시간(밀리초). 원격 호출 지연을 흉내 낸다.
+	 */
+	public record RouteSpec(int status, @Nullable JsonNode json, long size, @Nullable String contentType,
+							long delayMillis) {
+		public RouteSpec {
+			status = (status > 0) ? status : 200;
+			contentType = (contentType != null) ? contentType
+						: (json != null) ? "application/json" : "application/octet-stream";
+		}
+	}
+
+	/**
+	 * 시나리오 파일을 읽는다.
+	 *
+	 * @param file	시나리오 파일.
+	 * @param mapper	JSON 변환기.
+	 * @return	시나리오.
+	 * @throws IOException	파일을 읽거나 해석하는 중 오류가 발생한 경우.
+	 */
+	public static Scenario load(File file, JsonMapper mapper) throws IOException {
+		return mapper.readValue(file, Scenario.class);
+	}
+}
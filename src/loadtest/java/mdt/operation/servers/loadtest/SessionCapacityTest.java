@@ -0,0 +1,210 @@
+package mdt.operation.servers.loadtest;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.commons.io.FileUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.fasterxml.jackson.databind.json.JsonMapper;
+
+
+/**
+ * 디스패처 한 JVM이 동시에 유지할 수 있는 세션 수를 가상 스레드 사용 전후로 비교하는 용량 시험 진입점.
+ * <p>
+ * 같은 시나리오로 디스패처를 {@code spring.threads.virtual.enabled=false}와 {@code true}로 차례로 띄우고, 각각에서
+ * 다음을 수행한다.
+ * <ol>
+ * 	<li>목표 동시 세션 수만큼 시험 연산 시작 요청을 응답을 기다리지 않고 보낸다.
+ * 	<li>디스패처(이 JVM)의 자식 프로세스 수, 곧 실행 중인 세션 프로세스 수가 목표에 이를 때까지 기다린다.
+ * 	<li>이르면 목표를 {@link CapacityScenario#growth()}배로 늘려 반복하고, 정해진 시간 안에 이르지 못하거나
+ * 		{@link CapacityScenario#maxSessions()}에 이르면 멈춘다.
+ * 	<li>세션 프로세스들을 모두 종료하고 디스패처를 내린다.
+ * </ol>
+ * 동기 수행 연산({@code runAsync=false})은 세션이 끝날 때까지 요청 처리 스레드를 점유하므로, 플랫폼 스레드
+ * 모드에서는 요청 처리 스레드 풀의 크기가 동시 세션 수의 상한이 된다. 결과는 모드별 최대 동시 세션 수와 단계별
+ * 세션 수·JVM 스레드 수·힙 사용량을 JSON으로 표준 출력(및 {@code --report} 파일)에 기록한다.
+ * <p>
+ * 사용법: {@code SessionCapacityTest <scenario.json> [--report <file>]}.
+ * Gradle에서는 {@code ./gradlew sessionCapacityTest -PcapacityTest.scenario=<file>}로 실행한다.
+ *
+ * @author Kang-Woo Lee (ETRI)
+ */
+public class SessionCapacityTest {
+	private static final Logger s_logger = LoggerFactory.getLogger(SessionCapacityTest.class);
+	private static final Duration REQUEST_TIMEOUT = Duration.ofHours(1);
+	private static final long POLL_MILLIS = 200;
+
+	/**
+	 * 용량 시험 보고서.
+	 *
+	 * @param platformThreads	{@code spring.threads.virtual.enabled=false}일 때의 결과.
+	 * @param virtualThreads	{@code spring.threads.virtual.enabled=true}일 때의 결과.
+	 */
+	public record Report(ModeReport platformThreads, ModeReport virtualThreads) { }
+
+	/**
+	 * 한 스레드 모드의 용량 시험 결과.
+	 *
+	 * @param virtualThreads	{@code spring.threads.virtual.enabled} 설정 값.
+	 * @param maxSessions		관측된 최대 동시 세션 수.
+	 * @param steps				단계별 결과.
+	 */
+	public record ModeReport(boolean virtualThreads, int maxSessions, List<Step> steps) { }
+
+	/**
+	 * 용량 시험 한 단계의 결과.
+	 *
+	 * @param target		목표 동시 세션 수.
+	 * @param sessions		대기 시간 안에 관측된 동시 세션 수.
+	 * @param errors		지금까지 실패한 연산 시작 요청 수.
+	 * @param jvmThreads	단계 끝의 JVM 플랫폼 스레드 수.
+	 * @param heapUsedBytes	단계 끝의 힙 사용량(바이트).
+	 */
+	public record Step(int target, int sessions, long errors, int jvmThreads, long heapUsedBytes) { }
+
+	public static void main(String[] args) throws Exception {
+		if ( args.length < 1 ) {
+			System.err.println("usage: SessionCapacityTest <scenario.json> [--report <file>]");
+			System.exit(2);
+		}
+
+		JsonMapper mapper = JsonMapper.builder().findAndAddModules().build();
+		CapacityScenario scenario = CapacityScenario.load(new File(args[0]), mapper);
+		File reportFile = null;
+		for ( int i = 1; i + 1 < args.length; i += 2 ) {
+			switch ( args[i] ) {
+				case "--report" -> reportFile = new File(args[i + 1]);
+				default -> throw new IllegalArgumentException("unknown option: " + args[i]);
+			}
+		}
+
+		Report report = new Report(run(scenario, false, mapper), run(scenario, true, mapper));
+		String json = mapper.writerWithDefaultPrettyPrinter().writeValueAsString(report);
+		System.out.println(json);
+		if ( reportFile != null ) {
+			FileUtils.writeStringToFile(reportFile, json, "utf-8");
+		}
+		System.exit(0);
+	}
+
+	/**
+	 * 주어진 스레드 모드로 디스패처를 띄워 동시 세션 용량을 잰다.
+	 *
+	 * @param scenario			시나리오.
+	 * @param virtualThreads	{@code spring.threads.virtual.enabled} 설정 값.
+	 * @param mapper			JSON 변환기.
+	 * @return	용량 시험 결과.
+	 * @throws IOException	임시 디렉토리를 구성하거나 대역 서버를 시작하지 못한 경우.
+	 * @throws InterruptedException	시험 중 인터럽트된 경우.
+	 */
+	public static ModeReport run(CapacityScenario scenario, boolean virtualThreads, JsonMapper mapper)
+		throws IOException, InterruptedException {
+		File workDir = Files.createTempDirectory("mdt-capacity-").toFile();
+		try ( InstanceManagerStandIn standIn = new InstanceManagerStandIn("/instance-manager", Map.of(), mapper) ) {
+			File opsDir = LoadTest.writeOperations(List.of(scenario.operation()), new File(workDir, "operations"),
+													mapper);
+			Map<String,Object> props = Map.of("spring.threads.virtual.enabled", Boolean.toString(virtualThreads),
+												"rpc-servers.maxConcurrentSessions", "0");
+			try ( ConfigurableApplicationContext context = LoadTest.startDispatcher(workDir, opsDir,
+																					standIn.getUrl(), props) ) {
+				String port = context.getEnvironment().getProperty("local.server.port");
+				String url = String.format("http://127.0.0.1:%s/api/v1/operations/%s", port,
+											scenario.operation().id());
+				s_logger.info("capacity test: virtualThreads={}, operation={}", virtualThreads, url);
+				return measure(scenario, virtualThreads, url, mapper.writeValueAsBytes(scenario.operation().request()));
+			}
+		}
+		finally {
+			FileUtils.deleteQuietly(workDir);
+		}
+	}
+
+	private static ModeReport measure(CapacityScenario scenario, boolean virtualThreads, String url, byte[] body)
+		throws InterruptedException {
+		HttpClient client = HttpClient.newBuilder()
+									.version(HttpClient.Version.HTTP_1_1)
+									.connectTimeout(Duration.ofSeconds(10))
+									.executor(Executors.newVirtualThreadPerTaskExecutor())
+									.build();
+		HttpRequest request = HttpRequest.newBuilder(URI.create(url))
+										.timeout(REQUEST_TIMEOUT)
+										.header("Content-Type", "application/json")
+										.POST(HttpRequest.BodyPublishers.ofByteArray(body))
+										.build();
+		AtomicLong errors = new AtomicLong();
+		List<Step> steps = new ArrayList<>();
+		int maxSessions = 0;
+		try ( ExecutorService senders = Executors.newVirtualThreadPerTaskExecutor() ) {
+			try {
+				int sent = 0;
+				for ( int target = scenario.initialSessions(); ; ) {
+					for ( ; sent < target; ++sent ) {
+						senders.execute(() -> {
+							try {
+								HttpResponse<Void> resp = client.send(request, HttpResponse.BodyHandlers.discarding());
+								if ( resp.statusCode() / 100 != 2 ) {
+									errors.incrementAndGet();
+								}
+							}
+							catch ( IOException | InterruptedException e ) {
+								errors.incrementAndGet();
+							}
+						});
+					}
+
+					int sessions = awaitSessions(target, scenario.settleSeconds());
+					maxSessions = Math.max(maxSessions, sessions);
+					steps.add(new Step(target, sessions, errors.get(),
+										ManagementFactory.getThreadMXBean().getThreadCount(),
+										ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed()));
+					s_logger.info("capacity step: virtualThreads={}, target={}, sessions={}, errors={}",
+									virtualThreads, target, sessions, errors.get());
+					if ( sessions < target || target >= scenario.maxSessions() ) {
+						break;
+					}
+					target = (int)Math.min(scenario.maxSessions(), Math.ceil(target * scenario.growth()));
+				}
+			}
+			finally {
+				// 세션 프로세스들을 종료하면 대기 중이던 연산 시작 요청들도 끝난다.
+				senders.shutdown();
+				while ( !senders.awaitTermination(POLL_MILLIS, TimeUnit.MILLISECONDS) ) {
+					ProcessHandle.current().descendants().forEach(ProcessHandle::destroyForcibly);
+				}
+			}
+		}
+
+		return new ModeReport(virtualThreads, maxSessions, steps);
+	}
+
+	private static int awaitSessions(int target, int settleSeconds) throws InterruptedException {
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(settleSeconds);
+		int sessions = countSessions();
+		while ( sessions < target && System.nanoTime() < deadline ) {
+			TimeUnit.MILLISECONDS.sleep(POLL_MILLIS);
+			sessions = countSessions();
+		}
+		return sessions;
+	}
+
+	private static int countSessions() {
+		return (int)ProcessHandle.current().children().filter(ProcessHandle::isAlive).count();
+	}
+}
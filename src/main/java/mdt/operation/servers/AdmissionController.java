@@ -0,0 +1,460 @@
+package mdt.operation.servers;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+import javax.annotation.concurrent.GuardedBy;
+
+import utils.Preconditions;
+
+
+/**
+ * 연산별·전역 동시 세션 수를 제한하는 연산 시작 승인(admission) 제어기.
+ * <p>
+ * 연산 시작 요청은 먼저 {@link #acquireAsync}(또는 슬롯을 얻을 때까지 기다리는 {@link #acquire})로 실행 슬롯을
+ * 얻어야 한다. 연산의 {@link OperationPolicy#maxConcurrency()}와 전역 최대 동시 세션 수 중 하나라도 다 찼으면
+ * 요청은 연산별 대기열에 들어가며, 슬롯이 반환되면({@link Permit#close()}) 대기열의 요청이 시작된다. 대기열
+ * 순서는 연산 정책에 따라 도착 순서(FIFO) 또는 우선순위이며, 서로 다른 연산의 대기 요청들 사이에서는 먼저
+ * 도착한 요청이 먼저 슬롯을 얻는다. 대기 중인 요청은 스레드를 점유하지 않으며, 슬롯을 얻으면
+ * {@link #acquireAsync}가 반환한 future가 완료된다.
+ * <p>
+ * 연산별 대기열({@link OperationPolicy#maxQueued()})이나 전역 대기열이 가득 찼거나 대기 제한 시간이 지나면
+ * {@link AdmissionRejectedException}으로 거절하며, 이때 최근 세션 수행 시간의 지수 이동 평균으로 재시도까지
+ * 기다릴 시간을 추정하여 함께 알려준다.
+ * <p>
+ * 연산별 상태(대기열, 수행 시간 추정)는 연산이 해제되면({@link #forget}) 수행 중인 세션과 대기 요청이 모두
+ * 끝난 뒤 제거된다.
+ *
+ * @author Kang-Woo Lee (ETRI)
+ */
+public class AdmissionController {
+	private static final double EWMA_WEIGHT = 0.2;
+	private static final Duration DEFAULT_RUN_ESTIMATE = Duration.ofSeconds(1);
+
+	private final int m_maxConcurrency;
+	private final int m_maxQueued;
+	private final ReentrantLock m_lock = new ReentrantLock();
+	@GuardedBy("m_lock") private final Map<String,OpState> m_states = new HashMap<>();
+	@GuardedBy("m_lock") private int m_running = 0;
+	@GuardedBy("m_lock") private int m_queued = 0;
+	@GuardedBy("m_lock") private long m_seqno = 0;
+	@GuardedBy("m_lock") private double m_avgRunMillis = -1;
+
+	private static final Comparator<Ticket> FIFO = Comparator.comparingLong(Ticket::seqno);
+	private static final Comparator<Ticket> PRIORITY = Comparator.comparingInt(Ticket::priority).reversed()
+																.thenComparingLong(Ticket::seqno);
+
+	private static final class Ticket {
+		private final String m_opId;
+		private final long m_seqno;
+		private final int m_priority;
+		private final CompletableFuture<Permit> m_future = new CompletableFuture<>();
+
+		Ticket(String opId, long seqno, int priority) {
+			m_opId = opId;
+			m_seqno = seqno;
+			m_priority = priority;
+		}
+
+		long seqno() {
+			return m_seqno;
+		}
+
+		int priority() {
+			return m_priority;
+		}
+	}
+
+	private static final class OpState {
+		private OperationPolicy m_policy;
+		private PriorityQueue<Ticket> m_waiting;
+		private int m_running = 0;
+		private double m_avgRunMillis = -1;
+		private boolean m_forgotten = false;
+
+		OpState(OperationPolicy policy) {
+			m_policy = policy;
+			m_waiting = newQueue(policy);
+		}
+
+		void update(OperationPolicy policy) {
+			if ( policy.queueOrder() != m_policy.queueOrder() ) {
+				PriorityQueue<Ticket> waiting = newQueue(policy);
+				waiting.addAll(m_waiting);
+				m_waiting = waiting;
+			}
+			m_policy = policy;
+		}
+
+		private static PriorityQueue<Ticket> newQueue(OperationPolicy policy) {
+			return new PriorityQueue<>((policy.queueOrder() == OperationPolicy.QueueOrder.PRIORITY)
+										? PRIORITY : FIFO);
+		}
+	}
+
+	/**
+	 * 연산 시작 요청이 거절된 경우 발생하는 예외.
+	 */
+	public static class AdmissionRejectedException extends RuntimeException {
+		private static final long serialVersionUID = 1L;
+
+		private final Duration m_retryAfter;
+
+		AdmissionRejectedException(String msg, Duration retryAfter) {
+			super(msg);
+
+			m_retryAfter = retryAfter;
+		}
+
+		/**
+		 * 재시도까지 기다릴 추정 시간을 반환한다.
+		 *
+		 * @return	재시도 대기 시간.
+		 */
+		public Duration getRetryAfter() {
+			return m_retryAfter;
+		}
+	}
+
+	/**
+	 * 획득한 실행 슬롯. 세션이 끝나면 {@link #close()}로 반환한다.
+	 */
+	public final class Permit implements AutoCloseable {
+		private final String m_opId;
+		private final long m_startedNanos = System.nanoTime();
+		private boolean m_closed = false;
+
+		private Permit(String opId) {
+			m_opId = opId;
+		}
+
+		/**
+		 * 슬롯을 반환하고, 슬롯을 얻은 이후의 경과 시간을 수행 시간 추정에 반영한다.
+		 * 여러 번 호출해도 한 번만 반환된다.
+		 */
+		@Override
+		public void close() {
+			release(this, true);
+		}
+
+		/**
+		 * 수행 시간 추정에 반영하지 않고 슬롯을 반환한다. (세션이 생성되지 않은 경우 등)
+		 */
+		public void abandon() {
+			release(this, false);
+		}
+	}
+
+	/**
+	 * 승인 제어기를 생성한다.
+	 *
+	 * @param maxConcurrency	전역 최대 동시 세션 수. 0이면 제한하지 않는다.
+	 * @param maxQueued			전역 최대 대기 요청 수. 0이면 대기하지 않고 바로 거절한다.
+	 */
+	public AdmissionController(int maxConcurrency, int maxQueued) {
+		Preconditions.checkArgument(maxConcurrency >= 0, "maxConcurrency must not be negative: " + maxConcurrency);
+		Preconditions.checkArgument(maxQueued >= 0, "maxQueued must not be negative: " + maxQueued);
+
+		m_maxConcurrency = (maxConcurrency > 0) ? maxConcurrency : Integer.MAX_VALUE;
+		m_maxQueued = maxQueued;
+	}
+
+	/**
+	 * 연산의 실행 슬롯을 요청한다. 이 메소드는 슬롯을 기다리지 않는다.
+	 * <p>
+	 * 슬롯이 있으면 이미 완료된 future를, 없으면 요청을 대기열에 넣고 슬롯을 얻을 때 완료되는 future를 반환한다.
+	 * 대기 제한 시간이 지나면 future는 {@link AdmissionRejectedException}으로 완료된다. 호출자가 future를
+	 * 취소하면 요청은 대기열에서 빠진다.
+	 *
+	 * @param opId		연산 식별자.
+	 * @param policy	연산 정책.
+	 * @param priority	요청 우선순위. (큰 값이 먼저, {@code PRIORITY} 순서의 연산에만 적용)
+	 * @param timeout	최대 대기 시간.
+	 * @return	실행 슬롯 future.
+	 * @throws AdmissionRejectedException	대기열이 가득 찬 경우.
+	 */
+	public CompletableFuture<Permit> acquireAsync(String opId, OperationPolicy policy, int priority,
+													Duration timeout) {
+		Preconditions.checkNotNullArgument(opId, "opId is null");
+		Preconditions.checkNotNullArgument(policy, "policy is null");
+		Preconditions.checkNotNullArgument(timeout, "timeout is null");
+
+		Ticket ticket;
+		m_lock.lock();
+		try {
+			OpState state = m_states.computeIfAbsent(opId, id -> new OpState(policy));
+			state.update(policy);
+			state.m_forgotten = false;
+
+			if ( state.m_waiting.isEmpty() && hasSlot(state) ) {
+				admit(state);
+				return CompletableFuture.completedFuture(new Permit(opId));
+			}
+			if ( state.m_waiting.size() >= policy.maxQueued() || m_queued >= m_maxQueued ) {
+				throw new AdmissionRejectedException("too many pending requests: op=" + opId,
+														estimateRetryAfter(state));
+			}
+
+			ticket = new Ticket(opId, m_seqno++, priority);
+			state.m_waiting.add(ticket);
+			++m_queued;
+		}
+		finally {
+			m_lock.unlock();
+		}
+
+		// 취소되거나 대기 제한 시간이 지나면 대기열에서 뺀다.
+		ticket.m_future.whenComplete((permit, error) -> {
+			if ( error != null ) {
+				withdraw(ticket, null);
+			}
+		});
+		CompletableFuture.delayedExecutor(timeout.toNanos(), TimeUnit.NANOSECONDS)
+						.execute(() -> withdraw(ticket, "timed out waiting for a slot: op=" + opId));
+		return ticket.m_future;
+	}
+
+	/**
+	 * 연산의 실행 슬롯을 얻는다. 슬롯이 없으면 대기열에서 슬롯이 반환되기를 기다린다.
+	 *
+	 * @param opId		연산 식별자.
+	 * @param policy	연산 정책.
+	 * @param priority	요청 우선순위. (큰 값이 먼저, {@code PRIORITY} 순서의 연산에만 적용)
+	 * @param timeout	최대 대기 시간.
+	 * @return	획득한 실행 슬롯.
+	 * @throws AdmissionRejectedException	대기열이 가득 찼거나 대기 시간이 초과된 경우.
+	 * @throws InterruptedException	대기 중 인터럽트된 경우.
+	 */
+	public Permit acquire(String opId, OperationPolicy policy, int priority, Duration timeout)
+		throws InterruptedException {
+		return await(acquireAsync(opId, policy, priority, timeout));
+	}
+
+	/**
+	 * {@link #acquireAsync}가 반환한 실행 슬롯 요청이 끝날 때까지 기다린다. 대기 중 인터럽트되면 요청을
+	 * 취소한다.
+	 *
+	 * @param future	실행 슬롯 future.
+	 * @return	획득한 실행 슬롯.
+	 * @throws AdmissionRejectedException	대기 시간이 초과된 경우.
+	 * @throws java.util.concurrent.CancellationException	요청이 취소된 경우.
+	 * @throws InterruptedException	대기 중 인터럽트된 경우.
+	 */
+	public static Permit await(CompletableFuture<Permit> future) throws InterruptedException {
+		try {
+			return future.get();
+		}
+		catch ( ExecutionException e ) {
+			if ( e.getCause() instanceof AdmissionRejectedException rejected ) {
+				throw rejected;
+			}
+			throw new IllegalStateException(e.getCause());
+		}
+		catch ( InterruptedException e ) {
+			if ( !future.cancel(false) && !future.isCompletedExceptionally() ) {
+				// 슬롯을 받은 직후 인터럽트된 경우는 슬롯을 반환하여 다른 요청이 사용하도록 한다.
+				future.join().abandon();
+			}
+			throw e;
+		}
+	}
+
+	/**
+	 * 해제된 연산의 상태를 제거한다. 수행 중인 세션이나 대기 요청이 남아 있으면 이들이 모두 끝난 뒤 제거한다.
+	 * 제거되기 전에 같은 연산의 요청이 다시 들어오면 상태는 유지된다.
+	 *
+	 * @param opId	연산 식별자.
+	 */
+	public void forget(String opId) {
+		m_lock.lock();
+		try {
+			OpState state = m_states.get(opId);
+			if ( state != null ) {
+				state.m_forgotten = true;
+				dropIfIdle(opId, state);
+			}
+		}
+		finally {
+			m_lock.unlock();
+		}
+	}
+
+	/**
+	 * 상태를 보관 중인 연산 수를 반환한다.
+	 *
+	 * @return	연산 수.
+	 */
+	int getOperationCount() {
+		m_lock.lock();
+		try {
+			return m_states.size();
+		}
+		finally {
+			m_lock.unlock();
+		}
+	}
+
+	/**
+	 * 현재 수행 중인 세션 수를 반환한다.
+	 *
+	 * @return	세션 수.
+	 */
+	public int getRunningCount() {
+		m_lock.lock();
+		try {
+			return m_running;
+		}
+		finally {
+			m_lock.unlock();
+		}
+	}
+
+	/**
+	 * 현재 대기 중인 요청 수를 반환한다.
+	 *
+	 * @return	요청 수.
+	 */
+	public int getQueuedCount() {
+		m_lock.lock();
+		try {
+			return m_queued;
+		}
+		finally {
+			m_lock.unlock();
+		}
+	}
+
+	private void release(Permit permit, boolean record) {
+		List<Ticket> granted = new ArrayList<>();
+		m_lock.lock();
+		try {
+			if ( permit.m_closed ) {
+				return;
+			}
+			permit.m_closed = true;
+
+			OpState state = m_states.get(permit.m_opId);
+			--state.m_running;
+			--m_running;
+			if ( record ) {
+				double elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - permit.m_startedNanos);
+				state.m_avgRunMillis = ewma(state.m_avgRunMillis, elapsed);
+				m_avgRunMillis = ewma(m_avgRunMillis, elapsed);
+			}
+			dispatch(granted);
+			dropIfIdle(permit.m_opId, state);
+		}
+		finally {
+			m_lock.unlock();
+		}
+		grant(granted);
+	}
+
+	/**
+	 * 아직 대기 중인 요청을 대기열에서 뺀다. {@code timeoutMessage}가 주어지면 요청을 거절한다.
+	 */
+	private void withdraw(Ticket ticket, String timeoutMessage) {
+		AdmissionRejectedException rejected = null;
+		List<Ticket> granted = new ArrayList<>();
+		m_lock.lock();
+		try {
+			OpState state = m_states.get(ticket.m_opId);
+			if ( state == null || !state.m_waiting.remove(ticket) ) {
+				// 이미 슬롯을 얻었거나 대기열에서 빠진 경우
+				return;
+			}
+			--m_queued;
+			if ( timeoutMessage != null ) {
+				rejected = new AdmissionRejectedException(timeoutMessage, estimateRetryAfter(state));
+			}
+			dispatch(granted);
+			dropIfIdle(ticket.m_opId, state);
+		}
+		finally {
+			m_lock.unlock();
+		}
+		grant(granted);
+		if ( rejected != null ) {
+			ticket.m_future.completeExceptionally(rejected);
+		}
+	}
+
+	private void grant(List<Ticket> granted) {
+		// future 완료에 연결된 작업들이 잠금 밖에서 수행되도록 한다.
+		for ( Ticket ticket: granted ) {
+			Permit permit = new Permit(ticket.m_opId);
+			if ( !ticket.m_future.complete(permit) ) {
+				// 슬롯을 받는 사이에 취소된 경우는 슬롯을 반환하여 다른 요청이 사용하도록 한다.
+				permit.abandon();
+			}
+		}
+	}
+
+	@GuardedBy("m_lock")
+	private void dispatch(List<Ticket> granted) {
+		// 슬롯이 있는 연산들의 대기열 선두 중 가장 먼저 도착한 요청부터 시작시킨다.
+		while ( m_running < m_maxConcurrency ) {
+			OpState next = null;
+			for ( OpState state: m_states.values() ) {
+				Ticket head = state.m_waiting.peek();
+				if ( head != null && hasSlot(state)
+					&& (next == null || head.seqno() < next.m_waiting.peek().seqno()) ) {
+					next = state;
+				}
+			}
+			if ( next == null ) {
+				return;
+			}
+
+			Ticket ticket = next.m_waiting.poll();
+			--m_queued;
+			admit(next);
+			granted.add(ticket);
+		}
+	}
+
+	@GuardedBy("m_lock")
+	private void dropIfIdle(String opId, OpState state) {
+		if ( state.m_forgotten && state.m_running == 0 && state.m_waiting.isEmpty() ) {
+			m_states.remove(opId, state);
+		}
+	}
+
+	@GuardedBy("m_lock")
+	private boolean hasSlot(OpState state) {
+		return state.m_running < state.m_policy.maxConcurrency() && m_running < m_maxConcurrency;
+	}
+
+	@GuardedBy("m_lock")
+	private void admit(OpState state) {
+		++state.m_running;
+		++m_running;
+	}
+
+	@GuardedBy("m_lock")
+	private Duration estimateRetryAfter(OpState state) {
+		// 앞선 대기 요청들과 이 요청이 모두 슬롯을 얻는 데 걸리는 시간을 최근 수행 시간으로 추정한다.
+		double avg = (state.m_avgRunMillis >= 0) ? state.m_avgRunMillis
+					: (m_avgRunMillis >= 0) ? m_avgRunMillis : DEFAULT_RUN_ESTIMATE.toMillis();
+		int slots = Math.max(1, Math.min(state.m_policy.maxConcurrency(), m_maxConcurrency));
+		if ( slots == Integer.MAX_VALUE ) {
+			slots = Math.max(1, m_running);
+		}
+		long rounds = (state.m_waiting.size() / slots) + 1;
+		long millis = (long)Math.ceil(avg * rounds);
+		return Duration.ofSeconds(Math.max(1, (millis + 999) / 1000));
+	}
+
+	private static double ewma(double avg, double sample) {
+		return (avg < 0) ? sample : avg + EWMA_WEIGHT * (sample - avg);
+	}
+}
@@ -0,0 +1,143 @@
+package mdt.operation.servers;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+
+import utils.Preconditions;
+
+
+/**
+ * {@link mdt.model.sm.value.FileValue} 첨부 파일을 내용 전체를 메모리에 올리지 않고 다루는 유틸리티.
+ * <p>
+ * 연산의 입출력 첨부 파일은 수백 MB에 이를 수 있으므로, 파일 간 이동·복사는 {@link FileChannel#transferTo}로
+ * 커널 안에서 수행하고, 내용을 읽어야 하는 경우({@link #digest})에는 고정 크기({@value #BUFFER_SIZE} 바이트)의
+ * 직접 버퍼 하나만 사용한다.
+ *
+ * @author Kang-Woo Lee (ETRI)
+ */
+public final class AttachmentStreams {
+	/** 첨부 파일 내용을 읽을 때 사용하는 버퍼 크기. */
+	static final int BUFFER_SIZE = 64 * 1024;
+	// transferTo 한 번에 넘기는 최대 크기. 일부 플랫폼은 한 번에 2GB 이상을 전송하지 못한다.
+	private static final long MAX_TRANSFER_CHUNK = 64L * 1024 * 1024;
+
+	private AttachmentStreams() {
+		throw new AssertionError("Should not be called: class=" + getClass());
+	}
+
+	/**
+	 * 첨부 파일을 다른 위치로 옮긴다.
+	 * <p>
+	 * 같은 파일 시스템이면 이름 변경으로 옮기고, 그렇지 않으면 {@link #copy}로 내용을 옮긴 뒤 원본을 삭제한다.
+	 *
+	 * @param src	원본 파일.
+	 * @param dst	대상 파일. 이미 있으면 덮어쓴다.
+	 * @throws IOException	파일을 옮기는 중 오류가 발생한 경우.
+	 */
+	public static void move(File src, File dst) throws IOException {
+		Preconditions.checkNotNullArgument(src, "src is null");
+		Preconditions.checkNotNullArgument(dst, "dst is null");
+
+		try {
+			Files.move(src.toPath(), dst.toPath(), StandardCopyOption.REPLACE_EXISTING,
+						StandardCopyOption.ATOMIC_MOVE);
+		}
+		catch ( AtomicMoveNotSupportedException e ) {
+			copy(src, dst);
+			Files.delete(src.toPath());
+		}
+	}
+
+	/**
+	 * 첨부 파일의 내용을 다른 파일로 복사한다. 내용은 사용자 영역 버퍼를 거치지 않고 전송된다.
+	 *
+	 * @param src	원본 파일.
+	 * @param dst	대상 파일. 이미 있으면 덮어쓴다.
+	 * @return	복사한 바이트 수.
+	 * @throws IOException	파일을 복사하는 중 오류가 발생한 경우.
+	 */
+	public static long copy(File src, File dst) throws IOException {
+		Preconditions.checkNotNullArgument(src, "src is null");
+		Preconditions.checkNotNullArgument(dst, "dst is null");
+
+		try ( FileChannel in = FileChannel.open(src.toPath(), StandardOpenOption.READ);
+				FileChannel out = FileChannel.open(dst.toPath(), StandardOpenOption.WRITE,
+													StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING) ) {
+			long size = in.size();
+			long position = 0;
+			while ( position < size ) {
+				long transferred = in.transferTo(position, Math.min(MAX_TRANSFER_CHUNK, size - position), out);
+				if ( transferred <= 0 ) {
+					throw new IOException("attachment truncated while copying: file=" + src.getAbsolutePath()
+											+ ", expected=" + size + ", copied=" + position);
+				}
+				position += transferred;
+			}
+			return position;
+		}
+	}
+
+	/**
+	 * 파일의 일부 구간을 주어진 채널로 전송한다. 내용은 사용자 영역 버퍼를 거치지 않고 전송된다.
+	 *
+	 * @param src		원본 파일.
+	 * @param position	전송할 구간의 시작 위치.
+	 * @param count		전송할 바이트 수.
+	 * @param out		대상 채널. 닫지 않는다.
+	 * @return	전송한 바이트 수.
+	 * @throws IOException	파일을 읽거나 채널에 쓰는 중 오류가 발생한 경우.
+	 */
+	public static long transfer(File src, long position, long count, WritableByteChannel out) throws IOException {
+		Preconditions.checkNotNullArgument(src, "src is null");
+		Preconditions.checkArgument(position >= 0 && count >= 0, "invalid range: position=" + position
+																	+ ", count=" + count);
+		Preconditions.checkNotNullArgument(out, "out is null");
+
+		try ( FileChannel in = FileChannel.open(src.toPath(), StandardOpenOption.READ) ) {
+			long end = position + count;
+			long current = position;
+			while ( current < end ) {
+				long transferred = in.transferTo(current, Math.min(MAX_TRANSFER_CHUNK, end - current), out);
+				if ( transferred <= 0 ) {
+					throw new IOException("file truncated while transferring: file=" + src.getAbsolutePath()
+											+ ", expected=" + count + ", transferred=" + (current - position));
+				}
+				current += transferred;
+			}
+			return count;
+		}
+	}
+
+	/**
+	 * 첨부 파일의 내용을 주어진 다이제스트에 반영한다.
+	 *
+	 * @param file		첨부 파일.
+	 * @param digest	내용을 반영할 다이제스트.
+	 * @return	읽은 바이트 수.
+	 * @throws IOException	파일을 읽는 중 오류가 발생한 경우.
+	 */
+	public static long digest(File file, MessageDigest digest) throws IOException {
+		Preconditions.checkNotNullArgument(file, "file is null");
+		Preconditions.checkNotNullArgument(digest, "digest is null");
+
+		ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+		long total = 0;
+		try ( FileChannel in = FileChannel.open(file.toPath(), StandardOpenOption.READ) ) {
+			while ( in.read(buffer) >= 0 ) {
+				buffer.flip();
+				total += buffer.remaining();
+				digest.update(buffer);
+				buffer.clear();
+			}
+		}
+		return total;
+	}
+}
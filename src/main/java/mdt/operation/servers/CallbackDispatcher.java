@@ -0,0 +1,289 @@
+package mdt.operation.servers;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+
+import utils.Preconditions;
+
+
+/**
+ * 세션 종료 콜백(webhook)을 비동기로 전달하는 디스패처.
+ * <p>
+ * 전달 요청은 크기가 제한된 큐에 쌓여 {@code workers}개의 작업 스레드가 처리하며, 큐가 가득 차면 요청을
+ * 버리고 경고를 기록한다. 따라서 콜백 전달이 세션 수행이나 요청 처리를 지연시키지 않는다. 전달에 실패하면
+ * (연결 오류, 시간 초과, {@code 408}/{@code 429}/{@code 5xx} 응답) 지수적으로 늘어나는 간격으로 최대
+ * {@code maxAttempts}회까지 다시 시도하며, 그 밖의 {@code 4xx} 응답은 다시 시도하지 않는다.
+ * <p>
+ * 콜백은 세션 이벤트 SSE 스트림과 같은 이벤트 이름을 {@value #EVENT_HEADER} 헤더로 전달한다. 세션이 종료되면
+ * 최종 응답 메시지를 본문으로 하는 {@code state} 이벤트를, 종료 상태가 관측되기 전에 세션이 회수되면
+ * {@code gone} 이벤트({@link #submitGone})를 전달한다.
+ *
+ * @author Kang-Woo Lee (ETRI)
+ */
+public class CallbackDispatcher implements AutoCloseable {
+	private static final Logger s_logger = LoggerFactory.getLogger(CallbackDispatcher.class);
+	private static final long MAX_BACKOFF_MILLIS = Duration.ofMinutes(5).toMillis();
+
+	/** 콜백 본문에 함께 전달되는 세션 엔드포인트 헤더. */
+	public static final String SESSION_HEADER = "X-MDT-Session";
+	/** 콜백 이벤트 이름 헤더. */
+	public static final String EVENT_HEADER = "X-MDT-Event";
+	/** 세션 종료 이벤트 이름. */
+	public static final String EVENT_STATE = "state";
+	/** 세션 회수 이벤트 이름. */
+	public static final String EVENT_GONE = "gone";
+
+	private final HttpClient m_client;
+	private final ThreadPoolExecutor m_workers;
+	private final ScheduledExecutorService m_retryScheduler;
+	private final int m_maxAttempts;
+	private final Duration m_initialBackoff;
+	private final Duration m_requestTimeout;
+	private final AtomicLong m_dropCount = new AtomicLong();
+
+	private record Delivery(URI target, String sessionEndpoint, String event, String body, int attempt) { }
+
+	/**
+	 * 콜백 디스패처를 생성한다.
+	 *
+	 * @param workers			동시에 전달하는 작업 스레드 수. (1 이상)
+	 * @param queueCapacity		전달 대기 큐의 최대 크기. (1 이상)
+	 * @param maxAttempts		콜백 하나에 대한 최대 전달 시도 횟수. (1 이상)
+	 * @param initialBackoff	첫 재시도 전 대기 시간. 이후 시도마다 두 배로 늘어난다.
+	 * @param requestTimeout	전달 요청 하나의 제한 시간.
+	 */
+	public CallbackDispatcher(int workers, int queueCapacity, int maxAttempts, Duration initialBackoff,
+								Duration requestTimeout) {
+		this(workers, queueCapacity, maxAttempts, initialBackoff, requestTimeout,
+			Thread.ofPlatform().daemon().name("callback-", 0).factory());
+	}
+
+	/**
+	 * 작업 스레드 생성 방식을 지정하여 콜백 디스패처를 생성한다.
+	 *
+	 * @param workers			동시에 전달하는 작업 스레드 수. (1 이상)
+	 * @param queueCapacity		전달 대기 큐의 최대 크기. (1 이상)
+	 * @param maxAttempts		콜백 하나에 대한 최대 전달 시도 횟수. (1 이상)
+	 * @param initialBackoff	첫 재시도 전 대기 시간. 이후 시도마다 두 배로 늘어난다.
+	 * @param requestTimeout	전달 요청 하나의 제한 시간.
+	 * @param threadFactory		작업 스레드 생성기. (예: 가상 스레드 생성기)
+	 */
+	public CallbackDispatcher(int workers, int queueCapacity, int maxAttempts, Duration initialBackoff,
+								Duration requestTimeout, ThreadFactory threadFactory) {
+		Preconditions.checkArgument(workers > 0, "workers must be positive: " + workers);
+		Preconditions.checkArgument(queueCapacity > 0, "queueCapacity must be positive: " + queueCapacity);
+		Preconditions.checkArgument(maxAttempts > 0, "maxAttempts must be positive: " + maxAttempts);
+		Preconditions.checkNotNullArgument(initialBackoff, "initialBackoff is null");
+		Preconditions.checkNotNullArgument(requestTimeout, "requestTimeout is null");
+		Preconditions.checkNotNullArgument(threadFactory, "threadFactory is null");
+
+		m_maxAttempts = maxAttempts;
+		m_initialBackoff = initialBackoff;
+		m_requestTimeout = requestTimeout;
+		m_client = HttpClient.newBuilder()
+							.connectTimeout(requestTimeout)
+							.followRedirects(HttpClient.Redirect.NEVER)
+							.build();
+		m_workers = new ThreadPoolExecutor(workers, workers, 0, TimeUnit.MILLISECONDS,
+											new ArrayBlockingQueue<>(queueCapacity),
+											threadFactory,
+											new ThreadPoolExecutor.AbortPolicy());
+		m_retryScheduler = Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform().daemon()
+																			.name("callback-retry")
+																			.factory());
+	}
+
+	/**
+	 * 콜백 URL의 형식을 검사한다. 호스트는 제한하지 않는다.
+	 *
+	 * @param url	콜백 URL.
+	 * @return	검사된 URI.
+	 * @throws IllegalArgumentException	{@code url}이 절대 {@code http}/{@code https} URL이 아닌 경우.
+	 */
+	public static URI toCallbackUri(String url) {
+		return toCallbackUri(url, List.of());
+	}
+
+	/**
+	 * 콜백 URL의 형식과 호스트를 검사한다.
+	 * <p>
+	 * {@code allowedHosts}의 각 항목은 호스트 이름(또는 IP 주소)이거나 {@code *.example.com} 형태의 하위 도메인
+	 * 패턴이며, 대소문자를 구분하지 않는다.
+	 *
+	 * @param url			콜백 URL.
+	 * @param allowedHosts	허용 호스트 목록. 비어 있으면 모든 호스트를 허용한다.
+	 * @return	검사된 URI.
+	 * @throws IllegalArgumentException	{@code url}이 절대 {@code http}/{@code https} URL이 아니거나
+	 * 									허용되지 않은 호스트를 가리키는 경우.
+	 */
+	public static URI toCallbackUri(String url, List<String> allowedHosts) {
+		Preconditions.checkNotNullArgument(url, "callbackUrl is null");
+		Preconditions.checkNotNullArgument(allowedHosts, "allowedHosts is null");
+
+		URI uri;
+		try {
+			uri = URI.create(url);
+		}
+		catch ( IllegalArgumentException e ) {
+			throw new IllegalArgumentException("invalid callbackUrl: " + url, e);
+		}
+		String scheme = uri.getScheme();
+		Preconditions.checkArgument(uri.isAbsolute() && uri.getHost() != null
+									&& ("http".equalsIgnoreCase(scheme) || "https".equalsIgnoreCase(scheme)),
+									"callbackUrl must be an absolute http(s) URL: " + url);
+		Preconditions.checkArgument(allowedHosts.isEmpty() || isAllowedHost(uri.getHost(), allowedHosts),
+									"callbackUrl host is not allowed: " + uri.getHost());
+		return uri;
+	}
+
+	private static boolean isAllowedHost(String host, List<String> allowedHosts) {
+		// IPv6 주소는 대괄호로 둘러싸여 있다.
+		String target = host.toLowerCase(Locale.ROOT);
+		if ( target.startsWith("[") && target.endsWith("]") ) {
+			target = target.substring(1, target.length() - 1);
+		}
+		for ( String allowed: allowedHosts ) {
+			String pattern = allowed.trim().toLowerCase(Locale.ROOT);
+			if ( pattern.startsWith("*.") ) {
+				if ( target.endsWith(pattern.substring(1)) ) {
+					return true;
+				}
+			}
+			else if ( target.equals(pattern) ) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * 콜백 전달을 요청한다. 이 메소드는 전달을 기다리지 않는다.
+	 *
+	 * @param target			콜백 URL.
+	 * @param sessionEndpoint	종료된 세션의 엔드포인트.
+	 * @param body				전달할 JSON 본문.
+	 * @return	전달 대기 큐에 들어갔으면 {@code true}, 큐가 가득 차서 버려졌으면 {@code false}.
+	 */
+	public boolean submit(URI target, String sessionEndpoint, String body) {
+		Preconditions.checkNotNullArgument(target, "target is null");
+		Preconditions.checkNotNullArgument(sessionEndpoint, "sessionEndpoint is null");
+		Preconditions.checkNotNullArgument(body, "body is null");
+
+		return enqueue(new Delivery(target, sessionEndpoint, EVENT_STATE, body, 1));
+	}
+
+	/**
+	 * 종료 상태가 관측되기 전에 세션이 회수되었음을 알리는 {@code gone} 이벤트 전달을 요청한다.
+	 * 본문은 {@code {"session": <세션 엔드포인트>}}이다. 이 메소드는 전달을 기다리지 않는다.
+	 *
+	 * @param target			콜백 URL.
+	 * @param sessionEndpoint	회수된 세션의 엔드포인트.
+	 * @return	전달 대기 큐에 들어갔으면 {@code true}, 큐가 가득 차서 버려졌으면 {@code false}.
+	 */
+	public boolean submitGone(URI target, String sessionEndpoint) {
+		Preconditions.checkNotNullArgument(target, "target is null");
+		Preconditions.checkNotNullArgument(sessionEndpoint, "sessionEndpoint is null");
+
+		String body = JsonNodeFactory.instance.objectNode().put("session", sessionEndpoint).toString();
+		return enqueue(new Delivery(target, sessionEndpoint, EVENT_GONE, body, 1));
+	}
+
+	/**
+	 * 큐가 가득 차서 버려진 전달 요청의 수를 반환한다.
+	 *
+	 * @return	버려진 요청 수.
+	 */
+	public long getDropCount() {
+		return m_dropCount.get();
+	}
+
+	@Override
+	public void close() {
+		m_retryScheduler.shutdownNow();
+		m_workers.shutdownNow();
+	}
+
+	private boolean enqueue(Delivery delivery) {
+		try {
+			m_workers.execute(() -> deliver(delivery));
+			return true;
+		}
+		catch ( RejectedExecutionException e ) {
+			m_dropCount.incrementAndGet();
+			s_logger.warn("callback queue full, dropped: session={}, target={}, attempt={}",
+							delivery.sessionEndpoint(), delivery.target(), delivery.attempt());
+			return false;
+		}
+	}
+
+	private void deliver(Delivery delivery) {
+		HttpRequest req = HttpRequest.newBuilder(delivery.target())
+									.timeout(m_requestTimeout)
+									.header("Content-Type", "application/json")
+									.header(SESSION_HEADER, delivery.sessionEndpoint())
+									.header(EVENT_HEADER, delivery.event())
+									.POST(HttpRequest.BodyPublishers.ofString(delivery.body()))
+									.build();
+		String failure;
+		try {
+			int status = m_client.send(req, HttpResponse.BodyHandlers.discarding()).statusCode();
+			if ( status / 100 == 2 ) {
+				if ( s_logger.isDebugEnabled() ) {
+					s_logger.debug("delivered callback: session={}, target={}, attempt={}",
+									delivery.sessionEndpoint(), delivery.target(), delivery.attempt());
+				}
+				return;
+			}
+			if ( status / 100 == 4 && status != 408 && status != 429 ) {
+				s_logger.warn("callback rejected: session={}, target={}, status={}",
+								delivery.sessionEndpoint(), delivery.target(), status);
+				return;
+			}
+			failure = "status=" + status;
+		}
+		catch ( IOException e ) {
+			failure = e.toString();
+		}
+		catch ( InterruptedException e ) {
+			Thread.currentThread().interrupt();
+			return;
+		}
+
+		if ( delivery.attempt() >= m_maxAttempts ) {
+			s_logger.warn("giving up callback: session={}, target={}, attempts={}, cause={}",
+							delivery.sessionEndpoint(), delivery.target(), delivery.attempt(), failure);
+			return;
+		}
+
+		long backoff = Math.min(m_initialBackoff.toMillis() << Math.min(delivery.attempt() - 1, 20), MAX_BACKOFF_MILLIS);
+		s_logger.info("retrying callback in {}ms: session={}, target={}, attempt={}, cause={}",
+						backoff, delivery.sessionEndpoint(), delivery.target(), delivery.attempt(), failure);
+		Delivery next = new Delivery(delivery.target(), delivery.sessionEndpoint(), delivery.event(),
+									delivery.body(), delivery.attempt() + 1);
+		try {
+			m_retryScheduler.schedule(() -> enqueue(next), backoff, TimeUnit.MILLISECONDS);
+		}
+		catch ( RejectedExecutionException e ) {
+			// 디스패처가 종료된 경우
+		}
+	}
+}
@@ -0,0 +1,44 @@
+package mdt.operation.servers;
+
+import org.jetbrains.annotations.Nullable;
+
+import utils.rpc.restful.process.RESTfulCommandExecutionServer;
+
+
+/**
+ * 한 세션의 종료 처리 시점을 알리는 신호.
+ * <p>
+ * {@link RESTfulCommandExecutionServer}는 세션이 끝나면 출력 변수들을 직렬화하여 결과 메시지를 만든다.
+ * 세션의 명령 변수들은 이 신호를 공유하며, {@link MDTCommandVariableSerDe#serialize}가 호출될 때 신호를
+ * 발생시킨다. 세션 엔드포인트는 연산 시작이 끝난 뒤에야 알 수 있으므로, 수신자가 등록되기 전에 발생한
+ * 신호는 기억해 두었다가 수신자 등록 시 바로 전달한다. 신호는 여러 번 발생할 수 있다.
+ *
+ * @author Kang-Woo Lee (ETRI)
+ */
+final class CompletionSignal {
+	private volatile boolean m_fired = false;
+	@Nullable private volatile Runnable m_listener;
+
+	/**
+	 * 신호 수신자를 등록한다. 이미 신호가 발생했으면 바로 호출한다.
+	 *
+	 * @param listener	신호 수신자.
+	 */
+	void listen(Runnable listener) {
+		m_listener = listener;
+		if ( m_fired ) {
+			listener.run();
+		}
+	}
+
+	/**
+	 * 신호를 발생시킨다.
+	 */
+	void fire() {
+		m_fired = true;
+		Runnable listener = m_listener;
+		if ( listener != null ) {
+			listener.run();
+		}
+	}
+}
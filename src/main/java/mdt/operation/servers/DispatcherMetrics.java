@@ -0,0 +1,205 @@
+package mdt.operation.servers;
+
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+import org.jetbrains.annotations.Nullable;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import utils.Preconditions;
+import utils.rpc.restful.RpcResponseMessage;
+
+
+/**
+ * 연산 수행 단계별 소요 시간과 디스패처 상태를 Micrometer 지표로 기록한다.
+ * <p>
+ * 단계별 소요 시간은 {@value #PHASE_TIMER} 타이머(히스토그램 포함)에 {@code phase}, {@code operation},
+ * {@code outcome} 태그로 기록된다. 단계는 {@link Phase}를 참고한다. 등록되지 않은 연산 식별자로 들어온 요청은
+ * 태그 수가 늘어나지 않도록 {@value #UNKNOWN_OPERATION}로 기록한다.
+ * <p>
+ * 그 밖에 실행 중·대기 중 세션 수와 세션 색인 크기를 게이지로, 세션 엔드포인트로 RPC 서버를 찾을 때의
+ * 색인 적중·실패 횟수를 {@value #SESSION_LOOKUP_COUNTER} 카운터로 제공한다. 지표는 Spring Boot
+ * Actuator를 통해 Prometheus 형식({@code /actuator/prometheus})으로 노출된다.
+ *
+ * @author Kang-Woo Lee (ETRI)
+ */
+public class DispatcherMetrics {
+	/** 단계별 소요 시간 타이머 이름. */
+	public static final String PHASE_TIMER = "mdt.operation.phase";
+	/** 세션 엔드포인트 → RPC 서버 조회 카운터 이름. */
+	public static final String SESSION_LOOKUP_COUNTER = "mdt.session.lookup";
+	/** 등록되지 않은 연산의 태그 값. */
+	public static final String UNKNOWN_OPERATION = "unknown";
+	/** 정상 처리된 단계의 결과 태그 값. */
+	public static final String OK = "ok";
+	/** 오류로 끝난 단계의 결과 태그 값. */
+	public static final String ERROR = "error";
+
+	/**
+	 * 연산 수행 단계.
+	 */
+	public enum Phase {
+		/** 요청 본문 JSON 파싱. */
+		PARSE,
+		/** 참조 입력들의 병렬 해석({@link MDTCommandVariableSerDe#resolveAll}). */
+		RESOLVE,
+		/** 실행 슬롯 대기({@link AdmissionController}). 결과는 {@code admitted}/{@code rejected}. */
+		ADMISSION,
+		/** RPC 서버의 세션 시작. 입력 변수 역직렬화와 프로세스 생성을 포함한다. */
+		START,
+		/** 세션 시작 중 변수 하나의 역직렬화. */
+		DESERIALIZE,
+		/** 세션 시작부터 종료까지. 결과는 세션의 종료 상태. */
+		RUN,
+		/** 출력 변수 하나의 직렬화(참조 대상 기록 포함). */
+		WRITE_BACK;
+
+		String tag() {
+			return name().toLowerCase(Locale.ROOT);
+		}
+	}
+
+	private final MeterRegistry m_registry;
+	private final Counter m_lookupIndexed;
+	private final Counter m_lookupMissed;
+
+	/**
+	 * 지표 기록기를 생성한다.
+	 *
+	 * @param registry	지표를 등록할 레지스트리.
+	 */
+	public DispatcherMetrics(MeterRegistry registry) {
+		Preconditions.checkNotNullArgument(registry, "registry is null");
+
+		m_registry = registry;
+		m_lookupIndexed = lookupCounter("index");
+		m_lookupMissed = lookupCounter("miss");
+	}
+
+	/**
+	 * 실행 중·대기 중 세션 수와 세션 색인 크기 게이지를 등록한다.
+	 *
+	 * @param admission	연산 시작 승인기.
+	 * @param index		세션 색인.
+	 */
+	public void bindSessionGauges(AdmissionController admission, SessionIndex index) {
+		Gauge.builder("mdt.sessions.active", admission, AdmissionController::getRunningCount)
+			.description("number of running sessions")
+			.register(m_registry);
+		Gauge.builder("mdt.sessions.queued", admission, AdmissionController::getQueuedCount)
+			.description("number of requests waiting for an execution slot")
+			.register(m_registry);
+		Gauge.builder("mdt.sessions.indexed", index, SessionIndex::size)
+			.description("number of sessions in the session index")
+			.register(m_registry);
+	}
+
+	/**
+	 * 단계 소요 시간을 기록한다.
+	 *
+	 * @param phase		단계.
+	 * @param opId		연산 식별자. 등록되지 않은 연산이면 {@link #UNKNOWN_OPERATION}.
+	 * @param outcome	단계 결과.
+	 * @param nanos		소요 시간(나노초).
+	 */
+	public void record(Phase phase, String opId, String outcome, long nanos) {
+		Timer.builder(PHASE_TIMER)
+			.description("latency of each operation lifecycle phase")
+			.tag("phase", phase.tag())
+			.tag("operation", opId)
+			.tag("outcome", outcome)
+			.publishPercentileHistogram()
+			.register(m_registry)
+			.record(nanos, TimeUnit.NANOSECONDS);
+	}
+
+	/**
+	 * 주어진 연산에 대한 단계 기록기를 반환한다.
+	 *
+	 * @param opId	연산 식별자.
+	 * @return	단계 기록기.
+	 */
+	public Scope scope(String opId) {
+		return new Scope(this, opId, null);
+	}
+
+	/**
+	 * 주어진 연산에 대한 단계 기록기를 반환한다. 기록되는 단계는 요청의 수행 시간표에도 남는다.
+	 *
+	 * @param opId	연산 식별자.
+	 * @param trace	요청의 수행 시간표. ({@code null} 허용)
+	 * @return	단계 기록기.
+	 */
+	public Scope scope(String opId, @Nullable SessionTrace trace) {
+		return new Scope(this, opId, trace);
+	}
+
+	/**
+	 * 세션 엔드포인트로 RPC 서버를 찾은 결과를 기록한다.
+	 *
+	 * @param found	세션 색인에서 찾았으면 {@code true}.
+	 */
+	public void recordSessionLookup(boolean found) {
+		(found ? m_lookupIndexed : m_lookupMissed).increment();
+	}
+
+	/**
+	 * 세션 종료 응답 메시지의 결과 태그 값을 반환한다.
+	 *
+	 * @param last	세션 종료 응답 메시지. 종료를 확인하지 못하고 세션이 회수되었으면 {@code null}.
+	 * @return	소문자 종료 상태. 확인할 수 없으면 {@code unknown}.
+	 */
+	static String outcomeOf(@Nullable RpcResponseMessage last) {
+		String state = (last != null) ? RpcResponses.stateOf(last) : null;
+		return (state != null) ? state.toLowerCase(Locale.ROOT) : "unknown";
+	}
+
+	private Counter lookupCounter(String result) {
+		return Counter.builder(SESSION_LOOKUP_COUNTER)
+						.description("session endpoint to RPC server lookups")
+						.tag("result", result)
+						.register(m_registry);
+	}
+
+	/**
+	 * 한 연산의 단계 소요 시간 기록기. 참조 묶음({@link ReferenceBatch})을 통해 세션의 변수들로 전달되어,
+	 * 변수 역직렬화·출력 기록 단계를 연산 식별자로 기록한다. 수행 시간표가 주어지면 단계들을 시간표에도
+	 * 남긴다.
+	 *
+	 * @param metrics	지표 기록기.
+	 * @param opId		연산 식별자.
+	 * @param trace		요청의 수행 시간표. 없으면 {@code null}.
+	 */
+	public record Scope(DispatcherMetrics metrics, String opId, @Nullable SessionTrace trace) {
+		/**
+		 * 단계 소요 시간을 기록한다.
+		 *
+		 * @param phase		단계.
+		 * @param outcome	단계 결과.
+		 * @param startNanos	단계 시작 시각({@link System#nanoTime()}).
+		 */
+		public void record(Phase phase, String outcome, long startNanos) {
+			record(phase, null, outcome, startNanos);
+		}
+
+		/**
+		 * 변수 하나를 다룬 단계의 소요 시간을 기록한다.
+		 *
+		 * @param phase		단계.
+		 * @param variable	변수 이름. 변수 단위 단계가 아니면 {@code null}.
+		 * @param outcome	단계 결과.
+		 * @param startNanos	단계 시작 시각({@link System#nanoTime()}).
+		 */
+		public void record(Phase phase, @Nullable String variable, String outcome, long startNanos) {
+			long endNanos = System.nanoTime();
+			metrics.record(phase, opId, outcome, endNanos - startNanos);
+			if ( trace != null ) {
+				trace.add(phase, variable, outcome, startNanos, endNanos);
+			}
+		}
+	}
+}
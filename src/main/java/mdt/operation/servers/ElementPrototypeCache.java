@@ -0,0 +1,100 @@
+package mdt.operation.servers;
+
+import java.time.Duration;
+
+import org.jetbrains.annotations.Nullable;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+import utils.Preconditions;
+
+import mdt.model.sm.value.ElementValue;
+
+
+/**
+ * MDT 요소 참조 대상의 형태를 나타내는 {@link ElementValue} 프로토타입 캐시.
+ * <p>
+ * 참조의 정규형 문자열({@link ReferenceKeys#canonical(com.fasterxml.jackson.databind.JsonNode)})을 키로
+ * 최근에 읽은 참조 대상 값을 보관한다. 서브모델 구조는 거의 바뀌지 않으므로, 값 자체가 아니라 형태
+ * (예: {@link mdt.model.sm.value.FileValue} 여부, 값 파싱 형태)만 필요한 경우 원격 {@code readValue()}
+ * 호출 대신 이 캐시를 사용한다. 항목 수는 {@code maxSize}로 제한되며, 기록 후 {@code ttl}이 지나면
+ * 만료된다. 구조가 바뀐 것이 확인되면 {@link #invalidate(String)}로 항목을 제거한다.
+ *
+ * @author Kang-Woo Lee (ETRI)
+ */
+public class ElementPrototypeCache {
+	/** 기본 최대 항목 수. */
+	public static final long DEFAULT_MAX_SIZE = 1024;
+	/** 기본 항목 유효 기간. */
+	public static final Duration DEFAULT_TTL = Duration.ofMinutes(10);
+
+	private final Cache<String,ElementValue> m_cache;
+
+	/**
+	 * 캐시를 생성한다.
+	 *
+	 * @param maxSize	최대 항목 수. (1 이상)
+	 * @param ttl		항목 유효 기간. 기록 후 이 시간이 지나면 만료된다.
+	 * @throws IllegalArgumentException	{@code maxSize}가 1보다 작거나 {@code ttl}이 {@code null}이거나
+	 * 									양수가 아닌 경우.
+	 */
+	public ElementPrototypeCache(long maxSize, Duration ttl) {
+		Preconditions.checkArgument(maxSize > 0, "maxSize must be positive: " + maxSize);
+		Preconditions.checkNotNullArgument(ttl, "ttl is null");
+		Preconditions.checkArgument(!ttl.isNegative() && !ttl.isZero(), "ttl must be positive: " + ttl);
+
+		m_cache = CacheBuilder.newBuilder()
+							.maximumSize(maxSize)
+							.expireAfterWrite(ttl)
+							.build();
+	}
+
+	/**
+	 * 주어진 참조 키의 프로토타입을 반환한다.
+	 *
+	 * @param refKey	참조의 정규형 문자열.
+	 * @return	프로토타입. 없거나 만료되었으면 {@code null}.
+	 */
+	public @Nullable ElementValue get(String refKey) {
+		return m_cache.getIfPresent(refKey);
+	}
+
+	/**
+	 * 주어진 참조 키의 프로토타입을 등록한다.
+	 *
+	 * @param refKey	참조의 정규형 문자열.
+	 * @param proto		참조 대상에서 읽은 값.
+	 */
+	public void put(String refKey, ElementValue proto) {
+		Preconditions.checkNotNullArgument(refKey, "refKey is null");
+		Preconditions.checkNotNullArgument(proto, "proto is null");
+
+		m_cache.put(refKey, proto);
+	}
+
+	/**
+	 * 주어진 참조 키의 프로토타입을 제거한다.
+	 *
+	 * @param refKey	참조의 정규형 문자열.
+	 */
+	public void invalidate(String refKey) {
+		m_cache.invalidate(refKey);
+	}
+
+	/**
+	 * 모든 프로토타입을 제거한다.
+	 */
+	public void invalidateAll() {
+		m_cache.invalidateAll();
+	}
+
+	/**
+	 * 현재 보관 중인 프로토타입의 개수(근사값)를 반환한다.
+	 *
+	 * @return	항목 수.
+	 */
+	public long size() {
+		return m_cache.size();
+	}
+}
@@ -25,14 +25,31 @@ import mdt.model.sm.value.FileValue;
  * <ul>
  *   <li>참조 보유 — 참조 대상에 값을 기록(또는 {@link FileValue}면 첨부 파일을 갱신)한 뒤 그 값을 JSON으로 반환.</li>
  *   <li>프로토타입 보유 — 변수 값을 프로토타입 형태의 {@link ElementValue}로 파싱하여 JSON으로 반환.</li>
- *   <li>둘 다 없음 — 변수 값을 일반 JSON으로 파싱하여 반환.</li>
+ *   <li>둘 다 없음 — 변수 값을 일반 JSON으로 파싱하여 반환. 시계열 배열처럼 큰 출력일 수 있으므로 값을 문자열로
+ *   		읽지 않고, 변수 파일을 파서가 버퍼 단위로 읽어 바로 JSON 트리로 변환한다. 직렬화 결과가 JSON 트리이므로
+ *   		트리 자체는 만들어진다.</li>
  * </ul>
+ * 참조를 보유한 출력 변수는 생성 시점에 읽어 둔 참조 대상 값을 프로토타입으로 함께 보유할 수 있으며, 이 경우
+ * 기록 전에 참조 대상의 형태를 다시 읽어 오지 않는다. 프로토타입이 없으면 {@link ElementPrototypeCache}에
+ * 캐시된 형태를 사용하며, 캐시된 형태로 기록에 실패하면 캐시를 무효화하고 참조 대상을 다시 읽어 한 번 더
+ * 기록한다. 한 세션의 출력 변수들이 {@link OutputWriteBack}에
+ * 등록되어 있으면 기록은 그 단계를 통해 서브모델 그룹 단위로 일괄 수행된다.
+ * <p>
+ * 세션 처리 중 설정되는 필드들은 {@code volatile}로만 공유하며 모니터({@code synchronized})를 사용하지 않으므로,
+ * 가상 스레드에서 참조 대상 기록 등 블로킹 호출을 수행해도 캐리어 스레드가 고정되지 않는다.
  *
  * @author Kang-Woo Lee (ETRI)
  */
 public class MDTCommandVariable extends CommandVariable {
 	@Nullable private final ElementValue m_prototype;
 	@Nullable private final ElementReference m_reference;	// 'file' type output variable인 경우만 non-null
+	@Nullable private volatile OutputWriteBack m_writeBack;
+	@Nullable private volatile ElementPrototypeCache m_protoCache;
+	@Nullable private volatile String m_referenceKey;
+	@Nullable private volatile CompletionSignal m_completion;
+	@Nullable private volatile ResultMemo.Recorder m_memoRecorder;
+	@Nullable private volatile SessionOutputs.Collector m_outputCollector;
+	@Nullable private volatile DispatcherMetrics.Scope m_metrics;
 
 	/**
 	 * 값과 프로토타입을 갖는 명령 변수를 생성한다.
@@ -82,6 +99,41 @@ public class MDTCommandVariable extends CommandVariable {
 		m_reference = ref;
 	}
 
+	/**
+	 * MDT 요소 참조에 출력을 기록하며, 참조 대상의 현재 값을 프로토타입으로 보유하는 명령 변수를 생성한다.
+	 *
+	 * @param name	변수 이름.
+	 * @param value	변수 값(JSON 문자열).
+	 * @param file	변수 값이 기록될 파일.
+	 * @param ref	출력을 기록할 MDT 요소 참조.
+	 * @param proto	참조 대상의 현재 값. ({@code null}이면 기록 시점에 참조 대상을 읽어 형태를 확인한다)
+	 * @throws IOException	상위 {@link CommandVariable} 생성 중 입출력 오류가 발생한 경우.
+	 */
+	public MDTCommandVariable(String name, String value, File file, MDTElementReference ref,
+								@Nullable ElementValue proto) throws IOException {
+		super(name, value, file);
+
+		m_prototype = proto;
+		m_reference = ref;
+	}
+
+	/**
+	 * MDT 요소 참조에 출력을 기록하며, 값을 파일에서 읽는 명령 변수를 생성한다. (참조 대상이 {@link FileValue}인 경우)
+	 *
+	 * @param name	변수 이름.
+	 * @param file	변수 값이 담긴 파일.
+	 * @param ref	출력을 기록할 MDT 요소 참조.
+	 * @param proto	참조 대상의 현재 값. ({@code null}이면 기록 시점에 참조 대상을 읽어 형태를 확인한다)
+	 * @throws IOException	상위 {@link CommandVariable} 생성 중 입출력 오류가 발생한 경우.
+	 */
+	public MDTCommandVariable(String name, File file, MDTElementReference ref, @Nullable ElementValue proto)
+		throws IOException {
+		super(name, file);
+
+		m_prototype = proto;
+		m_reference = ref;
+	}
+
 	/**
 	 * 값 해석에 사용하는 {@link ElementValue} 프로토타입을 반환한다.
 	 *
@@ -91,35 +143,186 @@ public class MDTCommandVariable extends CommandVariable {
 		return m_prototype;
 	}
 
+	/**
+	 * 출력을 기록할 MDT 요소 참조를 반환한다.
+	 *
+	 * @return	요소 참조. 지정되지 않았으면 {@code null}.
+	 */
+	public ElementReference getReference() {
+		return m_reference;
+	}
+
+	/**
+	 * 이 변수가 등록된 세션 출력 일괄 기록 단계를 반환한다.
+	 *
+	 * @return	일괄 기록 단계. 등록되지 않았으면 {@code null}.
+	 */
+	@Nullable OutputWriteBack getWriteBack() {
+		return m_writeBack;
+	}
+
+	void setWriteBack(OutputWriteBack writeBack) {
+		m_writeBack = writeBack;
+	}
+
+	/**
+	 * 이 변수가 속한 세션의 종료 신호를 설정한다.
+	 *
+	 * @param completion	세션 종료 신호.
+	 */
+	void setCompletionSignal(CompletionSignal completion) {
+		m_completion = completion;
+	}
+
+	/**
+	 * 이 변수가 속한 세션의 종료 신호를 발생시킨다. 종료 신호가 설정되지 않았으면 무시한다.
+	 */
+	void signalCompletion() {
+		CompletionSignal completion = m_completion;
+		if ( completion != null ) {
+			completion.fire();
+		}
+	}
+
+	/**
+	 * 직렬화된 출력 값을 남길 결과 기록기를 반환한다.
+	 *
+	 * @return	결과 기록기. 결과 재사용 대상 세션의 출력 변수가 아니면 {@code null}.
+	 */
+	@Nullable ResultMemo.Recorder getMemoRecorder() {
+		return m_memoRecorder;
+	}
+
+	void setMemoRecorder(ResultMemo.Recorder recorder) {
+		m_memoRecorder = recorder;
+	}
+
+	/**
+	 * 직렬화된 출력 변수 파일을 보관할 수집기를 반환한다.
+	 *
+	 * @return	출력 파일 수집기. 출력 파일을 보관하지 않는 변수이면 {@code null}.
+	 */
+	@Nullable SessionOutputs.Collector getOutputCollector() {
+		return m_outputCollector;
+	}
+
+	void setOutputCollector(SessionOutputs.Collector collector) {
+		m_outputCollector = collector;
+	}
+
+	/**
+	 * 출력 기록 소요 시간을 남길 단계 기록기를 반환한다.
+	 *
+	 * @return	단계 기록기. 디스패처를 거치지 않고 생성된 변수이면 {@code null}.
+	 */
+	@Nullable DispatcherMetrics.Scope getMetrics() {
+		return m_metrics;
+	}
+
+	void setMetrics(DispatcherMetrics.Scope metrics) {
+		m_metrics = metrics;
+	}
+
+	/**
+	 * 출력 기록 시 참조 대상의 형태를 찾을 프로토타입 캐시와 참조 키를 설정한다.
+	 *
+	 * @param cache		프로토타입 캐시.
+	 * @param refKey	참조의 정규형 문자열({@link ReferenceKeys#canonical(JsonNode)}).
+	 */
+	void setPrototypeCache(ElementPrototypeCache cache, String refKey) {
+		m_referenceKey = refKey;
+		m_protoCache = cache;
+	}
+
 	/**
 	 * 변수의 현재 값을 MDT 모델 JSON으로 변환한다.
 	 * <p>
 	 * 요소 참조를 보유하면 참조 대상에 값을 갱신(또는 {@link FileValue}면 첨부 파일을 갱신)한 뒤 그 값을,
 	 * 프로토타입을 보유하면 값을 프로토타입 형태로 파싱한 값을, 둘 다 없으면 값을 일반 JSON으로 파싱하여
-	 * 반환한다.
+	 * 반환한다. 요소 참조와 프로토타입을 함께 보유하면 참조 대상의 형태는 프로토타입으로 판단한다.
+	 * 참조 대상이 {@link FileValue}이면 변수 파일을 첨부 파일로 전달하므로 변수 값을 읽지 않는다.
 	 *
 	 * @return	변환된 JSON 노드.
 	 * @throws IOException	값 읽기/파싱 또는 참조 갱신 중 입출력 오류가 발생한 경우.
 	 */
 	public JsonNode toJsonNode() throws IOException {
-		String strValue = getValue();
 		if ( m_reference != null ) {
-			ElementValue smev = m_reference.readValue();
-			if ( smev instanceof FileValue ) {
-				smev = m_reference.updateAttachment(getFile());
+			ElementPrototypeCache cache = m_protoCache;
+			String refKey = m_referenceKey;
+
+			ElementValue proto = m_prototype;
+			if ( proto == null && cache != null ) {
+				proto = cache.get(refKey);
+			}
+			if ( proto == null ) {
+				proto = probe(cache, refKey);
 			}
-			else {
-				smev = ElementValues.parseValueJsonString(strValue, smev);
-				m_reference.updateValue(smev);
+
+			// 변수 값을 프로토타입 형태로 변환하지 못하면 참조 대상의 형태가 바뀌었을 수 있으므로, 캐시를
+			// 무효화하고 다시 읽은 형태로 한 번 더 변환한다. 참조 대상 기록은 다시 시도하지 않는다.
+			ElementValue smev;
+			try {
+				smev = parse(proto);
+			}
+			catch ( IOException | RuntimeException e ) {
+				if ( cache == null ) {
+					throw e;
+				}
+				cache.invalidate(refKey);
+				proto = probe(cache, refKey);
+				smev = parse(proto);
+			}
+
+			try {
+				return writeBack(proto, smev);
+			}
+			catch ( IOException | RuntimeException e ) {
+				if ( cache != null ) {
+					cache.invalidate(refKey);
+				}
+				throw e;
 			}
-			return smev.toJsonNode();
 		}
 		else if ( m_prototype != null ) {
-			return ElementValues.parseValueJsonString(strValue, m_prototype)
+			return ElementValues.parseValueJsonString(getValue(), m_prototype)
 								.toJsonNode();
 		}
 		else {
-			return MDTModelSerDe.getJsonMapper().readTree(strValue);
+			return readJsonValue();
+		}
+	}
+
+	private JsonNode readJsonValue() throws IOException {
+		File file = getFile();
+		if ( file == null || !file.isFile() ) {
+			return MDTModelSerDe.getJsonMapper().readTree(getValue());
+		}
+		// 파일은 파서가 버퍼 단위로 읽고 닫는다. 값을 문자열로 읽어 들이지 않는다.
+		return MDTModelSerDe.getJsonMapper().readTree(file);
+	}
+
+	private ElementValue probe(@Nullable ElementPrototypeCache cache, String refKey) throws IOException {
+		ElementValue smev = m_reference.readValue();
+		if ( cache != null ) {
+			cache.put(refKey, smev);
+		}
+		return smev;
+	}
+
+	private @Nullable ElementValue parse(ElementValue proto) throws IOException {
+		// 첨부 파일은 변수 파일 그대로 전달하며, 내용을 변수 값(문자열)으로 읽어 들이지 않는다.
+		return (proto instanceof FileValue) ? null : ElementValues.parseValueJsonString(getValue(), proto);
+	}
+
+	private JsonNode writeBack(ElementValue proto, @Nullable ElementValue value) throws IOException {
+		ElementValue smev;
+		if ( proto instanceof FileValue ) {
+			smev = m_reference.updateAttachment(getFile());
+		}
+		else {
+			smev = value;
+			m_reference.updateValue(smev);
 		}
+		return smev.toJsonNode();
 	}
 }
@@ -2,8 +2,19 @@ package mdt.operation.servers;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.Files;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
 
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 import com.fasterxml.jackson.databind.JsonNode;
 
@@ -29,21 +40,275 @@ import mdt.model.sm.value.FileValue;
  *   <li>{@code mdt:ref:*} — MDT 요소 참조. 참조 값을 읽어(또는 {@link FileValue}면 첨부 파일을 받아) 변수 파일에 기록.</li>
  *   <li>{@code mdt:value:*} — {@link ElementValue}. ({@code FileValue}는 허용하지 않음)</li>
  *   <li>속성 없음 — 일반 JSON 값.</li>
+ *   <li>{@value StreamingRequestReader#SPILL_TYPE} — 요청 본문에서 임시 파일로 옮겨 적은 큰 일반 JSON 값. 요청의
+ *   		{@link ReferenceBatch}에 설정된 {@link SpilledValues}의 파일을 변수 파일로 옮긴다.</li>
  * </ul>
  * 직렬화 시에는 변수의 현재 값을 다시 MDT 모델 JSON으로 변환한다({@link MDTCommandVariable#toJsonNode()}).
+ * <p>
+ * 한 요청의 참조 입력들은 {@link #resolveAll(Map)}으로 최대 {@code resolveConcurrency}개씩 병렬로 미리
+ * 해석해 둘 수 있으며, 그 결과({@link ReferenceBatch})가 바인딩된 스레드의 역직렬화는 원격 호출 없이 진행된다.
+ * 이때 요청이 선언한 출력 변수가 MDT 요소 참조이면 참조 대상에 출력을 기록하는 변수로 생성되며, 세션의
+ * 출력들은 직렬화 시 {@link OutputWriteBack}을 통해 서브모델 그룹 단위로 일괄 기록된다. 일괄 요청의 여러
+ * 항목이 공통으로 사용하는 참조 입력은 {@link #resolveShared(List)}로 한 번만 해석하여 항목들이 나눠 쓴다.
+ * <p>
+ * 참조 대상의 형태(프로토타입)는 {@link ElementPrototypeCache}에 보관되어, 형태만 필요한 경우
+ * ({@link FileValue} 입력의 첨부 파일 다운로드, 출력 기록)에는 참조 대상 값을 다시 읽지 않는다.
+ * <p>
+ * 역직렬화/직렬화는 가상 스레드에서 호출될 수 있으므로, 원격 호출이나 파일 입출력 구간에서는 모니터
+ * ({@code synchronized})를 잡지 않는다. 공유 상태는 동시성 컬렉션과 {@link java.util.concurrent.locks.ReentrantLock}
+ * 으로만 보호하여 블로킹 중에도 캐리어 스레드가 고정(pinning)되지 않는다.
  *
  * @author Kang-Woo Lee (ETRI)
  */
 public class MDTCommandVariableSerDe implements CommandVariableSerDe {
+	/** 참조 입력 병렬 해석 시 기본 동시 실행 수. */
+	public static final int DEFAULT_RESOLVE_CONCURRENCY = 8;
+
+	private static final ReferenceParser DEFAULT_PARSER
+									= jnode -> (MDTElementReference)ElementReferences.parseJsonNode(jnode);
+
 	private final MDTInstanceManager m_manager;
+	private final ReferenceParser m_parser;
+	private final int m_resolveConcurrency;
+	private final ElementPrototypeCache m_protoCache;
 
 	/**
-	 * SerDe를 생성한다.
+	 * MDT 요소 참조 JSON을 참조 객체로 변환하는 함수.
+	 */
+	@FunctionalInterface
+	interface ReferenceParser {
+		/**
+		 * MDT 요소 참조 JSON을 참조 객체로 변환한다.
+		 *
+		 * @param jnode	참조 JSON.
+		 * @return	활성화되지 않은 참조 객체.
+		 * @throws IOException	참조 JSON이 올바르지 않은 경우.
+		 */
+		public MDTElementReference parse(JsonNode jnode) throws IOException;
+	}
+
+	/**
+	 * 기본 동시 실행 수({@value #DEFAULT_RESOLVE_CONCURRENCY})로 참조를 해석하는 SerDe를 생성한다.
 	 *
 	 * @param manager	MDT 요소 참조({@code mdt:ref:*})를 활성화할 때 사용하는 인스턴스 관리자.
 	 */
 	public MDTCommandVariableSerDe(MDTInstanceManager manager) {
+		this(manager, DEFAULT_RESOLVE_CONCURRENCY);
+	}
+
+	/**
+	 * SerDe를 생성한다.
+	 *
+	 * @param manager				MDT 요소 참조({@code mdt:ref:*})를 활성화할 때 사용하는 인스턴스 관리자.
+	 * @param resolveConcurrency	{@link #resolveAll(Map)}에서 동시에 해석할 참조 입력의 최대 개수.
+	 * @throws IllegalArgumentException	{@code resolveConcurrency}가 1보다 작은 경우.
+	 */
+	public MDTCommandVariableSerDe(MDTInstanceManager manager, int resolveConcurrency) {
+		this(manager, resolveConcurrency, new ElementPrototypeCache(ElementPrototypeCache.DEFAULT_MAX_SIZE,
+																	ElementPrototypeCache.DEFAULT_TTL));
+	}
+
+	/**
+	 * SerDe를 생성한다.
+	 *
+	 * @param manager				MDT 요소 참조({@code mdt:ref:*})를 활성화할 때 사용하는 인스턴스 관리자.
+	 * @param resolveConcurrency	{@link #resolveAll(Map)}에서 동시에 해석할 참조 입력의 최대 개수.
+	 * @param protoCache			참조 대상 프로토타입 캐시.
+	 * @throws IllegalArgumentException	{@code resolveConcurrency}가 1보다 작거나 {@code protoCache}가
+	 * 									{@code null}인 경우.
+	 */
+	public MDTCommandVariableSerDe(MDTInstanceManager manager, int resolveConcurrency,
+									ElementPrototypeCache protoCache) {
+		this(manager, resolveConcurrency, protoCache, DEFAULT_PARSER);
+	}
+
+	MDTCommandVariableSerDe(MDTInstanceManager manager, int resolveConcurrency, ElementPrototypeCache protoCache,
+							ReferenceParser parser) {
+		Preconditions.checkArgument(resolveConcurrency > 0,
+									"resolveConcurrency must be positive: " + resolveConcurrency);
+		Preconditions.checkNotNullArgument(protoCache, "protoCache is null");
+		Preconditions.checkNotNullArgument(parser, "parser is null");
+
 		m_manager = manager;
+		m_parser = parser;
+		m_resolveConcurrency = resolveConcurrency;
+		m_protoCache = protoCache;
+	}
+
+	/**
+	 * 참조 대상 프로토타입 캐시를 반환한다.
+	 *
+	 * @return	프로토타입 캐시.
+	 */
+	public ElementPrototypeCache getPrototypeCache() {
+		return m_protoCache;
+	}
+
+	/**
+	 * 입력 변수들 중 MDT 요소 참조({@code mdt:ref:*})들을 병렬로 미리 해석한다.
+	 * <p>
+	 * 각 참조의 활성화·값 읽기·첨부 파일 다운로드를 가상 스레드에서 최대 {@code resolveConcurrency}개씩
+	 * 동시에 수행하고, 모든 해석이 끝나면 결과를 호출 스레드에 바인딩된 {@link ReferenceBatch}로 반환한다.
+	 * 개별 참조의 해석 오류는 이 메소드에서 던지지 않고 기록해 두었다가, 해당 입력을
+	 * {@link #deserialize(String, File, JsonNode)}할 때 기존과 동일한 형태로 보고한다.
+	 *
+	 * @param inputs	입력 변수 이름과 입력 JSON의 맵.
+	 * @return	해석 결과 묶음. 사용 후 반드시 닫아야 한다.
+	 * @throws IllegalArgumentException	{@code inputs}가 {@code null}인 경우.
+	 */
+	public ReferenceBatch resolveAll(Map<String,JsonNode> inputs) {
+		return resolveAll(inputs, Map.of());
+	}
+
+	/**
+	 * 입력·출력 변수들 중 MDT 요소 참조({@code mdt:ref:*})들을 병렬로 미리 해석한다.
+	 * <p>
+	 * {@link #resolveAll(Map)}과 같으며, {@code outputs}에 포함된 변수들은 출력 변수로 간주되어
+	 * 역직렬화 시 참조 대상에 출력을 기록하는 변수로 생성된다. 출력 참조는 값의 형태만 필요하므로 프로토타입
+	 * 캐시에 있으면 참조 대상을 읽지 않으며, 첨부 파일도 받지 않는다.
+	 *
+	 * @param inputs	입력 변수 이름과 입력 JSON의 맵.
+	 * @param outputs	출력 변수 이름과 출력 JSON의 맵.
+	 * @return	해석 결과 묶음. 사용 후 반드시 닫아야 한다.
+	 * @throws IllegalArgumentException	{@code inputs} 또는 {@code outputs}가 {@code null}인 경우.
+	 */
+	public ReferenceBatch resolveAll(Map<String,JsonNode> inputs, Map<String,JsonNode> outputs) {
+		return resolveAll(inputs, outputs, null);
+	}
+
+	/**
+	 * 입력·출력 변수들 중 MDT 요소 참조({@code mdt:ref:*})들을 병렬로 미리 해석한다.
+	 * <p>
+	 * {@link #resolveAll(Map, Map)}과 같으며, 출력 변수가 아닌 참조 입력이 {@code shared}에 이미 해석되어
+	 * 있으면 다시 해석하지 않고 그 결과의 사본을 사용한다.
+	 *
+	 * @param inputs	입력 변수 이름과 입력 JSON의 맵.
+	 * @param outputs	출력 변수 이름과 출력 JSON의 맵.
+	 * @param shared	일괄 요청 항목들이 공유하는 해석 결과. 없으면 {@code null}.
+	 * @return	해석 결과 묶음. 사용 후 반드시 닫아야 한다.
+	 * @throws IllegalArgumentException	{@code inputs} 또는 {@code outputs}가 {@code null}인 경우.
+	 */
+	public ReferenceBatch resolveAll(Map<String,JsonNode> inputs, Map<String,JsonNode> outputs,
+									@Nullable SharedReferences shared) {
+		Preconditions.checkNotNullArgument(inputs, "inputs is null");
+		Preconditions.checkNotNullArgument(outputs, "outputs is null");
+
+		Map<String,JsonNode> refInputs = new LinkedHashMap<>();
+		inputs.forEach((name, jnode) -> {
+			if ( isReference(jnode) ) {
+				refInputs.put(name, jnode);
+			}
+		});
+		outputs.forEach((name, jnode) -> {
+			if ( isReference(jnode) ) {
+				refInputs.putIfAbsent(name, jnode);
+			}
+		});
+
+		// 참조 대상에 기록될 출력과 임시 파일로 옮겨 적은 입력만 이 묶음 없이는 올바르게 역직렬화되지 않는다.
+		Set<String> required = new HashSet<>();
+		inputs.forEach((name, jnode) -> {
+			if ( isSpilled(jnode) ) {
+				required.add(name);
+			}
+		});
+		outputs.forEach((name, jnode) -> {
+			if ( isReference(jnode) ) {
+				required.add(name);
+			}
+		});
+		ReferenceBatch batch = new ReferenceBatch(required, outputs.keySet(),
+													new OutputWriteBack(m_resolveConcurrency));
+		if ( shared != null ) {
+			refInputs.entrySet().removeIf(ent -> {
+				if ( outputs.containsKey(ent.getKey()) ) {
+					return false;
+				}
+				long startedAt = System.nanoTime();
+				ReferenceBatch.Resolution resolution = shared.copyFor(ent.getValue());
+				if ( resolution == null ) {
+					return false;
+				}
+				batch.put(ent.getKey(), resolution);
+				batch.putTiming(ent.getKey(), new ReferenceBatch.Timing(startedAt, System.nanoTime(),
+																		resolution.failure() != null));
+				return true;
+			});
+		}
+		if ( refInputs.isEmpty() ) {
+			return batch;
+		}
+
+		Semaphore permits = new Semaphore(m_resolveConcurrency);
+		try ( ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor() ) {
+			refInputs.forEach((name, jnode) -> executor.execute(() -> {
+				permits.acquireUninterruptibly();
+				try {
+					long startedAt = System.nanoTime();
+					ReferenceBatch.Resolution resolution = resolve(jnode, outputs.containsKey(name));
+					batch.put(name, resolution);
+					batch.putTiming(name, new ReferenceBatch.Timing(startedAt, System.nanoTime(),
+																	resolution.failure() != null));
+				}
+				finally {
+					permits.release();
+				}
+			}));
+		}
+
+		return batch;
+	}
+
+	/**
+	 * 일괄 요청의 둘 이상의 항목에 공통으로 나타나는 MDT 요소 참조 입력들을 한 번씩만 병렬로 해석한다.
+	 * <p>
+	 * 참조는 정규화된 형태({@link ReferenceKeys#canonical(JsonNode)})로 비교하며, 해석은
+	 * {@link #resolveAll(Map)}과 같이 최대 {@code resolveConcurrency}개씩 동시에 수행한다. 각 항목은
+	 * {@link #resolveAll(Map, Map, SharedReferences)}로 이 결과를 사용한다.
+	 *
+	 * @param inputsList	항목별 입력 변수 이름과 입력 JSON의 맵들.
+	 * @return	공유 해석 결과. 사용 후 반드시 닫아야 한다.
+	 * @throws IllegalArgumentException	{@code inputsList}가 {@code null}인 경우.
+	 */
+	public SharedReferences resolveShared(List<Map<String,JsonNode>> inputsList) {
+		Preconditions.checkNotNullArgument(inputsList, "inputsList is null");
+
+		Map<String,JsonNode> refs = new HashMap<>();
+		Map<String,Integer> counts = new HashMap<>();
+		for ( Map<String,JsonNode> inputs: inputsList ) {
+			// 한 항목 안에서 같은 참조가 여러 번 나타나도 한 번으로 센다.
+			Set<String> keys = new HashSet<>();
+			inputs.values().stream()
+							.filter(MDTCommandVariableSerDe::isReference)
+							.forEach(jnode -> {
+								String key = ReferenceKeys.canonical(jnode);
+								if ( keys.add(key) ) {
+									refs.putIfAbsent(key, jnode);
+									counts.merge(key, 1, Integer::sum);
+								}
+							});
+		}
+
+		SharedReferences shared = new SharedReferences();
+		Semaphore permits = new Semaphore(m_resolveConcurrency);
+		try ( ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor() ) {
+			counts.forEach((key, count) -> {
+				if ( count < 2 ) {
+					return;
+				}
+				executor.execute(() -> {
+					permits.acquireUninterruptibly();
+					try {
+						shared.put(key, resolve(refs.get(key), false));
+					}
+					finally {
+						permits.release();
+					}
+				});
+			});
+		}
+
+		return shared;
 	}
 
 	/**
@@ -63,27 +328,60 @@ public class MDTCommandVariableSerDe implements CommandVariableSerDe {
 		Preconditions.checkNotNullArgument(jnode, "jnode is null");
 		
 		File file = new File(cvDir, id);
+		ReferenceBatch batch = ReferenceBatch.current();
+		if ( batch != null ) {
+			batch.deserialized(id);
+		}
+		DispatcherMetrics.Scope metrics = (batch != null) ? batch.getMetrics() : null;
+		long startedAt = System.nanoTime();
 		try {
 			// JSON node의 @type 속성을 확인하여, ElementReference ('mdt:ref:xxx')인지
 			// ElementValue ('mdt:value')인지, 아니면 그냥 일반 값인진 판단한다.
+			MDTCommandVariable var;
 			JsonNode typeNode = jnode.get("@type");
 			if ( typeNode == null ) {
 				// 일반 값인 경우는 '@type' 속성이 없음
-				return deserializeValueObject(id, jnode, file);
+				var = deserializeValueObject(id, jnode, file);
 			}
 			else if ( typeNode.asText().startsWith("mdt:ref:") ) {
 				// ElementReference인 경우는 '@type' 속성이 'mdt:ref:'로 시작
-				return deserializeReference(id, jnode, file);
+				var = deserializeReference(id, jnode, file, batch);
 			}
 			else if ( typeNode.asText().startsWith("mdt:value:") ) {
 				// ElementValue인 경우는 '@type' 속성이 'mdt:value:'로 시작
-				return deserializeElementValue(id, jnode, file);
+				var = deserializeElementValue(id, jnode, file);
+			}
+			else if ( typeNode.asText().equals(StreamingRequestReader.SPILL_TYPE) ) {
+				// 요청 본문을 읽을 때 임시 파일로 옮겨 적어 둔 큰 일반 값
+				var = deserializeSpilled(id, file, batch);
 			}
 			else {
 				throw new IOException("Invalid argument: name=" + id + ", value=" + typeNode.asText());
 			}
+
+			if ( batch != null ) {
+				// 세션 종료 시 출력 직렬화가 종료 신호가 되도록, 요청의 종료 신호를 공유한다.
+				var.setCompletionSignal(batch.getCompletionSignal());
+				batch.setVariableDir(cvDir);
+				ResultMemo.Recorder recorder = batch.getMemoRecorder();
+				if ( recorder != null && batch.isOutput(id) ) {
+					var.setMemoRecorder(recorder);
+				}
+				SessionOutputs.Collector collector = batch.getOutputCollector();
+				if ( collector != null && batch.isOutput(id) ) {
+					var.setOutputCollector(collector);
+				}
+				if ( metrics != null ) {
+					var.setMetrics(metrics);
+					metrics.record(DispatcherMetrics.Phase.DESERIALIZE, id, DispatcherMetrics.OK, startedAt);
+				}
+			}
+			return var;
 		}
 		catch ( IOException e ) {
+			if ( metrics != null ) {
+				metrics.record(DispatcherMetrics.Phase.DESERIALIZE, id, DispatcherMetrics.ERROR, startedAt);
+			}
 			throw new IOException("Failed to write value to file: name=" + id
 										+ ", path=" + file.getAbsolutePath(), e);
 		}
@@ -91,6 +389,10 @@ public class MDTCommandVariableSerDe implements CommandVariableSerDe {
 
 	/**
 	 * 명령 변수의 현재 값을 MDT 모델 JSON({@link MDTCommandVariable#toJsonNode()})으로 직렬화한다.
+	 * 결과 재사용 대상 세션의 출력 변수이면 변수 파일과 직렬화된 값을 결과 기록기에 남긴다. 출력 파일 수집기가
+	 * 설정된 출력 변수이면 내려받을 수 있도록 변수 파일을 수집기에 남긴다({@link SessionOutputs}).
+	 * 디스패처를 거쳐 생성된 변수이면 직렬화(참조 대상 기록 포함) 소요 시간을 지표로 남긴다.
+	 * 직렬화 후에는 변수가 속한 세션의 종료 신호({@link CompletionSignal})를 발생시킨다.
 	 *
 	 * @throws IllegalArgumentException	{@code var}가 {@code null}이거나 {@link MDTCommandVariable}이
 	 * 									아닌 경우.
@@ -101,7 +403,31 @@ public class MDTCommandVariableSerDe implements CommandVariableSerDe {
 		Preconditions.checkArgument(var instanceof MDTCommandVariable, "var is not an instance of MDTCommandVariable: "
 																		+ var.getClass().getName());
 		
-		return KeyValue.of(var.getName(), ((MDTCommandVariable)var).toJsonNode());
+		MDTCommandVariable mvar = (MDTCommandVariable)var;
+		OutputWriteBack writeBack = mvar.getWriteBack();
+		DispatcherMetrics.Scope metrics = mvar.getMetrics();
+		long startedAt = System.nanoTime();
+		String outcome = DispatcherMetrics.ERROR;
+		try {
+			JsonNode value = (writeBack != null) ? writeBack.writeBack(mvar) : mvar.toJsonNode();
+			outcome = DispatcherMetrics.OK;
+			ResultMemo.Recorder recorder = mvar.getMemoRecorder();
+			if ( recorder != null ) {
+				recorder.record(var.getName(), mvar.getFile(), value);
+			}
+			SessionOutputs.Collector collector = mvar.getOutputCollector();
+			if ( collector != null ) {
+				collector.record(var.getName(), mvar.getFile());
+			}
+			return KeyValue.of(var.getName(), value);
+		}
+		finally {
+			if ( metrics != null ) {
+				metrics.record(DispatcherMetrics.Phase.WRITE_BACK, var.getName(), outcome, startedAt);
+			}
+			// 출력 직렬화는 세션 종료 처리 중에 수행되므로, 세션 종료를 기다리는 쪽에 알린다.
+			mvar.signalCompletion();
+		}
 	}
 	
 	private MDTCommandVariable deserializeValueObject(String id, JsonNode jnode, File file)
@@ -110,21 +436,99 @@ public class MDTCommandVariableSerDe implements CommandVariableSerDe {
 		return new MDTCommandVariable(id, str, file, (ElementValue)null);
 	}
 	
-	private MDTCommandVariable deserializeReference(String id, JsonNode jnode, File file) throws IOException {
-		MDTElementReference ref = (MDTElementReference)ElementReferences.parseJsonNode(jnode);
-		ref.activate(m_manager);
-		
-		// reference에 해당하는 값을 읽어서 ElementValue의 타입을 확인한다.
-		// AAS FileValue 인 경우는 파일에 저장된 content를 읽어와서 명령 변수 파일에 대신 저장한다.
+	private MDTCommandVariable deserializeSpilled(String id, File file, @Nullable ReferenceBatch batch)
+		throws IOException {
+		// 표식만 있고 임시 파일이 없으면(디스패처를 거치지 않은 요청 등) 값을 알 수 없으므로 오류로 처리한다.
+		SpilledValues spills = (batch != null) ? batch.getSpills() : null;
+		if ( spills == null ) {
+			throw new IOException("no spilled value: name=" + id);
+		}
+		spills.transferTo(id, file);
+		return new MDTCommandVariable(id, file, (ElementValue)null);
+	}
+	
+	private MDTCommandVariable deserializeReference(String id, JsonNode jnode, File file,
+													ReferenceBatch batch) throws IOException {
+		MDTElementReference ref;
+		ElementValue smev;
+		boolean isOutput = batch != null && batch.isOutput(id);
+
+		// 미리 해석된 결과가 있으면 원격 호출 없이 그 결과를 사용한다.
+		ReferenceBatch.Resolution resolved = (batch != null) ? batch.take(id, jnode) : null;
+		if ( resolved != null ) {
+			// 미리 해석하는 중에 발생한 오류는 순차 해석 때와 같은 예외로 보고한다.
+			Throwable failure = resolved.failure();
+			if ( failure instanceof IOException ioe ) {
+				throw ioe;
+			}
+			else if ( failure instanceof RuntimeException re ) {
+				throw re;
+			}
+			else if ( failure != null ) {
+				throw new IOException(failure);
+			}
+
+			ref = resolved.ref();
+			smev = resolved.value();
+			if ( smev instanceof FileValue && !isOutput ) {
+				// 미리 받아 둔 첨부 파일을 명령 변수 파일로 옮긴다.
+				AttachmentStreams.move(resolved.attachment(), file);
+			}
+		}
+		else {
+			ref = m_parser.parse(jnode);
+			ref.activate(m_manager);
+
+			// reference에 해당하는 값을 읽어서 ElementValue의 타입을 확인한다.
+			// AAS FileValue 인 경우는 파일에 저장된 content를 읽어와서 명령 변수 파일에 대신 저장한다.
+			// 출력 변수는 프로세스가 변수 파일을 기록하므로 값의 형태(프로토타입)만 확인한다.
+			String refKey = ReferenceKeys.canonical(jnode);
+			smev = isOutput ? prototypeOf(ref, refKey) : probe(ref, refKey);
+			if ( smev instanceof FileValue && !isOutput ) {
+				readAttachment(ref, refKey, file);
+			}
+		}
+
 		// 일반 ElementValue인 경우는 value-object를 JSON 문자열로 변환하여 저장한다.
-		ElementValue smev = ref.readValue();
+		// 요청이 선언한 출력 변수이면 참조 대상에 출력을 기록하는 변수로 생성하고, 세션의 일괄 기록 단계에 등록한다.
+		MDTCommandVariable var;
 		if ( smev instanceof FileValue ) {
-			ref.readAttachment(file);
-			return new MDTCommandVariable(id, file, smev);
+			var = isOutput ? new MDTCommandVariable(id, file, ref, smev) : new MDTCommandVariable(id, file, smev);
 		}
 		else {
 			String str = MDTModelSerDe.getJsonMapper().writeValueAsString(smev.toValueObject());
-			return new MDTCommandVariable(id, str, file, smev);
+			var = isOutput ? new MDTCommandVariable(id, str, file, ref, smev)
+							: new MDTCommandVariable(id, str, file, smev);
+		}
+		if ( isOutput ) {
+			var.setPrototypeCache(m_protoCache, ReferenceKeys.canonical(jnode));
+			var.setWriteBack(batch.getWriteBack());
+			batch.getWriteBack().add(var, ReferenceKeys.submodelKey(jnode));
+		}
+
+		return var;
+	}
+
+	private ReferenceBatch.Resolution resolve(JsonNode jnode, boolean output) {
+		File staged = null;
+		try {
+			MDTElementReference ref = m_parser.parse(jnode);
+			ref.activate(m_manager);
+
+			String refKey = ReferenceKeys.canonical(jnode);
+			ElementValue smev = output ? prototypeOf(ref, refKey) : probe(ref, refKey);
+			if ( smev instanceof FileValue && !output ) {
+				// 명령 변수 파일의 위치는 역직렬화 시점에 결정되므로 임시 파일에 먼저 받아 둔다.
+				staged = Files.createTempFile("mdt-ref-", ".attachment").toFile();
+				readAttachment(ref, refKey, staged);
+			}
+			return new ReferenceBatch.Resolution(jnode, ref, smev, staged, null);
+		}
+		catch ( Exception e ) {
+			if ( staged != null ) {
+				staged.delete();
+			}
+			return new ReferenceBatch.Resolution(jnode, null, null, null, e);
 		}
 	}
 	
@@ -138,4 +542,47 @@ public class MDTCommandVariableSerDe implements CommandVariableSerDe {
 		String str = MDTModelSerDe.getJsonMapper().writeValueAsString(smev.toValueObject());
 		return new MDTCommandVariable(id, str, file, smev);
 	}
+
+	private ElementValue probe(MDTElementReference ref, String refKey) throws IOException {
+		// FileValue는 첨부 파일만 받으면 되므로, 형태가 캐시되어 있으면 참조 대상 값을 다시 읽지 않는다.
+		ElementValue cached = m_protoCache.get(refKey);
+		if ( cached instanceof FileValue ) {
+			return cached;
+		}
+
+		ElementValue smev = ref.readValue();
+		m_protoCache.put(refKey, smev);
+		return smev;
+	}
+
+	private ElementValue prototypeOf(MDTElementReference ref, String refKey) throws IOException {
+		// 출력 참조는 값의 형태만 필요하므로, 캐시된 프로토타입이 있으면 그대로 사용한다.
+		ElementValue cached = m_protoCache.get(refKey);
+		if ( cached != null ) {
+			return cached;
+		}
+
+		ElementValue smev = ref.readValue();
+		m_protoCache.put(refKey, smev);
+		return smev;
+	}
+
+	private void readAttachment(MDTElementReference ref, String refKey, File file) throws IOException {
+		try {
+			ref.readAttachment(file);
+		}
+		catch ( Exception e ) {
+			// 참조 대상의 형태가 바뀌었을 수 있으므로 캐시된 프로토타입을 제거한다.
+			m_protoCache.invalidate(refKey);
+			throw e;
+		}
+	}
+
+	private static boolean isReference(JsonNode jnode) {
+		return jnode != null && jnode.path("@type").asText().startsWith("mdt:ref:");
+	}
+
+	private static boolean isSpilled(JsonNode jnode) {
+		return jnode != null && jnode.path("@type").asText().equals(StreamingRequestReader.SPILL_TYPE);
+	}
 }
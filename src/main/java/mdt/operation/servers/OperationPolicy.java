@@ -0,0 +1,132 @@
+package mdt.operation.servers;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import org.jetbrains.annotations.Nullable;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import utils.Preconditions;
+import utils.json.JacksonUtils;
+
+
+/**
+ * 연산별 디스패처 정책.
+ * <p>
+ * 연산 디렉토리의 {@code dispatch.json} 파일에서 읽는다. {@code operation.json}은 RPC 서버 라이브러리가
+ * 해석하므로, 디스패처만 사용하는 설정은 별도 파일에 둔다. 파일이 없으면 {@link #DEFAULT}를 사용한다.
+ * <pre>{@code
+ * {
+ *   "maxConcurrency": 2,		// 동시에 수행할 수 있는 세션 수 (0 또는 생략: 제한 없음)
+ *   "maxQueued": 8,			// 시작을 기다릴 수 있는 요청 수 (생략: 제한 없음)
+ *   "queueOrder": "PRIORITY",	// 대기 요청 시작 순서: FIFO(기본) 또는 PRIORITY
+ *   "deterministic": true,	// 같은 입력에 항상 같은 출력을 내는 연산이면 결과를 재사용 (기본: false)
+ *   "workerPool": {			// 풀 작업자 모드 (생략: 세션마다 명령 프로세스 생성)
+ *     "size": 2,				// 미리 띄워 둘 작업자 프로세스 수 (기본: 1)
+ *     "maxRuns": 100,			// 작업자 하나가 수행할 최대 횟수. 넘으면 교체 (기본: 100)
+ *     "preload": ["numpy"]		// 작업자 기동 시 미리 읽어 둘 모듈들
+ *   }
+ * }
+ * }</pre>
+ *
+ * @param maxConcurrency	동시에 수행할 수 있는 세션 수. 제한이 없으면 {@link Integer#MAX_VALUE}.
+ * @param maxQueued			시작을 기다릴 수 있는 요청 수. 제한이 없으면 {@link Integer#MAX_VALUE}.
+ * @param queueOrder		대기 요청 시작 순서.
+ * @param workerPool		풀 작업자 모드 설정({@link WorkerPool}). 세션마다 명령 프로세스를 생성하면 {@code null}.
+ * @param deterministic		같은 입력에 대해 항상 같은 출력을 내는 연산 여부. 그렇다면 수행 결과를
+ * 							{@link ResultMemo}에 보관하여 재사용한다.
+ *
+ * @author Kang-Woo Lee (ETRI)
+ */
+record OperationPolicy(int maxConcurrency, int maxQueued, QueueOrder queueOrder,
+						@Nullable WorkerPoolSpec workerPool, boolean deterministic) {
+	/** 정책 파일 이름. */
+	static final String POLICY_FILE_NAME = "dispatch.json";
+	/** 정책 파일이 없는 연산의 정책. (제한 없음, FIFO) */
+	static final OperationPolicy DEFAULT = new OperationPolicy(Integer.MAX_VALUE, Integer.MAX_VALUE,
+																QueueOrder.FIFO, null, false);
+
+	/**
+	 * 대기 요청 시작 순서.
+	 */
+	enum QueueOrder {
+		/** 도착 순서. */
+		FIFO,
+		/** 우선순위가 높은 요청 먼저, 같으면 도착 순서. */
+		PRIORITY,
+	}
+
+	/**
+	 * 풀 작업자 모드 설정.
+	 *
+	 * @param size		미리 띄워 둘 작업자 프로세스 수.
+	 * @param maxRuns	작업자 하나가 수행할 최대 횟수. 이 횟수를 채운 작업자는 새 프로세스로 교체된다.
+	 * @param preload	작업자 기동 시 미리 읽어 둘 모듈 이름들.
+	 */
+	record WorkerPoolSpec(int size, int maxRuns, List<String> preload) {
+		/** 기본 작업자 수. */
+		static final int DEFAULT_SIZE = 1;
+		/** 작업자 하나의 기본 최대 수행 횟수. */
+		static final int DEFAULT_MAX_RUNS = 100;
+
+		WorkerPoolSpec {
+			Preconditions.checkArgument(size > 0, "workerPool.size must be positive: " + size);
+			Preconditions.checkArgument(maxRuns > 0, "workerPool.maxRuns must be positive: " + maxRuns);
+			preload = List.copyOf(preload);
+		}
+	}
+
+	OperationPolicy {
+		Preconditions.checkArgument(maxConcurrency > 0, "maxConcurrency must be positive: " + maxConcurrency);
+		Preconditions.checkArgument(maxQueued >= 0, "maxQueued must not be negative: " + maxQueued);
+		Preconditions.checkNotNullArgument(queueOrder, "queueOrder is null");
+	}
+
+	OperationPolicy(int maxConcurrency, int maxQueued, QueueOrder queueOrder) {
+		this(maxConcurrency, maxQueued, queueOrder, null, false);
+	}
+
+	/**
+	 * 연산 디렉토리의 정책 파일을 읽는다.
+	 *
+	 * @param opDir	연산 디렉토리.
+	 * @return	연산 정책. 정책 파일이 없으면 {@link #DEFAULT}.
+	 * @throws IOException	정책 파일을 읽거나 해석하는 중 오류가 발생한 경우.
+	 */
+	static OperationPolicy load(File opDir) throws IOException {
+		File file = new File(opDir, POLICY_FILE_NAME);
+		if ( !file.isFile() ) {
+			return DEFAULT;
+		}
+
+		JsonNode jnode = JacksonUtils.MAPPER.readTree(file);
+		try {
+			int maxConcurrency = jnode.path("maxConcurrency").asInt(0);
+			JsonNode maxQueued = jnode.path("maxQueued");
+			String order = jnode.path("queueOrder").asText(QueueOrder.FIFO.name());
+			return new OperationPolicy((maxConcurrency > 0) ? maxConcurrency : Integer.MAX_VALUE,
+										maxQueued.isNumber() ? maxQueued.asInt() : Integer.MAX_VALUE,
+										QueueOrder.valueOf(order.toUpperCase(Locale.ROOT)),
+										loadWorkerPool(jnode.path("workerPool")),
+										jnode.path("deterministic").asBoolean(false));
+		}
+		catch ( IllegalArgumentException e ) {
+			throw new IOException("invalid dispatch policy: file=" + file.getAbsolutePath() + ", cause=" + e, e);
+		}
+	}
+
+	private static @Nullable WorkerPoolSpec loadWorkerPool(JsonNode jnode) {
+		if ( !jnode.isObject() ) {
+			return null;
+		}
+
+		List<String> preload = new ArrayList<>();
+		jnode.path("preload").forEach(module -> preload.add(module.asText()));
+		return new WorkerPoolSpec(jnode.path("size").asInt(WorkerPoolSpec.DEFAULT_SIZE),
+									jnode.path("maxRuns").asInt(WorkerPoolSpec.DEFAULT_MAX_RUNS), preload);
+	}
+}
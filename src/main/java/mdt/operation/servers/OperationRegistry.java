@@ -0,0 +1,247 @@
+package mdt.operation.servers;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+import utils.Preconditions;
+import utils.rpc.restful.RESTfulAsyncRpcServer;
+
+
+/**
+ * 연산 식별자 → RPC 서버 등록부.
+ * <p>
+ * 등록된 연산의 조회는 {@link ConcurrentHashMap}에 대한 잠금 없는 읽기로 처리된다. 등록되지 않은 연산은
+ * {@code operations} 디렉토리의 {@code <id>/operation.json} 디스크립터에서 지연 로딩되며, 같은 연산에 대한
+ * 최초 요청들이 경합하더라도 RPC 서버는 한 번만 생성된다. 디스크립터가 없는 식별자는 크기가 제한된
+ * 부정(negative) 캐시에 짧은 기간 동안 기록되어, 잘못된 식별자에 대한 반복 요청이 파일 시스템 접근 없이
+ * 메모리에서 처리된다. 연산별 디스패처 정책({@link OperationPolicy})은 RPC 서버와 함께 읽어 등록한다.
+ *
+ * @author Kang-Woo Lee (ETRI)
+ */
+public class OperationRegistry {
+	private static final Logger s_logger = LoggerFactory.getLogger(OperationRegistry.class);
+	static final String DESCRIPTOR_FILE_NAME = "operation.json";
+
+	/** 부정 캐시의 기본 최대 항목 수. */
+	public static final long DEFAULT_UNKNOWN_CACHE_SIZE = 1024;
+	/** 부정 캐시 항목의 기본 유효 기간. */
+	public static final Duration DEFAULT_UNKNOWN_TTL = Duration.ofSeconds(5);
+
+	/**
+	 * 연산 디스크립터로부터 RPC 서버를 생성하는 함수.
+	 */
+	@FunctionalInterface
+	public interface ServerLoader {
+		/**
+		 * 연산 디스크립터로부터 RPC 서버를 생성한다.
+		 *
+		 * @param opId		연산 식별자.
+		 * @param descFile	연산 디스크립터 파일.
+		 * @return	생성된 RPC 서버.
+		 * @throws IOException	디스크립터 로딩 중 오류가 발생한 경우.
+		 */
+		public RESTfulAsyncRpcServer load(String opId, File descFile) throws IOException;
+	}
+
+	private final Supplier<File> m_operationsDir;
+	private final ServerLoader m_loader;
+	private final ConcurrentHashMap<String,RpcServerInfo> m_servers = new ConcurrentHashMap<>();
+	private final Cache<String,Boolean> m_unknowns;
+
+	/**
+	 * 기본 부정 캐시 설정으로 등록부를 생성한다.
+	 *
+	 * @param operationsDir	연산 디렉토리를 반환하는 함수.
+	 * @param loader		RPC 서버 생성 함수.
+	 */
+	public OperationRegistry(Supplier<File> operationsDir, ServerLoader loader) {
+		this(operationsDir, loader, DEFAULT_UNKNOWN_CACHE_SIZE, DEFAULT_UNKNOWN_TTL);
+	}
+
+	/**
+	 * 등록부를 생성한다.
+	 *
+	 * @param operationsDir		연산 디렉토리를 반환하는 함수.
+	 * @param loader			RPC 서버 생성 함수.
+	 * @param unknownCacheSize	부정 캐시의 최대 항목 수. (1 이상)
+	 * @param unknownTtl		부정 캐시 항목의 유효 기간.
+	 */
+	public OperationRegistry(Supplier<File> operationsDir, ServerLoader loader,
+							long unknownCacheSize, Duration unknownTtl) {
+		Preconditions.checkNotNullArgument(operationsDir, "operationsDir is null");
+		Preconditions.checkNotNullArgument(loader, "loader is null");
+		Preconditions.checkArgument(unknownCacheSize > 0, "unknownCacheSize must be positive: " + unknownCacheSize);
+		Preconditions.checkNotNullArgument(unknownTtl, "unknownTtl is null");
+
+		m_operationsDir = operationsDir;
+		m_loader = loader;
+		m_unknowns = CacheBuilder.newBuilder()
+								.maximumSize(unknownCacheSize)
+								.expireAfterWrite(unknownTtl)
+								.build();
+	}
+
+	/**
+	 * 등록된 연산의 RPC 서버 정보를 반환한다. 파일 시스템에는 접근하지 않는다.
+	 *
+	 * @param opId	연산 식별자.
+	 * @return	RPC 서버 정보. 등록되지 않았으면 {@code null}.
+	 */
+	public @Nullable RpcServerInfo get(String opId) {
+		return m_servers.get(opId);
+	}
+
+	/**
+	 * 연산의 RPC 서버 정보를 반환하며, 등록되지 않았으면 연산 디렉토리에서 지연 로딩한다.
+	 * <p>
+	 * 최근에 디스크립터가 없는 것으로 확인된 식별자는 파일 시스템에 접근하지 않고 {@code null}을 반환한다.
+	 *
+	 * @param opId	연산 식별자.
+	 * @return	RPC 서버 정보. 연산 디스크립터가 없으면 {@code null}.
+	 * @throws IOException	연산 디렉토리가 없거나 디스크립터 로딩 중 오류가 발생한 경우.
+	 */
+	public @Nullable RpcServerInfo getOrLoad(String opId) throws IOException {
+		RpcServerInfo info = m_servers.get(opId);
+		if ( info != null ) {
+			return info;
+		}
+		if ( !isValidId(opId) || m_unknowns.getIfPresent(opId) != null ) {
+			return null;
+		}
+
+		File operationsDir = m_operationsDir.get();
+		if ( !operationsDir.isDirectory() ) {
+			throw new IOException("operations directory not found: " + operationsDir.getAbsolutePath());
+		}
+		File descFile = new File(new File(operationsDir, opId), DESCRIPTOR_FILE_NAME);
+		if ( !descFile.isFile() ) {
+			m_unknowns.put(opId, Boolean.TRUE);
+			return null;
+		}
+
+		try {
+			// 같은 연산에 대한 최초 요청들이 경합하더라도 RPC 서버는 한 번만 생성된다.
+			return m_servers.computeIfAbsent(opId, id -> {
+				try {
+					RpcServerInfo loaded = new RpcServerInfo(id, m_loader.load(id, descFile),
+															OperationPolicy.load(descFile.getParentFile()));
+					s_logger.info("registered RPC operation: id={}, desc={}", id, descFile);
+					return loaded;
+				}
+				catch ( IOException e ) {
+					throw new UncheckedIOException(e);
+				}
+			});
+		}
+		catch ( UncheckedIOException e ) {
+			throw e.getCause();
+		}
+	}
+
+	/**
+	 * 연산 디렉토리의 모든 연산 디스크립터를 로딩하여 등록한다.
+	 * <p>
+	 * 개별 연산의 로딩 실패는 경고로 기록하고 건너뛴다.
+	 *
+	 * @return	새로 등록된 연산의 수.
+	 */
+	public int loadAll() {
+		File operationsDir = m_operationsDir.get();
+		File[] opDirs = operationsDir.listFiles(File::isDirectory);
+		if ( opDirs == null ) {
+			s_logger.warn("operations directory not found: {}", operationsDir.getAbsolutePath());
+			return 0;
+		}
+
+		int count = 0;
+		for ( File dir: opDirs ) {
+			if ( !m_servers.containsKey(dir.getName()) && new File(dir, DESCRIPTOR_FILE_NAME).isFile() ) {
+				try {
+					if ( getOrLoad(dir.getName()) != null ) {
+						++count;
+					}
+				}
+				catch ( IOException e ) {
+					s_logger.warn("failed to load operation: id=" + dir.getName(), e);
+				}
+			}
+		}
+
+		return count;
+	}
+
+	/**
+	 * 연산의 RPC 서버를 기본 정책으로 등록하거나 교체한다.
+	 *
+	 * @param opId		연산 식별자.
+	 * @param server	RPC 서버.
+	 * @return	교체된 이전 RPC 서버 정보. 없었으면 {@code null}.
+	 */
+	public @Nullable RpcServerInfo put(String opId, RESTfulAsyncRpcServer server) {
+		return put(opId, server, OperationPolicy.DEFAULT);
+	}
+
+	/**
+	 * 연산의 RPC 서버와 정책을 등록하거나 교체한다.
+	 *
+	 * @param opId		연산 식별자.
+	 * @param server	RPC 서버.
+	 * @param policy	연산별 디스패처 정책.
+	 * @return	교체된 이전 RPC 서버 정보. 없었으면 {@code null}.
+	 */
+	@Nullable RpcServerInfo put(String opId, RESTfulAsyncRpcServer server, OperationPolicy policy) {
+		Preconditions.checkNotNullArgument(opId, "opId is null");
+		Preconditions.checkNotNullArgument(server, "server is null");
+		Preconditions.checkNotNullArgument(policy, "policy is null");
+
+		m_unknowns.invalidate(opId);
+		return m_servers.put(opId, new RpcServerInfo(opId, server, policy));
+	}
+
+	/**
+	 * 연산을 등록 해제한다.
+	 *
+	 * @param opId	연산 식별자.
+	 * @return	해제된 RPC 서버 정보. 없었으면 {@code null}.
+	 */
+	public @Nullable RpcServerInfo remove(String opId) {
+		return m_servers.remove(opId);
+	}
+
+	/**
+	 * 등록된 모든 연산의 RPC 서버 정보를 반환한다.
+	 *
+	 * @return	RPC 서버 정보들의 읽기 전용 뷰.
+	 */
+	public Collection<RpcServerInfo> values() {
+		return Collections.unmodifiableCollection(m_servers.values());
+	}
+
+	/**
+	 * 등록된 연산의 개수를 반환한다.
+	 *
+	 * @return	연산 개수.
+	 */
+	public int size() {
+		return m_servers.size();
+	}
+
+	private static boolean isValidId(String opId) {
+		// 연산 식별자는 연산 디렉토리 바로 아래의 디렉토리 이름이어야 한다.
+		return !opId.isEmpty() && !opId.equals(".") && !opId.equals("..")
+				&& opId.indexOf('/') < 0 && opId.indexOf('\\') < 0;
+	}
+}
@@ -0,0 +1,233 @@
+package mdt.operation.servers;
+
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_DELETE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
+import static java.nio.file.StandardWatchEventKinds.OVERFLOW;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Path;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import utils.Preconditions;
+import utils.rpc.restful.RESTfulAsyncRpcServer;
+
+
+/**
+ * 연산 디렉토리를 NIO {@link WatchService}로 감시하여 연산 등록부({@link OperationRegistry})를 갱신하는 감시자.
+ * <p>
+ * 연산 디렉토리 바로 아래의 연산 디렉토리 생성/삭제와 각 연산 디렉토리의 {@code operation.json} 및
+ * 디스패처 정책 파일({@code dispatch.json}) 변경을 감지하며, 짧은 기간({@code debounce}) 동안 이어지는 변경들은 모아서 한 번에 처리한다. 처리 시 연산별로
+ * 디스크립터가 새로 생겼으면 RPC 서버를 생성하여 등록하고, 내용이 바뀌었으면 새 RPC 서버로 교체하며,
+ * 디스크립터나 디렉토리가 사라졌으면 등록을 해제한다. 교체·해제된 이전 RPC 서버는 세션 색인이 계속
+ * 참조하므로, 이미 수행 중인 세션들은 이전 디스크립터로 끝까지 수행된다. 교체·해제된 서버는 생성 시 주어진
+ * 함수에 전달되어, 수행 중인 세션이 모두 끝난 뒤 닫힐 수 있도록 한다({@link RetiredServers}).
+ * <p>
+ * 감시 이벤트가 유실({@link java.nio.file.StandardWatchEventKinds#OVERFLOW})되면 연산 디렉토리 전체를 다시
+ * 대조한다.
+ *
+ * @author Kang-Woo Lee (ETRI)
+ */
+public class OperationsDirectoryWatcher implements Closeable {
+	private static final Logger s_logger = LoggerFactory.getLogger(OperationsDirectoryWatcher.class);
+
+	private final Path m_operationsDir;
+	private final OperationRegistry m_registry;
+	private final OperationRegistry.ServerLoader m_loader;
+	private final Consumer<RpcServerInfo> m_retired;
+	private final long m_debounceMillis;
+	private final WatchService m_watcher;
+	private final Map<WatchKey,Path> m_keys = new HashMap<>();
+	private final Map<String,Long> m_versions = new HashMap<>();	// 연산별 등록된 디스크립터 버전
+	private final Thread m_thread;
+
+	/**
+	 * 감시자를 생성하고, 현재 연산 디렉토리 내용으로 등록부를 맞춘 뒤 감시를 시작한다.
+	 *
+	 * @param operationsDir	감시할 연산 디렉토리.
+	 * @param registry		갱신할 연산 등록부.
+	 * @param loader		RPC 서버 생성 함수.
+	 * @param debounce		변경을 모아서 처리하기 위해 마지막 이벤트 이후 기다리는 시간.
+	 * @throws IOException	감시 서비스 생성 또는 디렉토리 등록 중 오류가 발생한 경우.
+	 */
+	public OperationsDirectoryWatcher(File operationsDir, OperationRegistry registry,
+										OperationRegistry.ServerLoader loader, Duration debounce)
+		throws IOException {
+		this(operationsDir, registry, loader, debounce, info -> { });
+	}
+
+	/**
+	 * 감시자를 생성하고, 현재 연산 디렉토리 내용으로 등록부를 맞춘 뒤 감시를 시작한다.
+	 *
+	 * @param operationsDir	감시할 연산 디렉토리.
+	 * @param registry		갱신할 연산 등록부.
+	 * @param loader		RPC 서버 생성 함수.
+	 * @param debounce		변경을 모아서 처리하기 위해 마지막 이벤트 이후 기다리는 시간.
+	 * @param retired		교체·해제된 이전 RPC 서버를 전달받는 함수.
+	 * @throws IOException	감시 서비스 생성 또는 디렉토리 등록 중 오류가 발생한 경우.
+	 */
+	public OperationsDirectoryWatcher(File operationsDir, OperationRegistry registry,
+										OperationRegistry.ServerLoader loader, Duration debounce,
+										Consumer<RpcServerInfo> retired) throws IOException {
+		Preconditions.checkNotNullArgument(operationsDir, "operationsDir is null");
+		Preconditions.checkNotNullArgument(registry, "registry is null");
+		Preconditions.checkNotNullArgument(loader, "loader is null");
+		Preconditions.checkNotNullArgument(debounce, "debounce is null");
+		Preconditions.checkNotNullArgument(retired, "retired is null");
+		Preconditions.checkArgument(operationsDir.isDirectory(),
+									"operations directory not found: " + operationsDir.getAbsolutePath());
+
+		m_operationsDir = operationsDir.toPath();
+		m_registry = registry;
+		m_loader = loader;
+		m_retired = retired;
+		m_debounceMillis = Math.max(debounce.toMillis(), 1);
+		m_watcher = m_operationsDir.getFileSystem().newWatchService();
+
+		register(m_operationsDir);
+		reconcileAll();
+
+		m_thread = Thread.ofPlatform().daemon().name("operations-watcher").start(this::run);
+	}
+
+	@Override
+	public void close() throws IOException {
+		m_watcher.close();
+		m_thread.interrupt();
+	}
+
+	private void run() {
+		try {
+			while ( true ) {
+				// 첫 이벤트를 기다린 뒤, 이벤트가 debounce 기간 동안 더 이상 없을 때까지 변경 대상을 모은다.
+				Set<String> dirty = new LinkedHashSet<>();
+				boolean overflow = collect(m_watcher.take(), dirty);
+				WatchKey key;
+				while ( (key = m_watcher.poll(m_debounceMillis, TimeUnit.MILLISECONDS)) != null ) {
+					overflow |= collect(key, dirty);
+				}
+
+				if ( overflow ) {
+					reconcileAll();
+				}
+				else {
+					dirty.forEach(this::reconcile);
+				}
+			}
+		}
+		catch ( InterruptedException | ClosedWatchServiceException e ) {
+			s_logger.debug("operations-watcher stopped");
+		}
+	}
+
+	private boolean collect(WatchKey key, Set<String> dirty) {
+		Path dir = m_keys.get(key);
+		boolean overflow = false;
+		for ( WatchEvent<?> ev: key.pollEvents() ) {
+			if ( ev.kind() == OVERFLOW ) {
+				overflow = true;
+				continue;
+			}
+			if ( dir == null ) {
+				continue;
+			}
+
+			Path name = (Path)ev.context();
+			if ( dir.equals(m_operationsDir) ) {
+				// 연산 디렉토리 자체가 생기거나 없어진 경우
+				Path opDir = dir.resolve(name);
+				if ( ev.kind() == ENTRY_CREATE && opDir.toFile().isDirectory() ) {
+					register(opDir);
+				}
+				dirty.add(name.toString());
+			}
+			else if ( name.toString().equals(OperationRegistry.DESCRIPTOR_FILE_NAME)
+					|| name.toString().equals(OperationPolicy.POLICY_FILE_NAME) ) {
+				// 연산 디렉토리 내 디스크립터나 정책 파일이 바뀐 경우
+				dirty.add(dir.getFileName().toString());
+			}
+		}
+		if ( !key.reset() ) {
+			m_keys.remove(key);
+		}
+
+		return overflow;
+	}
+
+	private void register(Path dir) {
+		try {
+			WatchKey key = dir.register(m_watcher, ENTRY_CREATE, ENTRY_DELETE, ENTRY_MODIFY);
+			m_keys.put(key, dir);
+		}
+		catch ( IOException e ) {
+			s_logger.warn("failed to watch directory: {}", dir, e);
+		}
+	}
+
+	private void reconcileAll() {
+		Set<String> opIds = new LinkedHashSet<>(m_versions.keySet());
+		File[] opDirs = m_operationsDir.toFile().listFiles(File::isDirectory);
+		if ( opDirs != null ) {
+			for ( File opDir: opDirs ) {
+				if ( !m_keys.containsValue(opDir.toPath()) ) {
+					register(opDir.toPath());
+				}
+				opIds.add(opDir.getName());
+			}
+		}
+		opIds.forEach(this::reconcile);
+	}
+
+	private void reconcile(String opId) {
+		File descFile = m_operationsDir.resolve(opId).resolve(OperationRegistry.DESCRIPTOR_FILE_NAME).toFile();
+		Long registered = m_versions.get(opId);
+		if ( !descFile.isFile() ) {
+			if ( registered != null ) {
+				m_versions.remove(opId);
+				RpcServerInfo prev = m_registry.remove(opId);
+				s_logger.info("retired RPC operation: id={}", opId);
+				if ( prev != null ) {
+					m_retired.accept(prev);
+				}
+			}
+			return;
+		}
+
+		File policyFile = new File(descFile.getParentFile(), OperationPolicy.POLICY_FILE_NAME);
+		long version = (descFile.lastModified() * 31 + descFile.length()) * 31
+						+ policyFile.lastModified() * 31 + policyFile.length();
+		if ( registered != null && registered == version ) {
+			return;
+		}
+		try {
+			OperationPolicy policy = OperationPolicy.load(descFile.getParentFile());
+			RESTfulAsyncRpcServer server = m_loader.load(opId, descFile);
+			RpcServerInfo prev = m_registry.put(opId, server, policy);
+			m_versions.put(opId, version);
+			s_logger.info("{} RPC operation: id={}, desc={}", (prev != null) ? "replaced" : "registered",
+							opId, descFile);
+			if ( prev != null ) {
+				m_retired.accept(prev);
+			}
+		}
+		catch ( Exception e ) {
+			// 잘못된 디스크립터로 교체하지 않고 이전 RPC 서버를 유지한다.
+			s_logger.warn("failed to load operation: id=" + opId, e);
+		}
+	}
+}
@@ -0,0 +1,121 @@
+package mdt.operation.servers;
+
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.util.List;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import utils.Preconditions;
+
+
+/**
+ * 보관된 세션 출력 파일({@link SessionOutputs.Output})을 HTTP 응답으로 전송하는 유틸리티.
+ * <p>
+ * {@code ETag}와 {@code If-None-Match}에 의한 조건부 요청, 단일 구간 {@code Range}(및 {@code If-Range}) 요청을
+ * 지원한다. 여러 구간을 요청하거나 {@code Range} 헤더가 올바르지 않으면 전체 내용을 보낸다. 내용은 서블릿
+ * 컨테이너가 지원하면 sendfile로(Tomcat의 {@code org.apache.tomcat.sendfile.*} 요청 속성), 그렇지 않으면
+ * {@link AttachmentStreams#transfer}로 사용자 영역 버퍼 없이 전송된다.
+ *
+ * @author Kang-Woo Lee (ETRI)
+ */
+public final class OutputDownload {
+	static final String SENDFILE_SUPPORT_ATTR = "org.apache.tomcat.sendfile.support";
+	static final String SENDFILE_FILENAME_ATTR = "org.apache.tomcat.sendfile.filename";
+	static final String SENDFILE_START_ATTR = "org.apache.tomcat.sendfile.start";
+	static final String SENDFILE_END_ATTR = "org.apache.tomcat.sendfile.end";
+
+	private OutputDownload() {
+		throw new AssertionError("Should not be called: class=" + getClass());
+	}
+
+	/**
+	 * 출력 파일을 응답으로 전송한다.
+	 *
+	 * @param output	출력 파일.
+	 * @param request	HTTP 요청.
+	 * @param response	HTTP 응답.
+	 * @throws IOException	파일을 읽거나 응답을 쓰는 중 오류가 발생한 경우.
+	 */
+	public static void send(SessionOutputs.Output output, HttpServletRequest request, HttpServletResponse response)
+		throws IOException {
+		Preconditions.checkNotNullArgument(output, "output is null");
+		Preconditions.checkNotNullArgument(request, "request is null");
+		Preconditions.checkNotNullArgument(response, "response is null");
+
+		long length = output.size();
+		response.setHeader(HttpHeaders.ETAG, output.etag());
+		response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+		if ( matches(request.getHeader(HttpHeaders.IF_NONE_MATCH), output.etag()) ) {
+			response.setStatus(HttpStatus.NOT_MODIFIED.value());
+			return;
+		}
+
+		long start = 0;
+		long end = length - 1;
+		String range = request.getHeader(HttpHeaders.RANGE);
+		String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+		if ( range != null && (ifRange == null || ifRange.trim().equals(output.etag())) ) {
+			List<HttpRange> ranges;
+			try {
+				ranges = HttpRange.parseRanges(range);
+			}
+			catch ( IllegalArgumentException e ) {
+				// 올바르지 않은 Range 헤더는 무시한다.
+				ranges = List.of();
+			}
+			if ( ranges.size() == 1 ) {
+				HttpRange requested = ranges.get(0);
+				long rangeStart = requested.getRangeStart(length);
+				if ( length == 0 || rangeStart >= length ) {
+					response.setStatus(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE.value());
+					response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + length);
+					return;
+				}
+				start = rangeStart;
+				end = Math.min(requested.getRangeEnd(length), length - 1);
+				response.setStatus(HttpStatus.PARTIAL_CONTENT.value());
+				response.setHeader(HttpHeaders.CONTENT_RANGE, String.format("bytes %d-%d/%d", start, end, length));
+			}
+		}
+
+		long count = end - start + 1;
+		response.setContentType(MediaType.APPLICATION_OCTET_STREAM_VALUE);
+		response.setContentLengthLong(count);
+		if ( "HEAD".equals(request.getMethod()) || count == 0 ) {
+			return;
+		}
+
+		if ( Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT_ATTR)) ) {
+			// 컨테이너가 요청 처리 후 파일 구간을 소켓으로 직접 전송한다. (끝 위치는 배타적)
+			request.setAttribute(SENDFILE_FILENAME_ATTR, output.file().getCanonicalPath());
+			request.setAttribute(SENDFILE_START_ATTR, start);
+			request.setAttribute(SENDFILE_END_ATTR, end + 1);
+		}
+		else {
+			AttachmentStreams.transfer(output.file(), start, count, Channels.newChannel(response.getOutputStream()));
+		}
+	}
+
+	private static boolean matches(String ifNoneMatch, String etag) {
+		if ( ifNoneMatch == null ) {
+			return false;
+		}
+		for ( String tag: ifNoneMatch.split(",") ) {
+			tag = tag.trim();
+			if ( tag.startsWith("W/") ) {
+				tag = tag.substring(2);
+			}
+			if ( tag.equals("*") || tag.equals(etag) ) {
+				return true;
+			}
+		}
+		return false;
+	}
+}
@@ -0,0 +1,192 @@
+package mdt.operation.servers;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.locks.ReentrantLock;
+
+import javax.annotation.concurrent.GuardedBy;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import utils.Preconditions;
+
+
+/**
+ * 한 세션의 출력 변수들을 MDT 요소 참조 대상에 일괄 기록(write-back)하는 단계.
+ * <p>
+ * 참조를 보유한 출력 변수들을 대상 MDT 인스턴스·서브모델({@link ReferenceKeys#submodelKey(JsonNode)})별로
+ * 묶은 뒤, 같은 서브모델에 대한 기록은 순서대로, 서로 다른 서브모델 그룹들은 가상 스레드에서 병렬로
+ * 수행한다. 기록은 세션 종료 후 첫 출력이 직렬화될 때 한 번에 수행되며, 나머지 출력들은 그 결과를
+ * 그대로 사용한다. 따라서 출력 수가 늘어도 완료 처리 지연은 가장 느린 서브모델 그룹의 기록 시간에
+ * 머문다.
+ * <p>
+ * 일괄 기록 이후 변수 파일이 다시 변경된 경우에는 해당 변수만 개별적으로 다시 기록한다.
+ *
+ * @author Kang-Woo Lee (ETRI)
+ */
+public class OutputWriteBack {
+	private static final Logger s_logger = LoggerFactory.getLogger(OutputWriteBack.class);
+
+	private final int m_concurrency;
+	private final ReentrantLock m_lock = new ReentrantLock();
+	@GuardedBy("m_lock") private final Map<MDTCommandVariable,String> m_groupKeys = new LinkedHashMap<>();
+	@GuardedBy("m_lock") private Map<MDTCommandVariable,Outcome> m_outcomes = null;
+
+	private record Outcome(JsonNode value, Throwable failure, long stamp) { }
+
+	/**
+	 * 일괄 기록 단계를 생성한다.
+	 *
+	 * @param concurrency	동시에 기록할 서브모델 그룹의 최대 개수.
+	 * @throws IllegalArgumentException	{@code concurrency}가 1보다 작은 경우.
+	 */
+	public OutputWriteBack(int concurrency) {
+		Preconditions.checkArgument(concurrency > 0, "concurrency must be positive: " + concurrency);
+
+		m_concurrency = concurrency;
+	}
+
+	/**
+	 * 기록 대상 출력 변수를 추가한다.
+	 *
+	 * @param var		MDT 요소 참조를 보유한 출력 변수.
+	 * @param groupKey	기록 대상 MDT 인스턴스·서브모델 키.
+	 */
+	public void add(MDTCommandVariable var, String groupKey) {
+		Preconditions.checkNotNullArgument(var, "var is null");
+		Preconditions.checkNotNullArgument(groupKey, "groupKey is null");
+
+		m_lock.lock();
+		try {
+			m_groupKeys.put(var, groupKey);
+		}
+		finally {
+			m_lock.unlock();
+		}
+	}
+
+	/**
+	 * 등록된 출력 변수의 개수를 반환한다.
+	 *
+	 * @return	출력 변수 개수.
+	 */
+	public int size() {
+		m_lock.lock();
+		try {
+			return m_groupKeys.size();
+		}
+		finally {
+			m_lock.unlock();
+		}
+	}
+
+	/**
+	 * 주어진 출력 변수를 참조 대상에 기록하고 기록된 값을 반환한다.
+	 * <p>
+	 * 아직 일괄 기록이 수행되지 않았으면 등록된 모든 출력 변수들을 함께 기록한다.
+	 *
+	 * @param var	기록할 출력 변수.
+	 * @return	참조 대상에 기록된 값의 JSON.
+	 * @throws IOException	해당 변수의 기록 중 입출력 오류가 발생한 경우.
+	 */
+	public JsonNode writeBack(MDTCommandVariable var) throws IOException {
+		Outcome outcome;
+
+		m_lock.lock();
+		try {
+			if ( m_outcomes == null ) {
+				m_outcomes = writeBackAll();
+			}
+
+			outcome = m_outcomes.get(var);
+			if ( outcome == null || outcome.stamp != stampOf(var.getFile()) ) {
+				// 일괄 기록에 포함되지 않았거나 그 이후에 변수 파일이 바뀌었으면 개별적으로 다시 기록한다.
+				outcome = writeBackOne(var);
+				m_outcomes.put(var, outcome);
+			}
+		}
+		finally {
+			m_lock.unlock();
+		}
+
+		Throwable failure = outcome.failure;
+		if ( failure instanceof IOException ioe ) {
+			throw ioe;
+		}
+		else if ( failure instanceof RuntimeException re ) {
+			throw re;
+		}
+		else if ( failure != null ) {
+			throw new IOException(failure);
+		}
+		return outcome.value;
+	}
+
+	@GuardedBy("m_lock")
+	private Map<MDTCommandVariable,Outcome> writeBackAll() {
+		Map<String,List<MDTCommandVariable>> groups = new LinkedHashMap<>();
+		m_groupKeys.forEach((var, key) -> groups.computeIfAbsent(key, k -> new ArrayList<>()).add(var));
+
+		Map<MDTCommandVariable,Outcome> outcomes = new HashMap<>();
+		if ( groups.size() <= 1 ) {
+			groups.values().forEach(group -> writeBackGroup(group, outcomes));
+			return outcomes;
+		}
+
+		if ( s_logger.isDebugEnabled() ) {
+			s_logger.debug("writing back {} output(s) in {} submodel group(s)", m_groupKeys.size(), groups.size());
+		}
+
+		Map<MDTCommandVariable,Outcome> shared = new ConcurrentHashMap<>();
+		Semaphore permits = new Semaphore(m_concurrency);
+		try ( ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor() ) {
+			for ( List<MDTCommandVariable> group: groups.values() ) {
+				executor.execute(() -> {
+					permits.acquireUninterruptibly();
+					try {
+						writeBackGroup(group, shared);
+					}
+					finally {
+						permits.release();
+					}
+				});
+			}
+		}
+		outcomes.putAll(shared);
+
+		return outcomes;
+	}
+
+	private void writeBackGroup(List<MDTCommandVariable> group, Map<MDTCommandVariable,Outcome> outcomes) {
+		// 같은 서브모델에 대한 기록은 순서대로 수행한다.
+		for ( MDTCommandVariable var: group ) {
+			outcomes.put(var, writeBackOne(var));
+		}
+	}
+
+	private Outcome writeBackOne(MDTCommandVariable var) {
+		long stamp = stampOf(var.getFile());
+		try {
+			return new Outcome(var.toJsonNode(), null, stamp);
+		}
+		catch ( Exception e ) {
+			return new Outcome(null, e, stamp);
+		}
+	}
+
+	private static long stampOf(File file) {
+		return file.lastModified() * 31 + file.length();
+	}
+}
@@ -0,0 +1,329 @@
+package mdt.operation.servers;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+
+import org.jetbrains.annotations.Nullable;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import utils.Preconditions;
+
+
+/**
+ * 연산 요청의 입력 값들을 바꿔 가며 여러 번 수행하는 파라미터 스윕 명세.
+ * <p>
+ * 연산 시작 요청 본문의 {@value #FIELD} 속성으로 주어지며, 형식은 다음과 같다.
+ * <pre>
+ * "sweep": {
+ *   "mode": "grid",              // grid(기본) 또는 random
+ *   "samples": 100,              // random 모드의 수행 횟수
+ *   "seed": 42,                  // random 모드의 난수 시드 (생략 가능)
+ *   "parallelism": 4,            // 동시에 수행할 최대 세션 수 (기본 1)
+ *   "parameters": {
+ *     "Speed": [ 10, 20, 30 ],                     // 값 목록
+ *     "Mode": { "values": [ "fast", "safe" ] },     // 값 목록
+ *     "Temp": { "from": 0, "to": 1, "step": 0.25 }, // 등간격 범위 (양 끝 포함)
+ *     "Load": { "from": 0, "to": 1, "count": 5 },   // 개수 지정 범위 (양 끝 포함)
+ *     "Gain": { "from": 0.5, "to": 2.0 }            // 연속 구간 (random 모드 전용)
+ *   }
+ * }
+ * </pre>
+ * {@code grid} 모드는 파라미터 값들의 모든 조합(마지막 파라미터가 가장 빨리 바뀜)을, {@code random} 모드는
+ * 파라미터마다 값 목록에서 하나를(연속 구간이면 구간 안의 값을) 임의로 고른 {@code samples}개의 조합을 만든다.
+ * 각 조합은 요청의 나머지 입력을 그대로 둔 채 파라미터 이름의 입력만 바꾼 요청이 된다.
+ *
+ * @author Kang-Woo Lee (ETRI)
+ */
+public final class ParameterSweep {
+	/** 파라미터 스윕 명세가 담기는 연산 시작 요청 본문의 속성. */
+	public static final String FIELD = "sweep";
+
+	private static final MathContext RANGE_PRECISION = MathContext.DECIMAL64;
+	private static final JsonNodeFactory NODES = JsonNodeFactory.instance;
+
+	/** 조합 생성 방식. */
+	public enum Mode { GRID, RANDOM }
+
+	private final List<String> m_names;
+	private final List<JsonNode[]> m_points;
+	private final int m_parallelism;
+
+	/**
+	 * 파라미터 하나의 값 범위. 값 목록이 없으면 {@code [from, to]} 연속 구간이다.
+	 */
+	private record Axis(@Nullable List<JsonNode> values, double from, double to) { }
+
+	private ParameterSweep(List<String> names, List<JsonNode[]> points, int parallelism) {
+		m_names = names;
+		m_points = points;
+		m_parallelism = parallelism;
+	}
+
+	/**
+	 * 파라미터 스윕 명세 JSON을 읽어 수행할 조합들을 만든다.
+	 *
+	 * @param spec		파라미터 스윕 명세 JSON.
+	 * @param maxPoints	허용되는 최대 조합 수.
+	 * @return	파라미터 스윕.
+	 * @throws IllegalArgumentException	명세 형식이 잘못되었거나 조합 수가 {@code maxPoints}를 넘는 경우.
+	 */
+	public static ParameterSweep parse(JsonNode spec, int maxPoints) {
+		Preconditions.checkArgument(spec != null && spec.isObject(), "sweep must be a JSON object: " + spec);
+
+		Mode mode;
+		try {
+			mode = Mode.valueOf(spec.path("mode").asText("grid").toUpperCase(Locale.ROOT));
+		}
+		catch ( IllegalArgumentException e ) {
+			throw new IllegalArgumentException("invalid sweep mode: " + spec.get("mode"));
+		}
+		int parallelism = intField(spec, "parallelism", 1);
+		Preconditions.checkArgument(parallelism >= 1, "sweep parallelism must be positive: " + parallelism);
+
+		JsonNode params = spec.path("parameters");
+		Preconditions.checkArgument(params.isObject() && params.size() > 0,
+									"sweep parameters must be a non-empty JSON object");
+		List<String> names = new ArrayList<>();
+		List<Axis> axes = new ArrayList<>();
+		for ( Iterator<Map.Entry<String,JsonNode>> it = params.fields(); it.hasNext(); ) {
+			Map.Entry<String,JsonNode> ent = it.next();
+			Axis axis = parseAxis(ent.getKey(), ent.getValue(), maxPoints);
+			Preconditions.checkArgument(axis.values() != null || mode == Mode.RANDOM,
+										"continuous range requires random mode: parameter=" + ent.getKey());
+			names.add(ent.getKey());
+			axes.add(axis);
+		}
+
+		List<JsonNode[]> points = switch ( mode ) {
+			case GRID -> expandGrid(axes, maxPoints);
+			case RANDOM -> sample(axes, spec, maxPoints);
+		};
+		return new ParameterSweep(List.copyOf(names), points, parallelism);
+	}
+
+	/**
+	 * 스윕 파라미터(입력 변수) 이름들을 반환한다.
+	 *
+	 * @return	파라미터 이름 목록.
+	 */
+	public List<String> getParameterNames() {
+		return m_names;
+	}
+
+	/**
+	 * 조합의 개수를 반환한다.
+	 *
+	 * @return	조합 수.
+	 */
+	public int size() {
+		return m_points.size();
+	}
+
+	/**
+	 * 동시에 수행할 최대 세션 수를 반환한다.
+	 *
+	 * @return	최대 동시 수행 수.
+	 */
+	public int getParallelism() {
+		return m_parallelism;
+	}
+
+	/**
+	 * 주어진 순번의 조합을 반환한다.
+	 *
+	 * @param index	조합 순번.
+	 * @return	파라미터 이름과 값의 맵.
+	 */
+	public Map<String,JsonNode> getPoint(int index) {
+		JsonNode[] point = m_points.get(index);
+		Map<String,JsonNode> values = new LinkedHashMap<>();
+		for ( int i = 0; i < m_names.size(); ++i ) {
+			values.put(m_names.get(i), point[i]);
+		}
+		return values;
+	}
+
+	/**
+	 * 스윕 요청의 입력·출력이 스윕에 쓰일 수 있는지 확인한다.
+	 * <p>
+	 * 조합들이 같은 참조 대상에 출력을 덮어쓰지 않도록 MDT 요소 참조 출력은 허용하지 않으며, 스윕 파라미터는
+	 * MDT 요소 참조 입력일 수 없다.
+	 *
+	 * @param inputs	요청의 입력 변수 이름과 입력 JSON의 맵.
+	 * @param outputs	요청의 출력 변수 이름과 출력 JSON의 맵.
+	 * @throws IllegalArgumentException	위 조건을 어긴 경우.
+	 */
+	public void checkTemplate(Map<String,JsonNode> inputs, Map<String,JsonNode> outputs) {
+		for ( Map.Entry<String,JsonNode> ent: outputs.entrySet() ) {
+			Preconditions.checkArgument(!isReference(ent.getValue()),
+										"reference output is not allowed in a sweep: output=" + ent.getKey());
+		}
+		for ( String name: m_names ) {
+			Preconditions.checkArgument(!isReference(inputs.get(name)),
+										"reference input cannot be swept: parameter=" + name);
+		}
+	}
+
+	/**
+	 * 요청 JSON에서 스윕 파라미터 입력들을 주어진 순번의 조합 값으로 바꾼 요청 JSON을 만든다.
+	 * <p>
+	 * 원래 입력이 {@code mdt:value:*} 형식이면 그 {@code value}만 바꾸고, 일반 값이거나 없으면 조합 값을 그대로
+	 * 입력으로 사용한다.
+	 *
+	 * @param request	스윕 명세가 제거된 요청 JSON.
+	 * @param index		조합 순번.
+	 * @return	새 요청 JSON.
+	 */
+	public ObjectNode requestFor(JsonNode request, int index) {
+		ObjectNode copy = (ObjectNode)request.deepCopy();
+		ObjectNode inputs = (copy.get("inputs") instanceof ObjectNode obj) ? obj : copy.putObject("inputs");
+		JsonNode[] point = m_points.get(index);
+		for ( int i = 0; i < m_names.size(); ++i ) {
+			String name = m_names.get(i);
+			JsonNode base = inputs.get(name);
+			if ( base instanceof ObjectNode typed && typed.path("@type").asText().startsWith("mdt:value:") ) {
+				typed.set("value", point[i]);
+			}
+			else {
+				inputs.set(name, point[i]);
+			}
+		}
+		return copy;
+	}
+
+	private static Axis parseAxis(String name, JsonNode spec, int maxPoints) {
+		if ( spec.isArray() ) {
+			return listAxis(name, spec);
+		}
+		Preconditions.checkArgument(spec.isObject(), "invalid sweep parameter: name=" + name + ", spec=" + spec);
+		if ( spec.has("values") ) {
+			return listAxis(name, spec.get("values"));
+		}
+
+		JsonNode from = spec.path("from");
+		JsonNode to = spec.path("to");
+		Preconditions.checkArgument(from.isNumber() && to.isNumber(),
+									"sweep range requires numeric 'from' and 'to': parameter=" + name);
+		BigDecimal lo = from.decimalValue();
+		BigDecimal hi = to.decimalValue();
+		if ( spec.has("step") ) {
+			JsonNode stepNode = spec.get("step");
+			Preconditions.checkArgument(stepNode.isNumber() && stepNode.decimalValue().signum() != 0,
+										"sweep step must be a non-zero number: parameter=" + name);
+			BigDecimal step = stepNode.decimalValue();
+			BigDecimal span = hi.subtract(lo);
+			Preconditions.checkArgument(span.signum() == 0 || span.signum() == step.signum(),
+										"sweep step does not move toward 'to': parameter=" + name);
+			long count = span.divide(step, RANGE_PRECISION).longValue() + 1;
+			Preconditions.checkArgument(count <= maxPoints,
+										String.format("too many sweep points: parameter=%s, max=%d", name, maxPoints));
+			List<JsonNode> values = new ArrayList<>();
+			for ( long i = 0; i < count; ++i ) {
+				values.add(numberNode(lo.add(step.multiply(BigDecimal.valueOf(i)))));
+			}
+			return new Axis(values, lo.doubleValue(), hi.doubleValue());
+		}
+		if ( spec.has("count") ) {
+			int count = intField(spec, "count", 0);
+			Preconditions.checkArgument(count >= 1, "sweep count must be positive: parameter=" + name);
+			Preconditions.checkArgument(count <= maxPoints,
+										String.format("too many sweep points: parameter=%s, max=%d", name, maxPoints));
+			BigDecimal step = (count > 1)
+							? hi.subtract(lo).divide(BigDecimal.valueOf(count - 1), RANGE_PRECISION)
+							: BigDecimal.ZERO;
+			List<JsonNode> values = new ArrayList<>();
+			for ( int i = 0; i < count; ++i ) {
+				// 마지막 값은 나눗셈 오차 없이 'to'와 같아야 한다.
+				BigDecimal value = (i == count - 1 && count > 1) ? hi : lo.add(step.multiply(BigDecimal.valueOf(i)));
+				values.add(numberNode(value));
+			}
+			return new Axis(values, lo.doubleValue(), hi.doubleValue());
+		}
+
+		Preconditions.checkArgument(lo.compareTo(hi) <= 0, "sweep range 'from' exceeds 'to': parameter=" + name);
+		return new Axis(null, lo.doubleValue(), hi.doubleValue());
+	}
+
+	private static Axis listAxis(String name, JsonNode values) {
+		Preconditions.checkArgument(values.isArray() && values.size() > 0,
+									"sweep values must be a non-empty array: parameter=" + name);
+		List<JsonNode> list = new ArrayList<>(values.size());
+		values.forEach(list::add);
+		return new Axis(list, 0, 0);
+	}
+
+	private static List<JsonNode[]> expandGrid(List<Axis> axes, int maxPoints) {
+		long total = 1;
+		for ( Axis axis: axes ) {
+			total *= axis.values().size();
+			Preconditions.checkArgument(total <= maxPoints,
+										String.format("too many sweep points: max=%d", maxPoints));
+		}
+
+		List<JsonNode[]> points = new ArrayList<>((int)total);
+		for ( int index = 0; index < total; ++index ) {
+			JsonNode[] point = new JsonNode[axes.size()];
+			int rest = index;
+			for ( int i = axes.size() - 1; i >= 0; --i ) {
+				List<JsonNode> values = axes.get(i).values();
+				point[i] = values.get(rest % values.size());
+				rest /= values.size();
+			}
+			points.add(point);
+		}
+		return points;
+	}
+
+	private static List<JsonNode[]> sample(List<Axis> axes, JsonNode spec, int maxPoints) {
+		int samples = intField(spec, "samples", 0);
+		Preconditions.checkArgument(samples >= 1, "random sweep requires positive 'samples'");
+		Preconditions.checkArgument(samples <= maxPoints,
+									String.format("too many sweep points: samples=%d, max=%d", samples, maxPoints));
+		Random random = spec.hasNonNull("seed") ? new Random(spec.get("seed").asLong()) : new Random();
+
+		List<JsonNode[]> points = new ArrayList<>(samples);
+		for ( int s = 0; s < samples; ++s ) {
+			JsonNode[] point = new JsonNode[axes.size()];
+			for ( int i = 0; i < axes.size(); ++i ) {
+				Axis axis = axes.get(i);
+				point[i] = (axis.values() != null)
+						? axis.values().get(random.nextInt(axis.values().size()))
+						: NODES.numberNode(axis.from() + random.nextDouble() * (axis.to() - axis.from()));
+			}
+			points.add(point);
+		}
+		return points;
+	}
+
+	private static JsonNode numberNode(BigDecimal value) {
+		BigDecimal stripped = value.stripTrailingZeros();
+		if ( stripped.scale() <= 0 && stripped.abs().compareTo(BigDecimal.valueOf(Long.MAX_VALUE)) <= 0 ) {
+			return NODES.numberNode(stripped.longValue());
+		}
+		return NODES.numberNode(value.doubleValue());
+	}
+
+	private static int intField(JsonNode spec, String field, int defaultValue) {
+		JsonNode node = spec.get(field);
+		if ( node == null || node.isNull() ) {
+			return defaultValue;
+		}
+		Preconditions.checkArgument(node.canConvertToInt() && node.isIntegralNumber(),
+									String.format("sweep '%s' must be an integer: %s", field, node));
+		return node.asInt();
+	}
+
+	private static boolean isReference(@Nullable JsonNode jnode) {
+		return jnode != null && jnode.path("@type").asText().startsWith("mdt:ref:");
+	}
+}
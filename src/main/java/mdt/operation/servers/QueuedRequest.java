@@ -0,0 +1,238 @@
+package mdt.operation.servers;
+
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import javax.annotation.concurrent.GuardedBy;
+
+import org.jetbrains.annotations.Nullable;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import utils.Preconditions;
+
+
+/**
+ * 실행 슬롯을 기다리는 연산 요청 한 건의 대기 핸들.
+ * <p>
+ * 실행 슬롯이 없어 대기열에 들어간 요청은 요청 스레드를 붙잡지 않고 이 핸들을 {@code 202 Accepted}로 바로
+ * 반환한다. 핸들은 일반 세션과 같은 엔드포인트({@code /sessions/queued-...})로 조회·취소할 수 있다. 핸들 상태는
+ * 슬롯을 기다리는 동안 {@code QUEUED}이며, 슬롯을 얻어 세션이 시작되면 {@code STARTED}가 되어 시작된 세션
+ * 엔드포인트를 알려 준다. 세션 없이 바로 끝났으면(결정적 연산의 재사용된 결과 등) {@code COMPLETED}와 그 응답을,
+ * 시작하지 못했으면 {@code FAILED}와 오류 정보를, 대기 중 취소되었으면 {@code CANCELLED}가 된다.
+ *
+ * @author Kang-Woo Lee (ETRI)
+ */
+public class QueuedRequest {
+	/** 대기 핸들 식별자의 접두사. 일반 세션과 구분하는 데 사용된다. */
+	public static final String ID_PREFIX = "queued-";
+
+	static final String QUEUED = "QUEUED";
+	static final String STARTED = "STARTED";
+	static final String COMPLETED = "COMPLETED";
+	static final String CANCELLED = "CANCELLED";
+
+	private final String m_id;
+	private final String m_opId;
+	private final CompletableFuture<AdmissionController.Permit> m_admission;
+
+	private final ReentrantLock m_lock = new ReentrantLock();
+	private final Condition m_terminated = m_lock.newCondition();
+	@GuardedBy("m_lock") private String m_state = QUEUED;
+	@GuardedBy("m_lock") @Nullable private String m_session;
+	@GuardedBy("m_lock") @Nullable private JsonNode m_response;
+
+	/**
+	 * 대기 핸들 상태.
+	 *
+	 * @param sessionEndpoint	대기 핸들 엔드포인트.
+	 * @param operation			연산 식별자.
+	 * @param state				핸들 상태.
+	 * @param session			시작된 세션 엔드포인트. 세션이 시작되지 않았으면 {@code null}.
+	 * @param response			세션 없이 끝난 경우의 응답 메시지 또는 오류 정보. 없으면 {@code null}.
+	 */
+	public record Status(String sessionEndpoint, String operation, String state, @Nullable String session,
+						@Nullable JsonNode response) { }
+
+	/**
+	 * 대기 핸들을 생성한다.
+	 *
+	 * @param opId		연산 식별자.
+	 * @param admission	실행 슬롯 요청({@link AdmissionController#acquireAsync}) 결과.
+	 */
+	public QueuedRequest(String opId, CompletableFuture<AdmissionController.Permit> admission) {
+		Preconditions.checkNotNullArgument(opId, "opId is null");
+		Preconditions.checkNotNullArgument(admission, "admission is null");
+
+		m_id = ID_PREFIX + UUID.randomUUID();
+		m_opId = opId;
+		m_admission = admission;
+	}
+
+	/**
+	 * 대기 핸들 식별자를 반환한다.
+	 *
+	 * @return	{@value #ID_PREFIX}로 시작하는 식별자.
+	 */
+	public String getId() {
+		return m_id;
+	}
+
+	/**
+	 * 대기 핸들 엔드포인트를 반환한다.
+	 *
+	 * @return	핸들 엔드포인트({@code /sessions/<id>}).
+	 */
+	public String getSessionEndpoint() {
+		return "/sessions/" + m_id;
+	}
+
+	/**
+	 * 실행 슬롯 요청 결과를 반환한다.
+	 *
+	 * @return	실행 슬롯 future.
+	 */
+	CompletableFuture<AdmissionController.Permit> getAdmission() {
+		return m_admission;
+	}
+
+	/**
+	 * 시작된 세션 엔드포인트를 반환한다.
+	 *
+	 * @return	세션 엔드포인트. 세션이 시작되지 않았으면 {@code null}.
+	 */
+	@Nullable String getSession() {
+		m_lock.lock();
+		try {
+			return m_session;
+		}
+		finally {
+			m_lock.unlock();
+		}
+	}
+
+	/**
+	 * 슬롯을 얻은 요청을 시작해도 되는지 확인한다.
+	 *
+	 * @return	대기 중 취소되지 않았으면 {@code true}.
+	 */
+	boolean isQueued() {
+		m_lock.lock();
+		try {
+			return QUEUED.equals(m_state);
+		}
+		finally {
+			m_lock.unlock();
+		}
+	}
+
+	/**
+	 * 요청이 세션을 시작했음을 기록한다.
+	 *
+	 * @param sessionEndpoint	시작된 세션 엔드포인트.
+	 */
+	void started(String sessionEndpoint) {
+		complete(STARTED, sessionEndpoint, null);
+	}
+
+	/**
+	 * 요청이 세션 없이 끝났음을 기록한다.
+	 *
+	 * @param response	응답 메시지 JSON.
+	 */
+	void completed(JsonNode response) {
+		complete(COMPLETED, null, response);
+	}
+
+	/**
+	 * 요청을 시작하지 못했음을 기록한다.
+	 *
+	 * @param error	오류 정보.
+	 */
+	void failed(JsonNode error) {
+		complete(RpcResponses.FAILED, null, error);
+	}
+
+	/**
+	 * 대기 중인 요청을 취소한다. 이미 시작되었거나 끝난 요청은 바뀌지 않는다.
+	 *
+	 * @return	대기 중이던 요청을 취소했으면 {@code true}.
+	 */
+	boolean cancel() {
+		if ( !complete(CANCELLED, null, null) ) {
+			return false;
+		}
+		// 이미 슬롯을 받았으면 대기 스레드가 취소된 것을 보고 슬롯을 반환한다.
+		m_admission.cancel(false);
+		return true;
+	}
+
+	/**
+	 * 대기가 끝났는지(세션이 시작되었거나, 세션 없이 끝났거나, 취소되었는지) 여부를 반환한다.
+	 *
+	 * @return	대기가 끝났으면 {@code true}.
+	 */
+	boolean isTerminal() {
+		return !isQueued();
+	}
+
+	/**
+	 * 대기가 끝날 때까지 기다린다.
+	 *
+	 * @param timeout	최대 대기 시간.
+	 * @param unit		대기 시간 단위.
+	 * @return	제한 시간 안에 대기가 끝났으면 {@code true}.
+	 * @throws InterruptedException	기다리는 중 인터럽트된 경우.
+	 */
+	boolean awaitTerminal(long timeout, TimeUnit unit) throws InterruptedException {
+		long remains = unit.toNanos(timeout);
+		m_lock.lock();
+		try {
+			while ( QUEUED.equals(m_state) ) {
+				if ( remains <= 0 ) {
+					return false;
+				}
+				remains = m_terminated.awaitNanos(remains);
+			}
+			return true;
+		}
+		finally {
+			m_lock.unlock();
+		}
+	}
+
+	/**
+	 * 대기 핸들의 현재 상태를 반환한다.
+	 *
+	 * @return	대기 핸들 상태.
+	 */
+	public Status getStatus() {
+		m_lock.lock();
+		try {
+			return new Status(getSessionEndpoint(), m_opId, m_state, m_session, m_response);
+		}
+		finally {
+			m_lock.unlock();
+		}
+	}
+
+	private boolean complete(String state, @Nullable String session, @Nullable JsonNode response) {
+		m_lock.lock();
+		try {
+			if ( !QUEUED.equals(m_state) ) {
+				return false;
+			}
+			m_state = state;
+			m_session = session;
+			m_response = response;
+			m_terminated.signalAll();
+			return true;
+		}
+		finally {
+			m_lock.unlock();
+		}
+	}
+}
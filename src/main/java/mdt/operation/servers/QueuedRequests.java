@@ -0,0 +1,94 @@
+package mdt.operation.servers;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+import javax.annotation.concurrent.GuardedBy;
+
+import org.jetbrains.annotations.Nullable;
+
+import utils.Preconditions;
+
+
+/**
+ * 대기 핸들 식별자 → 대기 핸들({@link QueuedRequest}) 보관소.
+ * <p>
+ * 대기가 끝난 요청도 시작된 세션이나 결과를 조회할 수 있도록 최대 {@code capacity}개까지 보관한다. 가득 차면
+ * 대기가 끝난 핸들들 중 가장 먼저 등록된 것부터 버리며, 아직 대기 중인 핸들은 버리지 않는다.
+ *
+ * @author Kang-Woo Lee (ETRI)
+ */
+public class QueuedRequests {
+	/** 기본 최대 보관 핸들 수. */
+	public static final int DEFAULT_CAPACITY = 1024;
+
+	private final int m_capacity;
+	private final ReentrantLock m_lock = new ReentrantLock();
+	@GuardedBy("m_lock") private final LinkedHashMap<String,QueuedRequest> m_requests = new LinkedHashMap<>();
+
+	/**
+	 * 보관소를 생성한다.
+	 *
+	 * @param capacity	최대 보관 핸들 수.
+	 */
+	public QueuedRequests(int capacity) {
+		Preconditions.checkArgument(capacity >= 1, "capacity must be positive: " + capacity);
+
+		m_capacity = capacity;
+	}
+
+	/**
+	 * 대기 핸들을 등록한다.
+	 *
+	 * @param request	대기 핸들.
+	 */
+	public void put(QueuedRequest request) {
+		Preconditions.checkNotNullArgument(request, "request is null");
+
+		m_lock.lock();
+		try {
+			m_requests.put(request.getId(), request);
+			for ( Iterator<QueuedRequest> it = m_requests.values().iterator();
+					m_requests.size() > m_capacity && it.hasNext(); ) {
+				if ( it.next().isTerminal() ) {
+					it.remove();
+				}
+			}
+		}
+		finally {
+			m_lock.unlock();
+		}
+	}
+
+	/**
+	 * 대기 핸들을 반환한다.
+	 *
+	 * @param id	대기 핸들 식별자.
+	 * @return	대기 핸들. 없거나 이미 버려졌으면 {@code null}.
+	 */
+	public @Nullable QueuedRequest get(String id) {
+		m_lock.lock();
+		try {
+			return m_requests.get(id);
+		}
+		finally {
+			m_lock.unlock();
+		}
+	}
+
+	/**
+	 * 보관 중인 대기 핸들의 개수를 반환한다.
+	 *
+	 * @return	대기 핸들 개수.
+	 */
+	public int size() {
+		m_lock.lock();
+		try {
+			return m_requests.size();
+		}
+		finally {
+			m_lock.unlock();
+		}
+	}
+}
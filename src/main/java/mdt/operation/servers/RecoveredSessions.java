@@ -0,0 +1,227 @@
+package mdt.operation.servers;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import utils.Preconditions;
+
+
+/**
+ * 디스패처 재기동 시 세션 저널({@link SessionJournal})에서 복구한 세션들.
+ * <p>
+ * 복구된 세션은 RPC 서버가 아니라 이 객체가 상태를 제공한다.
+ * <ul>
+ *   <li>종료된 세션은 저널에 기록된 종료 응답 메시지를 그대로 제공한다.</li>
+ *   <li>수행 중이던 세션은 기록된 프로세스가 아직 수행 중이면({@link SessionProcesses#reattach}) 다시 연결하여
+ *   		{@code RUNNING} 상태를 제공하고, 프로세스가 끝나면 종료 처리한다. 프로세스가 이미 끝났으면 바로
+ *   		종료 처리한다.</li>
+ * </ul>
+ * 디스패처의 자식이 아닌 프로세스의 종료 코드는 알 수 없고, 출력 변수 파일이 기록되었더라도 프로세스가 성공적으로
+ * 끝났는지는 알 수 없다. 따라서 종료 처리에서는 출력을 다시 직렬화하거나 MDT 요소 참조 대상에 기록하지 않고,
+ * 세션을 {@code FAILED}로 종료한다. 오류 정보에는 세션 시작 이후 내용이 바뀐 출력 변수 이름들이 담긴다. 복구된
+ * 세션을 취소하여 프로세스를 종료시킨 경우에는 {@code CANCELLED}로 종료한다. 만든 종료 응답은 저널에 기록된다.
+ * <p>
+ * 다시 연결한 프로세스의 표준 출력·오류는 이전 디스패처 프로세스로의 파이프이며, 디스패처는 이를 다시 연결할 수
+ * 없다. 그 파이프를 읽던 쪽이 없으므로 프로세스가 재기동 후 표준 출력·오류에 쓰면 {@code SIGPIPE}(또는
+ * {@code EPIPE} 오류)로 끝날 수 있다. 이 경우에도 세션은 위와 같이 {@code FAILED}로 종료된다.
+ *
+ * @author Kang-Woo Lee (ETRI)
+ */
+public class RecoveredSessions implements AutoCloseable {
+	private static final Logger s_logger = LoggerFactory.getLogger(RecoveredSessions.class);
+	/** 복구된 세션의 응답 메시지에 붙는 속성. */
+	public static final String RECOVERED_FIELD = "recovered";
+
+	private final SessionJournal m_journal;
+	private final ExecutorService m_executor;
+	private final Map<String,Entry> m_sessions = new ConcurrentHashMap<>();
+
+	private static final class Entry {
+		private final SessionJournal.Session m_session;
+		@Nullable private final ProcessHandle m_process;
+		private volatile JsonNode m_response;
+		private volatile boolean m_cancelled = false;
+
+		private Entry(SessionJournal.Session session, @Nullable ProcessHandle process, JsonNode response) {
+			m_session = session;
+			m_process = process;
+			m_response = response;
+		}
+	}
+
+	/**
+	 * 복구 세션 관리자를 생성한다.
+	 *
+	 * @param journal	세션 저널. 종료 처리한 세션의 종료 응답이 기록된다.
+	 */
+	public RecoveredSessions(SessionJournal journal) {
+		Preconditions.checkNotNullArgument(journal, "journal is null");
+
+		m_journal = journal;
+		m_executor = Executors.newCachedThreadPool(Thread.ofPlatform().daemon().name("session-recovery-", 0).factory());
+	}
+
+	/**
+	 * 저널에서 복구된 세션들을 등록한다.
+	 *
+	 * @param sessions	복구된 세션들.
+	 * @return	다시 연결한 수행 중인 프로세스 수.
+	 */
+	public int recover(List<SessionJournal.Session> sessions) {
+		Preconditions.checkNotNullArgument(sessions, "sessions is null");
+
+		int reattached = 0;
+		for ( SessionJournal.Session session: sessions ) {
+			if ( session.isTerminated() ) {
+				m_sessions.put(session.endpoint(), new Entry(session, null, recovered(session.result())));
+				continue;
+			}
+
+			ProcessHandle process = SessionProcesses.reattach(session.pid(), session.pidStartedAt());
+			Entry entry = new Entry(session, process, running(session.endpoint()));
+			m_sessions.put(session.endpoint(), entry);
+			if ( process != null ) {
+				++reattached;
+				s_logger.info("reattached session process, its exit status will be unknown and writes to "
+								+ "stdout/stderr may fail: session={}, pid={}", session.endpoint(), process.pid());
+				process.onExit().thenRunAsync(() -> finish(entry), m_executor);
+			}
+			else {
+				m_executor.execute(() -> finish(entry));
+			}
+		}
+		return reattached;
+	}
+
+	/**
+	 * 복구된 세션의 현재 응답 메시지를 반환한다.
+	 *
+	 * @param endpoint	세션 엔드포인트.
+	 * @return	응답 메시지 JSON. 복구된 세션이 아니면 {@code null}.
+	 */
+	public @Nullable JsonNode status(String endpoint) {
+		Entry entry = m_sessions.get(endpoint);
+		return (entry != null) ? entry.m_response : null;
+	}
+
+	/**
+	 * 복구된 세션을 취소한다. 다시 연결한 프로세스가 수행 중이면 종료시키며, 세션은 {@code CANCELLED}로
+	 * 종료된다.
+	 *
+	 * @param endpoint	세션 엔드포인트.
+	 * @return	복구된 세션이면 {@code true}.
+	 */
+	public boolean cancel(String endpoint) {
+		Entry entry = m_sessions.get(endpoint);
+		if ( entry == null ) {
+			return false;
+		}
+		if ( entry.m_process != null && entry.m_process.isAlive() ) {
+			entry.m_cancelled = true;
+			entry.m_process.destroy();
+		}
+		return true;
+	}
+
+	/**
+	 * 복구된 세션을 잊는다. 재기동 후 새로 생성된 세션이 같은 엔드포인트를 사용하는 경우에 호출한다.
+	 *
+	 * @param endpoint	세션 엔드포인트.
+	 */
+	public void forget(String endpoint) {
+		m_sessions.remove(endpoint);
+	}
+
+	/**
+	 * 복구된 세션 수를 반환한다.
+	 *
+	 * @return	세션 수.
+	 */
+	public int size() {
+		return m_sessions.size();
+	}
+
+	@Override
+	public void close() {
+		m_executor.shutdownNow();
+	}
+
+	private void finish(Entry entry) {
+		SessionJournal.Session session = entry.m_session;
+		String endpoint = session.endpoint();
+		ObjectNode response;
+		if ( entry.m_cancelled ) {
+			response = responseOf(endpoint, "CANCELLED");
+		}
+		else {
+			// 종료 코드를 알 수 없으므로 출력이 기록되었더라도 참조 대상에 기록하지 않고 실패로 종료한다.
+			response = responseOf(endpoint, RpcResponses.FAILED);
+			ObjectNode error = response.putObject("error");
+			error.put("message", "session process exit status is unknown after dispatcher restart, "
+								+ "outputs were not written back");
+			ArrayNode written = error.putArray("writtenOutputs");
+			writtenOutputs(session).forEach(written::add);
+		}
+
+		// 그 사이 같은 엔드포인트의 새 세션이 생성되었으면 기록하지 않는다.
+		if ( m_sessions.get(endpoint) == entry ) {
+			entry.m_response = response;
+			m_journal.terminated(endpoint, response);
+		}
+	}
+
+	/**
+	 * 세션 시작 이후 내용이 바뀐 출력 변수 이름들을 반환한다.
+	 */
+	private static List<String> writtenOutputs(SessionJournal.Session session) {
+		List<String> written = new ArrayList<>();
+		if ( session.varDir() == null ) {
+			return written;
+		}
+		for ( Iterator<String> it = session.outputs().fieldNames(); it.hasNext(); ) {
+			String name = it.next();
+			String initial = session.fingerprints().path(name).asText(null);
+			String current = SessionJournal.fingerprintOf(new File(session.varDir(), name));
+			if ( !current.isEmpty() && !current.equals(initial) ) {
+				written.add(name);
+			}
+		}
+		return written;
+	}
+
+	private static ObjectNode running(String endpoint) {
+		return responseOf(endpoint, "RUNNING");
+	}
+
+	private static ObjectNode responseOf(String endpoint, String state) {
+		ObjectNode response = JsonNodeFactory.instance.objectNode();
+		response.put("sessionEndpoint", endpoint);
+		response.put("state", state);
+		response.put(RECOVERED_FIELD, true);
+		return response;
+	}
+
+	private static JsonNode recovered(JsonNode result) {
+		if ( result instanceof ObjectNode obj ) {
+			ObjectNode copy = obj.deepCopy();
+			copy.put(RECOVERED_FIELD, true);
+			return copy;
+		}
+		return result;
+	}
+}
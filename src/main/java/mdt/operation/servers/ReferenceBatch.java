@@ -0,0 +1,299 @@
+package mdt.operation.servers;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import mdt.model.sm.ref.MDTElementReference;
+import mdt.model.sm.value.ElementValue;
+
+
+/**
+ * 한 연산 요청의 MDT 요소 참조({@code mdt:ref:*}) 입력들을 미리 해석해 둔 결과 묶음.
+ * <p>
+ * {@link MDTCommandVariableSerDe#resolveAll(Map)}가 참조 입력들을 병렬로 해석하여 생성하며, 생성과 동시에
+ * 호출 스레드에 바인딩된다. 바인딩된 동안 같은 스레드에서 호출되는
+ * {@link MDTCommandVariableSerDe#deserialize(String, File, JsonNode)}는 원격 호출 대신 이 묶음의 결과를
+ * 사용한다. 미리 받아 둔 첨부 파일 중 변수 파일로 옮겨지지 않은 것은 {@link #close()} 시 삭제된다.
+ * <p>
+ * 요청의 MDT 요소 참조 출력들은 세션 종료 후 {@link OutputWriteBack}으로 일괄 기록된다.
+ *
+ * @author Kang-Woo Lee (ETRI)
+ */
+public class ReferenceBatch implements AutoCloseable {
+	private static final Logger s_logger = LoggerFactory.getLogger(ReferenceBatch.class);
+	private static final ThreadLocal<ReferenceBatch> s_current = new ThreadLocal<>();
+
+	private final Map<String,Resolution> m_resolutions = new ConcurrentHashMap<>();
+	private final Map<String,Timing> m_timings = new ConcurrentHashMap<>();
+	private final Set<String> m_requiredNames;
+	private final Set<String> m_outputNames;
+	private final Set<String> m_deserialized = ConcurrentHashMap.newKeySet();
+	private final OutputWriteBack m_writeBack;
+	private final CompletionSignal m_completion = new CompletionSignal();
+	@Nullable private volatile ResultMemo.Recorder m_memoRecorder;
+	@Nullable private volatile DispatcherMetrics.Scope m_metrics;
+	@Nullable private volatile SpilledValues m_spills;
+	@Nullable private volatile SessionOutputs.Collector m_outputCollector;
+	@Nullable private volatile File m_variableDir;
+	@Nullable private final ReferenceBatch m_outer;
+
+	/**
+	 * 참조 입력 하나의 해석 결과.
+	 *
+	 * @param jnode			해석 대상 참조 JSON.
+	 * @param ref			활성화된 참조. 해석에 실패했으면 {@code null}.
+	 * @param value			참조 대상의 현재 값. 해석에 실패했으면 {@code null}.
+	 * @param attachment	{@link mdt.model.sm.value.FileValue}인 경우 미리 받아 둔 첨부 파일. 아니면 {@code null}.
+	 * @param failure		해석 중 발생한 오류. 성공했으면 {@code null}.
+	 */
+	record Resolution(JsonNode jnode, @Nullable MDTElementReference ref, @Nullable ElementValue value,
+						@Nullable File attachment, @Nullable Throwable failure) { }
+
+	/**
+	 * 참조 입력 하나의 해석 소요 시간.
+	 *
+	 * @param startNanos	해석 시작 시각({@link System#nanoTime()}).
+	 * @param endNanos		해석 종료 시각({@link System#nanoTime()}).
+	 * @param failed		해석에 실패했으면 {@code true}.
+	 */
+	record Timing(long startNanos, long endNanos, boolean failed) { }
+
+	ReferenceBatch(Set<String> outputNames, OutputWriteBack writeBack) {
+		this(outputNames, outputNames, writeBack);
+	}
+
+	/**
+	 * 참조 묶음을 생성하고 호출 스레드에 바인딩한다.
+	 *
+	 * @param requiredNames	이 묶음을 통해 역직렬화되어야 하는 변수 이름들. 참조 대상에 기록될 출력 변수와
+	 * 						임시 파일로 옮겨 적은 입력 변수처럼, 묶음 없이 역직렬화되면 결과가 달라지는 변수들이다.
+	 * @param outputNames	요청이 선언한 출력 변수 이름들.
+	 * @param writeBack		출력 일괄 기록 단계.
+	 */
+	ReferenceBatch(Set<String> requiredNames, Set<String> outputNames, OutputWriteBack writeBack) {
+		m_requiredNames = Set.copyOf(requiredNames);
+		m_outputNames = Set.copyOf(outputNames);
+		m_writeBack = writeBack;
+
+		m_outer = s_current.get();
+		s_current.set(this);
+	}
+
+	/**
+	 * 현재 스레드에 바인딩된 참조 묶음을 반환한다.
+	 *
+	 * @return	바인딩된 묶음. 없으면 {@code null}.
+	 */
+	static @Nullable ReferenceBatch current() {
+		return s_current.get();
+	}
+
+	/**
+	 * 해석된 참조 입력의 개수를 반환한다.
+	 *
+	 * @return	해석 결과 개수.
+	 */
+	public int size() {
+		return m_resolutions.size();
+	}
+
+	/**
+	 * 주어진 변수가 요청이 선언한 출력 변수인지 여부를 반환한다.
+	 *
+	 * @param name	변수 이름.
+	 * @return	출력 변수이면 {@code true}.
+	 */
+	public boolean isOutput(String name) {
+		return m_outputNames.contains(name);
+	}
+
+	/**
+	 * 이 요청의 출력 일괄 기록 단계를 반환한다.
+	 *
+	 * @return	출력 일괄 기록 단계.
+	 */
+	public OutputWriteBack getWriteBack() {
+		return m_writeBack;
+	}
+
+	/**
+	 * 이 요청으로 생성되는 세션의 종료 신호를 반환한다.
+	 *
+	 * @return	종료 신호.
+	 */
+	CompletionSignal getCompletionSignal() {
+		return m_completion;
+	}
+
+	/**
+	 * 이 요청의 출력 값을 기록할 결과 기록기를 반환한다.
+	 *
+	 * @return	결과 기록기. 결과 재사용 대상이 아니면 {@code null}.
+	 */
+	@Nullable ResultMemo.Recorder getMemoRecorder() {
+		return m_memoRecorder;
+	}
+
+	void setMemoRecorder(@Nullable ResultMemo.Recorder recorder) {
+		m_memoRecorder = recorder;
+	}
+
+	/**
+	 * 이 요청의 단계 소요 시간 기록기를 반환한다.
+	 *
+	 * @return	단계 기록기. 설정되지 않았으면 {@code null}.
+	 */
+	@Nullable DispatcherMetrics.Scope getMetrics() {
+		return m_metrics;
+	}
+
+	void setMetrics(@Nullable DispatcherMetrics.Scope metrics) {
+		m_metrics = metrics;
+	}
+
+	/**
+	 * 이 요청의 임시 파일로 기록된 일반 값 입력 묶음을 반환한다.
+	 *
+	 * @return	입력 묶음. 설정되지 않았으면 {@code null}.
+	 */
+	@Nullable SpilledValues getSpills() {
+		return m_spills;
+	}
+
+	void setSpills(@Nullable SpilledValues spills) {
+		m_spills = spills;
+	}
+
+	/**
+	 * 이 요청의 출력 변수 파일들을 보관할 수집기를 반환한다.
+	 *
+	 * @return	출력 파일 수집기. 출력 파일을 보관하지 않으면 {@code null}.
+	 */
+	@Nullable SessionOutputs.Collector getOutputCollector() {
+		return m_outputCollector;
+	}
+
+	void setOutputCollector(@Nullable SessionOutputs.Collector collector) {
+		m_outputCollector = collector;
+	}
+
+	/**
+	 * 이 요청의 변수들이 역직렬화된 변수 파일 디렉토리를 반환한다.
+	 *
+	 * @return	변수 파일 디렉토리. 아직 역직렬화된 변수가 없으면 {@code null}.
+	 */
+	@Nullable File getVariableDir() {
+		return m_variableDir;
+	}
+
+	void setVariableDir(File dir) {
+		m_variableDir = dir;
+	}
+
+	/**
+	 * 주어진 변수가 이 묶음이 바인딩된 스레드에서 역직렬화되었음을 기록한다.
+	 *
+	 * @param name	변수 이름.
+	 */
+	void deserialized(String name) {
+		m_deserialized.add(name);
+	}
+
+	/**
+	 * 이 묶음이 필요한 변수들이 모두 이 묶음이 바인딩된 스레드에서 역직렬화되었고, 미리 해석된 결과가 모두
+	 * 사용되었는지 확인한다. 묶음 없이도 같은 결과로 역직렬화되는 일반 값 변수들은 확인하지 않는다.
+	 *
+	 * @throws IllegalStateException	역직렬화되지 않은 필수 변수나 사용되지 않은 해석 결과가 남아 있는 경우.
+	 */
+	void checkConsumed() {
+		Set<String> missing = new TreeSet<>(m_requiredNames);
+		missing.removeAll(m_deserialized);
+		missing.addAll(m_resolutions.keySet());
+		if ( !missing.isEmpty() ) {
+			throw new IllegalStateException("reference batch was not consumed on the starting thread: "
+											+ "variables=" + missing);
+		}
+	}
+
+	void put(String name, Resolution resolution) {
+		m_resolutions.put(name, resolution);
+	}
+
+	void putTiming(String name, Timing timing) {
+		m_timings.put(name, timing);
+	}
+
+	/**
+	 * 참조 입력별 해석 소요 시간을 반환한다. 해석 결과를 꺼낸 뒤에도 유지된다.
+	 *
+	 * @return	입력 변수 이름과 해석 소요 시간의 맵.
+	 */
+	Map<String,Timing> getTimings() {
+		return Map.copyOf(m_timings);
+	}
+
+	/**
+	 * 주어진 입력의 해석 결과를 꺼낸다.
+	 * <p>
+	 * 결과는 한 번만 꺼낼 수 있으며, 해석 당시의 참조 JSON과 {@code jnode}가 다르면 결과를 사용하지 않는다.
+	 *
+	 * @param name	입력 변수 이름.
+	 * @param jnode	역직렬화 대상 참조 JSON.
+	 * @return	해석 결과. 없으면 {@code null}.
+	 */
+	@Nullable Resolution take(String name, JsonNode jnode) {
+		Resolution resolution = peek(name, jnode);
+		return (resolution != null && m_resolutions.remove(name, resolution)) ? resolution : null;
+	}
+
+	/**
+	 * 주어진 입력의 해석 결과를 꺼내지 않고 반환한다.
+	 *
+	 * @param name	입력 변수 이름.
+	 * @param jnode	참조 JSON.
+	 * @return	해석 결과. 없거나 해석 당시의 참조 JSON과 {@code jnode}가 다르면 {@code null}.
+	 */
+	@Nullable Resolution peek(String name, JsonNode jnode) {
+		Resolution resolution = m_resolutions.get(name);
+		if ( resolution == null || !resolution.jnode().equals(jnode) ) {
+			return null;
+		}
+		return resolution;
+	}
+
+	@Override
+	public void close() {
+		if ( s_current.get() == this ) {
+			if ( m_outer != null ) {
+				s_current.set(m_outer);
+			}
+			else {
+				s_current.remove();
+			}
+		}
+
+		// 변수 파일로 옮겨지지 않은 첨부 파일은 삭제한다.
+		for ( Resolution resolution: m_resolutions.values() ) {
+			if ( resolution.attachment() != null ) {
+				try {
+					Files.deleteIfExists(resolution.attachment().toPath());
+				}
+				catch ( IOException e ) {
+					s_logger.warn("failed to delete staged attachment: {}", resolution.attachment(), e);
+				}
+			}
+		}
+		m_resolutions.clear();
+	}
+}
@@ -0,0 +1,100 @@
+package mdt.operation.servers;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import utils.Preconditions;
+
+
+/**
+ * MDT 요소 참조({@code mdt:ref:*}) JSON으로부터 비교·그룹핑용 키 문자열을 만드는 유틸리티.
+ * <p>
+ * 같은 참조라도 요청마다 속성 순서가 다를 수 있으므로, 객체 속성을 이름순으로 정렬한 정규형 JSON
+ * 문자열({@link #canonical(JsonNode)})을 참조의 식별 키로 사용한다.
+ *
+ * @author Kang-Woo Lee (ETRI)
+ */
+public final class ReferenceKeys {
+	private static final String FIELD_SUBMODEL_REF = "submodelReference";
+	private static final String FIELD_INSTANCE_ID = "instanceId";
+	private static final List<String> SUBMODEL_ID_FIELDS = List.of("submodelIdShort", "submodelId");
+
+	private ReferenceKeys() {
+		throw new AssertionError("Should not be called: class=" + getClass());
+	}
+
+	/**
+	 * 참조 JSON의 정규형 문자열을 반환한다.
+	 * <p>
+	 * 객체 속성들을 이름순으로 정렬하여 직렬화하므로, 속성 순서만 다른 두 참조는 같은 문자열을 갖는다.
+	 *
+	 * @param ref	참조 JSON.
+	 * @return	정규형 문자열.
+	 * @throws IllegalArgumentException	{@code ref}가 {@code null}인 경우.
+	 */
+	public static String canonical(JsonNode ref) {
+		Preconditions.checkNotNullArgument(ref, "ref is null");
+
+		return sorted(ref).toString();
+	}
+
+	/**
+	 * 참조 대상 요소가 속한 MDT 인스턴스·서브모델을 나타내는 키를 반환한다.
+	 * <p>
+	 * 참조 JSON이 서브모델 참조({@code submodelReference})를 포함하면 그 정규형을, 인스턴스 식별자와
+	 * 서브모델 식별자를 직접 포함하면 둘을 결합한 값을 사용한다. 어느 쪽도 아니면 참조 전체의 정규형을
+	 * 반환하므로 해당 참조는 단독 그룹이 된다.
+	 *
+	 * @param ref	참조 JSON.
+	 * @return	서브모델 키.
+	 * @throws IllegalArgumentException	{@code ref}가 {@code null}인 경우.
+	 */
+	public static String submodelKey(JsonNode ref) {
+		Preconditions.checkNotNullArgument(ref, "ref is null");
+
+		JsonNode smRef = ref.get(FIELD_SUBMODEL_REF);
+		if ( smRef != null && smRef.isObject() ) {
+			return canonical(smRef);
+		}
+
+		JsonNode instId = ref.get(FIELD_INSTANCE_ID);
+		if ( instId != null ) {
+			for ( String field: SUBMODEL_ID_FIELDS ) {
+				JsonNode smId = ref.get(field);
+				if ( smId != null ) {
+					return instId.asText() + "/" + field + "=" + smId.asText();
+				}
+			}
+		}
+
+		return canonical(ref);
+	}
+
+	private static JsonNode sorted(JsonNode node) {
+		if ( node.isObject() ) {
+			List<String> names = new ArrayList<>();
+			node.fieldNames().forEachRemaining(names::add);
+			Collections.sort(names);
+
+			ObjectNode sorted = JsonNodeFactory.instance.objectNode();
+			for ( String name: names ) {
+				sorted.set(name, sorted(node.get(name)));
+			}
+			return sorted;
+		}
+		else if ( node.isArray() ) {
+			ArrayNode sorted = JsonNodeFactory.instance.arrayNode();
+			node.forEach(elm -> sorted.add(sorted(elm)));
+			return sorted;
+		}
+		else {
+			return node;
+		}
+	}
+}
@@ -0,0 +1,532 @@
+package mdt.operation.servers;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+
+import javax.annotation.concurrent.GuardedBy;
+
+import org.apache.commons.io.FileUtils;
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import utils.Preconditions;
+import utils.json.JacksonUtils;
+import utils.rpc.restful.RpcResponseMessage;
+
+import mdt.model.MDTModelSerDe;
+
+
+/**
+ * 결정적(deterministic) 연산의 수행 결과를 입력 내용으로 찾는 디스크 기반 재사용 캐시.
+ * <p>
+ * 키는 연산 디렉토리의 지문({@link #fingerprint})과 해석된 입력 값들(참조 입력은 참조 대상의 현재 값,
+ * {@link mdt.model.sm.value.FileValue} 참조는 첨부 파일 내용), 선언된 출력 변수 이름들의 SHA-256이다
+ * ({@link #keyOf}). 지문에는 연산 디스크립터 내용과 연산 디렉토리의 다른 파일(연산 스크립트 등)들의 크기와 수정
+ * 시각이 반영되므로, 연산 프로그램을 바꾸면 이전 결과는 재사용되지 않는다. 입력 값은
+ * {@link MDTCommandVariableSerDe#deserialize}가 변수 파일에 기록하는 것과 같은 형태로 계산되므로, 같은 키는
+ * 프로세스가 같은 변수 파일들을 보게 됨을 뜻한다.
+ * <p>
+ * 캐시를 찾지 못한 요청은 {@link Recorder}를 통해 출력 변수의 직렬화 시점에 변수 파일(프로세스가 기록한 원본
+ * 출력)과 직렬화된 값을 임시 디렉토리에 모으고, 세션이 {@code COMPLETED}로 끝나면 종료 응답 메시지와 함께
+ * {@code <dir>/<key>/} 항목으로 확정한다. 캐시를 찾은 요청은 프로세스를 띄우지 않고 {@link #replay}로 원본
+ * 출력들을 요청의 출력 변수에 다시 기록하여 직렬화하므로, 출력이 MDT 요소 참조({@code mdt:ref:*})이면 참조
+ * 대상 기록도 일반 수행과 같이 이루어진다.
+ * <p>
+ * 항목들은 메모리 색인(최근 사용 순)으로 관리되며, 전체 크기가 {@code maxBytes}를 넘으면 가장 오래 사용되지
+ * 않은 항목부터 삭제된다. 기동 시에는 디렉토리의 기존 항목들로 색인을 다시 구성한다.
+ *
+ * @author Kang-Woo Lee (ETRI)
+ */
+public class ResultMemo {
+	private static final Logger s_logger = LoggerFactory.getLogger(ResultMemo.class);
+
+	static final String RESPONSE_FILE = "response.json";
+	static final String VALUES_FILE = "outputs.json";
+	static final String OUTPUT_DIR = "outputs";
+	private static final String PENDING_DIR = ".pending";
+	private static final String COMPLETED = "COMPLETED";
+
+	private final File m_dir;
+	private final File m_pendingDir;
+	private final long m_maxBytes;
+	private final ReentrantLock m_lock = new ReentrantLock();
+	@GuardedBy("m_lock") private final LinkedHashMap<String,Entry> m_index = new LinkedHashMap<>(16, 0.75f, true);
+	@GuardedBy("m_lock") private long m_totalBytes = 0;
+	private final AtomicLong m_hits = new AtomicLong();
+	private final AtomicLong m_misses = new AtomicLong();
+	private final AtomicLong m_stores = new AtomicLong();
+	private final AtomicLong m_evictions = new AtomicLong();
+
+	/**
+	 * 캐시 항목.
+	 *
+	 * @param key	항목 키.
+	 * @param dir	항목 디렉토리.
+	 * @param size	항목 파일들의 전체 크기(바이트).
+	 */
+	record Entry(String key, File dir, long size) { }
+
+	/**
+	 * 캐시 통계.
+	 *
+	 * @param hits		캐시를 찾은 요청 수.
+	 * @param misses	캐시를 찾지 못한 요청 수.
+	 * @param stores	확정된 항목 수.
+	 * @param evictions	크기 제한으로 삭제된 항목 수.
+	 * @param entries	현재 항목 수.
+	 * @param bytes		현재 항목들의 전체 크기(바이트).
+	 */
+	public record Stats(long hits, long misses, long stores, long evictions, int entries, long bytes) { }
+
+	/**
+	 * 캐시를 생성하고 디렉토리의 기존 항목들로 색인을 구성한다. 확정되지 않은 임시 항목들은 삭제한다.
+	 *
+	 * @param dir		캐시 디렉토리.
+	 * @param maxBytes	항목들의 최대 전체 크기(바이트). (1 이상)
+	 * @throws IOException	캐시 디렉토리를 만들거나 읽는 중 오류가 발생한 경우.
+	 */
+	public ResultMemo(File dir, long maxBytes) throws IOException {
+		Preconditions.checkNotNullArgument(dir, "dir is null");
+		Preconditions.checkArgument(maxBytes > 0, "maxBytes must be positive: " + maxBytes);
+
+		m_dir = dir;
+		m_pendingDir = new File(dir, PENDING_DIR);
+		m_maxBytes = maxBytes;
+
+		FileUtils.deleteDirectory(m_pendingDir);
+		Files.createDirectories(m_pendingDir.toPath());
+
+		File[] entryDirs = dir.listFiles(f -> f.isDirectory() && !f.getName().equals(PENDING_DIR));
+		if ( entryDirs != null ) {
+			// 마지막 사용 시각(디렉토리 수정 시각) 순으로 색인에 넣어 LRU 순서를 복원한다.
+			Arrays.sort(entryDirs, Comparator.comparingLong(File::lastModified));
+			m_lock.lock();
+			try {
+				for ( File entryDir: entryDirs ) {
+					if ( new File(entryDir, RESPONSE_FILE).isFile() ) {
+						Entry entry = new Entry(entryDir.getName(), entryDir, FileUtils.sizeOfDirectory(entryDir));
+						m_index.put(entry.key(), entry);
+						m_totalBytes += entry.size();
+					}
+					else {
+						FileUtils.deleteQuietly(entryDir);
+					}
+				}
+			}
+			finally {
+				m_lock.unlock();
+			}
+			evict();
+		}
+		s_logger.info("loaded result memo: dir={}, entries={}", dir.getAbsolutePath(), m_index.size());
+	}
+
+	/**
+	 * 연산 디렉토리의 지문을 계산한다.
+	 * <p>
+	 * 연산 디스크립터는 내용을, 그 밖의 파일들은 상대 경로와 크기, 수정 시각을 반영한다. 숨김 파일·디렉토리와
+	 * 파이썬 바이트코드 캐시({@code __pycache__})처럼 연산 수행 중에 생기는 파일은 제외한다.
+	 *
+	 * @param opDir	연산 디렉토리.
+	 * @return	지문(SHA-256).
+	 * @throws IOException	연산 디렉토리를 읽는 중 오류가 발생한 경우.
+	 */
+	static byte[] fingerprint(File opDir) throws IOException {
+		Path root = opDir.toPath();
+		List<Path> files;
+		try ( Stream<Path> paths = Files.walk(root) ) {
+			files = paths.filter(path -> !isVolatile(root.relativize(path)) && Files.isRegularFile(path))
+						.sorted()
+						.toList();
+		}
+
+		MessageDigest digest = newDigest();
+		for ( Path file: files ) {
+			String relPath = root.relativize(file).toString().replace(File.separatorChar, '/');
+			update(digest, "\0file:" + relPath + "=");
+			if ( relPath.equals(OperationRegistry.DESCRIPTOR_FILE_NAME) ) {
+				digest.update(Files.readAllBytes(file));
+			}
+			else {
+				update(digest, Files.size(file) + ":" + Files.getLastModifiedTime(file).toMillis());
+			}
+		}
+		return digest.digest();
+	}
+
+	private static boolean isVolatile(Path relPath) {
+		for ( Path name: relPath ) {
+			String str = name.toString();
+			if ( str.startsWith(".") || str.equals("__pycache__") ) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * 요청의 결과 재사용 키를 계산한다.
+	 *
+	 * @param operation		연산 디렉토리의 지문({@link #fingerprint}).
+	 * @param inputs		입력 변수 이름과 입력 JSON의 맵.
+	 * @param outputNames	요청이 선언한 출력 변수 이름들.
+	 * @param batch			참조 입력들을 미리 해석해 둔 묶음.
+	 * @return	키(16진수 SHA-256). 참조 입력의 해석에 실패했으면 {@code null}.
+	 * @throws IOException	첨부 파일을 읽는 중 오류가 발생한 경우.
+	 */
+	static @Nullable String keyOf(byte[] operation, Map<String,JsonNode> inputs, Set<String> outputNames,
+									ReferenceBatch batch) throws IOException {
+		MessageDigest digest = newDigest();
+		digest.update(operation);
+
+		for ( Map.Entry<String,JsonNode> input: new TreeMap<>(inputs).entrySet() ) {
+			String name = input.getKey();
+			JsonNode jnode = input.getValue();
+			update(digest, "\0in:" + name + "=");
+			if ( jnode != null && jnode.path("@type").asText().startsWith("mdt:ref:") ) {
+				ReferenceBatch.Resolution resolved = batch.peek(name, jnode);
+				if ( resolved == null || resolved.failure() != null ) {
+					return null;
+				}
+				if ( resolved.attachment() != null ) {
+					update(digest, "file:");
+					AttachmentStreams.digest(resolved.attachment(), digest);
+				}
+				else {
+					// 역직렬화 시 변수 파일에 기록되는 값과 같은 형태로 반영한다.
+					String value = MDTModelSerDe.getJsonMapper().writeValueAsString(resolved.value().toValueObject());
+					update(digest, value);
+				}
+			}
+			else if ( jnode != null ) {
+				update(digest, ReferenceKeys.canonical(jnode));
+			}
+		}
+		for ( String name: new TreeSet<>(outputNames) ) {
+			update(digest, "\0out:" + name);
+		}
+
+		return HexFormat.of().formatHex(digest.digest());
+	}
+
+	/**
+	 * 주어진 키의 항목을 찾는다. 찾은 항목은 가장 최근에 사용된 것으로 표시된다.
+	 *
+	 * @param key	항목 키.
+	 * @return	항목. 없으면 {@code null}.
+	 */
+	@Nullable Entry lookup(String key) {
+		Entry entry;
+		m_lock.lock();
+		try {
+			entry = m_index.get(key);
+		}
+		finally {
+			m_lock.unlock();
+		}
+
+		if ( entry != null ) {
+			m_hits.incrementAndGet();
+			// 재기동 후에도 LRU 순서를 복원할 수 있도록 마지막 사용 시각을 디렉토리에 남긴다.
+			entry.dir().setLastModified(System.currentTimeMillis());
+		}
+		else {
+			m_misses.incrementAndGet();
+		}
+		return entry;
+	}
+
+	/**
+	 * 캐시를 찾지 못한 요청의 결과 기록기를 생성한다.
+	 *
+	 * @param key	요청의 결과 재사용 키.
+	 * @return	결과 기록기.
+	 * @throws IOException	임시 디렉토리를 만들지 못한 경우.
+	 */
+	Recorder newRecorder(String key) throws IOException {
+		return new Recorder(key);
+	}
+
+	/**
+	 * 항목의 원본 출력들을 요청의 출력 변수들에 다시 기록하여 직렬화하고, 그 값들로 바꾼 종료 응답 메시지를
+	 * 반환한다.
+	 * <p>
+	 * 출력이 MDT 요소 참조이면 {@code serde}로 출력 변수를 생성하여 원본 출력을 변수 파일에 쓴 뒤 직렬화하므로
+	 * 참조 대상에 출력이 기록된다. 그 밖의 출력은 보관된 직렬화 값을 그대로 사용한다. 호출 스레드에는
+	 * 요청의 참조 묶음({@link ReferenceBatch})이 바인딩되어 있어야 한다.
+	 *
+	 * @param entry		캐시 항목.
+	 * @param outputs	요청의 출력 변수 이름과 출력 JSON의 맵.
+	 * @param serde		명령 변수 직렬화기.
+	 * @return	종료 응답 메시지 JSON. 그 사이 항목이 삭제되었으면 {@code null}.
+	 * @throws IOException	출력 변수 기록 또는 직렬화 중 오류가 발생한 경우.
+	 */
+	@Nullable JsonNode replay(Entry entry, Map<String,JsonNode> outputs, MDTCommandVariableSerDe serde)
+		throws IOException {
+		JsonNode response;
+		JsonNode values;
+		try {
+			response = JacksonUtils.MAPPER.readTree(new File(entry.dir(), RESPONSE_FILE));
+			values = JacksonUtils.MAPPER.readTree(new File(entry.dir(), VALUES_FILE));
+		}
+		catch ( NoSuchFileException e ) {
+			return null;
+		}
+
+		File cvDir = Files.createTempDirectory("mdt-memo-").toFile();
+		try {
+			for ( Iterator<String> it = values.fieldNames(); it.hasNext(); ) {
+				String name = it.next();
+				JsonNode target = outputs.get(name);
+				if ( target == null || !target.path("@type").asText().startsWith("mdt:ref:") ) {
+					continue;
+				}
+
+				File output = new File(new File(entry.dir(), OUTPUT_DIR), name);
+				MDTCommandVariable var = (MDTCommandVariable)serde.deserialize(name, cvDir, target);
+				AttachmentStreams.copy(output, var.getFile());
+				JsonNode written = serde.serialize(var).value();
+				replaceValue(response, name, values.get(name), written);
+			}
+		}
+		finally {
+			FileUtils.deleteQuietly(cvDir);
+		}
+
+		return response;
+	}
+
+	/**
+	 * 캐시 통계를 반환한다.
+	 *
+	 * @return	통계.
+	 */
+	public Stats getStats() {
+		m_lock.lock();
+		try {
+			return new Stats(m_hits.get(), m_misses.get(), m_stores.get(), m_evictions.get(),
+							m_index.size(), m_totalBytes);
+		}
+		finally {
+			m_lock.unlock();
+		}
+	}
+
+	/**
+	 * 모든 항목을 삭제한다. 연산이 사용하는 외부 자원처럼 키에 반영되지 않는 부분이 바뀌었을 때 사용한다.
+	 */
+	public void clear() {
+		List<Entry> removed;
+		m_lock.lock();
+		try {
+			removed = new ArrayList<>(m_index.values());
+			m_index.clear();
+			m_totalBytes = 0;
+		}
+		finally {
+			m_lock.unlock();
+		}
+		removed.forEach(entry -> FileUtils.deleteQuietly(entry.dir()));
+	}
+
+	private void store(String key, File pending, long size) {
+		File entryDir = new File(m_dir, key);
+		m_lock.lock();
+		try {
+			if ( m_index.containsKey(key) ) {
+				// 같은 입력의 다른 세션이 먼저 확정했다.
+				FileUtils.deleteQuietly(pending);
+				return;
+			}
+			Files.move(pending.toPath(), entryDir.toPath(), StandardCopyOption.ATOMIC_MOVE);
+			m_index.put(key, new Entry(key, entryDir, size));
+			m_totalBytes += size;
+		}
+		catch ( IOException e ) {
+			s_logger.warn("failed to store memo entry: key={}", key, e);
+			FileUtils.deleteQuietly(pending);
+			return;
+		}
+		finally {
+			m_lock.unlock();
+		}
+
+		m_stores.incrementAndGet();
+		evict();
+	}
+
+	private void evict() {
+		List<Entry> evicteds = new ArrayList<>();
+		m_lock.lock();
+		try {
+			Iterator<Entry> it = m_index.values().iterator();
+			while ( m_totalBytes > m_maxBytes && it.hasNext() ) {
+				Entry eldest = it.next();
+				it.remove();
+				m_totalBytes -= eldest.size();
+				evicteds.add(eldest);
+			}
+		}
+		finally {
+			m_lock.unlock();
+		}
+
+		// 항목 삭제(파일 입출력)는 잠금 밖에서 수행한다.
+		for ( Entry entry: evicteds ) {
+			m_evictions.incrementAndGet();
+			FileUtils.deleteQuietly(entry.dir());
+		}
+	}
+
+	/**
+	 * 캐시를 찾지 못한 한 요청의 출력 기록기.
+	 * <p>
+	 * 출력 변수가 직렬화될 때마다 {@link #record}로 원본 출력과 직렬화 값을 모으고, 세션이 끝나면
+	 * {@link #complete}로 항목을 확정하거나 버린다.
+	 */
+	class Recorder {
+		private final String m_key;
+		private final File m_pending;
+		private final Map<String,JsonNode> m_values = new ConcurrentHashMap<>();
+		private volatile boolean m_failed = false;
+
+		private Recorder(String key) throws IOException {
+			m_key = key;
+			m_pending = new File(m_pendingDir, UUID.randomUUID().toString());
+			Files.createDirectories(new File(m_pending, OUTPUT_DIR).toPath());
+		}
+
+		/**
+		 * 항목 키를 반환한다.
+		 *
+		 * @return	항목 키.
+		 */
+		String getKey() {
+			return m_key;
+		}
+
+		/**
+		 * 직렬화된 출력 변수의 원본 출력 파일과 직렬화 값을 기록한다. 실패하면 이 요청의 결과는 확정되지 않는다.
+		 *
+		 * @param name	출력 변수 이름.
+		 * @param file	출력 변수 파일.
+		 * @param value	직렬화된 값.
+		 */
+		void record(String name, File file, JsonNode value) {
+			try {
+				AttachmentStreams.copy(file, new File(new File(m_pending, OUTPUT_DIR), name));
+				m_values.put(name, value);
+			}
+			catch ( IOException e ) {
+				s_logger.warn("failed to record output for memo: key={}, output={}", m_key, name, e);
+				m_failed = true;
+			}
+		}
+
+		/**
+		 * 세션 종료 응답으로 항목을 확정한다. 세션이 {@code COMPLETED}로 끝나지 않았거나 출력 기록에
+		 * 실패했으면 모은 출력들을 버린다.
+		 *
+		 * @param last	세션의 종료 응답 메시지. 세션 종료를 확인하지 못했으면 {@code null}.
+		 */
+		void complete(@Nullable RpcResponseMessage last) {
+			if ( last == null || m_failed || !COMPLETED.equals(RpcResponses.stateOf(last)) ) {
+				discard();
+				return;
+			}
+
+			commit(RpcResponses.toTree(last));
+		}
+
+		/**
+		 * 완료된 세션의 종료 응답 메시지 JSON으로 항목을 확정한다.
+		 *
+		 * @param response	종료 응답 메시지 JSON.
+		 */
+		void commit(JsonNode response) {
+			try {
+				if ( response instanceof ObjectNode obj ) {
+					// 재사용 응답에는 세션이 없다.
+					obj.remove("sessionEndpoint");
+				}
+				JacksonUtils.MAPPER.writeValue(new File(m_pending, RESPONSE_FILE), response);
+				JacksonUtils.MAPPER.writeValue(new File(m_pending, VALUES_FILE), m_values);
+				store(m_key, m_pending, FileUtils.sizeOfDirectory(m_pending));
+			}
+			catch ( IOException e ) {
+				s_logger.warn("failed to store memo entry: key={}", m_key, e);
+				discard();
+			}
+		}
+
+		/**
+		 * 모은 출력들을 버린다.
+		 */
+		void discard() {
+			FileUtils.deleteQuietly(m_pending);
+		}
+	}
+
+	private static boolean replaceValue(JsonNode tree, String name, JsonNode old, JsonNode value) {
+		// 응답 메시지 중 출력 변수 이름의 속성으로 보관된 직렬화 값과 같은 값을 새 값으로 바꾼다.
+		if ( tree instanceof ObjectNode obj ) {
+			if ( old != null && old.equals(obj.get(name)) ) {
+				obj.set(name, value);
+				return true;
+			}
+			for ( JsonNode child: obj ) {
+				if ( replaceValue(child, name, old, value) ) {
+					return true;
+				}
+			}
+		}
+		else if ( tree.isArray() ) {
+			for ( JsonNode child: tree ) {
+				if ( replaceValue(child, name, old, value) ) {
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+
+	private static MessageDigest newDigest() {
+		try {
+			return MessageDigest.getInstance("SHA-256");
+		}
+		catch ( NoSuchAlgorithmException e ) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	private static void update(MessageDigest digest, String str) {
+		digest.update(str.getBytes(StandardCharsets.UTF_8));
+	}
+}
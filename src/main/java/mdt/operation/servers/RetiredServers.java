@@ -0,0 +1,108 @@
+package mdt.operation.servers;
+
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import utils.Preconditions;
+
+
+/**
+ * 연산 등록부에서 교체되거나 해제된 RPC 서버들.
+ * <p>
+ * 교체·해제된 RPC 서버도 이미 수행 중인 세션들은 끝까지 수행해야 하므로 바로 닫지 않고 이곳에 보관한다.
+ * {@link #closeIdle(SessionIndex)}는 세션 색인에서 더 이상 참조되지 않는(보유한 세션이 모두 회수된) 서버들만
+ * 닫는다. 세션 색인 항목은 RPC 서버가 세션을 회수할 때 제거되므로, 서버는 마지막 세션이 회수된 뒤에 닫힌다.
+ *
+ * @author Kang-Woo Lee (ETRI)
+ */
+public class RetiredServers {
+	private static final Logger s_logger = LoggerFactory.getLogger(RetiredServers.class);
+
+	private final Consumer<RpcServerInfo> m_closer;
+	private final List<RpcServerInfo> m_retired = new CopyOnWriteArrayList<>();
+
+	/**
+	 * 보관소를 생성한다.
+	 *
+	 * @param closer	RPC 서버를 닫는 함수.
+	 */
+	public RetiredServers(Consumer<RpcServerInfo> closer) {
+		Preconditions.checkNotNullArgument(closer, "closer is null");
+
+		m_closer = closer;
+	}
+
+	/**
+	 * 교체·해제된 RPC 서버를 보관한다.
+	 *
+	 * @param info	교체·해제된 RPC 서버 정보.
+	 */
+	public void retire(RpcServerInfo info) {
+		Preconditions.checkNotNullArgument(info, "info is null");
+
+		m_retired.add(info);
+	}
+
+	/**
+	 * 보관 중인 RPC 서버 수를 반환한다.
+	 *
+	 * @return	서버 수.
+	 */
+	public int size() {
+		return m_retired.size();
+	}
+
+	/**
+	 * 세션 색인에서 참조되지 않는 보관 중인 RPC 서버들을 닫는다.
+	 *
+	 * @param index	세션 색인.
+	 * @return	닫은 서버 수.
+	 */
+	public int closeIdle(SessionIndex index) {
+		Preconditions.checkNotNullArgument(index, "index is null");
+
+		if ( m_retired.isEmpty() ) {
+			return 0;
+		}
+
+		Set<RpcServerInfo> inUse = Collections.newSetFromMap(new IdentityHashMap<>());
+		index.entries().forEach(entry -> inUse.add(entry.server()));
+
+		int count = 0;
+		for ( RpcServerInfo info: m_retired ) {
+			if ( !inUse.contains(info) && m_retired.remove(info) ) {
+				close(info);
+				++count;
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * 보관 중인 모든 RPC 서버들을 닫는다.
+	 */
+	public void closeAll() {
+		for ( RpcServerInfo info: m_retired ) {
+			if ( m_retired.remove(info) ) {
+				close(info);
+			}
+		}
+	}
+
+	private void close(RpcServerInfo info) {
+		try {
+			m_closer.accept(info);
+			s_logger.info("closed retired RPC server: id={}", info.opId());
+		}
+		catch ( Exception e ) {
+			s_logger.warn("failed to close retired RPC server: id={}, cause={}", info.opId(), e.toString());
+		}
+	}
+}
@@ -0,0 +1,79 @@
+package mdt.operation.servers;
+
+import java.util.Locale;
+import java.util.Set;
+
+import org.jetbrains.annotations.Nullable;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import utils.json.JacksonUtils;
+import utils.rpc.restful.RpcResponseMessage;
+
+
+/**
+ * {@link RpcResponseMessage}에서 세션 상태 정보를 읽는 유틸리티.
+ * <p>
+ * 응답 메시지를 JSON 트리로 변환하여 {@code state}(없으면 {@code status}) 속성을 세션 상태로 사용하며,
+ * 상태 속성 없이 오류만 보고된 경우는 {@code FAILED}로 간주한다.
+ *
+ * @author Kang-Woo Lee (ETRI)
+ */
+final class RpcResponses {
+	/** 오류만 보고된 응답의 상태. */
+	static final String FAILED = "FAILED";
+	private static final Set<String> TERMINAL_STATES = Set.of("COMPLETED", FAILED, "CANCELLED");
+
+	private RpcResponses() {
+		throw new AssertionError("Should not be called: class=" + getClass());
+	}
+
+	/**
+	 * 응답 메시지를 JSON 트리로 변환한다.
+	 *
+	 * @param resp	응답 메시지.
+	 * @return	JSON 트리.
+	 */
+	static JsonNode toTree(RpcResponseMessage resp) {
+		return JacksonUtils.MAPPER.valueToTree(resp);
+	}
+
+	/**
+	 * 응답 메시지가 나타내는 세션 상태를 반환한다.
+	 *
+	 * @param resp	응답 메시지.
+	 * @return	대문자로 정규화된 세션 상태. 확인할 수 없으면 {@code null}.
+	 */
+	static @Nullable String stateOf(RpcResponseMessage resp) {
+		String state = stateOf(toTree(resp));
+		return (state == null && resp.getError() != null) ? FAILED : state;
+	}
+
+	/**
+	 * 응답 메시지 JSON이 나타내는 세션 상태를 반환한다. 재사용된 결과처럼 응답 메시지 객체 없이 JSON만 있는
+	 * 경우에 사용한다.
+	 *
+	 * @param tree	응답 메시지 JSON.
+	 * @return	대문자로 정규화된 세션 상태. 확인할 수 없으면 {@code null}.
+	 */
+	static @Nullable String stateOf(JsonNode tree) {
+		JsonNode state = tree.path("state");
+		if ( !state.isTextual() ) {
+			state = tree.path("status");
+		}
+		if ( state.isTextual() ) {
+			return state.asText().toUpperCase(Locale.ROOT);
+		}
+		return tree.hasNonNull("error") ? FAILED : null;
+	}
+
+	/**
+	 * 주어진 세션 상태가 더 이상 바뀌지 않는 종료 상태인지 여부를 반환한다.
+	 *
+	 * @param state	세션 상태.
+	 * @return	종료 상태이면 {@code true}.
+	 */
+	static boolean isTerminal(@Nullable String state) {
+		return state != null && TERMINAL_STATES.contains(state);
+	}
+}
@@ -2,15 +2,37 @@ package mdt.operation.servers;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.file.Files;
 import java.time.Duration;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 
+import org.jetbrains.annotations.Nullable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
 import org.springframework.beans.factory.InitializingBean;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
@@ -20,27 +42,30 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.json.JsonMapper;
-import com.google.common.cache.Cache;
-import com.google.common.cache.CacheBuilder;
-import com.google.common.cache.RemovalCause;
-import com.google.common.cache.RemovalNotification;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 
-import utils.KeyValue;
 import utils.Preconditions;
 import utils.Throwables;
-import utils.func.FOption;
-import utils.func.Funcs;
 import utils.http.RESTfulErrorEntity;
-import utils.io.FileUtils;
 import utils.json.JacksonUtils;
 import utils.rpc.restful.RESTfulAsyncRpcServer;
 import utils.rpc.restful.RpcRequestMessage;
 import utils.rpc.restful.RpcResponseMessage;
 import utils.rpc.restful.process.RESTfulCommandExecutionServer;
-import utils.stream.FStream;
 
 import mdt.client.HttpMDTManager;
 import mdt.model.ResourceNotFoundException;
@@ -51,45 +76,153 @@ import mdt.model.instance.MDTInstanceManager;
  * MDT 연산(operation)을 RESTful RPC로 노출하는 Spring 디스패처 컨트롤러.
  * <p>
  * 기동 시 {@code operations} 디렉터리 하위의 각 연산 디렉터리에서 {@code operation.json}을 읽어
- * {@link RESTfulCommandExecutionServer}를 등록하고, 다음 엔드포인트로 연산의 시작·상태조회·취소를 중계한다.
+ * {@link RESTfulCommandExecutionServer}를 등록하고(이후 변경은 {@link OperationsDirectoryWatcher}가 반영),
+ * 다음 엔드포인트로 연산의 시작·상태조회·취소를 중계한다.
  * <ul>
  *   <li>{@code POST   /api/v1/operations/{id}} — 연산 시작 ({@link #run})</li>
+ *   <li>{@code POST   /api/v1/operations/{id}/batch} — 여러 요청으로 연산 일괄 시작 ({@link #runBatch})</li>
  *   <li>{@code GET    /api/v1/sessions/{id}/state} — 세션 상태 조회 ({@link #status})</li>
+ *   <li>{@code POST   /api/v1/sessions/states} — 여러 세션 상태 일괄 조회 ({@link #statuses})</li>
+ *   <li>{@code GET    /api/v1/sessions/{id}/state?waitFor=...} — 세션 상태 변화 대기 (long-poll, {@link #awaitStatus})</li>
+ *   <li>{@code GET    /api/v1/sessions/{id}/events} — 세션 상태 전이 SSE 스트림 ({@link #events})</li>
+ *   <li>{@code GET    /api/v1/sessions/{id}/trace} — 세션 수행 시간표 ({@link #trace})</li>
+ *   <li>{@code GET    /api/v1/sessions/{id}/outputs/{name}} — 세션 출력 파일 내려받기 ({@link #output})</li>
  *   <li>{@code DELETE /api/v1/sessions/{session}} — 세션 취소 ({@link #delete})</li>
+ *   <li>{@code DELETE /api/v1/prototypes} — 참조 대상 프로토타입 캐시 무효화 ({@link #invalidatePrototypes})</li>
+ *   <li>{@code GET    /api/v1/memo} — 결과 재사용 캐시 통계 ({@link #memoStats})</li>
+ *   <li>{@code DELETE /api/v1/memo} — 결과 재사용 캐시 비우기 ({@link #clearMemo})</li>
  * </ul>
- * 시작된 세션은 세션 엔드포인트 → RPC 서버 매핑으로 캐시되며(최종 접근 후 30초 뒤 만료), 입력/출력 변수의
- * MDT 모델 직렬화는 {@link MDTCommandVariableSerDe}가 담당한다.
+ * 연산 시작은 실행 슬롯 승인({@link AdmissionController}), 참조 입력 해석({@link MDTCommandVariableSerDe}),
+ * 결과 재사용 조회({@link ResultMemo}), RPC 서버 호출, 세션 종료 처리 등록의 단계로 이루어진다.
  *
  * @author Kang-Woo Lee (ETRI)
  */
 @RestController
 @RequestMapping("/api/v1")
-public class RpcServerDispatcher implements InitializingBean {
+public class RpcServerDispatcher implements InitializingBean, DisposableBean {
 	private static final Logger s_logger = LoggerFactory.getLogger(RpcServerDispatcher.class);
+	/** 결정적 연산의 응답에서 결과 재사용 여부({@code hit}/{@code miss})를 알리는 헤더. */
+	public static final String MEMO_HEADER = "X-MDT-Memo";
+	private static final String MEMO_SESSION_PREFIX = "memo:";
+	/** 최종 응답 메시지에 수행 시간표 요약을 포함하도록 요청하는 요청 본문 속성이자, 요약이 담기는 응답 속성. */
+	public static final String TRACE_SUMMARY_FIELD = "traceSummary";
 	
-	@Autowired private RpcServersConfiguration m_config;
+	private RpcServersConfiguration m_config;
+	@Autowired(required=false) private MeterRegistry m_meterRegistry;
+	@Value("${spring.threads.virtual.enabled:false}") private boolean m_virtualThreads;
 	private MDTInstanceManager m_manager;
-	private final Map<String,RpcServerInfo> m_serverInfos = new HashMap<>();
+	private final OperationRegistry m_registry;
 	private final JsonMapper m_jsonMapper = JacksonUtils.MAPPER;
 	private MDTCommandVariableSerDe m_serde;
 
-	private Cache<String,RpcServerInfo> m_sessions = CacheBuilder.newBuilder()
-																.expireAfterAccess(Duration.ofSeconds(30))
-																.removalListener(this::onClosedSessionExpired)
-																.build();
-	private void onClosedSessionExpired(RemovalNotification<String, RpcServerInfo> noti) {
-		if ( noti.wasEvicted() && noti.getCause() == RemovalCause.EXPIRED ) {
-			s_logger.debug("expired closed-session: session={}", noti.getKey());
+	private final SessionIndex m_sessionIndex = new SessionIndex();
+	private final RetiredServers m_retiredServers = new RetiredServers(this::closeRpcServer);
+	private final SessionEventHub m_events;
+	private SessionProcessTracker m_processTracker = new SessionProcessTracker();
+	private CallbackDispatcher m_callbacks;
+	private AdmissionController m_admission;
+	private ScheduledExecutorService m_scheduler;
+	private OperationsDirectoryWatcher m_watcher;
+	private WorkerPools m_workerPools;
+	private ResultMemo m_memo;
+	private DispatcherMetrics m_metrics;
+	private SessionTraces m_traces = new SessionTraces(SessionTraces.DEFAULT_CAPACITY);
+	private SweepSessions m_sweeps = new SweepSessions(SweepSessions.DEFAULT_CAPACITY);
+	private QueuedRequests m_queued = new QueuedRequests(QueuedRequests.DEFAULT_CAPACITY);
+	private StreamingRequestReader m_requestReader
+					= new StreamingRequestReader(m_jsonMapper, 0, new File(System.getProperty("java.io.tmpdir")));
+	@Nullable private SessionOutputs m_outputs;
+	@Nullable private SessionJournal m_journal;
+	@Nullable private RecoveredSessions m_recovered;
+	
+	/**
+	 * 일괄 연산 시작 요청({@link #runBatch})의 항목별 결과.
+	 *
+	 * @param status			항목을 {@link #run}으로 요청했을 때의 응답 코드.
+	 * @param sessionEndpoint	생성된 세션 엔드포인트. 세션이 생성되지 않았으면 {@code null}.
+	 * @param body				항목을 {@link #run}으로 요청했을 때의 응답 본문(응답 메시지 또는 오류 정보).
+	 */
+	public record BatchItem(int status, @Nullable String sessionEndpoint, @Nullable Object body) {
+		static BatchItem of(ResponseEntity<?> resp) {
+			Object body = resp.getBody();
+			String sessionEndpoint = (body instanceof RpcResponseMessage msg) ? msg.getSessionEndpoint() : null;
+			return new BatchItem(resp.getStatusCode().value(), sessionEndpoint, body);
 		}
 	}
-
 	
-	private static record RpcServerInfo(String opId, RESTfulAsyncRpcServer rpcServer) { }
+	/**
+	 * 여러 세션 상태 조회({@link #statuses})의 세션별 결과.
+	 *
+	 * @param session	세션 식별자.
+	 * @param status	세션을 {@link #status}로 조회했을 때의 응답 코드. 세션이 없거나 회수되었으면 {@code 404}.
+	 * @param body		세션을 {@link #status}로 조회했을 때의 응답 본문(응답 메시지 또는 오류 정보).
+	 */
+	public record SessionState(String session, int status, @Nullable Object body) { }
+	
+	/**
+	 * 디스패처가 처리하는 속성들을 분리해 낸 연산 요청.
+	 *
+	 * @param node		요청 JSON. 분리된 속성들은 제거되어 있다.
+	 * @param message	RPC 요청 메시지.
+	 * @param callback	세션 종료 시 최종 응답 메시지를 전달할 URL. 없으면 {@code null}.
+	 * @param priority	시작 대기 우선순위.
+	 * @param spills	임시 파일로 옮겨 적은 일반 값 입력들. 없으면 {@code null}.
+	 */
+	private record ParsedRequest(JsonNode node, RpcRequestMessage message, @Nullable URI callback, int priority,
+								@Nullable SpilledValues spills) { }
+
+	/**
+	 * 디스패처를 생성한다. 연산 등록부의 부정 캐시는 주어진 설정으로 한 번만 생성된다.
+	 *
+	 * @param config	RPC 서버 설정.
+	 */
+	@Autowired
+	public RpcServerDispatcher(RpcServersConfiguration config) {
+		this(config, null, null, null, new DispatcherMetrics(new SimpleMeterRegistry()));
+	}
+
+	RpcServerDispatcher() {
+		this(new RpcServersConfiguration());
+	}
+
+	/**
+	 * 주어진 구성 요소들을 사용하는 디스패처를 생성한다. {@link #afterPropertiesSet()} 없이 시험할 때 사용한다.
+	 *
+	 * @param config	RPC 서버 설정.
+	 * @param serde		입출력 변수 직렬화기. 없으면 {@code null}.
+	 * @param events	세션 이벤트 허브. {@code null}이면 RPC 서버에 세션 상태를 묻는 허브를 생성한다.
+	 * @param admission	실행 슬롯 승인기. 없으면 {@code null}.
+	 * @param metrics	지표 기록기.
+	 */
+	RpcServerDispatcher(RpcServersConfiguration config, @Nullable MDTCommandVariableSerDe serde,
+						@Nullable SessionEventHub events, @Nullable AdmissionController admission,
+						DispatcherMetrics metrics) {
+		Preconditions.checkNotNullArgument(config, "config is null");
+		Preconditions.checkNotNullArgument(metrics, "metrics is null");
+
+		m_config = config;
+		m_registry = new OperationRegistry(() -> m_config.getOperationsDir(), this::createRpcServer,
+											config.getUnknownOperationCacheSize(), config.getUnknownOperationTtl());
+		m_serde = serde;
+		m_events = (events != null) ? events : new SessionEventHub(this::probeStatus);
+		m_admission = admission;
+		m_metrics = metrics;
+	}
+
+	OperationRegistry getRegistry() {
+		return m_registry;
+	}
+
+	SessionIndex getSessionIndex() {
+		return m_sessionIndex;
+	}
+
+	QueuedRequests getQueuedRequests() {
+		return m_queued;
+	}
 
 	@Override
 	public void afterPropertiesSet() throws Exception {
-		Preconditions.checkState(m_config != null);
-
 		String instanceManagerUrl = m_config.getInstanceManagerUrl();
 		if ( instanceManagerUrl == null ) {
 			throw new IllegalStateException("instanceManagerUrl is not configured");
@@ -97,80 +230,763 @@ public class RpcServerDispatcher implements InitializingBean {
 		HttpMDTManager mdt = HttpMDTManager.connect(instanceManagerUrl);
 		m_manager = mdt.getInstanceManager();
 		
-		m_serde = new MDTCommandVariableSerDe(m_manager);
+		ElementPrototypeCache protoCache = new ElementPrototypeCache(m_config.getPrototypeCacheSize(),
+																	m_config.getPrototypeCacheTtl());
+		m_serde = new MDTCommandVariableSerDe(m_manager, m_config.getReferenceResolveConcurrency(), protoCache);
 
-		File operationsDir = m_config.getOperationsDir();
-		File[] opDirs = operationsDir.listFiles(File::isDirectory);
-		if ( opDirs == null ) {
-			// operations 디렉터리가 없거나 디렉터리가 아니면 등록 없이 기동한다.
-			s_logger.warn("operations directory not found: {}", operationsDir.getAbsolutePath());
-			return;
+		// RPC 서버가 회수한 세션을 주기적으로 세션 색인에서 제거하고, 교체·해제된 RPC 서버들 중 더 이상
+		// 세션을 보유하지 않는 서버들을 닫는다. 세션 상태 변화의 확인은 세션 이벤트 허브가 자체 스레드에서 수행한다.
+		long pruneMillis = m_config.getSessionIndexPruneInterval().toMillis();
+		m_scheduler = Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform().daemon()
+																		.name("session-scheduler")
+																		.factory());
+		m_scheduler.scheduleWithFixedDelay(() -> {
+			m_sessionIndex.pruneRetired();
+			m_retiredServers.closeIdle(m_sessionIndex);
+		}, pruneMillis, pruneMillis, TimeUnit.MILLISECONDS);
+		m_events.start(m_config.getSessionEventBackstopInterval());
+		// 가상 스레드 모드(spring.threads.virtual.enabled)에서는 세션별 후속 처리(프로세스 추적, 콜백 전달)도
+		// 가상 스레드에서 수행한다.
+		m_processTracker.close();
+		m_processTracker = new SessionProcessTracker(m_virtualThreads
+												? Thread.ofVirtual().name("session-process-tracker-vt").factory()
+												: Thread.ofPlatform().daemon().name("session-process-tracker").factory());
+		ThreadFactory callbackThreads = m_virtualThreads
+										? Thread.ofVirtual().name("callback-vt-", 0).factory()
+										: Thread.ofPlatform().daemon().name("callback-", 0).factory();
+		m_callbacks = new CallbackDispatcher(m_config.getCallbackWorkers(), m_config.getCallbackQueueCapacity(),
+											m_config.getCallbackMaxAttempts(), m_config.getCallbackInitialBackoff(),
+											m_config.getCallbackTimeout(), callbackThreads);
+
+		m_admission = new AdmissionController(m_config.getMaxConcurrentSessions(), m_config.getMaxQueuedRequests());
+		m_workerPools = new WorkerPools(m_config.getWorkerPoolDir());
+		m_memo = new ResultMemo(m_config.getMemoDir(), m_config.getMemoMaxSize().toBytes());
+		if ( m_meterRegistry != null ) {
+			m_metrics = new DispatcherMetrics(m_meterRegistry);
+		}
+		m_metrics.bindSessionGauges(m_admission, m_sessionIndex);
+		m_traces = new SessionTraces(m_config.getSessionTraceCapacity());
+		m_sweeps = new SweepSessions(m_config.getSweepCapacity());
+		m_queued = new QueuedRequests(m_config.getQueuedRequestCapacity());
+		File spillDir = m_config.getInlineSpillDir();
+		Files.createDirectories(spillDir.toPath());
+		m_requestReader = new StreamingRequestReader(m_jsonMapper, m_config.getInlineSpillThreshold().toBytes(),
+													spillDir);
+		if ( m_config.getOutputFilesCapacity() > 0 ) {
+			m_outputs = new SessionOutputs(m_config.getOutputFilesDir(), m_config.getOutputFilesCapacity(),
+											m_config.getOutputLinkThreshold().toBytes());
+		}
+		if ( m_config.getSessionJournalRetained() > 0 ) {
+			// 이전 실행의 세션들을 저널에서 복구하고, 수행 중이던 프로세스들은 다시 연결한다.
+			// 저널 레코드는 주기적으로 한 번에 fsync한다.
+			m_journal = new SessionJournal(m_config.getSessionJournalDir(), m_config.getSessionJournalRetained());
+			m_recovered = new RecoveredSessions(m_journal);
+			int reattached = m_recovered.recover(m_journal.getRecovered());
+			long syncMillis = m_config.getSessionJournalSyncInterval().toMillis();
+			m_scheduler.scheduleWithFixedDelay(m_journal::syncQuietly, syncMillis, syncMillis, TimeUnit.MILLISECONDS);
+			s_logger.info("recovered {} session(s) from journal, reattached {} process(es)",
+							m_recovered.size(), reattached);
 		}
 
 		// operations 디렉터리 하위의 각 operation 디렉터리에서 operation.json 파일을 찾아서
-		// RPC 서버를 등록한다.
-		FStream.of(opDirs)
-				.map(dir -> KeyValue.of(dir.getName(), FileUtils.path(dir, "operation.json")))
-				.filter(kv -> kv.value().isFile())
-				.forEach(kv -> {
-					try {
-						RESTfulAsyncRpcServer server = new RESTfulCommandExecutionServer(kv.value(), m_serde);
-						RpcServerInfo info = new RpcServerInfo(kv.key(), server);
-						m_serverInfos.put(kv.key(), info);
-						s_logger.info("registered RPC operation: id={}, desc={}", kv.key(), kv.value());
-					}
-					catch ( IOException e ) {
-						s_logger.warn("failed to load operation: id=" + kv.key(), e);
-					}
-				});
-
+		// RPC 서버를 등록한다. 감시가 활성화되어 있으면 이후의 추가/변경/삭제도 감시자가 반영한다.
+		File operationsDir = m_config.getOperationsDir();
+		if ( m_config.isWatchOperations() && operationsDir.isDirectory() ) {
+			m_watcher = new OperationsDirectoryWatcher(operationsDir, m_registry, this::createRpcServer,
+														m_config.getOperationsReloadDebounce(),
+														m_retiredServers::retire);
+		}
+		else {
+			m_registry.loadAll();
+		}
 		s_logger.info("registered {} RPC operation(s) from {}",
-						m_serverInfos.size(), operationsDir.getAbsolutePath());
+						m_registry.size(), m_config.getOperationsDir().getAbsolutePath());
+	}
+
+	@Override
+	public void destroy() throws Exception {
+		if ( m_watcher != null ) {
+			m_watcher.close();
+		}
+		m_retiredServers.closeAll();
+		m_registry.values().forEach(this::closeRpcServer);
+		if ( m_workerPools != null ) {
+			m_workerPools.close();
+		}
+		m_processTracker.close();
+		m_events.close();
+		if ( m_callbacks != null ) {
+			m_callbacks.close();
+		}
+		if ( m_recovered != null ) {
+			m_recovered.close();
+		}
+		if ( m_journal != null ) {
+			m_journal.close();
+		}
+		if ( m_scheduler != null ) {
+			m_scheduler.shutdownNow();
+		}
 	}
 
     /**
      * 지정한 연산을 시작시킨다. ({@code POST /api/v1/operations/{id}})
      * <p>
-     * 등록되지 않은 연산이면 {@code operations} 디렉터리에서 지연 로딩을 시도하고, 그래도 없으면 404를 반환한다.
-     * 시작에 성공하여 세션이 생성되면 세션 맵에 등록하고 {@code 202 Accepted}로 응답 메시지를 반환한다.
+     * 연산은 요청 본문을 읽기 전에 확인하므로, 없는 연산이면 본문을 읽지 않고 404를 반환한다.
+     * 연산 디렉터리를 감시 중이면 등록부에 없는 연산은 바로 404를 반환한다. 감시하지 않는 경우에는
+     * 등록되지 않은 연산이면 {@code operations} 디렉터리에서 지연 로딩을 시도하고, 그래도 없으면 404를 반환하며,
+     * 최근에 없는 것으로 확인된 연산은 디렉터리를 다시 확인하지 않고 바로 404를 반환한다.
+     * 요청의 MDT 요소 참조 입력·출력들은 연산 시작 전에 병렬로 미리 해석된다.
+     * 시작에 성공하여 세션이 생성되면 세션 색인에 등록하고 {@code 202 Accepted}로 응답 메시지를 반환한다.
+     * <p>
+     * 요청 본문에 {@code callbackUrl}이 주어지면 세션이 완료·실패·취소되었을 때 최종 응답 메시지를 해당 URL로
+     * {@code POST}한다. 종료 상태가 관측되기 전에 세션이 회수되면 대신 {@code gone} 이벤트를 보낸다. 전달은
+     * 비동기로 수행되며 실패 시 재시도한다.
+     * <p>
+     * 연산의 동시 세션 수(연산 디렉터리의 {@code dispatch.json}) 또는 전역 동시 세션 수가 다 찼으면 요청은
+     * 대기열에 들어가고, 요청 스레드는 기다리지 않고 대기 핸들({@code /sessions/queued-...})의 상태를
+     * {@code 202 Accepted}로 바로 반환한다({@link QueuedRequest.Status}). 요청은 슬롯이 빌 때 시작되며, 대기
+     * 핸들은 일반 세션처럼 조회·취소할 수 있고 세션이 시작된 뒤에는 그 세션을 가리킨다. 대기 순서가 우선순위인
+     * 연산은 요청 본문의 {@code priority}(정수, 큰 값 우선)를 따른다. 대기열이 가득 찼으면 {@code 429}와 최근
+     * 수행 시간으로 추정한 {@code Retry-After}를 반환하며, 대기 시간이 초과된 요청의 대기 핸들은 {@code FAILED}가
+     * 된다.
+     * <p>
+     * 결정적 연산({@code dispatch.json}의 {@code deterministic})은 해석된 입력 값과 연산 디렉토리(디스크립터와
+     * 연산 스크립트 등)로 이전 수행 결과를 찾아, 있으면 프로세스를 띄우지 않고 {@code 200 OK}로 종료 응답
+     * 메시지를 바로 반환한다. 이때도 MDT 요소 참조 출력들은 참조 대상에 기록된다. 결정적 연산의 응답에는 재사용 여부가 {@value #MEMO_HEADER} 헤더로
+     * 표시된다.
+     * <p>
+     * 요청 수행의 단계별 시간표는 세션 엔드포인트별로 보관되어 {@link #trace}로 조회할 수 있다. 요청 본문에
+     * {@value #TRACE_SUMMARY_FIELD}가 {@code true}이면 세션의 종료 응답 메시지(상태 조회 응답과 콜백 본문)에
+     * 시간표 요약이 같은 이름의 속성으로 추가된다.
+     * <p>
+     * 요청 본문에 {@value ParameterSweep#FIELD}가 주어지면 파라미터 스윕으로 수행한다. 요청의 나머지는 조합들의
+     * 틀이 되며, 조합마다 스윕 파라미터 입력만 바꾼 요청을 위와 같이 시작시킨다. 이때는 스윕 세션
+     * ({@code /sessions/sweep-...})의 상태를 {@code 202 Accepted}로 바로 반환하며, 스윕 세션의 상태 조회 결과에는
+     * 진행 현황과, 스윕이 끝나면 조합별 입력·출력의 열 단위 결과 표가 담긴다({@link SweepSession.Status}).
+     * <p>
+     * 요청 본문은 문자열로 받지 않고 스트림으로 읽는다. 크기가 {@code rpc-servers.inlineSpillThreshold}를 넘는
+     * 일반 값 입력은 읽는 즉시 임시 파일에 기록되었다가 세션의 변수 파일로 옮겨지므로, 디스패처는 작은 값들만
+     * 메모리에 유지한다({@link StreamingRequestReader}). {@code @type}으로 시작하는 입력(요소 참조나
+     * {@code ElementValue})은 디스패처가 해석해야 하므로 임시 파일을 거치지 않고 바로 읽는다.
      *
-     * @param opId			연산 식별자.
-     * @param requestJson	{@link RpcRequestMessage} 형식의 요청 본문(JSON).
-     * @return	연산 시작 결과를 담은 응답({@code 202}) 또는 연산 미존재 시 {@code 404}.
+     * @param opId	연산 식별자.
+     * @param body	{@link RpcRequestMessage} 형식의 요청 본문(JSON) 스트림.
+     * @return	연산 시작 결과를 담은 응답({@code 202}), 대기 핸들 상태를 담은 응답({@code 202}), 재사용된
+     * 			결과({@code 200}), 연산 미존재 시 {@code 404}, 또는 시작 거절 시 {@code 429}. 파라미터 스윕이면
+     * 			스윕 세션 상태를 담은 응답({@code 202}).
      * @throws IOException	요청 파싱 또는 연산 로딩 중 입출력 오류가 발생한 경우.
+     * @throws IllegalArgumentException	요청 본문이 비어 있거나, {@code callbackUrl}이 절대 {@code http(s)} URL이
+     * 									아니거나 허용되지 않은 호스트를 가리키거나({@code rpc-servers.callbackAllowedHosts}),
+     * 									{@code priority}가 정수가 아니거나, 파라미터 스윕 명세가 잘못된 경우.
      */
     @PostMapping("/operations/{id}")
-    public ResponseEntity<?> run(@PathVariable("id") String opId, @RequestBody String requestJson)
-    																				throws IOException {
+    public ResponseEntity<?> run(@PathVariable("id") String opId, InputStream body) throws IOException {
     	Preconditions.checkNotNullArgument(opId, "operation id is null");
     	
-    	// 요청 JSON을 RpcRequestMessage로 변환한다.
-    	RpcRequestMessage request = m_jsonMapper.readValue(requestJson, RpcRequestMessage.class);
-    	
-    	RpcServerInfo info = m_serverInfos.get(opId);
+    	// 연산을 먼저 확인하여, 없는 연산이면 요청 본문을 읽지 않고 바로 404를 반환한다.
+    	RpcServerInfo info = lookupOperation(opId);
     	if ( info == null ) {
-    		info = loadRpcServer(opId);
+    		return operationNotFound(opId);
+    	}
+    	
+    	// 요청 본문을 읽어 RpcRequestMessage로 변환한다. 큰 일반 값 입력은 임시 파일로 옮겨 적는다.
+    	// 변수 파일로 옮겨지지 않은 임시 파일은 요청 처리가 끝나면 삭제된다.
+    	try ( SpilledValues spills = new SpilledValues() ) {
+    		SessionTrace trace = new SessionTrace(opId);
+    		long parseStartedAt = System.nanoTime();
+    		ParsedRequest request;
+    		ParameterSweep sweep = null;
+    		try {
+    			JsonNode requestNode = m_requestReader.read(body, spills);
+    			if ( requestNode instanceof ObjectNode obj && obj.has(ParameterSweep.FIELD) ) {
+    				sweep = ParameterSweep.parse(obj.remove(ParameterSweep.FIELD), m_config.getMaxSweepSize());
+    			}
+    			request = parseRequest(requestNode, spills, trace);
+    		}
+    		catch ( IOException | RuntimeException e ) {
+    			m_metrics.record(DispatcherMetrics.Phase.PARSE, opId, DispatcherMetrics.ERROR,
+    							System.nanoTime() - parseStartedAt);
+    			throw e;
+    		}
+    		long parseEndedAt = System.nanoTime();
+    		m_metrics.record(DispatcherMetrics.Phase.PARSE, opId, DispatcherMetrics.OK, parseEndedAt - parseStartedAt);
+    		trace.add(DispatcherMetrics.Phase.PARSE, null, DispatcherMetrics.OK, parseStartedAt, parseEndedAt);
+    		
+    		if ( sweep != null ) {
+    			return startSweep(opId, info, request, sweep);
+    		}
+    		return start(opId, info, request, trace, null, true, null);
     	}
+    }
+    
+    /**
+     * 지정한 연산을 여러 요청으로 한꺼번에 시작시킨다. ({@code POST /api/v1/operations/{id}/batch})
+     * <p>
+     * 요청 본문은 {@link #run}의 요청 본문들의 JSON 배열이며, 각 항목은 {@link #run}과 같이 처리된다. 다만 연산
+     * 조회는 한 번만 수행하고, 둘 이상의 항목에 공통으로 나타나는 MDT 요소 참조 입력은 한 번만 해석하여 항목들이
+     * 나눠 쓴다({@link MDTCommandVariableSerDe#resolveShared}). 각 항목은 단건 요청과 같이 연산별·전역 동시 세션 수
+     * 제한에 따라 승인되므로 제한을 넘는 항목은 슬롯이 빌 때까지 대기열에서 기다리고, 대기열이 가득 차면 거절된다.
+     * <p>
+     * 요청 스레드는 항목들의 슬롯을 기다리지 않는다. 항목마다 슬롯을 요청하고 대기 핸들({@link QueuedRequest})을
+     * 만든 뒤, {@code 202 Accepted}로 요청 순서대로 항목별 결과({@link BatchItem})의 배열을 바로 반환한다. 승인
+     * 요청된 항목의 결과는 대기 핸들 엔드포인트와 상태를 담으며, 항목들은 일괄 요청의 가상 스레드에서 공통 참조를
+     * 해석한 뒤 슬롯을 얻는 대로 시작된다. 시작된 항목의 대기 핸들은 {@link #run}의 대기 핸들과 같이 시작된 세션을
+     * 가리킨다. 결정적 연산의 항목도 재사용할 결과가 있는지와 관계없이 먼저 슬롯을 얻는다. 항목 하나의 파싱 오류나
+     * 시작 실패·거절은 다른 항목에 영향을 주지 않는다.
+     * <p>
+     * 요청 본문은 {@link #run}과 같이 스트림으로 읽으며, 항목마다 큰 일반 값 입력은 임시 파일로 옮겨 적는다.
+     * 연산이 없으면 요청 본문을 읽지 않고 404를 반환한다.
+     *
+     * @param opId	연산 식별자.
+     * @param body	{@link RpcRequestMessage} 형식 요청 본문들의 JSON 배열 스트림.
+     * @return	항목별 결과 배열을 담은 응답({@code 202}) 또는 연산 미존재 시 {@code 404}.
+     * @throws IOException	요청 본문이 올바른 JSON이 아니거나 연산 로딩 중 입출력 오류가 발생한 경우.
+     * @throws IllegalArgumentException	요청 본문이 배열이 아니거나 항목 수가
+     * 									{@code rpc-servers.maxBatchSize}를 넘는 경우.
+     */
+    @PostMapping("/operations/{id}/batch")
+    public ResponseEntity<?> runBatch(@PathVariable("id") String opId, InputStream body) throws IOException {
+    	Preconditions.checkNotNullArgument(opId, "operation id is null");
+    	
+    	RpcServerInfo info = lookupOperation(opId);
     	if ( info == null ) {
-    		ResourceNotFoundException cause = new ResourceNotFoundException("RpcServer", "id=" + opId);
-    		return ResponseEntity.status(HttpStatus.NOT_FOUND)
-								.body(RESTfulErrorEntity.of(cause));
+    		return operationNotFound(opId);
     	}
     	
-    	// RPC 요청 메시지를 해당 RPC 서버에 전달하여 연산을 수행하고, 응답 메시지를 받는다.
-    	RpcResponseMessage resp = info.rpcServer.start(request);
-    	if ( resp.getSessionEndpoint() != null ) {
-    		// 세션이 생성되었으면, 세션 맵에 등록한다.
-    		m_sessions.put(resp.getSessionEndpoint(), info);
+    	// 항목별 임시 파일 묶음은 시작되는 항목의 스레드가 넘겨받고, 나머지는 여기서 닫는다.
+    	List<SpilledValues> spillsList = new ArrayList<>();
+    	List<JsonNode> items;
+    	long parseStartedAt = System.nanoTime();
+    	try {
+    		items = m_requestReader.readBatch(body, m_config.getMaxBatchSize(), spillsList);
+    	}
+    	catch ( IOException | RuntimeException e ) {
+    		spillsList.forEach(SpilledValues::close);
+    		m_metrics.record(DispatcherMetrics.Phase.PARSE, opId, DispatcherMetrics.ERROR,
+    						System.nanoTime() - parseStartedAt);
+    		throw e;
     	}
     	
-    	return ResponseEntity.accepted().body(resp);
+    	// 항목별로 요청을 변환한다. 변환에 실패한 항목은 오류 결과를 남기고 시작하지 않는다.
+    	int count = items.size();
+    	BatchItem[] results = new BatchItem[count];
+    	ParsedRequest[] requests = new ParsedRequest[count];
+    	SessionTrace[] traces = new SessionTrace[count];
+    	for ( int i = 0; i < count; ++i ) {
+    		traces[i] = new SessionTrace(opId);
+    		long itemStartedAt = System.nanoTime();
+    		try {
+    			requests[i] = parseRequest(items.get(i), spillsList.get(i), traces[i]);
+    			long itemEndedAt = System.nanoTime();
+    			m_metrics.record(DispatcherMetrics.Phase.PARSE, opId, DispatcherMetrics.OK,
+    							itemEndedAt - itemStartedAt);
+    			traces[i].add(DispatcherMetrics.Phase.PARSE, null, DispatcherMetrics.OK, itemStartedAt, itemEndedAt);
+    		}
+    		catch ( IOException | RuntimeException e ) {
+    			m_metrics.record(DispatcherMetrics.Phase.PARSE, opId, DispatcherMetrics.ERROR,
+    							System.nanoTime() - itemStartedAt);
+    			results[i] = BatchItem.of(toErrorResponse(Throwables.unwrapThrowable(e)));
+    		}
+    	}
+    	
+    	// 항목별로 실행 슬롯을 요청하고 대기 핸들을 만든다. 요청 스레드는 슬롯을 기다리지 않으며,
+    	// 대기열이 가득 차 거절된 항목은 429 결과를 남기고 시작하지 않는다.
+    	QueuedRequest[] handles = new QueuedRequest[count];
+    	List<Map<String,JsonNode>> inputsList = new ArrayList<>();
+    	for ( int i = 0; i < count; ++i ) {
+    		if ( requests[i] == null ) {
+    			continue;
+    		}
+    		try {
+    			CompletableFuture<AdmissionController.Permit> admission = admit(opId, info, requests[i].priority(),
+    																			m_metrics.scope(opId, traces[i]));
+    			handles[i] = new QueuedRequest(opId, admission);
+    			m_queued.put(handles[i]);
+    			results[i] = new BatchItem(HttpStatus.ACCEPTED.value(), handles[i].getSessionEndpoint(),
+    										handles[i].getStatus());
+    			inputsList.add(fieldsOf(requests[i].node().path("inputs")));
+    		}
+    		catch ( AdmissionController.AdmissionRejectedException e ) {
+    			results[i] = BatchItem.of(tooManyRequests(e));
+    		}
+    	}
+    	for ( int i = 0; i < count; ++i ) {
+    		if ( handles[i] == null ) {
+    			spillsList.get(i).close();
+    		}
+    	}
+    	
+    	Thread.ofVirtual().name("batch-" + opId)
+    					.start(() -> runBatchItems(opId, info, requests, traces, handles, inputsList));
+    	
+    	return ResponseEntity.accepted().body(Arrays.asList(results));
+    }
+    
+    /**
+     * 일괄 요청의 승인된 항목들을 시작시킨다. 공통 참조 입력들을 한 번만 해석해 둔 뒤, 항목마다 가상 스레드에서
+     * 슬롯을 기다려 시작시키고, 모든 항목의 시작 시도가 끝나면 공유 해석 결과를 닫는다. 참조 해석 결과 묶음은
+     * 스레드에 바인딩되므로 항목마다 별도의 스레드가 필요하다.
+     */
+    private void runBatchItems(String opId, RpcServerInfo info, ParsedRequest[] requests, SessionTrace[] traces,
+    							QueuedRequest[] handles, List<Map<String,JsonNode>> inputsList) {
+    	try ( SharedReferences shared = m_serde.resolveShared(inputsList);
+    			ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor() ) {
+    		for ( int i = 0; i < handles.length; ++i ) {
+    			if ( handles[i] == null ) {
+    				continue;
+    			}
+    			
+    			int idx = i;
+    			executor.execute(() -> runQueued(handles[idx], opId, info, requests[idx], traces[idx], shared));
+    		}
+    	}
+    }
+    
+    /**
+     * 연산 요청 하나를 수행한다. 요청 변환과 연산 조회가 끝난 뒤의 {@link #run} 단계들이다.
+     * <p>
+     * {@code queueable}이면 실행 슬롯이 없을 때 슬롯을 기다리지 않고 대기 핸들({@link QueuedRequest})을 반환한다.
+     * 아니면 호출 스레드에서 슬롯을 기다린다. {@code granted}가 주어지면 슬롯을 다시 얻지 않고 그 슬롯을 사용한다.
+     */
+    private ResponseEntity<?> start(String opId, RpcServerInfo info, ParsedRequest request, SessionTrace trace,
+    								@Nullable SharedReferences shared, boolean queueable,
+    								@Nullable AdmissionController.Permit granted) throws IOException {
+    	DispatcherMetrics.Scope metrics = m_metrics.scope(opId, trace);
+    	PendingStart pending = new PendingStart(granted);
+    	
+    	// 결정적 연산이 아니면 실행 슬롯을 먼저 얻는다. 결정적 연산은 재사용할 결과가 없는 경우에만 입력 해석 후에
+    	// 슬롯을 얻는다.
+    	boolean deterministic = info.policy().deterministic() && m_memo != null;
+    	if ( !deterministic ) {
+    		ResponseEntity<?> deferred = acquireSlot(opId, info, request, trace, queueable, metrics, pending);
+    		if ( deferred != null ) {
+    			return deferred;
+    		}
+    	}
+    	
+    	Map<String,JsonNode> inputs = fieldsOf(request.node().path("inputs"));
+    	Map<String,JsonNode> outputs = fieldsOf(request.node().path("outputs"));
+    	try ( ReferenceBatch batch = resolve(opId, inputs, outputs, request, trace, shared, metrics) ) {
+    		if ( deterministic ) {
+    			ResponseEntity<?> replayed = lookupMemo(opId, inputs, outputs, request.callback(), batch, pending);
+    			if ( replayed != null ) {
+    				return replayed;
+    			}
+    			
+    			// 해석 결과는 이 스레드에 바인딩되어 있으므로, 대기 핸들로 넘기면 슬롯을 얻은 뒤 다시 해석한다.
+    			ResponseEntity<?> deferred = acquireSlot(opId, info, request, trace, queueable, metrics, pending);
+    			if ( deferred != null ) {
+    				return deferred;
+    			}
+    		}
+    		
+    		RpcResponseMessage resp = launch(opId, info, request, batch, metrics, pending);
+    		String sessionEndpoint = resp.getSessionEndpoint();
+    		if ( sessionEndpoint != null ) {
+    			registerSession(opId, info, sessionEndpoint, resp, outputs, request.callback(), trace, batch,
+    							metrics, pending);
+    		}
+    		else {
+    			metrics.record(DispatcherMetrics.Phase.RUN, DispatcherMetrics.outcomeOf(resp), pending.m_startedAt);
+    			if ( pending.m_recorder != null ) {
+    				// 세션 없이 바로 끝난 수행이면 응답으로 결과를 확정한다.
+    				pending.m_recorder.complete(resp);
+    				pending.m_recorder = null;
+    			}
+    		}
+    		
+    		return deterministic ? ResponseEntity.accepted().header(MEMO_HEADER, "miss").body(resp)
+    							: ResponseEntity.accepted().body(resp);
+    	}
+    	finally {
+    		pending.abandonUnlessStarted();
+    	}
+    }
+    
+    /**
+     * 연산 요청 하나를 시작하는 동안 얻은 실행 슬롯과 결과 기록기·출력 파일 수집기.
+     * 세션이 시작되지 않고 끝나면 {@link #abandonUnlessStarted()}로 모두 되돌린다.
+     */
+    private static final class PendingStart {
+    	@Nullable private AdmissionController.Permit m_permit;
+    	@Nullable private ResultMemo.Recorder m_recorder;
+    	@Nullable private SessionOutputs.Collector m_collector;
+    	private long m_startedAt;
+    	private boolean m_started = false;
+    	
+    	PendingStart(@Nullable AdmissionController.Permit granted) {
+    		m_permit = granted;
+    	}
+    	
+    	void abandonUnlessStarted() {
+    		if ( !m_started ) {
+    			if ( m_permit != null ) {
+    				m_permit.abandon();
+    			}
+    			if ( m_recorder != null ) {
+    				m_recorder.discard();
+    			}
+    			if ( m_collector != null ) {
+    				m_collector.discard();
+    			}
+    		}
+    	}
+    }
+    
+    /**
+     * 연산별·전역 동시 세션 수 제한에 따라 실행 슬롯을 얻는다. 이미 슬롯이 있으면 그대로 사용한다.
+     *
+     * @return	슬롯을 얻었으면 {@code null}, 대기 핸들로 넘겼거나 거절되었으면 그 응답.
+     */
+    private @Nullable ResponseEntity<?> acquireSlot(String opId, RpcServerInfo info, ParsedRequest request,
+    												SessionTrace trace, boolean queueable,
+    												DispatcherMetrics.Scope metrics, PendingStart pending) {
+    	if ( pending.m_permit != null ) {
+    		return null;
+    	}
+    	
+    	try {
+    		CompletableFuture<AdmissionController.Permit> admission = admit(opId, info, request.priority(), metrics);
+    		if ( queueable && !admission.isDone() ) {
+    			return queue(opId, info, request, trace, admission);
+    		}
+    		pending.m_permit = awaitAdmission(opId, admission);
+    		return null;
+    	}
+    	catch ( AdmissionController.AdmissionRejectedException e ) {
+    		return tooManyRequests(e);
+    	}
+    }
+    
+    /**
+     * 요청의 참조 입력들을 병렬로 미리 해석한다. RPC 서버는 {@code start()} 호출 스레드에서 입력 변수를
+     * 역직렬화하므로, 반환된 묶음이 이 스레드에 바인딩된 동안 미리 해석된 결과가 그대로 사용된다.
+     */
+    private ReferenceBatch resolve(String opId, Map<String,JsonNode> inputs, Map<String,JsonNode> outputs,
+    								ParsedRequest request, SessionTrace trace, @Nullable SharedReferences shared,
+    								DispatcherMetrics.Scope metrics) throws IOException {
+    	long resolveStartedAt = System.nanoTime();
+    	ReferenceBatch batch = m_serde.resolveAll(inputs, outputs, shared);
+    	
+    	// 지표에는 해석 전체의 소요 시간을, 시간표에는 참조 입력별 해석 구간을 남긴다.
+    	m_metrics.record(DispatcherMetrics.Phase.RESOLVE, opId, DispatcherMetrics.OK,
+    					System.nanoTime() - resolveStartedAt);
+    	batch.getTimings().forEach((name, timing) -> {
+    		String outcome = timing.failed() ? DispatcherMetrics.ERROR : DispatcherMetrics.OK;
+    		trace.add(DispatcherMetrics.Phase.RESOLVE, name, outcome, timing.startNanos(), timing.endNanos());
+    	});
+    	batch.setMetrics(metrics);
+    	batch.setSpills(request.spills());
+    	
+    	return batch;
+    }
+    
+    /**
+     * 해석된 입력으로 결정적 연산의 이전 수행 결과를 찾는다. 출력이 MDT 요소 참조이면 재사용한 출력을 참조
+     * 대상에 기록한다. 결과가 없으면 이번 수행 결과를 남길 기록기를 묶음에 설정한다.
+     *
+     * @return	재사용한 결과의 응답, 또는 재사용할 결과가 없으면 {@code null}.
+     */
+    private @Nullable ResponseEntity<?> lookupMemo(String opId, Map<String,JsonNode> inputs,
+    												Map<String,JsonNode> outputs, @Nullable URI callback,
+    												ReferenceBatch batch, PendingStart pending) throws IOException {
+    	String key = ResultMemo.keyOf(ResultMemo.fingerprint(new File(m_config.getOperationsDir(), opId)),
+    									inputs, outputs.keySet(), batch);
+    	ResultMemo.Entry entry = (key != null) ? m_memo.lookup(key) : null;
+    	JsonNode replayed = (entry != null) ? m_memo.replay(entry, outputs, m_serde) : null;
+    	if ( replayed != null ) {
+    		if ( callback != null ) {
+    			m_callbacks.submit(callback, MEMO_SESSION_PREFIX + key, m_jsonMapper.writeValueAsString(replayed));
+    		}
+    		return ResponseEntity.ok().header(MEMO_HEADER, "hit").body(replayed);
+    	}
+    	if ( key != null ) {
+    		pending.m_recorder = m_memo.newRecorder(key);
+    		batch.setMemoRecorder(pending.m_recorder);
+    	}
+    	
+    	return null;
+    }
+    
+    /**
+     * RPC 요청 메시지를 RPC 서버에 전달하여 연산을 시작한다.
+     * <p>
+     * 묶음은 {@code start()} 호출 스레드에 바인딩되어 있으므로, RPC 서버가 변수들을 다른 스레드에서
+     * 역직렬화했다면 묶음에 의존하는 변수들이 처리되지 않는다. 이 경우 세션을 취소하고 요청을 실패시킨다.
+     */
+    private RpcResponseMessage launch(String opId, RpcServerInfo info, ParsedRequest request, ReferenceBatch batch,
+    									DispatcherMetrics.Scope metrics, PendingStart pending) throws IOException {
+    	if ( m_outputs != null ) {
+    		pending.m_collector = m_outputs.newCollector();
+    		batch.setOutputCollector(pending.m_collector);
+    	}
+    	
+    	pending.m_startedAt = System.nanoTime();
+    	String startOutcome = DispatcherMetrics.ERROR;
+    	RpcResponseMessage resp;
+    	try {
+    		resp = info.rpcServer().start(request.message());
+    		startOutcome = DispatcherMetrics.OK;
+    	}
+    	finally {
+    		metrics.record(DispatcherMetrics.Phase.START, startOutcome, pending.m_startedAt);
+    	}
+    	
+    	String sessionEndpoint = resp.getSessionEndpoint();
+    	if ( sessionEndpoint != null ) {
+    		try {
+    			batch.checkConsumed();
+    		}
+    		catch ( IllegalStateException e ) {
+    			s_logger.error("cancel the session: op={}, session={}, cause={}", opId, sessionEndpoint,
+    							e.getMessage());
+    			try {
+    				info.rpcServer().cancel(sessionEndpoint);
+    			}
+    			catch ( Exception cancelFailure ) {
+    				s_logger.warn("failed to cancel the session: session={}, cause={}", sessionEndpoint,
+    								cancelFailure.toString());
+    			}
+    			throw e;
+    		}
+    	}
+    	
+    	return resp;
+    }
+    
+    /**
+     * 생성된 세션을 세션 색인에 등록하고 세션 종료 시의 처리들을 연결한다. 실행 슬롯은 세션 프로세스가 끝나거나
+     * 세션 종료가 관측되면 반환하고, 결과 기록기는 세션이 완료되면 결과를 확정한다.
+     */
+    private void registerSession(String opId, RpcServerInfo info, String sessionEndpoint, RpcResponseMessage resp,
+    							Map<String,JsonNode> outputs, @Nullable URI callback, SessionTrace trace,
+    							ReferenceBatch batch, DispatcherMetrics.Scope metrics, PendingStart pending) {
+    	AdmissionController.Permit slot = pending.m_permit;
+    	long startedAt = pending.m_startedAt;
+    	m_sessionIndex.register(sessionEndpoint, info);
+    	m_traces.put(sessionEndpoint, trace);
+    	if ( pending.m_collector != null ) {
+    		m_outputs.register(sessionEndpoint, pending.m_collector);
+    	}
+    	if ( m_journal != null ) {
+    		journalSession(opId, sessionEndpoint, resp, outputs, batch.getVariableDir());
+    	}
+    	m_events.onTerminal(sessionEndpoint, resp, last -> slot.close());
+    	m_events.onTerminal(sessionEndpoint, resp,
+    						last -> metrics.record(DispatcherMetrics.Phase.RUN, DispatcherMetrics.outcomeOf(last),
+    												startedAt));
+    	if ( pending.m_recorder != null ) {
+    		m_events.onTerminal(sessionEndpoint, resp, pending.m_recorder::complete);
+    	}
+    	pending.m_started = true;
+    	if ( callback != null ) {
+    		m_events.onTerminal(sessionEndpoint, resp, last -> sendCallback(callback, sessionEndpoint, last));
+    	}
+    	batch.getCompletionSignal().listen(() -> m_events.signal(sessionEndpoint));
+    	if ( batch.getVariableDir() != null ) {
+    		trackProcess(sessionEndpoint, batch.getVariableDir(), slot);
+    	}
+    }
+    
+    /**
+     * 실행 슬롯을 기다려야 하는 요청의 대기 핸들({@link QueuedRequest})을 만들어 {@code 202 Accepted}로 그 상태를
+     * 바로 반환한다. 요청은 핸들의 가상 스레드에서 슬롯을 기다린 뒤 시작된다. 임시 파일로 옮겨 적은 일반 값 입력은
+     * 요청 처리가 끝나도 삭제되지 않도록 핸들의 스레드가 넘겨받는다.
+     */
+    private ResponseEntity<?> queue(String opId, RpcServerInfo info, ParsedRequest request, SessionTrace trace,
+    								CompletableFuture<AdmissionController.Permit> admission) {
+    	SpilledValues spills = (request.spills() != null) ? request.spills().handOver() : null;
+    	ParsedRequest queued = new ParsedRequest(request.node(), request.message(), request.callback(),
+    											request.priority(), spills);
+    	QueuedRequest handle = new QueuedRequest(opId, admission);
+    	m_queued.put(handle);
+    	Thread.ofVirtual().name(handle.getId())
+    					.start(() -> runQueued(handle, opId, info, queued, trace, null));
+    	
+    	return ResponseEntity.accepted().body(handle.getStatus());
+    }
+    
+    private void runQueued(QueuedRequest handle, String opId, RpcServerInfo info, ParsedRequest request,
+    						SessionTrace trace, @Nullable SharedReferences shared) {
+    	try ( SpilledValues spills = request.spills() ) {
+    		AdmissionController.Permit permit;
+    		try {
+    			permit = AdmissionController.await(handle.getAdmission());
+    		}
+    		catch ( CancellationException e ) {
+    			return;
+    		}
+    		if ( !handle.isQueued() ) {
+    			// 슬롯을 받는 사이에 취소된 경우
+    			permit.abandon();
+    			return;
+    		}
+    		
+    		ResponseEntity<?> resp = start(opId, info, request, trace, shared, false, permit);
+    		Object body = resp.getBody();
+    		if ( !resp.getStatusCode().is2xxSuccessful() ) {
+    			handle.failed(m_jsonMapper.valueToTree(body));
+    		}
+    		else if ( body instanceof RpcResponseMessage msg && msg.getSessionEndpoint() != null ) {
+    			handle.started(msg.getSessionEndpoint());
+    		}
+    		else {
+    			// 세션 없이 바로 끝났거나, 결정적 연산의 재사용된 결과이다.
+    			handle.completed((body instanceof RpcResponseMessage msg) ? RpcResponses.toTree(msg)
+    																	: m_jsonMapper.valueToTree(body));
+    		}
+    	}
+    	catch ( Exception e ) {
+    		Throwable cause = Throwables.unwrapThrowable(e);
+    		s_logger.warn("failed to start queued request: request={}, op={}, cause={}",
+    						handle.getId(), opId, cause.toString());
+    		handle.failed(m_jsonMapper.valueToTree(RESTfulErrorEntity.of(cause)));
+    	}
+    }
+    
+    /**
+     * 파라미터 스윕을 시작시킨다. ({@link #run}의 요청 본문에 {@value ParameterSweep#FIELD}가 있는 경우)
+     * <p>
+     * 스윕 세션({@link SweepSession})을 만들어 {@code 202 Accepted}로 그 상태를 바로 반환하고, 조합들은 스윕
+     * 세션의 가상 스레드에서 순서대로 시작시킨다. 요청의 MDT 요소 참조 입력은 모든 조합에 공통이므로 한 번만
+     * 해석하여 나눠 쓰며({@link MDTCommandVariableSerDe#resolveShared}), 동시에 수행되는 조합 세션 수는 스윕의
+     * {@code parallelism}을 넘지 않는다. 각 조합은 단건 요청과 같이 연산별·전역 동시 세션 수 제한에 따라
+     * 승인되며, 거절된 조합은 실패로 기록된다.
+     * <p>
+     * 스윕 세션은 일반 세션처럼 {@link #status}로 상태를 조회하고 {@link #delete}로 취소할 수 있다. 요청에
+     * {@code callbackUrl}이 주어지면 모든 조합이 끝났을 때 결과 표를 포함한 스윕 세션 상태를 해당 URL로
+     * 전달한다. 임시 파일로 옮겨 적은 일반 값 입력은 조합마다 복사되며, 스윕이 끝나면 삭제된다.
+     *
+     * @throws IllegalArgumentException	요청에 MDT 요소 참조 출력이 있거나 참조 입력을 스윕하려는 경우.
+     */
+    private ResponseEntity<?> startSweep(String opId, RpcServerInfo info, ParsedRequest template,
+    										ParameterSweep sweep) {
+    	Map<String,JsonNode> inputs = fieldsOf(template.node().path("inputs"));
+    	Map<String,JsonNode> outputs = fieldsOf(template.node().path("outputs"));
+    	sweep.checkTemplate(inputs, outputs);
+    	
+    	// 임시 파일들은 요청 처리가 끝나도 조합들이 나눠 쓸 수 있도록 스윕 세션이 넘겨받는다.
+    	SpilledValues spills = (template.spills() != null) ? template.spills().share() : null;
+    	ParsedRequest shared = new ParsedRequest(template.node(), template.message(), template.callback(),
+    											template.priority(), spills);
+    	SweepSession session = new SweepSession(opId, sweep, new ArrayList<>(outputs.keySet()));
+    	m_sweeps.put(session);
+    	Thread.ofVirtual().name(session.getId())
+    					.start(() -> runSweep(session, opId, info, shared, inputs));
+    	
+    	return ResponseEntity.accepted().body(session.getStatus());
+    }
+    
+    private void runSweep(SweepSession session, String opId, RpcServerInfo info, ParsedRequest template,
+    						Map<String,JsonNode> inputs) {
+    	ParameterSweep sweep = session.getSweep();
+    	int parallelism = sweep.getParallelism();
+    	Semaphore slots = new Semaphore(parallelism);
+    	int next = 0;
+    	try {
+    		// 참조 입력은 모든 조합에 같으므로, 조합 수만큼의 같은 입력으로 공유 해석을 요청한다.
+    		try ( SharedReferences shared = m_serde.resolveShared(Collections.nCopies(sweep.size(), inputs)) ) {
+    			for ( ; next < sweep.size(); ++next ) {
+    				slots.acquire();
+    				if ( session.isCancelled() ) {
+    					slots.release();
+    					break;
+    				}
+    				startSweepPoint(session, next, opId, info, template, shared, slots);
+    			}
+    		}
+    		
+    		// 수행 중인 조합 세션들이 모두 끝나 슬롯이 모두 반환될 때까지 기다린다.
+    		slots.acquire(parallelism);
+    	}
+    	catch ( InterruptedException e ) {
+    		Thread.currentThread().interrupt();
+    		s_logger.warn("sweep interrupted: sweep={}, started={}/{}", session.getId(), next, sweep.size());
+    	}
+    	catch ( RuntimeException e ) {
+    		s_logger.error("sweep failed: sweep={}, started={}/{}", session.getId(), next, sweep.size(), e);
+    		session.abandonFrom(next, m_jsonMapper.valueToTree(RESTfulErrorEntity.of(e)));
+    	}
+    	finally {
+    		if ( template.spills() != null ) {
+    			template.spills().close();
+    		}
+    	}
+    	// 취소(또는 인터럽트)되어 시작하지 않은 조합들을 취소된 것으로 기록한다.
+    	session.abandonFrom(next, null);
+    	
+    	URI callback = template.callback();
+    	if ( callback != null ) {
+    		try {
+    			m_callbacks.submit(callback, session.getSessionEndpoint(),
+    								m_jsonMapper.writeValueAsString(session.getStatus()));
+    		}
+    		catch ( JsonProcessingException e ) {
+    			s_logger.warn("failed to serialize callback body: session={}", session.getSessionEndpoint(), e);
+    		}
+    	}
+    }
+    
+    /**
+     * 스윕의 조합 하나를 시작시킨다. 조합이 세션 없이 바로 끝나거나 시작되지 못하면 곧바로, 세션이 시작되면
+     * 세션이 끝날 때 슬롯을 반환한다.
+     */
+    private void startSweepPoint(SweepSession session, int index, String opId, RpcServerInfo info,
+    								ParsedRequest template, SharedReferences shared, Semaphore slots) {
+    	boolean running = false;
+    	try {
+    		JsonNode node = session.getSweep().requestFor(template.node(), index);
+    		RpcRequestMessage message = m_jsonMapper.treeToValue(node, RpcRequestMessage.class);
+    		ParsedRequest request = new ParsedRequest(node, message, null, template.priority(), template.spills());
+    		ResponseEntity<?> resp = start(opId, info, request, new SessionTrace(opId), shared, false, null);
+    		
+    		Object body = resp.getBody();
+    		if ( !resp.getStatusCode().is2xxSuccessful() ) {
+    			session.failed(index, m_jsonMapper.valueToTree(body));
+    		}
+    		else if ( body instanceof RpcResponseMessage msg && msg.getSessionEndpoint() != null ) {
+    			String sessionEndpoint = msg.getSessionEndpoint();
+    			session.started(index, sessionEndpoint);
+    			running = true;
+    			m_events.onTerminal(sessionEndpoint, msg, last -> {
+    				session.finished(index, (last != null) ? RpcResponses.toTree(last) : null);
+    				slots.release();
+    			});
+    			if ( session.isCancelled() ) {
+    				// 시작하는 사이에 스윕이 취소되었으면 이 조합 세션도 취소한다.
+    				cancelSession(sessionEndpoint);
+    			}
+    		}
+    		else {
+    			// 세션 없이 바로 끝났거나, 결정적 연산의 재사용된 결과이다.
+    			JsonNode tree = (body instanceof RpcResponseMessage msg) ? RpcResponses.toTree(msg)
+    																	: m_jsonMapper.valueToTree(body);
+    			session.finished(index, tree);
+    		}
+    	}
+    	catch ( Exception e ) {
+    		Throwable cause = Throwables.unwrapThrowable(e);
+    		s_logger.warn("failed to start sweep point: sweep={}, index={}, cause={}",
+    						session.getId(), index, cause.toString());
+    		if ( !running ) {
+    			session.failed(index, m_jsonMapper.valueToTree(RESTfulErrorEntity.of(cause)));
+    		}
+    	}
+    	finally {
+    		if ( !running ) {
+    			slots.release();
+    		}
+    	}
     }
     
     /**
      * 세션의 현재 연산 상태를 조회한다. ({@code GET /api/v1/sessions/{id}/state})
      * <p>
-     * 세션을 찾지 못하거나 이미 종료되어 회수된 경우 {@code 404}를 반환하고, 그 경우 세션 맵에서도 제거한다.
+     * 세션을 찾지 못하거나 이미 종료되어 회수된 경우 {@code 404}를 반환하고, 그 경우 세션 색인에서도 제거한다.
+     * 스윕 세션이면 조합 세션들의 진행 현황과, 스윕이 끝났으면 결과 표를 담은 스윕 세션 상태
+     * ({@link SweepSession.Status})를 반환한다. 대기 핸들이면 세션이 시작되었으면 그 세션의 상태를, 아니면 대기
+     * 핸들 상태({@link QueuedRequest.Status})를 반환한다.
      *
      * @param sessionId	세션 식별자.
      * @return	연산 상태를 담은 응답({@code 200}) 또는 세션 미존재 시 {@code 404}.
@@ -179,33 +995,257 @@ public class RpcServerDispatcher implements InitializingBean {
     @GetMapping("/sessions/{id}/state")
     public ResponseEntity<?> status(@PathVariable("id") String sessionId) throws IOException {
     	Preconditions.checkNotNullArgument(sessionId, "session id is null");
+    	
+    	if ( sessionId.startsWith(SweepSession.ID_PREFIX) ) {
+    		return sweepStatus(sessionId);
+    	}
+    	if ( sessionId.startsWith(QueuedRequest.ID_PREFIX) ) {
+    		return queuedStatus(sessionId);
+    	}
 
-    	// 세션 식별자를 이용하여 세션 맵에서 해당 세션을 수행 중인 RPC 서버를 찾는다.
+    	// 세션 식별자를 이용하여 세션 색인에서 해당 세션을 수행 중인 RPC 서버를 찾는다.
     	String sessionEndpoint = String.format("/sessions/%s", sessionId);
-    	RpcServerInfo rpcInfo = findRpcServer(sessionEndpoint);
+    	return queryStatus(sessionEndpoint, findRpcServer(sessionEndpoint));
+    }
+    
+    private ResponseEntity<?> queuedStatus(String requestId) throws IOException {
+    	QueuedRequest handle = m_queued.get(requestId);
+    	if ( handle == null ) {
+    		var cause = new ResourceNotFoundException("QueuedRequest", "session=/sessions/" + requestId);
+    		return ResponseEntity.status(HttpStatus.NOT_FOUND)
+    							.body(RESTfulErrorEntity.of(cause));
+    	}
+    	
+    	// 세션이 시작되었으면 그 세션의 상태를 반환한다.
+    	String sessionEndpoint = handle.getSession();
+    	if ( sessionEndpoint != null ) {
+    		return queryStatus(sessionEndpoint, findRpcServer(sessionEndpoint));
+    	}
+    	return ResponseEntity.ok().body(handle.getStatus());
+    }
+    
+    private ResponseEntity<?> sweepStatus(String sweepId) {
+    	SweepSession sweep = m_sweeps.get(sweepId);
+    	if ( sweep == null ) {
+    		var cause = new ResourceNotFoundException("SweepSession", "session=/sessions/" + sweepId);
+    		return ResponseEntity.status(HttpStatus.NOT_FOUND)
+    							.body(RESTfulErrorEntity.of(cause));
+    	}
+    	return ResponseEntity.ok().body(sweep.getStatus());
+    }
+    
+    private ResponseEntity<?> queryStatus(String sessionEndpoint, @Nullable RpcServerInfo rpcInfo)
+    	throws IOException {
     	if ( rpcInfo == null ) {
+    		// 재기동 전에 생성되어 저널에서 복구된 세션이면 복구된 상태를 반환한다.
+    		JsonNode recovered = (m_recovered != null) ? m_recovered.status(sessionEndpoint) : null;
+    		if ( recovered != null ) {
+    			return ResponseEntity.ok().body(recovered);
+    		}
+    		
     		var cause = new ResourceNotFoundException("RpcSession", "session=" + sessionEndpoint);
     		return ResponseEntity.status(HttpStatus.NOT_FOUND)
     							.body(RESTfulErrorEntity.of(cause));
     	}
-    	RpcResponseMessage resp = rpcInfo.rpcServer.status(sessionEndpoint);
+    	RpcResponseMessage resp = rpcInfo.rpcServer().status(sessionEndpoint);
     	if ( resp == null ) {
-			// 세션이 이미 종료되었으면, 세션 맵에서 제거한다.
-    		m_sessions.invalidate(sessionEndpoint);
+			// 세션이 이미 종료되었으면, 세션 색인에서 제거한다.
+    		m_sessionIndex.remove(sessionEndpoint);
+    		
+    		m_events.publish(sessionEndpoint, null);
     		
-    		String resourceId = String.format("rpc=%s, session=%s", rpcInfo.opId, sessionEndpoint);
+    		String resourceId = String.format("rpc=%s, session=%s", rpcInfo.opId(), sessionEndpoint);
 			var cause = new ResourceNotFoundException("RpcSession", resourceId);
     		return ResponseEntity.status(HttpStatus.NOT_FOUND)
 								.body(RESTfulErrorEntity.of(cause));
 		}
-    	return ResponseEntity.ok().body(resp);
+    	m_events.publish(sessionEndpoint, resp);
+    	
+    	return ResponseEntity.ok().body(withOutputLinks(sessionEndpoint, resp));
+    }
+    
+    /**
+     * 여러 세션의 현재 연산 상태를 한 번에 조회한다. ({@code POST /api/v1/sessions/states})
+     * <p>
+     * 요청 본문은 세션 식별자들의 JSON 배열이며, 요청 순서대로 세션별 결과({@link SessionState})의 배열을
+     * {@code 200 OK}로 반환한다. 세션별 결과는 {@link #status}가 반환했을 응답 코드와 본문이므로, 세션을 찾지
+     * 못했거나 이미 회수된 세션은 {@code 404}와 오류 정보로 표시된다. 세션들을 수행 중인 RPC 서버는 세션 색인을
+     * 한 번에 조회하여 찾는다.
+     *
+     * @param sessionIds	세션 식별자들.
+     * @return	세션별 결과 배열을 담은 응답({@code 200}).
+     * @throws IllegalArgumentException	세션 식별자 수가 {@code rpc-servers.maxBatchSize}를 넘는 경우.
+     */
+    @PostMapping("/sessions/states")
+    public ResponseEntity<?> statuses(@RequestBody List<String> sessionIds) {
+    	Preconditions.checkNotNullArgument(sessionIds, "session ids are null");
+    	Preconditions.checkArgument(sessionIds.size() <= m_config.getMaxBatchSize(),
+    								String.format("too many sessions: count=%d, max=%d",
+    											sessionIds.size(), m_config.getMaxBatchSize()));
+    	
+    	List<String> sessionEndpoints = sessionIds.stream()
+    											.map(id -> String.format("/sessions/%s", id))
+    											.toList();
+    	Map<String,RpcServerInfo> servers = findRpcServers(sessionEndpoints.stream()
+    																.filter(ep -> !isHandleEndpoint(ep))
+    																.toList());
+    	
+    	List<SessionState> states = new ArrayList<>(sessionIds.size());
+    	for ( int i = 0; i < sessionIds.size(); ++i ) {
+    		String sessionEndpoint = sessionEndpoints.get(i);
+    		RpcServerInfo rpcInfo = servers.get(sessionEndpoint);
+    		ResponseEntity<?> resp;
+    		try {
+    			resp = isHandleEndpoint(sessionEndpoint) ? status(sessionIds.get(i))
+    													: queryStatus(sessionEndpoint, rpcInfo);
+    		}
+    		catch ( Exception e ) {
+    			Throwable cause = Throwables.unwrapThrowable(e);
+    			s_logger.warn("failed to query session state: session={}, cause={}", sessionEndpoint, cause.toString());
+    			resp = toErrorResponse(cause);
+    		}
+    		states.add(new SessionState(sessionIds.get(i), resp.getStatusCode().value(), resp.getBody()));
+    	}
+    	
+    	return ResponseEntity.ok(states);
+    }
+    
+    /**
+     * 세션의 단계별 수행 시간표를 조회한다. ({@code GET /api/v1/sessions/{id}/trace})
+     * <p>
+     * 요청 접수 시각을 기준으로 참조 입력별 해석, 실행 슬롯 대기, 세션 시작, 변수별 역직렬화, 프로세스 수행,
+     * 출력 변수별 기록 구간의 시작 시각과 소요 시간을 반환한다. 시간표는 세션이 종료·회수된 뒤에도 최근
+     * {@code rpc-servers.sessionTraceCapacity}개 세션까지 유지된다.
+     *
+     * @param sessionId	세션 식별자.
+     * @return	시간표를 담은 응답({@code 200}) 또는 시간표가 없으면 {@code 404}.
+     */
+    @GetMapping("/sessions/{id}/trace")
+    public ResponseEntity<?> trace(@PathVariable("id") String sessionId) {
+    	Preconditions.checkNotNullArgument(sessionId, "session id is null");
+    	
+    	String sessionEndpoint = toSessionEndpoint(sessionId);
+    	SessionTrace trace = m_traces.get(sessionEndpoint);
+    	if ( trace == null ) {
+    		var cause = new ResourceNotFoundException("SessionTrace", "session=" + sessionEndpoint);
+    		return ResponseEntity.status(HttpStatus.NOT_FOUND)
+    							.body(RESTfulErrorEntity.of(cause));
+    	}
+    	return ResponseEntity.ok().body(trace.getTimeline());
+    }
+    
+    /**
+     * 세션의 출력 변수 파일을 내려받는다. ({@code GET /api/v1/sessions/{id}/outputs/{name}})
+     * <p>
+     * 출력 파일은 세션이 출력 변수를 기록할 때 보관되며, 세션이 회수된 뒤에도 최근
+     * {@code rpc-servers.outputFilesCapacity}개 세션까지 유지된다. 응답에는 {@code Content-Length}와
+     * {@code ETag}가 포함되고, 단일 구간 {@code Range} 요청에는 {@code 206 Partial Content}로 응답한다
+     * ({@link OutputDownload}).
+     *
+     * @param sessionId	세션 식별자.
+     * @param name		출력 변수 이름.
+     * @param request	HTTP 요청.
+     * @param response	HTTP 응답.
+     * @throws ResourceNotFoundException	보관된 출력 파일이 없는 경우.
+     * @throws IOException	출력 파일 전송 중 오류가 발생한 경우.
+     */
+    @GetMapping("/sessions/{id}/outputs/{name}")
+    public void output(@PathVariable("id") String sessionId, @PathVariable("name") String name,
+    					HttpServletRequest request, HttpServletResponse response) throws IOException {
+    	Preconditions.checkNotNullArgument(sessionId, "session id is null");
+    	Preconditions.checkNotNullArgument(name, "output name is null");
+    	
+    	String sessionEndpoint = toSessionEndpoint(sessionId);
+    	SessionOutputs.Output output = (m_outputs != null) ? m_outputs.get(sessionEndpoint, name) : null;
+    	if ( output == null || !output.file().isFile() ) {
+    		throw new ResourceNotFoundException("SessionOutput",
+    											String.format("session=%s, output=%s", sessionEndpoint, name));
+    	}
+    	OutputDownload.send(output, request, response);
+    }
+    
+    /**
+     * 세션의 연산 상태가 바뀔 때까지 기다린 뒤 상태를 반환한다.
+     * ({@code GET /api/v1/sessions/{id}/state?waitFor=PT30S&since=RUNNING})
+     * <p>
+     * 세션 상태가 {@code since}와 다르면(또는 종료 상태이면) 바로 반환하고, 그렇지 않으면 상태가 바뀌는 즉시
+     * 반환한다. {@code waitFor} 동안 상태가 바뀌지 않으면 현재 상태를 반환한다. 대기 시간은
+     * {@code rpc-servers.sessionWaitMaxTimeout}으로 제한된다. 세션을 찾지 못하거나 대기 중에 세션이 회수되면
+     * {@code 404}를 반환한다.
+     *
+     * @param sessionId	세션 식별자.
+     * @param waitFor	최대 대기 시간 (ISO-8601 형식, 예: {@code PT30S}).
+     * @param since		클라이언트가 알고 있는 상태. 생략하면 요청 시점의 상태.
+     * @return	연산 상태를 담은 응답({@code 200}) 또는 세션 미존재 시 {@code 404}.
+     * @throws IOException	상태 조회 중 입출력 오류가 발생한 경우.
+     * @throws IllegalArgumentException	{@code waitFor}가 올바른 기간 형식이 아닌 경우.
+     */
+    @GetMapping(path="/sessions/{id}/state", params="waitFor")
+    public DeferredResult<ResponseEntity<?>> awaitStatus(@PathVariable("id") String sessionId,
+    												@RequestParam("waitFor") String waitFor,
+    												@RequestParam(name="since", required=false) String since)
+    	throws IOException {
+    	Preconditions.checkNotNullArgument(sessionId, "session id is null");
+    	
+    	Duration timeout = parseWaitFor(waitFor);
+    	if ( timeout.compareTo(m_config.getSessionWaitMaxTimeout()) > 0 ) {
+    		timeout = m_config.getSessionWaitMaxTimeout();
+    	}
+    	
+    	if ( sessionId.startsWith(QueuedRequest.ID_PREFIX) ) {
+    		// 아직 시작되지 않은 요청의 대기 핸들은 상태 변화를 기다리지 않고 현재 상태를 바로 반환한다.
+    		QueuedRequest handle = m_queued.get(sessionId);
+    		if ( handle == null || handle.getSession() == null ) {
+    			DeferredResult<ResponseEntity<?>> result = new DeferredResult<>();
+    			result.setResult(queuedStatus(sessionId));
+    			return result;
+    		}
+    	}
+    	String sessionEndpoint = toSessionEndpoint(sessionId);
+    	RpcResponseMessage resp = probeStatus(sessionEndpoint);
+    	if ( resp == null ) {
+    		var cause = new ResourceNotFoundException("RpcSession", "session=" + sessionEndpoint);
+    		DeferredResult<ResponseEntity<?>> result = new DeferredResult<>();
+    		result.setResult(ResponseEntity.status(HttpStatus.NOT_FOUND).body(RESTfulErrorEntity.of(cause)));
+    		return result;
+    	}
+    	m_events.publish(sessionEndpoint, resp);
+    	
+    	return m_events.await(sessionEndpoint, resp, since, timeout);
+    }
+    
+    /**
+     * 세션의 상태 전이를 Server-Sent Events 스트림으로 전달한다. ({@code GET /api/v1/sessions/{id}/events})
+     * <p>
+     * 현재 상태를 첫 {@code state} 이벤트로 보내고, 이후 상태가 바뀔 때마다 {@code state} 이벤트를 보낸다.
+     * 종료 상태를 보낸 뒤, 또는 세션이 회수되어 {@code gone} 이벤트를 보낸 뒤 스트림을 닫는다.
+     *
+     * @param sessionId	세션 식별자.
+     * @return	SSE 스트림.
+     * @throws IOException	상태 조회 중 입출력 오류가 발생한 경우.
+     * @throws ResourceNotFoundException	세션을 찾지 못한 경우.
+     */
+    @GetMapping("/sessions/{id}/events")
+    public SseEmitter events(@PathVariable("id") String sessionId) throws IOException {
+    	Preconditions.checkNotNullArgument(sessionId, "session id is null");
+    	
+    	String sessionEndpoint = toSessionEndpoint(sessionId);
+    	RpcResponseMessage resp = probeStatus(sessionEndpoint);
+    	if ( resp == null ) {
+    		throw new ResourceNotFoundException("RpcSession", "session=" + sessionEndpoint);
+    	}
+    	m_events.publish(sessionEndpoint, resp);
+    	
+    	return m_events.subscribe(sessionEndpoint, resp, m_config.getSessionEventStreamTimeout());
     }
 
     /**
      * 세션의 연산을 취소한다. ({@code DELETE /api/v1/sessions/{session}})
      * <p>
      * 취소에 성공하거나 이미 종료된 경우 {@code 204 No Content}를, 취소 처리 중 오류가 보고되면
-     * {@code 500}과 오류 정보를 반환한다.
+     * {@code 500}과 오류 정보를 반환한다. 스윕 세션이면 남은 조합들을 시작하지 않고 수행 중인 조합 세션들을
+     * 취소한 뒤 {@code 204 No Content}를 반환한다. 대기 핸들이면 대기 중인 요청은 시작하지 않고, 이미 시작된
+     * 세션은 취소한다.
      *
      * @param sessionId	세션 식별자.
      * @return	취소 결과 응답({@code 204} 또는 오류 시 {@code 500}).
@@ -213,18 +1253,41 @@ public class RpcServerDispatcher implements InitializingBean {
     @DeleteMapping("/sessions/{session}")
     public ResponseEntity<?> delete(@PathVariable("session") String sessionId) {
     	Preconditions.checkNotNullArgument(sessionId, "session id is null");
+    	
+    	if ( sessionId.startsWith(SweepSession.ID_PREFIX) ) {
+    		SweepSession sweep = m_sweeps.get(sessionId);
+    		if ( sweep == null ) {
+    			throw new ResourceNotFoundException("SweepSession", "session=/sessions/" + sessionId);
+    		}
+    		sweep.cancel().forEach(this::cancelSession);
+    		return ResponseEntity.noContent().build();
+    	}
+    	if ( sessionId.startsWith(QueuedRequest.ID_PREFIX) ) {
+    		QueuedRequest handle = m_queued.get(sessionId);
+    		if ( handle == null ) {
+    			throw new ResourceNotFoundException("QueuedRequest", "session=/sessions/" + sessionId);
+    		}
+    		if ( handle.cancel() || handle.getSession() == null ) {
+    			// 대기 중에 취소했거나, 세션 없이 이미 끝난 요청이다.
+    			return ResponseEntity.noContent().build();
+    		}
+    	}
 
-    	// 세션 식별자를 이용하여 세션 맵에서 해당 세션을 수행 중인 RPC 서버를 찾는다.
-    	String sessionEndpoint = String.format("/sessions/%s", sessionId);
+    	// 세션 식별자를 이용하여 세션 색인에서 해당 세션을 수행 중인 RPC 서버를 찾는다.
+    	String sessionEndpoint = toSessionEndpoint(sessionId);
     	RpcServerInfo rpcInfo = findRpcServer(sessionEndpoint);
     	if ( rpcInfo == null ) {
+    		if ( m_recovered != null && m_recovered.cancel(sessionEndpoint) ) {
+    			return ResponseEntity.noContent().build();
+    		}
     		throw new ResourceNotFoundException("RpcSession", "session=" + sessionEndpoint);
     	}
     	
-    	RpcResponseMessage resp = rpcInfo.rpcServer.cancel(sessionEndpoint);
+    	RpcResponseMessage resp = rpcInfo.rpcServer().cancel(sessionEndpoint);
+    	m_events.publish(sessionEndpoint, resp);
     	if ( resp == null ) {
-			// 세션이 이미 종료되었으면, 세션 맵에서 제거한다.
-    		m_sessions.invalidate(sessionEndpoint);
+			// 세션이 이미 종료되었으면, 세션 색인에서 제거한다.
+    		m_sessionIndex.remove(sessionEndpoint);
 			
     		return ResponseEntity.noContent().build();
 		}
@@ -237,10 +1300,67 @@ public class RpcServerDispatcher implements InitializingBean {
     	}
     }
     
+    /**
+     * 참조 대상 프로토타입 캐시를 무효화한다. ({@code DELETE /api/v1/prototypes})
+     * <p>
+     * {@code ref} 파라미터로 MDT 요소 참조 JSON이 주어지면 해당 참조의 항목만, 없으면 모든 항목을 제거한다.
+     * 서브모델 구조를 변경한 직후 다음 출력 기록이 이전 형태를 사용하지 않도록 할 때 사용한다.
+     *
+     * @param refJson	무효화할 MDT 요소 참조 JSON. ({@code null}이면 전체 무효화)
+     * @return	{@code 204 No Content}.
+     * @throws IOException	{@code refJson}이 올바른 JSON이 아닌 경우.
+     */
+    @DeleteMapping("/prototypes")
+    public ResponseEntity<?> invalidatePrototypes(@RequestParam(name="ref", required=false) String refJson)
+    	throws IOException {
+    	Preconditions.checkState(m_serde != null);
+
+    	ElementPrototypeCache cache = m_serde.getPrototypeCache();
+    	if ( refJson != null ) {
+    		cache.invalidate(ReferenceKeys.canonical(m_jsonMapper.readTree(refJson)));
+    	}
+    	else {
+    		cache.invalidateAll();
+    	}
+    	return ResponseEntity.noContent().build();
+    }
+
+    /**
+     * 결과 재사용 캐시의 통계를 반환한다. ({@code GET /api/v1/memo})
+     *
+     * @return	캐시 통계({@code 200}).
+     */
+    @GetMapping("/memo")
+    public ResponseEntity<ResultMemo.Stats> memoStats() {
+    	Preconditions.checkState(m_memo != null);
+    	
+    	return ResponseEntity.ok(m_memo.getStats());
+    }
+
+    /**
+     * 결과 재사용 캐시를 비운다. ({@code DELETE /api/v1/memo})
+     * <p>
+     * 재사용 키에는 연산 디렉토리의 파일들이 반영되므로, 연산이 사용하는 외부 자원(연산 디렉토리 밖의 모델
+     * 파일 등)을 바꾼 경우에 사용한다.
+     *
+     * @return	{@code 204 No Content}.
+     */
+    @DeleteMapping("/memo")
+    public ResponseEntity<?> clearMemo() {
+    	Preconditions.checkState(m_memo != null);
+    	
+    	m_memo.clear();
+    	return ResponseEntity.noContent().build();
+    }
+
     @ExceptionHandler()
     public ResponseEntity<RESTfulErrorEntity> handleException(Exception e) {
 		Throwable cause = Throwables.unwrapThrowable(e);
 		s_logger.error("Exception raised", cause);
+		return toErrorResponse(cause);
+    }
+    
+    private static ResponseEntity<RESTfulErrorEntity> toErrorResponse(Throwable cause) {
     	if ( cause instanceof IllegalArgumentException ) {
     		return ResponseEntity.status(HttpStatus.BAD_REQUEST)
     								.body(RESTfulErrorEntity.of(cause));
@@ -261,59 +1381,307 @@ public class RpcServerDispatcher implements InitializingBean {
     /**
      * 세션 엔드포인트를 수행 중인 RPC 서버를 찾는다.
      * <p>
-     * 세션 캐시를 먼저 조회하고, 없으면 등록된 모든 RPC 서버를 훑어 해당 세션을 가진 서버를 찾아 캐시에 채운다.
+     * 모든 세션은 디스패처가 생성하면서 세션 색인에 등록하므로, 세션 색인만 조회한다. 색인에 없는 세션은
+     * 등록된 RPC 서버들을 훑지 않고 없는 세션으로 처리한다.
      *
      * @param sessionEndpoint	세션 엔드포인트(예: {@code /sessions/{id}}).
      * @return	해당 세션을 수행 중인 RPC 서버 정보. 없으면 {@code null}.
      */
-    private RpcServerInfo findRpcServer(String sessionEndpoint) {
-    	// 세션 캐쉬에서 세션 엔드포인트에 해당하는 RPC 서버를 찾는다.
-    	RpcServerInfo rpcInfo = m_sessions.getIfPresent(sessionEndpoint);
-    	if ( rpcInfo != null ) {
-    		return rpcInfo;
-    	}
-    	
-    	// 세션 캐쉬에 없으면, 등록된 RPC 서버들 중에서 세션 엔드포인트를 수행 중인 서버를 찾는다.
-    	rpcInfo = Funcs.findFirst(m_serverInfos.values(),
-								info -> info.rpcServer.getSession(sessionEndpoint) != null);
-    	if ( rpcInfo != null ) {
-    		m_sessions.put(sessionEndpoint, rpcInfo);
-		}
+    RpcServerInfo findRpcServer(String sessionEndpoint) {
+    	// 세션 색인에서 세션 엔드포인트에 해당하는 RPC 서버를 찾는다.
+    	SessionIndex.Entry entry = m_sessionIndex.get(sessionEndpoint);
+    	m_metrics.recordSessionLookup(entry != null);
     	
-    	return rpcInfo;
+    	return (entry != null) ? entry.server() : null;
 	}
 	
+    /**
+     * 여러 세션 엔드포인트를 수행 중인 RPC 서버들을 찾는다.
+     * <p>
+     * 세션 색인을 한 번에 조회한다. 색인에 없는 세션은 {@link #findRpcServer}와 같이 없는 세션으로 처리한다.
+     *
+     * @param sessionEndpoints	세션 엔드포인트들.
+     * @return	세션 엔드포인트와 해당 세션을 수행 중인 RPC 서버 정보의 맵. 찾지 못한 세션은 포함되지 않는다.
+     */
+    Map<String,RpcServerInfo> findRpcServers(Collection<String> sessionEndpoints) {
+    	Map<String,RpcServerInfo> found = new HashMap<>();
+    	m_sessionIndex.getAll(sessionEndpoints).forEach((ep, entry) -> found.put(ep, entry.server()));
+    	for ( String sessionEndpoint: sessionEndpoints ) {
+    		m_metrics.recordSessionLookup(found.containsKey(sessionEndpoint));
+    	}
+    	
+    	return found;
+    }
+    
+    /**
+     * 스윕의 조합 세션을 취소한다. 취소 중 오류는 기록만 하고 무시한다.
+     */
+    private void cancelSession(String sessionEndpoint) {
+    	try {
+    		RpcServerInfo rpcInfo = findRpcServer(sessionEndpoint);
+    		if ( rpcInfo == null ) {
+    			return;
+    		}
+    		RpcResponseMessage resp = rpcInfo.rpcServer().cancel(sessionEndpoint);
+    		m_events.publish(sessionEndpoint, resp);
+    		if ( resp == null ) {
+    			m_sessionIndex.remove(sessionEndpoint);
+    		}
+    	}
+    	catch ( Exception e ) {
+    		s_logger.warn("failed to cancel sweep point: session={}, cause={}", sessionEndpoint, e.toString());
+    	}
+    }
+    
+    /**
+     * 세션의 현재 상태를 조회한다. 세션이 회수되었으면 세션 색인에서도 제거한다.
+     *
+     * @param sessionEndpoint	세션 엔드포인트.
+     * @return	상태 응답 메시지. 세션이 없거나 회수되었으면 {@code null}.
+     * @throws IOException	상태 조회 중 입출력 오류가 발생한 경우.
+     */
+    private RpcResponseMessage probeStatus(String sessionEndpoint) throws IOException {
+    	RpcServerInfo rpcInfo = findRpcServer(sessionEndpoint);
+    	if ( rpcInfo == null ) {
+    		return null;
+    	}
+    	RpcResponseMessage resp = rpcInfo.rpcServer().status(sessionEndpoint);
+    	if ( resp == null ) {
+    		m_sessionIndex.remove(sessionEndpoint);
+    	}
+    	return resp;
+    }
+	
 	/**
-	 * 아직 등록되지 않은 연산을 {@code operations} 디렉터리에서 지연 로딩하여 등록한다.
-	 *
-	 * @param rpcId	로딩할 연산 식별자.
-	 * @return	등록된 RPC 서버 정보. 해당 연산 디렉터리/디스크립터가 없으면 {@code null}.
-	 * @throws IOException	{@code operations} 디렉터리가 없거나 디스크립터 로딩 중 오류가 발생한 경우.
+	 * 생성된 세션을 세션 저널에 기록한다. 세션이 종료되면 종료 응답 메시지를, 종료를 확인하지 못하고 회수되면
+	 * 제거를 기록한다. 세션 프로세스는 {@link #trackProcess}가 찾아 기록한다.
 	 */
-	private RpcServerInfo loadRpcServer(String rpcId) throws IOException {
-		// operations 디렉터리 하위의 각 operation 디렉터리 중에서 operation.json 파일을 포함한
-		// 모든 RPC 디렉토리에서 이미 등록되지 않은 디렉토리를 찾아서 RPC 서버를 등록한다.
-		File operationsDir = m_config.getOperationsDir();
-		File[] opDirs = operationsDir.listFiles(File::isDirectory);
-		if ( opDirs == null ) {
-			// operations 디렉터리가 없거나 디렉터리가 아니면 등록 없이 기동한다.
-			throw new IOException("operations directory not found: " + operationsDir.getAbsolutePath());
+	private void journalSession(String opId, String sessionEndpoint, RpcResponseMessage resp,
+								Map<String,JsonNode> outputs, @Nullable File varDir) {
+		m_recovered.forget(sessionEndpoint);
+		m_journal.created(sessionEndpoint, opId, outputs, varDir);
+		m_events.onTerminal(sessionEndpoint, resp, last -> {
+			if ( last != null ) {
+				m_journal.terminated(sessionEndpoint, RpcResponses.toTree(last));
+			}
+			else {
+				m_journal.removed(sessionEndpoint);
+			}
+		});
+	}
+	
+	/**
+	 * 세션 프로세스를 찾아, 프로세스 종료를 세션 상태 변화 이벤트로 등록하고 세션 저널에 기록한다. 실행 슬롯은
+	 * 세션 종료가 관측되기를 기다리지 않고 프로세스가 끝나는 즉시 반환한다. 프로세스를 찾지 못한 세션의 상태
+	 * 변화는 보조 확인으로만 관측된다.
+	 */
+	private void trackProcess(String sessionEndpoint, File varDir, AdmissionController.Permit slot) {
+		m_processTracker.track(sessionEndpoint, varDir, new SessionProcessTracker.Listener() {
+			@Override
+			public void found(ProcessHandle process) {
+				process.onExit().thenRun(slot::close);
+				m_events.attachExit(sessionEndpoint, process.onExit());
+				if ( m_journal != null && m_journal.isLive(sessionEndpoint) ) {
+					m_journal.attached(sessionEndpoint, process.pid(), SessionProcesses.startedAt(process));
+				}
+			}
+
+			@Override
+			public void notFound() {
+				s_logger.warn("session process not found, its exit is not observed and it cannot be reattached "
+								+ "after restart: session={}", sessionEndpoint);
+			}
+		});
+	}
+	
+	private void sendCallback(URI target, String sessionEndpoint, RpcResponseMessage last) {
+		if ( last == null ) {
+			// 종료 상태를 알 수 없으므로 세션이 회수되었음을 알린다.
+			s_logger.warn("session retired before its termination was observed, sending gone callback: "
+							+ "session={}, target={}", sessionEndpoint, target);
+			m_callbacks.submitGone(target, sessionEndpoint);
+			return;
+		}
+		try {
+			m_callbacks.submit(target, sessionEndpoint,
+								m_jsonMapper.writeValueAsString(withTraceSummary(sessionEndpoint, last)));
+		}
+		catch ( JsonProcessingException e ) {
+			s_logger.warn("failed to serialize callback body: session={}", sessionEndpoint, e);
+		}
+	}
+	
+	/**
+	 * 세션의 종료 응답 메시지에 수행 시간표 요약을 추가한다. 요약이 요청되지 않았거나 세션이 아직 종료되지
+	 * 않았으면 응답 메시지를 그대로 반환한다.
+	 */
+	private Object withTraceSummary(String sessionEndpoint, RpcResponseMessage resp) {
+		SessionTrace trace = m_traces.get(sessionEndpoint);
+		if ( trace == null || !trace.isSummaryRequested()
+			|| !RpcResponses.isTerminal(RpcResponses.stateOf(resp)) ) {
+			return resp;
+		}
+		if ( !(RpcResponses.toTree(resp) instanceof ObjectNode tree) ) {
+			return resp;
+		}
+		tree.set(TRACE_SUMMARY_FIELD, m_jsonMapper.valueToTree(trace.getSummary()));
+		return tree;
+	}
+	
+	/**
+	 * 세션의 종료 응답 메시지({@link #withTraceSummary} 적용 후)에서 크기가 큰 출력 값들을 내려받기 링크로
+	 * 바꾼다. 바꿀 출력이 없으면 {@link #withTraceSummary}의 결과를 그대로 반환한다.
+	 */
+	private Object withOutputLinks(String sessionEndpoint, RpcResponseMessage resp) {
+		Object body = withTraceSummary(sessionEndpoint, resp);
+		if ( m_outputs == null || !m_outputs.hasLargeOutputs(sessionEndpoint)
+			|| !RpcResponses.isTerminal(RpcResponses.stateOf(resp)) ) {
+			return body;
+		}
+		JsonNode tree = (body instanceof JsonNode node) ? node : RpcResponses.toTree(resp);
+		return m_outputs.linkLargeOutputs(sessionEndpoint, tree) ? tree : body;
+	}
+	
+	/**
+	 * 요청 JSON을 RPC 요청 메시지로 변환한다. 콜백 URL, 우선순위, 시간표 요약 요청은 디스패처가 처리하는
+	 * 속성이므로 RPC 요청 메시지로 변환하기 전에 분리한다.
+	 */
+	private ParsedRequest parseRequest(JsonNode requestNode, @Nullable SpilledValues spills, SessionTrace trace)
+		throws IOException {
+		URI callback = null;
+		int priority = 0;
+		if ( requestNode instanceof ObjectNode obj ) {
+			if ( obj.hasNonNull("callbackUrl") ) {
+				callback = CallbackDispatcher.toCallbackUri(obj.remove("callbackUrl").asText(),
+															m_config.getCallbackAllowedHosts());
+			}
+			if ( obj.hasNonNull("priority") ) {
+				JsonNode prio = obj.remove("priority");
+				Preconditions.checkArgument(prio.canConvertToInt(), "priority must be an integer: " + prio);
+				priority = prio.asInt();
+			}
+			if ( obj.hasNonNull(TRACE_SUMMARY_FIELD) ) {
+				trace.setSummaryRequested(obj.remove(TRACE_SUMMARY_FIELD).asBoolean());
+			}
+		}
+		RpcRequestMessage message = m_jsonMapper.treeToValue(requestNode, RpcRequestMessage.class);
+		return new ParsedRequest(requestNode, message, callback, priority, spills);
+	}
+	
+	private @Nullable RpcServerInfo lookupOperation(String opId) throws IOException {
+		// 연산 디렉터리를 감시 중이면 등록부만 조회하고, 요청 스레드에서는 파일 시스템에 접근하지 않는다.
+		return (m_watcher != null) ? m_registry.get(opId) : m_registry.getOrLoad(opId);
+	}
+	
+	private static ResponseEntity<?> operationNotFound(String opId) {
+		ResourceNotFoundException cause = new ResourceNotFoundException("RpcServer", "id=" + opId);
+		return ResponseEntity.status(HttpStatus.NOT_FOUND)
+							.body(RESTfulErrorEntity.of(cause));
+	}
+	
+	/**
+	 * 실행 슬롯을 요청한다. 슬롯 대기 시간은 요청이 끝날 때 단계 시간으로 기록된다.
+	 */
+	private CompletableFuture<AdmissionController.Permit> admit(String opId, RpcServerInfo info, int priority,
+																DispatcherMetrics.Scope metrics) {
+		long startedAt = System.nanoTime();
+		CompletableFuture<AdmissionController.Permit> admission;
+		try {
+			admission = m_admission.acquireAsync(opId, info.policy(), priority,
+												m_config.getAdmissionQueueTimeout());
+		}
+		catch ( AdmissionController.AdmissionRejectedException e ) {
+			metrics.record(DispatcherMetrics.Phase.ADMISSION, "rejected", startedAt);
+			throw e;
+		}
+		admission.whenComplete((permit, error) -> metrics.record(DispatcherMetrics.Phase.ADMISSION,
+																(error == null) ? "admitted" : "rejected",
+																startedAt));
+		return admission;
+	}
+	
+	private static AdmissionController.Permit awaitAdmission(String opId,
+														CompletableFuture<AdmissionController.Permit> admission)
+		throws IOException {
+		try {
+			return AdmissionController.await(admission);
+		}
+		catch ( InterruptedException e ) {
+			Thread.currentThread().interrupt();
+			throw new IOException("interrupted while waiting for admission: op=" + opId, e);
+		}
+	}
+	
+	private static ResponseEntity<?> tooManyRequests(AdmissionController.AdmissionRejectedException e) {
+		return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+							.header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfter().toSeconds()))
+							.body(RESTfulErrorEntity.of(e));
+	}
+	
+	private static Duration parseWaitFor(String waitFor) {
+		try {
+			Duration timeout = Duration.parse(waitFor);
+			Preconditions.checkArgument(!timeout.isNegative(), "waitFor must not be negative: " + waitFor);
+			return timeout;
+		}
+		catch ( DateTimeParseException e ) {
+			throw new IllegalArgumentException("invalid waitFor: " + waitFor, e);
+		}
+	}
+	
+	private RESTfulAsyncRpcServer createRpcServer(String opId, File descFile) throws IOException {
+		// 풀 작업자 모드의 연산은 명령을 작업자 풀 클라이언트 호출로 바꾼 디스크립터로 RPC 서버를 생성한다.
+		OperationPolicy policy = OperationPolicy.load(descFile.getParentFile());
+		File effective = m_workerPools.prepare(opId, descFile, policy.workerPool());
+		return new RESTfulCommandExecutionServer(effective, m_serde);
+	}
+	
+	private void closeRpcServer(RpcServerInfo info) {
+		// 해제된 연산이면 작업자 풀도 닫는다. 교체된 연산의 이전 풀은 새 RPC 서버를 생성할 때 이미 교체되었다.
+		// 실행 슬롯 관리 상태도 남은 세션과 대기 요청이 끝나면 제거되도록 한다.
+		if ( m_registry.get(info.opId()) == null ) {
+			if ( m_workerPools != null ) {
+				m_workerPools.retire(info.opId());
+			}
+			if ( m_admission != null ) {
+				m_admission.forget(info.opId());
+			}
+		}
+		if ( info.rpcServer() instanceof AutoCloseable closeable ) {
+			try {
+				closeable.close();
+			}
+			catch ( Exception e ) {
+				s_logger.warn("failed to close RPC server: id={}, cause={}", info.opId(), e.toString());
+			}
 		}
-		
-		FOption<File> opDescFile = FStream.of(opDirs)
-										.filter(dir -> dir.getName().equals(rpcId) && !m_serverInfos.containsKey(dir.getName()))
-										.map(dir -> FileUtils.path(dir, "operation.json"))
-										.filter(f -> f.isFile())
-										.findFirst();
-		return opDescFile.mapOrThrow(dfile -> {
-								RESTfulAsyncRpcServer server = new RESTfulCommandExecutionServer(dfile, m_serde);
-								RpcServerInfo info = new RpcServerInfo(rpcId, server);
-								m_serverInfos.put(rpcId, info);
-								
-								return info;
-							})
-						.getOrNull();
 	}
-}
 
+	/**
+	 * 스윕 세션이나 대기 핸들처럼 RPC 서버의 세션이 아닌 엔드포인트인지 여부를 반환한다.
+	 */
+	private static boolean isHandleEndpoint(String sessionEndpoint) {
+		return sessionEndpoint.startsWith("/sessions/" + SweepSession.ID_PREFIX)
+			|| sessionEndpoint.startsWith("/sessions/" + QueuedRequest.ID_PREFIX);
+	}
+	
+	/**
+	 * 세션 식별자의 세션 엔드포인트를 반환한다. 세션을 시작한 대기 핸들이면 시작된 세션의 엔드포인트를 반환한다.
+	 */
+	private String toSessionEndpoint(String sessionId) {
+		if ( sessionId.startsWith(QueuedRequest.ID_PREFIX) ) {
+			QueuedRequest handle = m_queued.get(sessionId);
+			String session = (handle != null) ? handle.getSession() : null;
+			if ( session != null ) {
+				return session;
+			}
+		}
+		return String.format("/sessions/%s", sessionId);
+	}
 
+	private static Map<String,JsonNode> fieldsOf(JsonNode node) {
+		Map<String,JsonNode> fields = new LinkedHashMap<>();
+		node.fields().forEachRemaining(ent -> fields.put(ent.getKey(), ent.getValue()));
+		return fields;
+	}
+}
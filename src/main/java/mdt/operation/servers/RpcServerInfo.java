@@ -0,0 +1,25 @@
+package mdt.operation.servers;
+
+import utils.rpc.restful.RESTfulAsyncRpcServer;
+
+
+/**
+ * 디스패처에 등록된 연산 하나의 RPC 서버 정보.
+ *
+ * @param opId		연산 식별자.
+ * @param rpcServer	연산을 수행하는 RPC 서버.
+ * @param policy	연산별 디스패처 정책.
+ *
+ * @author Kang-Woo Lee (ETRI)
+ */
+record RpcServerInfo(String opId, RESTfulAsyncRpcServer rpcServer, OperationPolicy policy) {
+	/**
+	 * 기본 정책({@link OperationPolicy#DEFAULT})을 갖는 RPC 서버 정보를 생성한다.
+	 *
+	 * @param opId		연산 식별자.
+	 * @param rpcServer	연산을 수행하는 RPC 서버.
+	 */
+	RpcServerInfo(String opId, RESTfulAsyncRpcServer rpcServer) {
+		this(opId, rpcServer, OperationPolicy.DEFAULT);
+	}
+}
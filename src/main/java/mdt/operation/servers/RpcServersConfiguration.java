@@ -1,8 +1,11 @@
 package mdt.operation.servers;
 
 import java.io.File;
+import java.time.Duration;
+import java.util.List;
 
 import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
 
 import utils.Preconditions;
 import utils.io.FileUtils;
@@ -13,7 +16,37 @@ import utils.io.FileUtils;
  * <p>
  * 연산 디스크립터들이 위치한 {@code operationsDir}와 MDT 인스턴스 관리자 접속 URL
  * ({@code instanceManagerUrl})을 보유한다. {@code operationsDir}의 기본값은 현재 작업 디렉토리 아래
- * {@code operations} 디렉토리이다.
+ * {@code operations} 디렉토리이다. {@code referenceResolveConcurrency}는 한 요청의 참조 입력들을 병렬로
+ * 해석할 때의 최대 동시 실행 수이며, {@code prototypeCacheSize}/{@code prototypeCacheTtl}은 참조 대상
+ * 프로토타입 캐시({@link ElementPrototypeCache})의 최대 항목 수와 유효 기간이다.
+ * {@code sessionIndexPruneInterval}은 회수된 세션을 세션 색인({@link SessionIndex})에서 제거하는 주기이며,
+ * {@code unknownOperationCacheSize}/{@code unknownOperationTtl}은 존재하지 않는 연산 식별자를 기억하는
+ * 부정 캐시({@link OperationRegistry})의 최대 항목 수와 유효 기간이다. {@code watchOperations}가 설정되면
+ * 연산 디렉토리의 변경을 감시하여 반영하며({@link OperationsDirectoryWatcher}), 연이은 변경은
+ * {@code operationsReloadDebounce} 동안 모아서 처리한다. {@code sessionWaitMaxTimeout}은 세션 상태 long-poll의
+ * 최대 대기 시간, {@code sessionEventStreamTimeout}은 세션 이벤트 SSE 스트림의 최대 유지 시간이며,
+ * {@code sessionEventBackstopInterval}은 상태 변화를 기다리는 세션들을 보조적으로 확인하는 주기이다
+ * ({@link SessionEventHub}). {@code callback*} 프로퍼티들은 세션 종료 콜백 전달({@link CallbackDispatcher})의
+ * 작업 스레드 수, 대기 큐 크기, 최대 시도 횟수, 첫 재시도 대기 시간, 요청 제한 시간이며, {@code callbackAllowedHosts}는
+ * 콜백 URL로 허용하는 호스트 목록이다.
+ * {@code maxConcurrentSessions}/{@code maxQueuedRequests}는 전역 최대 동시
+ * 세션 수와 시작 대기 요청 수이며, {@code admissionQueueTimeout}은 시작 대기의 최대 시간이다
+ * ({@link AdmissionController}). {@code queuedRequestCapacity}는 대기열에 들어간 요청의 대기 핸들을 조회할 수
+ * 있도록 보관하는 수이다({@link QueuedRequests}). 연산별 제한은 각 연산 디렉토리의 {@code dispatch.json}에 지정한다.
+ * {@code workerPoolDir}는 풀 작업자 모드 연산의 작업자 스크립트와 소켓 파일이 만들어지는 디렉토리이다
+ * ({@link WorkerPools}). {@code memoDir}/{@code memoMaxSize}는 결정적 연산의 수행 결과를 재사용하기 위해
+ * 보관하는 디렉토리와 그 최대 크기이다({@link ResultMemo}). {@code maxBatchSize}는 일괄 연산 시작 요청
+ * ({@code POST /operations/{id}/batch})과 여러 세션 상태 조회({@code POST /sessions/states}) 한 건에 담을 수
+ * 있는 최대 항목 수이다. {@code maxSweepSize}는 파라미터 스윕 요청({@link ParameterSweep}) 한 건이 만들 수 있는
+ * 최대 조합 수이며, {@code sweepCapacity}는 결과를 조회할 수 있도록 보관하는 스윕 수이다({@link SweepSessions}).
+ * {@code inlineSpillThreshold}/{@code inlineSpillDir}는 연산 요청 본문의 일반 값 입력을 메모리에 두지 않고 임시
+ * 파일로 옮겨 적기 시작하는 크기와 그 임시 파일 디렉토리이며({@link StreamingRequestReader}), 크기가 0이면 모든
+ * 입력 값을 메모리에 읽는다. {@code outputFilesDir}/{@code outputFilesCapacity}는 내려받을 수 있도록 세션 출력
+ * 파일을 보관하는 디렉토리와 최대 보관 세션 수이며({@link SessionOutputs}), 보관 세션 수가 0이면 출력 파일을
+ * 보관하지 않는다. {@code outputLinkThreshold}는 세션 상태 응답에 출력 값 대신 내려받기 링크를 담는 출력의
+ * 최소 크기이다. {@code sessionJournalDir}는 디스패처 재기동 후 세션을 복구하기 위한 세션 저널
+ * ({@link SessionJournal})의 디렉토리이며, {@code sessionJournalRetained}는 저널에 보관하는 최근 종료 세션 수(0이면
+ * 저널을 사용하지 않음), {@code sessionJournalSyncInterval}은 모아 둔 저널 레코드를 한 번에 fsync하는 주기이다.
  *
  * @author Kang-Woo Lee (ETRI)
  */
@@ -21,9 +54,47 @@ import utils.io.FileUtils;
 public class RpcServersConfiguration {
 	private File m_operationsDir;
 	private String m_instanceManagerUrl;
+	private int m_referenceResolveConcurrency = MDTCommandVariableSerDe.DEFAULT_RESOLVE_CONCURRENCY;
+	private long m_prototypeCacheSize = ElementPrototypeCache.DEFAULT_MAX_SIZE;
+	private Duration m_prototypeCacheTtl = ElementPrototypeCache.DEFAULT_TTL;
+	private Duration m_sessionIndexPruneInterval = Duration.ofSeconds(30);
+	private long m_unknownOperationCacheSize = OperationRegistry.DEFAULT_UNKNOWN_CACHE_SIZE;
+	private Duration m_unknownOperationTtl = OperationRegistry.DEFAULT_UNKNOWN_TTL;
+	private boolean m_watchOperations = true;
+	private Duration m_operationsReloadDebounce = Duration.ofMillis(500);
+	private Duration m_sessionWaitMaxTimeout = Duration.ofSeconds(60);
+	private Duration m_sessionEventStreamTimeout = Duration.ofMinutes(30);
+	private Duration m_sessionEventBackstopInterval = Duration.ofSeconds(5);
+	private int m_callbackWorkers = 4;
+	private int m_callbackQueueCapacity = 1024;
+	private int m_callbackMaxAttempts = 5;
+	private Duration m_callbackInitialBackoff = Duration.ofSeconds(1);
+	private Duration m_callbackTimeout = Duration.ofSeconds(10);
+	private List<String> m_callbackAllowedHosts = List.of();
+	private int m_maxConcurrentSessions = 0;
+	private int m_maxQueuedRequests = 256;
+	private Duration m_admissionQueueTimeout = Duration.ofMinutes(5);
+	private File m_workerPoolDir = new File(System.getProperty("java.io.tmpdir"), "mdt-worker-pools");
+	private File m_memoDir;
+	private DataSize m_memoMaxSize = DataSize.ofGigabytes(1);
+	private int m_sessionTraceCapacity = SessionTraces.DEFAULT_CAPACITY;
+	private int m_maxBatchSize = 1000;
+	private int m_maxSweepSize = 10000;
+	private int m_sweepCapacity = SweepSessions.DEFAULT_CAPACITY;
+	private int m_queuedRequestCapacity = QueuedRequests.DEFAULT_CAPACITY;
+	private DataSize m_inlineSpillThreshold = DataSize.ofMegabytes(1);
+	private File m_inlineSpillDir = new File(System.getProperty("java.io.tmpdir"), "mdt-inline-spill");
+	private File m_outputFilesDir = new File(System.getProperty("java.io.tmpdir"), "mdt-session-outputs");
+	private int m_outputFilesCapacity = SessionOutputs.DEFAULT_CAPACITY;
+	private DataSize m_outputLinkThreshold = DataSize.ofMegabytes(1);
+	private File m_sessionJournalDir;
+	private int m_sessionJournalRetained = SessionJournal.DEFAULT_RETAINED;
+	private Duration m_sessionJournalSyncInterval = Duration.ofMillis(50);
 
 	RpcServersConfiguration() {
 		m_operationsDir = new File(FileUtils.getCurrentWorkingDirectory(), "operations");
+		m_memoDir = new File(FileUtils.getCurrentWorkingDirectory(), "memo");
+		m_sessionJournalDir = new File(FileUtils.getCurrentWorkingDirectory(), "session-journal");
 	}
 
 	/**
@@ -66,4 +137,766 @@ public class RpcServersConfiguration {
 											"instanceManagerUrl must be specified");
 		m_instanceManagerUrl = instanceManagerUrl;
 	}
+
+	/**
+	 * 한 요청의 MDT 요소 참조 입력들을 병렬로 해석할 때의 최대 동시 실행 수를 반환한다.
+	 *
+	 * @return	최대 동시 실행 수. 기본값은 {@value MDTCommandVariableSerDe#DEFAULT_RESOLVE_CONCURRENCY}.
+	 */
+	public int getReferenceResolveConcurrency() {
+		return m_referenceResolveConcurrency;
+	}
+
+	/**
+	 * 한 요청의 MDT 요소 참조 입력들을 병렬로 해석할 때의 최대 동시 실행 수를 설정한다.
+	 *
+	 * @param concurrency	최대 동시 실행 수. (1 이상)
+	 * @throws IllegalArgumentException	{@code concurrency}가 1보다 작은 경우.
+	 */
+	public void setReferenceResolveConcurrency(int concurrency) {
+		Preconditions.checkArgument(concurrency > 0,
+									"referenceResolveConcurrency must be positive: " + concurrency);
+		m_referenceResolveConcurrency = concurrency;
+	}
+
+	/**
+	 * 참조 대상 프로토타입 캐시의 최대 항목 수를 반환한다.
+	 *
+	 * @return	최대 항목 수. 기본값은 {@value ElementPrototypeCache#DEFAULT_MAX_SIZE}.
+	 */
+	public long getPrototypeCacheSize() {
+		return m_prototypeCacheSize;
+	}
+
+	/**
+	 * 참조 대상 프로토타입 캐시의 최대 항목 수를 설정한다.
+	 *
+	 * @param size	최대 항목 수. (1 이상)
+	 * @throws IllegalArgumentException	{@code size}가 1보다 작은 경우.
+	 */
+	public void setPrototypeCacheSize(long size) {
+		Preconditions.checkArgument(size > 0, "prototypeCacheSize must be positive: " + size);
+		m_prototypeCacheSize = size;
+	}
+
+	/**
+	 * 참조 대상 프로토타입 캐시 항목의 유효 기간을 반환한다.
+	 *
+	 * @return	유효 기간. 기본값은 10분.
+	 */
+	public Duration getPrototypeCacheTtl() {
+		return m_prototypeCacheTtl;
+	}
+
+	/**
+	 * 참조 대상 프로토타입 캐시 항목의 유효 기간을 설정한다.
+	 *
+	 * @param ttl	유효 기간. ({@code null} 불가, 양수)
+	 * @throws IllegalArgumentException	{@code ttl}이 {@code null}이거나 양수가 아닌 경우.
+	 */
+	public void setPrototypeCacheTtl(Duration ttl) {
+		Preconditions.checkNotNullArgument(ttl, "prototypeCacheTtl must be specified");
+		Preconditions.checkArgument(ttl.isPositive(), "prototypeCacheTtl must be positive: " + ttl);
+		m_prototypeCacheTtl = ttl;
+	}
+
+	/**
+	 * 회수된 세션을 세션 색인에서 제거하는 주기를 반환한다.
+	 *
+	 * @return	제거 주기. 기본값은 30초.
+	 */
+	public Duration getSessionIndexPruneInterval() {
+		return m_sessionIndexPruneInterval;
+	}
+
+	/**
+	 * 회수된 세션을 세션 색인에서 제거하는 주기를 설정한다.
+	 *
+	 * @param interval	제거 주기. ({@code null} 불가, 양수)
+	 * @throws IllegalArgumentException	{@code interval}이 {@code null}이거나 양수가 아닌 경우.
+	 */
+	public void setSessionIndexPruneInterval(Duration interval) {
+		Preconditions.checkNotNullArgument(interval, "sessionIndexPruneInterval must be specified");
+		Preconditions.checkArgument(!interval.isNegative() && !interval.isZero(),
+									"sessionIndexPruneInterval must be positive: " + interval);
+		m_sessionIndexPruneInterval = interval;
+	}
+
+	/**
+	 * 존재하지 않는 연산 식별자를 기억하는 부정 캐시의 최대 항목 수를 반환한다.
+	 *
+	 * @return	최대 항목 수. 기본값은 {@value OperationRegistry#DEFAULT_UNKNOWN_CACHE_SIZE}.
+	 */
+	public long getUnknownOperationCacheSize() {
+		return m_unknownOperationCacheSize;
+	}
+
+	/**
+	 * 존재하지 않는 연산 식별자를 기억하는 부정 캐시의 최대 항목 수를 설정한다.
+	 *
+	 * @param size	최대 항목 수. (1 이상)
+	 * @throws IllegalArgumentException	{@code size}가 1보다 작은 경우.
+	 */
+	public void setUnknownOperationCacheSize(long size) {
+		Preconditions.checkArgument(size > 0, "unknownOperationCacheSize must be positive: " + size);
+		m_unknownOperationCacheSize = size;
+	}
+
+	/**
+	 * 존재하지 않는 연산 식별자를 기억하는 기간을 반환한다.
+	 *
+	 * @return	유효 기간. 기본값은 5초.
+	 */
+	public Duration getUnknownOperationTtl() {
+		return m_unknownOperationTtl;
+	}
+
+	/**
+	 * 존재하지 않는 연산 식별자를 기억하는 기간을 설정한다.
+	 *
+	 * @param ttl	유효 기간. ({@code null} 불가)
+	 * @throws IllegalArgumentException	{@code ttl}이 {@code null}인 경우.
+	 */
+	public void setUnknownOperationTtl(Duration ttl) {
+		Preconditions.checkNotNullArgument(ttl, "unknownOperationTtl must be specified");
+		m_unknownOperationTtl = ttl;
+	}
+
+	/**
+	 * 연산 디렉토리의 변경을 감시하여 반영할지 여부를 반환한다.
+	 *
+	 * @return	감시 여부. 기본값은 {@code true}.
+	 */
+	public boolean isWatchOperations() {
+		return m_watchOperations;
+	}
+
+	/**
+	 * 연산 디렉토리의 변경을 감시하여 반영할지 여부를 설정한다.
+	 * <p>
+	 * 감시하지 않으면 등록되지 않은 연산에 대한 요청 시 연산 디렉토리에서 지연 로딩한다.
+	 *
+	 * @param watch	감시 여부.
+	 */
+	public void setWatchOperations(boolean watch) {
+		m_watchOperations = watch;
+	}
+
+	/**
+	 * 연산 디렉토리의 연이은 변경을 모아서 처리하기 위해 기다리는 시간을 반환한다.
+	 *
+	 * @return	대기 시간. 기본값은 500ms.
+	 */
+	public Duration getOperationsReloadDebounce() {
+		return m_operationsReloadDebounce;
+	}
+
+	/**
+	 * 연산 디렉토리의 연이은 변경을 모아서 처리하기 위해 기다리는 시간을 설정한다.
+	 *
+	 * @param debounce	대기 시간. ({@code null} 불가)
+	 * @throws IllegalArgumentException	{@code debounce}가 {@code null}인 경우.
+	 */
+	public void setOperationsReloadDebounce(Duration debounce) {
+		Preconditions.checkNotNullArgument(debounce, "operationsReloadDebounce must be specified");
+		m_operationsReloadDebounce = debounce;
+	}
+
+	/**
+	 * 세션 상태 long-poll 요청의 최대 대기 시간을 반환한다.
+	 *
+	 * @return	최대 대기 시간. 기본값은 60초.
+	 */
+	public Duration getSessionWaitMaxTimeout() {
+		return m_sessionWaitMaxTimeout;
+	}
+
+	/**
+	 * 세션 상태 long-poll 요청의 최대 대기 시간을 설정한다.
+	 * <p>
+	 * 요청이 지정한 대기 시간({@code waitFor})이 이보다 길면 이 값으로 제한된다.
+	 *
+	 * @param timeout	최대 대기 시간. ({@code null} 불가, 양수)
+	 * @throws IllegalArgumentException	{@code timeout}이 {@code null}이거나 양수가 아닌 경우.
+	 */
+	public void setSessionWaitMaxTimeout(Duration timeout) {
+		Preconditions.checkNotNullArgument(timeout, "sessionWaitMaxTimeout must be specified");
+		Preconditions.checkArgument(!timeout.isNegative() && !timeout.isZero(),
+									"sessionWaitMaxTimeout must be positive: " + timeout);
+		m_sessionWaitMaxTimeout = timeout;
+	}
+
+	/**
+	 * 세션 이벤트 SSE 스트림의 최대 유지 시간을 반환한다.
+	 *
+	 * @return	최대 유지 시간. 기본값은 30분.
+	 */
+	public Duration getSessionEventStreamTimeout() {
+		return m_sessionEventStreamTimeout;
+	}
+
+	/**
+	 * 세션 이벤트 SSE 스트림의 최대 유지 시간을 설정한다.
+	 *
+	 * @param timeout	최대 유지 시간. ({@code null} 불가, 양수)
+	 * @throws IllegalArgumentException	{@code timeout}이 {@code null}이거나 양수가 아닌 경우.
+	 */
+	public void setSessionEventStreamTimeout(Duration timeout) {
+		Preconditions.checkNotNullArgument(timeout, "sessionEventStreamTimeout must be specified");
+		Preconditions.checkArgument(!timeout.isNegative() && !timeout.isZero(),
+									"sessionEventStreamTimeout must be positive: " + timeout);
+		m_sessionEventStreamTimeout = timeout;
+	}
+
+	/**
+	 * 상태 변화를 기다리는 세션들을 보조적으로 확인하는 주기를 반환한다.
+	 *
+	 * @return	확인 주기. 기본값은 5초.
+	 */
+	public Duration getSessionEventBackstopInterval() {
+		return m_sessionEventBackstopInterval;
+	}
+
+	/**
+	 * 상태 변화를 기다리는 세션들을 보조적으로 확인하는 주기를 설정한다.
+	 * <p>
+	 * 세션 상태 전이는 주로 세션 종료 신호와 연산 프로세스 종료로 전달되며, 이 확인은 연산 프로세스를 찾지 못한
+	 * 세션을 위한 것이다.
+	 *
+	 * @param interval	확인 주기. ({@code null} 불가, 양수)
+	 * @throws IllegalArgumentException	{@code interval}이 {@code null}이거나 양수가 아닌 경우.
+	 */
+	public void setSessionEventBackstopInterval(Duration interval) {
+		Preconditions.checkNotNullArgument(interval, "sessionEventBackstopInterval must be specified");
+		Preconditions.checkArgument(!interval.isNegative() && !interval.isZero(),
+									"sessionEventBackstopInterval must be positive: " + interval);
+		m_sessionEventBackstopInterval = interval;
+	}
+
+	/**
+	 * 콜백을 동시에 전달하는 작업 스레드 수를 반환한다.
+	 *
+	 * @return	콜백을 동시에 전달하는 작업 스레드 수. 기본값은 4.
+	 */
+	public int getCallbackWorkers() {
+		return m_callbackWorkers;
+	}
+
+	/**
+	 * 콜백을 동시에 전달하는 작업 스레드 수를 설정한다.
+	 *
+	 * @param value	콜백을 동시에 전달하는 작업 스레드 수. (1 이상)
+	 * @throws IllegalArgumentException	{@code value}가 1보다 작은 경우.
+	 */
+	public void setCallbackWorkers(int value) {
+		Preconditions.checkArgument(value > 0, "callbackWorkers must be positive: " + value);
+		m_callbackWorkers = value;
+	}
+
+	/**
+	 * 콜백 전달 대기 큐의 최대 크기를 반환한다.
+	 *
+	 * @return	콜백 전달 대기 큐의 최대 크기. 기본값은 1024.
+	 */
+	public int getCallbackQueueCapacity() {
+		return m_callbackQueueCapacity;
+	}
+
+	/**
+	 * 콜백 전달 대기 큐의 최대 크기를 설정한다.
+	 *
+	 * 큐가 가득 찬 상태에서 들어온 콜백은 버려진다.
+	 *
+	 * @param value	콜백 전달 대기 큐의 최대 크기. (1 이상)
+	 * @throws IllegalArgumentException	{@code value}가 1보다 작은 경우.
+	 */
+	public void setCallbackQueueCapacity(int value) {
+		Preconditions.checkArgument(value > 0, "callbackQueueCapacity must be positive: " + value);
+		m_callbackQueueCapacity = value;
+	}
+
+	/**
+	 * 콜백 하나에 대한 최대 전달 시도 횟수를 반환한다.
+	 *
+	 * @return	콜백 하나에 대한 최대 전달 시도 횟수. 기본값은 5.
+	 */
+	public int getCallbackMaxAttempts() {
+		return m_callbackMaxAttempts;
+	}
+
+	/**
+	 * 콜백 하나에 대한 최대 전달 시도 횟수를 설정한다.
+	 *
+	 * @param value	콜백 하나에 대한 최대 전달 시도 횟수. (1 이상)
+	 * @throws IllegalArgumentException	{@code value}가 1보다 작은 경우.
+	 */
+	public void setCallbackMaxAttempts(int value) {
+		Preconditions.checkArgument(value > 0, "callbackMaxAttempts must be positive: " + value);
+		m_callbackMaxAttempts = value;
+	}
+
+	/**
+	 * 콜백 첫 재시도 전 대기 시간을 반환한다.
+	 *
+	 * @return	콜백 첫 재시도 전 대기 시간. 기본값은 1초.
+	 */
+	public Duration getCallbackInitialBackoff() {
+		return m_callbackInitialBackoff;
+	}
+
+	/**
+	 * 콜백 첫 재시도 전 대기 시간을 설정한다.
+	 *
+	 * @param value	콜백 첫 재시도 전 대기 시간. ({@code null} 불가, 양수)
+	 * @throws IllegalArgumentException	{@code value}가 {@code null}이거나 양수가 아닌 경우.
+	 */
+	public void setCallbackInitialBackoff(Duration value) {
+		Preconditions.checkNotNullArgument(value, "callbackInitialBackoff must be specified");
+		Preconditions.checkArgument(!value.isNegative() && !value.isZero(),
+									"callbackInitialBackoff must be positive: " + value);
+		m_callbackInitialBackoff = value;
+	}
+
+	/**
+	 * 콜백 전달 요청 하나의 제한 시간을 반환한다.
+	 *
+	 * @return	콜백 전달 요청 하나의 제한 시간. 기본값은 10초.
+	 */
+	public Duration getCallbackTimeout() {
+		return m_callbackTimeout;
+	}
+
+	/**
+	 * 콜백 전달 요청 하나의 제한 시간을 설정한다.
+	 *
+	 * @param value	콜백 전달 요청 하나의 제한 시간. ({@code null} 불가, 양수)
+	 * @throws IllegalArgumentException	{@code value}가 {@code null}이거나 양수가 아닌 경우.
+	 */
+	public void setCallbackTimeout(Duration value) {
+		Preconditions.checkNotNullArgument(value, "callbackTimeout must be specified");
+		Preconditions.checkArgument(!value.isNegative() && !value.isZero(),
+									"callbackTimeout must be positive: " + value);
+		m_callbackTimeout = value;
+	}
+
+	/**
+	 * 콜백 URL로 허용하는 호스트 목록을 반환한다.
+	 *
+	 * @return	허용 호스트 목록. 기본값은 빈 목록(모든 호스트 허용).
+	 */
+	public List<String> getCallbackAllowedHosts() {
+		return m_callbackAllowedHosts;
+	}
+
+	/**
+	 * 콜백 URL로 허용하는 호스트 목록을 설정한다.
+	 * <p>
+	 * 각 항목은 호스트 이름(또는 IP 주소)이거나 {@code *.example.com} 형태의 하위 도메인 패턴이며 대소문자를
+	 * 구분하지 않는다. 목록이 비어 있으면 모든 호스트를 허용하므로, 신뢰할 수 없는 클라이언트가 요청을 보낼 수
+	 * 있는 환경에서는 반드시 설정해야 한다({@link CallbackDispatcher#toCallbackUri(String, List)}).
+	 *
+	 * @param hosts	허용 호스트 목록. ({@code null} 불가)
+	 * @throws IllegalArgumentException	{@code hosts}가 {@code null}이거나 빈 항목을 포함하는 경우.
+	 */
+	public void setCallbackAllowedHosts(List<String> hosts) {
+		Preconditions.checkNotNullArgument(hosts, "callbackAllowedHosts must be specified");
+		Preconditions.checkArgument(hosts.stream().allMatch(h -> h != null && !h.isBlank()),
+									"callbackAllowedHosts must not contain blank entries: " + hosts);
+		m_callbackAllowedHosts = List.copyOf(hosts);
+	}
+
+	/**
+	 * 전역 최대 동시 세션 수를 반환한다.
+	 *
+	 * @return	최대 동시 세션 수. 0이면 제한하지 않는다. 기본값은 0.
+	 */
+	public int getMaxConcurrentSessions() {
+		return m_maxConcurrentSessions;
+	}
+
+	/**
+	 * 전역 최대 동시 세션 수를 설정한다.
+	 *
+	 * @param max	최대 동시 세션 수. 0이면 제한하지 않는다. (0 이상)
+	 * @throws IllegalArgumentException	{@code max}가 음수인 경우.
+	 */
+	public void setMaxConcurrentSessions(int max) {
+		Preconditions.checkArgument(max >= 0, "maxConcurrentSessions must not be negative: " + max);
+		m_maxConcurrentSessions = max;
+	}
+
+	/**
+	 * 전체 연산에 대해 시작을 기다릴 수 있는 최대 요청 수를 반환한다.
+	 *
+	 * @return	최대 대기 요청 수. 기본값은 256.
+	 */
+	public int getMaxQueuedRequests() {
+		return m_maxQueuedRequests;
+	}
+
+	/**
+	 * 전체 연산에 대해 시작을 기다릴 수 있는 최대 요청 수를 설정한다.
+	 *
+	 * @param max	최대 대기 요청 수. 0이면 슬롯이 없을 때 바로 거절한다. (0 이상)
+	 * @throws IllegalArgumentException	{@code max}가 음수인 경우.
+	 */
+	public void setMaxQueuedRequests(int max) {
+		Preconditions.checkArgument(max >= 0, "maxQueuedRequests must not be negative: " + max);
+		m_maxQueuedRequests = max;
+	}
+
+	/**
+	 * 연산 시작 요청이 슬롯을 기다리는 최대 시간을 반환한다.
+	 *
+	 * @return	최대 대기 시간. 기본값은 5분.
+	 */
+	public Duration getAdmissionQueueTimeout() {
+		return m_admissionQueueTimeout;
+	}
+
+	/**
+	 * 연산 시작 요청이 슬롯을 기다리는 최대 시간을 설정한다. 시간이 지나면 {@code 429}로 거절된다.
+	 *
+	 * @param timeout	최대 대기 시간. ({@code null} 불가, 양수)
+	 * @throws IllegalArgumentException	{@code timeout}이 {@code null}이거나 양수가 아닌 경우.
+	 */
+	public void setAdmissionQueueTimeout(Duration timeout) {
+		Preconditions.checkNotNullArgument(timeout, "admissionQueueTimeout must be specified");
+		Preconditions.checkArgument(!timeout.isNegative() && !timeout.isZero(),
+									"admissionQueueTimeout must be positive: " + timeout);
+		m_admissionQueueTimeout = timeout;
+	}
+
+	/**
+	 * 풀 작업자 모드 연산의 작업자 스크립트와 소켓 파일이 만들어지는 디렉토리를 반환한다.
+	 *
+	 * @return	작업자 풀 디렉토리. 기본값은 임시 디렉토리 아래 {@code mdt-worker-pools}.
+	 */
+	public File getWorkerPoolDir() {
+		return m_workerPoolDir;
+	}
+
+	/**
+	 * 풀 작업자 모드 연산의 작업자 스크립트와 소켓 파일이 만들어지는 디렉토리를 설정한다.
+	 * Unix 도메인 소켓 경로의 길이 제한(약 100자) 때문에 짧은 경로를 사용해야 한다.
+	 *
+	 * @param dir	작업자 풀 디렉토리. ({@code null} 불가)
+	 * @throws IllegalArgumentException	{@code dir}이 {@code null}인 경우.
+	 */
+	public void setWorkerPoolDir(File dir) {
+		Preconditions.checkNotNullArgument(dir, "workerPoolDir must be specified");
+		m_workerPoolDir = dir;
+	}
+
+	/**
+	 * 결정적 연산의 수행 결과를 보관하는 디렉토리를 반환한다.
+	 *
+	 * @return	결과 보관 디렉토리. 기본값은 현재 작업 디렉토리 아래 {@code memo}.
+	 */
+	public File getMemoDir() {
+		return m_memoDir;
+	}
+
+	/**
+	 * 결정적 연산의 수행 결과를 보관하는 디렉토리를 설정한다.
+	 *
+	 * @param dir	결과 보관 디렉토리. ({@code null} 불가)
+	 * @throws IllegalArgumentException	{@code dir}이 {@code null}인 경우.
+	 */
+	public void setMemoDir(File dir) {
+		Preconditions.checkNotNullArgument(dir, "memoDir must be specified");
+		m_memoDir = dir;
+	}
+
+	/**
+	 * 보관된 수행 결과들의 최대 크기를 반환한다.
+	 *
+	 * @return	최대 크기. 기본값은 1GB.
+	 */
+	public DataSize getMemoMaxSize() {
+		return m_memoMaxSize;
+	}
+
+	/**
+	 * 보관된 수행 결과들의 최대 크기를 설정한다. 크기를 넘으면 가장 오래 사용되지 않은 결과부터 삭제된다.
+	 *
+	 * @param size	최대 크기. ({@code null} 불가, 양수)
+	 * @throws IllegalArgumentException	{@code size}가 {@code null}이거나 양수가 아닌 경우.
+	 */
+	public void setMemoMaxSize(DataSize size) {
+		Preconditions.checkNotNullArgument(size, "memoMaxSize must be specified");
+		Preconditions.checkArgument(size.toBytes() > 0, "memoMaxSize must be positive: " + size);
+		m_memoMaxSize = size;
+	}
+
+	/**
+	 * 수행 시간표를 보관하는 최근 세션 수를 반환한다.
+	 *
+	 * @return	최대 보관 세션 수. 기본값은 {@value SessionTraces#DEFAULT_CAPACITY}.
+	 */
+	public int getSessionTraceCapacity() {
+		return m_sessionTraceCapacity;
+	}
+
+	/**
+	 * 수행 시간표를 보관하는 최근 세션 수를 설정한다.
+	 *
+	 * @param capacity	최대 보관 세션 수. 0이면 시간표를 보관하지 않는다. (0 이상)
+	 * @throws IllegalArgumentException	{@code capacity}가 음수인 경우.
+	 */
+	public void setSessionTraceCapacity(int capacity) {
+		Preconditions.checkArgument(capacity >= 0, "sessionTraceCapacity must not be negative: " + capacity);
+		m_sessionTraceCapacity = capacity;
+	}
+
+	/**
+	 * 일괄 연산 시작 요청이나 여러 세션 상태 조회 한 건에 담을 수 있는 최대 항목 수를 반환한다.
+	 *
+	 * @return	최대 항목 수. 기본값은 1000.
+	 */
+	public int getMaxBatchSize() {
+		return m_maxBatchSize;
+	}
+
+	/**
+	 * 일괄 연산 시작 요청이나 여러 세션 상태 조회 한 건에 담을 수 있는 최대 항목 수를 설정한다.
+	 *
+	 * @param max	최대 항목 수. (1 이상)
+	 * @throws IllegalArgumentException	{@code max}가 1보다 작은 경우.
+	 */
+	public void setMaxBatchSize(int max) {
+		Preconditions.checkArgument(max >= 1, "maxBatchSize must be positive: " + max);
+		m_maxBatchSize = max;
+	}
+
+	/**
+	 * 파라미터 스윕 요청 한 건이 만들 수 있는 최대 조합 수를 반환한다.
+	 *
+	 * @return	최대 조합 수. 기본값은 10000.
+	 */
+	public int getMaxSweepSize() {
+		return m_maxSweepSize;
+	}
+
+	/**
+	 * 파라미터 스윕 요청 한 건이 만들 수 있는 최대 조합 수를 설정한다.
+	 *
+	 * @param max	최대 조합 수. (1 이상)
+	 * @throws IllegalArgumentException	{@code max}가 1보다 작은 경우.
+	 */
+	public void setMaxSweepSize(int max) {
+		Preconditions.checkArgument(max >= 1, "maxSweepSize must be positive: " + max);
+		m_maxSweepSize = max;
+	}
+
+	/**
+	 * 결과를 조회할 수 있도록 보관하는 스윕 수를 반환한다.
+	 *
+	 * @return	최대 보관 스윕 수. 기본값은 {@value SweepSessions#DEFAULT_CAPACITY}.
+	 */
+	public int getSweepCapacity() {
+		return m_sweepCapacity;
+	}
+
+	/**
+	 * 결과를 조회할 수 있도록 보관하는 스윕 수를 설정한다. 수행 중인 스윕은 이 수를 넘더라도 보관된다.
+	 *
+	 * @param capacity	최대 보관 스윕 수. (1 이상)
+	 * @throws IllegalArgumentException	{@code capacity}가 1보다 작은 경우.
+	 */
+	public void setSweepCapacity(int capacity) {
+		Preconditions.checkArgument(capacity >= 1, "sweepCapacity must be positive: " + capacity);
+		m_sweepCapacity = capacity;
+	}
+
+	/**
+	 * 조회할 수 있도록 보관하는 대기 핸들 수를 반환한다.
+	 *
+	 * @return	최대 보관 핸들 수. 기본값은 {@value QueuedRequests#DEFAULT_CAPACITY}.
+	 */
+	public int getQueuedRequestCapacity() {
+		return m_queuedRequestCapacity;
+	}
+
+	/**
+	 * 조회할 수 있도록 보관하는 대기 핸들 수를 설정한다. 아직 대기 중인 핸들은 이 수를 넘더라도 보관된다.
+	 *
+	 * @param capacity	최대 보관 핸들 수. (1 이상)
+	 * @throws IllegalArgumentException	{@code capacity}가 1보다 작은 경우.
+	 */
+	public void setQueuedRequestCapacity(int capacity) {
+		Preconditions.checkArgument(capacity >= 1, "queuedRequestCapacity must be positive: " + capacity);
+		m_queuedRequestCapacity = capacity;
+	}
+
+	/**
+	 * 요청 본문의 일반 값 입력을 임시 파일로 옮겨 적기 시작하는 크기를 반환한다.
+	 *
+	 * @return	기준 크기. 0이면 임시 파일을 사용하지 않는다. 기본값은 1MB.
+	 */
+	public DataSize getInlineSpillThreshold() {
+		return m_inlineSpillThreshold;
+	}
+
+	/**
+	 * 요청 본문의 일반 값 입력을 임시 파일로 옮겨 적기 시작하는 크기를 설정한다.
+	 *
+	 * @param size	기준 크기. ({@code null} 불가, 0이면 임시 파일을 사용하지 않음, 2GB 미만)
+	 * @throws IllegalArgumentException	{@code size}가 {@code null}이거나 음수이거나 2GB 이상인 경우.
+	 */
+	public void setInlineSpillThreshold(DataSize size) {
+		Preconditions.checkNotNullArgument(size, "inlineSpillThreshold must be specified");
+		Preconditions.checkArgument(!size.isNegative(), "inlineSpillThreshold must not be negative: " + size);
+		Preconditions.checkArgument(size.toBytes() <= Integer.MAX_VALUE,
+									"inlineSpillThreshold is too large: " + size);
+		m_inlineSpillThreshold = size;
+	}
+
+	/**
+	 * 요청 본문의 큰 일반 값 입력을 옮겨 적는 임시 파일 디렉토리를 반환한다.
+	 *
+	 * @return	임시 파일 디렉토리. 기본값은 시스템 임시 디렉토리 아래 {@code mdt-inline-spill}.
+	 */
+	public File getInlineSpillDir() {
+		return m_inlineSpillDir;
+	}
+
+	/**
+	 * 요청 본문의 큰 일반 값 입력을 옮겨 적는 임시 파일 디렉토리를 설정한다. 임시 파일은 세션의 변수 파일로
+	 * 옮겨지므로 세션 작업 디렉토리와 같은 파일 시스템에 두어야 복사를 피할 수 있다.
+	 *
+	 * @param dir	임시 파일 디렉토리. ({@code null} 불가)
+	 * @throws IllegalArgumentException	{@code dir}이 {@code null}인 경우.
+	 */
+	public void setInlineSpillDir(File dir) {
+		Preconditions.checkNotNullArgument(dir, "inlineSpillDir must be specified");
+		m_inlineSpillDir = dir;
+	}
+
+	/**
+	 * 세션 출력 파일을 보관하는 디렉토리를 반환한다.
+	 *
+	 * @return	출력 파일 디렉토리. 기본값은 시스템 임시 디렉토리 아래 {@code mdt-session-outputs}.
+	 */
+	public File getOutputFilesDir() {
+		return m_outputFilesDir;
+	}
+
+	/**
+	 * 세션 출력 파일을 보관하는 디렉토리를 설정한다. 출력 파일은 변수 파일에 대한 하드 링크로 보관되므로
+	 * 세션 작업 디렉토리와 같은 파일 시스템에 두어야 복사를 피할 수 있다. 디스패처 기동 시 디렉토리의 내용은
+	 * 삭제된다.
+	 *
+	 * @param dir	출력 파일 디렉토리. ({@code null} 불가)
+	 * @throws IllegalArgumentException	{@code dir}이 {@code null}인 경우.
+	 */
+	public void setOutputFilesDir(File dir) {
+		Preconditions.checkNotNullArgument(dir, "outputFilesDir must be specified");
+		m_outputFilesDir = dir;
+	}
+
+	/**
+	 * 출력 파일을 보관하는 최대 세션 수를 반환한다.
+	 *
+	 * @return	최대 보관 세션 수. 0이면 출력 파일을 보관하지 않는다. 기본값은 {@value SessionOutputs#DEFAULT_CAPACITY}.
+	 */
+	public int getOutputFilesCapacity() {
+		return m_outputFilesCapacity;
+	}
+
+	/**
+	 * 출력 파일을 보관하는 최대 세션 수를 설정한다.
+	 *
+	 * @param capacity	최대 보관 세션 수. (0 이상, 0이면 보관하지 않음)
+	 * @throws IllegalArgumentException	{@code capacity}가 음수인 경우.
+	 */
+	public void setOutputFilesCapacity(int capacity) {
+		Preconditions.checkArgument(capacity >= 0, "outputFilesCapacity must not be negative: " + capacity);
+		m_outputFilesCapacity = capacity;
+	}
+
+	/**
+	 * 세션 상태 응답에 출력 값 대신 내려받기 링크를 담는 출력의 최소 크기를 반환한다.
+	 *
+	 * @return	기준 크기. 0이면 링크로 바꾸지 않는다. 기본값은 1MB.
+	 */
+	public DataSize getOutputLinkThreshold() {
+		return m_outputLinkThreshold;
+	}
+
+	/**
+	 * 세션 상태 응답에 출력 값 대신 내려받기 링크를 담는 출력의 최소 크기를 설정한다.
+	 *
+	 * @param size	기준 크기. ({@code null} 불가, 0이면 링크로 바꾸지 않음)
+	 * @throws IllegalArgumentException	{@code size}가 {@code null}이거나 음수인 경우.
+	 */
+	public void setOutputLinkThreshold(DataSize size) {
+		Preconditions.checkNotNullArgument(size, "outputLinkThreshold must be specified");
+		Preconditions.checkArgument(!size.isNegative(), "outputLinkThreshold must not be negative: " + size);
+		m_outputLinkThreshold = size;
+	}
+
+	/**
+	 * 세션 저널 디렉토리를 반환한다.
+	 *
+	 * @return	세션 저널 디렉토리. 기본값은 현재 작업 디렉토리 아래 {@code session-journal}.
+	 */
+	public File getSessionJournalDir() {
+		return m_sessionJournalDir;
+	}
+
+	/**
+	 * 세션 저널 디렉토리를 설정한다. 재기동 후에도 유지되는 디렉토리여야 한다.
+	 *
+	 * @param dir	세션 저널 디렉토리. ({@code null} 불가)
+	 * @throws IllegalArgumentException	{@code dir}이 {@code null}인 경우.
+	 */
+	public void setSessionJournalDir(File dir) {
+		Preconditions.checkNotNullArgument(dir, "sessionJournalDir must be specified");
+		m_sessionJournalDir = dir;
+	}
+
+	/**
+	 * 세션 저널에 보관하는 최근 종료 세션 수를 반환한다.
+	 *
+	 * @return	최대 보관 종료 세션 수. 0이면 세션 저널을 사용하지 않는다.
+	 * 			기본값은 {@value SessionJournal#DEFAULT_RETAINED}.
+	 */
+	public int getSessionJournalRetained() {
+		return m_sessionJournalRetained;
+	}
+
+	/**
+	 * 세션 저널에 보관하는 최근 종료 세션 수를 설정한다. 수행 중인 세션은 이 수와 무관하게 기록된다.
+	 *
+	 * @param retained	최대 보관 종료 세션 수. (0 이상, 0이면 세션 저널을 사용하지 않음)
+	 * @throws IllegalArgumentException	{@code retained}가 음수인 경우.
+	 */
+	public void setSessionJournalRetained(int retained) {
+		Preconditions.checkArgument(retained >= 0, "sessionJournalRetained must not be negative: " + retained);
+		m_sessionJournalRetained = retained;
+	}
+
+	/**
+	 * 모아 둔 세션 저널 레코드를 한 번에 fsync하는 주기를 반환한다.
+	 *
+	 * @return	동기화 주기. 기본값은 50ms.
+	 */
+	public Duration getSessionJournalSyncInterval() {
+		return m_sessionJournalSyncInterval;
+	}
+
+	/**
+	 * 모아 둔 세션 저널 레코드를 한 번에 fsync하는 주기를 설정한다. 디스패처가 비정상 종료되면 마지막
+	 * 동기화 이후의 레코드를 잃는다.
+	 *
+	 * @param interval	동기화 주기. ({@code null} 불가, 양수)
+	 * @throws IllegalArgumentException	{@code interval}이 {@code null}이거나 양수가 아닌 경우.
+	 */
+	public void setSessionJournalSyncInterval(Duration interval) {
+		Preconditions.checkNotNullArgument(interval, "sessionJournalSyncInterval must be specified");
+		Preconditions.checkArgument(interval.toMillis() > 0,
+									"sessionJournalSyncInterval must be positive: " + interval);
+		m_sessionJournalSyncInterval = interval;
+	}
 }
@@ -0,0 +1,517 @@
+package mdt.operation.servers;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import utils.Preconditions;
+import utils.http.RESTfulErrorEntity;
+import utils.rpc.restful.RpcResponseMessage;
+
+import mdt.model.ResourceNotFoundException;
+
+
+/**
+ * 세션 상태 변화를 기다리는 클라이언트(long-poll, Server-Sent Events)들에게 상태 전이를 전달하는 허브.
+ * <p>
+ * 세션별로 마지막으로 관측된 상태와 대기 중인 long-poll 요청({@link DeferredResult}) 및 SSE 스트림
+ * ({@link SseEmitter}), 종료 상태 수신자들을 보관하며, 대기자가 없는 세션은 보관하지 않는다. 상태는 다음 경로로 관측된다.
+ * <ul>
+ *   <li>디스패처의 상태 조회·취소 결과 ({@link #publish})</li>
+ *   <li>세션 이벤트 — 세션 종료 처리 중 발생하는 세션 종료 신호({@link CompletionSignal})와 연산 프로세스의 종료
+ *   	({@link #attachExit}). 이벤트를 받으면 상태가 바뀔 때까지 짧은 간격으로 몇 차례 상태를 확인한다
+ *   	({@link #signal})</li>
+ *   <li>연산 프로세스를 찾지 못해 종료 이벤트를 받을 수 없는 세션을 위한 보조 확인 — 대기자가 있는 세션만
+ *   	긴 주기로 확인한다</li>
+ * </ul>
+ * 종료 상태에 도달하거나 세션이 회수되면 해당 세션의 모든 대기자를 완료시키고 항목을 제거한다.
+ * <p>
+ * 상태 확인은 RPC 서버의 상태 조회를 호출하며, 세션이 막 종료된 경우 출력 기록 등 입출력을 동반할 수 있다.
+ * 따라서 상태 확인은 허브 전용 타이머 스레드가 아닌 가상 스레드에서 수행하며, 한 세션의 상태 확인은 동시에
+ * 하나만 수행한다.
+ *
+ * @author Kang-Woo Lee (ETRI)
+ */
+public class SessionEventHub {
+	private static final Logger s_logger = LoggerFactory.getLogger(SessionEventHub.class);
+	private static final long[] SIGNAL_PROBE_DELAYS_MILLIS = { 0, 50, 200, 1000 };
+
+	/**
+	 * 세션의 현재 상태를 조회하는 함수.
+	 */
+	@FunctionalInterface
+	public interface StatusProbe {
+		/**
+		 * 세션의 현재 상태를 조회한다.
+		 *
+		 * @param sessionEndpoint	세션 엔드포인트.
+		 * @return	상태 응답 메시지. 세션이 없거나 회수되었으면 {@code null}.
+		 * @throws IOException	상태 조회 중 입출력 오류가 발생한 경우.
+		 */
+		public @Nullable RpcResponseMessage probe(String sessionEndpoint) throws IOException;
+	}
+
+	private final StatusProbe m_probe;
+	private final Function<RpcResponseMessage,String> m_stateOf;
+	private final Map<String,Watch> m_watches = new ConcurrentHashMap<>();
+	private final Set<String> m_exitTracked = ConcurrentHashMap.newKeySet();	// 프로세스 종료를 기다리는 세션들
+	private final Set<String> m_probing = ConcurrentHashMap.newKeySet();		// 상태 확인 중인 세션들
+	@Nullable private volatile ScheduledExecutorService m_timer;
+	@Nullable private volatile ExecutorService m_probeExecutor;
+
+	private record Waiter(@Nullable String since, DeferredResult<ResponseEntity<?>> result) { }
+
+	// 한 세션의 대기자 목록. 모든 변경은 m_watches.compute*() 안에서 수행된다.
+	private static final class Watch {
+		private volatile String m_state;
+		private volatile RpcResponseMessage m_last;
+		private final List<Waiter> m_waiters = new ArrayList<>();
+		private final List<SseEmitter> m_emitters = new ArrayList<>();
+		private final List<Consumer<RpcResponseMessage>> m_terminalListeners = new ArrayList<>();
+
+		Watch(RpcResponseMessage resp, @Nullable String state) {
+			m_state = state;
+			m_last = resp;
+		}
+
+		boolean isIdle() {
+			return m_waiters.isEmpty() && m_emitters.isEmpty() && m_terminalListeners.isEmpty();
+		}
+	}
+
+	/**
+	 * 허브를 생성한다.
+	 *
+	 * @param probe	세션 상태 조회 함수.
+	 */
+	public SessionEventHub(StatusProbe probe) {
+		this(probe, RpcResponses::stateOf);
+	}
+
+	SessionEventHub(StatusProbe probe, Function<RpcResponseMessage,String> stateOf) {
+		Preconditions.checkNotNullArgument(probe, "probe is null");
+		Preconditions.checkNotNullArgument(stateOf, "stateOf is null");
+
+		m_probe = probe;
+		m_stateOf = stateOf;
+	}
+
+	/**
+	 * 허브 전용 타이머와 상태 확인 스레드를 생성하고 보조 확인을 시작한다.
+	 *
+	 * @param backstopInterval	종료 이벤트를 받을 수 없는 세션들의 보조 확인 주기.
+	 */
+	public void start(Duration backstopInterval) {
+		Preconditions.checkNotNullArgument(backstopInterval, "backstopInterval is null");
+
+		ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform().daemon()
+																					.name("session-event-timer")
+																					.factory());
+		m_probeExecutor = Executors.newThreadPerTaskExecutor(Thread.ofVirtual()
+																	.name("session-probe-", 0)
+																	.factory());
+		m_timer = timer;
+
+		long millis = backstopInterval.toMillis();
+		timer.scheduleWithFixedDelay(this::probeWatched, millis, millis, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * 모든 SSE 스트림을 종료시키고 허브의 스레드들을 종료시킨다.
+	 */
+	public void close() {
+		ScheduledExecutorService timer = m_timer;
+		if ( timer != null ) {
+			timer.shutdownNow();
+		}
+		ExecutorService probeExecutor = m_probeExecutor;
+		if ( probeExecutor != null ) {
+			probeExecutor.shutdownNow();
+		}
+
+		for ( String sessionEndpoint: m_watches.keySet() ) {
+			List<SseEmitter> emitters = new ArrayList<>();
+			m_watches.computeIfPresent(sessionEndpoint, (ep, watch) -> {
+				emitters.addAll(watch.m_emitters);
+				watch.m_emitters.clear();
+				return watch.isIdle() ? null : watch;
+			});
+			emitters.forEach(SseEmitter::complete);
+		}
+	}
+
+	/**
+	 * 상태 변화를 기다리는 세션의 개수를 반환한다.
+	 *
+	 * @return	세션 개수.
+	 */
+	public int size() {
+		return m_watches.size();
+	}
+
+	/**
+	 * 세션의 상태가 {@code since}와 달라질 때까지 기다리는 long-poll 결과를 생성한다.
+	 * <p>
+	 * {@code current}의 상태가 이미 {@code since}와 다르거나 종료 상태이면 바로 완료된 결과를 반환한다.
+	 * 제한 시간 내에 상태가 바뀌지 않으면 마지막으로 관측된 상태로 완료된다.
+	 *
+	 * @param sessionEndpoint	세션 엔드포인트.
+	 * @param current			방금 조회한 세션 상태 응답.
+	 * @param since				클라이언트가 알고 있는 상태. {@code null}이면 {@code current}의 상태.
+	 * @param timeout			최대 대기 시간.
+	 * @return	long-poll 결과.
+	 */
+	public DeferredResult<ResponseEntity<?>> await(String sessionEndpoint, RpcResponseMessage current,
+													@Nullable String since, Duration timeout) {
+		Preconditions.checkNotNullArgument(sessionEndpoint, "sessionEndpoint is null");
+		Preconditions.checkNotNullArgument(current, "current is null");
+		Preconditions.checkNotNullArgument(timeout, "timeout is null");
+
+		DeferredResult<ResponseEntity<?>> result = new DeferredResult<>(timeout.toMillis());
+		String state = m_stateOf.apply(current);
+		String expected = (since != null) ? since.toUpperCase(Locale.ROOT) : state;
+		if ( !Objects.equals(state, expected) || RpcResponses.isTerminal(state) ) {
+			result.setResult(ResponseEntity.ok(current));
+			return result;
+		}
+
+		Waiter waiter = new Waiter(expected, result);
+		AtomicReference<RpcResponseMessage> newer = new AtomicReference<>();
+		m_watches.compute(sessionEndpoint, (ep, watch) -> {
+			if ( watch == null ) {
+				watch = new Watch(current, state);
+			}
+			if ( !Objects.equals(watch.m_state, expected) ) {
+				// 조회 이후 다른 경로로 새 상태가 이미 관측된 경우
+				newer.set(watch.m_last);
+			}
+			else {
+				watch.m_waiters.add(waiter);
+			}
+			return watch.isIdle() ? null : watch;
+		});
+		if ( newer.get() != null ) {
+			result.setResult(ResponseEntity.ok(newer.get()));
+			return result;
+		}
+
+		result.onTimeout(() -> {
+			RpcResponseMessage last = detach(sessionEndpoint, w -> w.m_waiters.remove(waiter));
+			result.setResult(ResponseEntity.ok((last != null) ? last : current));
+		});
+		result.onCompletion(() -> detach(sessionEndpoint, w -> w.m_waiters.remove(waiter)));
+
+		return result;
+	}
+
+	/**
+	 * 세션 상태 전이를 전달하는 SSE 스트림을 생성한다.
+	 * <p>
+	 * 스트림은 현재 상태를 첫 {@code state} 이벤트로 보내고, 이후 상태가 바뀔 때마다 {@code state} 이벤트를
+	 * 보낸다. 종료 상태를 보낸 뒤 또는 세션이 회수되어 {@code gone} 이벤트를 보낸 뒤에 스트림을 닫는다.
+	 *
+	 * @param sessionEndpoint	세션 엔드포인트.
+	 * @param current			방금 조회한 세션 상태 응답.
+	 * @param timeout			스트림 최대 유지 시간.
+	 * @return	SSE 스트림.
+	 */
+	public SseEmitter subscribe(String sessionEndpoint, RpcResponseMessage current, Duration timeout) {
+		Preconditions.checkNotNullArgument(sessionEndpoint, "sessionEndpoint is null");
+		Preconditions.checkNotNullArgument(current, "current is null");
+		Preconditions.checkNotNullArgument(timeout, "timeout is null");
+
+		SseEmitter emitter = new SseEmitter(timeout.toMillis());
+		String state = m_stateOf.apply(current);
+		if ( !sendState(emitter, current) ) {
+			return emitter;
+		}
+		if ( RpcResponses.isTerminal(state) ) {
+			emitter.complete();
+			return emitter;
+		}
+
+		AtomicReference<RpcResponseMessage> newer = new AtomicReference<>();
+		m_watches.compute(sessionEndpoint, (ep, watch) -> {
+			if ( watch == null ) {
+				watch = new Watch(current, state);
+			}
+			if ( !Objects.equals(watch.m_state, state) ) {
+				newer.set(watch.m_last);
+			}
+			watch.m_emitters.add(emitter);
+			return watch;
+		});
+		Runnable detach = () -> detach(sessionEndpoint, w -> w.m_emitters.remove(emitter));
+		emitter.onCompletion(detach);
+		emitter.onTimeout(detach);
+		emitter.onError(error -> detach.run());
+
+		RpcResponseMessage resp = newer.get();
+		if ( resp != null && sendState(emitter, resp) && RpcResponses.isTerminal(m_stateOf.apply(resp)) ) {
+			emitter.complete();
+		}
+
+		return emitter;
+	}
+
+	/**
+	 * 세션이 종료 상태에 도달하면 마지막 상태 응답으로 호출될 수신자를 등록한다.
+	 * <p>
+	 * {@code current}가 이미 종료 상태이면 바로 호출된다. 종료 상태가 관측되기 전에 세션이 회수되면
+	 * {@code null}로 호출된다. 수신자는 상태 전달 스레드에서 호출되므로 오래 걸리는 작업을 수행하면 안 된다.
+	 *
+	 * @param sessionEndpoint	세션 엔드포인트.
+	 * @param current			세션의 현재 상태 응답.
+	 * @param listener			종료 상태 수신자.
+	 */
+	public void onTerminal(String sessionEndpoint, RpcResponseMessage current,
+							Consumer<RpcResponseMessage> listener) {
+		Preconditions.checkNotNullArgument(sessionEndpoint, "sessionEndpoint is null");
+		Preconditions.checkNotNullArgument(current, "current is null");
+		Preconditions.checkNotNullArgument(listener, "listener is null");
+
+		String state = m_stateOf.apply(current);
+		if ( RpcResponses.isTerminal(state) ) {
+			listener.accept(current);
+			return;
+		}
+
+		AtomicReference<RpcResponseMessage> terminal = new AtomicReference<>();
+		m_watches.compute(sessionEndpoint, (ep, watch) -> {
+			if ( watch == null ) {
+				watch = new Watch(current, state);
+			}
+			if ( RpcResponses.isTerminal(watch.m_state) ) {
+				terminal.set(watch.m_last);
+			}
+			else {
+				watch.m_terminalListeners.add(listener);
+			}
+			return watch.isIdle() ? null : watch;
+		});
+		if ( terminal.get() != null ) {
+			listener.accept(terminal.get());
+		}
+	}
+
+	/**
+	 * 관측된 세션 상태를 대기자들에게 전달한다.
+	 * <p>
+	 * 마지막으로 관측된 상태와 다르면 상태가 바뀌기를 기다리던 long-poll 요청들을 완료시키고 SSE 스트림에
+	 * 이벤트를 보낸다. {@code resp}가 {@code null}이면 세션이 회수된 것으로 보고 모든 대기자를 종료시킨다.
+	 *
+	 * @param sessionEndpoint	세션 엔드포인트.
+	 * @param resp				관측된 상태 응답. 세션이 회수되었으면 {@code null}.
+	 */
+	public void publish(String sessionEndpoint, @Nullable RpcResponseMessage resp) {
+		List<Runnable> notifications = new ArrayList<>();
+		m_watches.computeIfPresent(sessionEndpoint, (ep, watch) -> {
+			if ( resp == null ) {
+				ResourceNotFoundException cause = new ResourceNotFoundException("RpcSession", "session=" + ep);
+				ResponseEntity<?> notFound = ResponseEntity.status(HttpStatus.NOT_FOUND)
+															.body(RESTfulErrorEntity.of(cause));
+				watch.m_waiters.forEach(w -> notifications.add(() -> w.result().setResult(notFound)));
+				watch.m_emitters.forEach(em -> notifications.add(() -> sendGone(em, ep)));
+				watch.m_terminalListeners.forEach(l -> notifications.add(() -> l.accept(null)));
+				return null;
+			}
+
+			String state = m_stateOf.apply(resp);
+			watch.m_last = resp;
+			if ( Objects.equals(state, watch.m_state) ) {
+				return watch.isIdle() ? null : watch;
+			}
+			watch.m_state = state;
+
+			ResponseEntity<?> ok = ResponseEntity.ok(resp);
+			watch.m_waiters.removeIf(w -> {
+				if ( !Objects.equals(w.since(), state) ) {
+					notifications.add(() -> w.result().setResult(ok));
+					return true;
+				}
+				return false;
+			});
+			boolean terminal = RpcResponses.isTerminal(state);
+			for ( SseEmitter emitter: watch.m_emitters ) {
+				notifications.add(() -> {
+					if ( sendState(emitter, resp) && terminal ) {
+						emitter.complete();
+					}
+				});
+			}
+			if ( terminal ) {
+				watch.m_emitters.clear();
+				watch.m_terminalListeners.forEach(l -> notifications.add(() -> l.accept(resp)));
+				watch.m_terminalListeners.clear();
+			}
+			return watch.isIdle() ? null : watch;
+		});
+
+		// SSE 전송과 결과 설정은 맵 갱신 밖에서 수행한다.
+		for ( Runnable notification: notifications ) {
+			try {
+				notification.run();
+			}
+			catch ( Exception e ) {
+				s_logger.warn("failed to notify session state: session={}", sessionEndpoint, e);
+			}
+		}
+	}
+
+	/**
+	 * 세션의 연산 프로세스 종료를 세션 이벤트로 등록한다.
+	 * <p>
+	 * 등록된 세션은 보조 확인 대상에서 제외되며, 프로세스가 종료되면 {@link #signal}과 같이 상태를 확인한다.
+	 * 프로세스 종료 후 정해진 확인 횟수 안에 상태가 바뀌지 않으면 다시 보조 확인 대상이 된다.
+	 *
+	 * @param sessionEndpoint	세션 엔드포인트.
+	 * @param onExit			프로세스 종료 시 완료되는 future ({@link ProcessHandle#onExit()}).
+	 */
+	public void attachExit(String sessionEndpoint, CompletableFuture<?> onExit) {
+		Preconditions.checkNotNullArgument(sessionEndpoint, "sessionEndpoint is null");
+		Preconditions.checkNotNullArgument(onExit, "onExit is null");
+
+		m_exitTracked.add(sessionEndpoint);
+		onExit.whenComplete((ignored, error) -> {
+			m_exitTracked.remove(sessionEndpoint);
+			signal(sessionEndpoint);
+		});
+	}
+
+	/**
+	 * 세션 이벤트를 받아, 대기자가 있으면 상태가 바뀔 때까지 짧은 간격으로 몇 차례 상태를 확인한다.
+	 * <p>
+	 * 종료 신호는 결과 메시지 작성 중에 발생하므로 세션 상태가 아직 바뀌지 않았을 수 있다.
+	 *
+	 * @param sessionEndpoint	세션 엔드포인트.
+	 */
+	public void signal(String sessionEndpoint) {
+		Watch watch = m_watches.get(sessionEndpoint);
+		if ( watch == null || m_timer == null ) {
+			return;
+		}
+		scheduleProbe(sessionEndpoint, watch.m_state, 0);
+	}
+
+	private void scheduleProbe(String sessionEndpoint, @Nullable String from, int attempt) {
+		ScheduledExecutorService timer = m_timer;
+		if ( timer == null ) {
+			return;
+		}
+		try {
+			// 타이머 스레드는 시각만 맞추고, 상태 확인은 가상 스레드에서 수행한다.
+			timer.schedule(() -> submitProbe(sessionEndpoint, resp -> {
+				if ( resp != null && Objects.equals(m_stateOf.apply(resp), from)
+					&& attempt + 1 < SIGNAL_PROBE_DELAYS_MILLIS.length ) {
+					scheduleProbe(sessionEndpoint, from, attempt + 1);
+				}
+			}), SIGNAL_PROBE_DELAYS_MILLIS[attempt], TimeUnit.MILLISECONDS);
+		}
+		catch ( RejectedExecutionException e ) {
+			// 허브가 닫힌 경우
+		}
+	}
+
+	private void probeWatched() {
+		for ( String sessionEndpoint: m_watches.keySet() ) {
+			// 프로세스 종료 이벤트를 기다리는 세션은 확인하지 않는다.
+			if ( !m_exitTracked.contains(sessionEndpoint) ) {
+				submitProbe(sessionEndpoint, resp -> { });
+			}
+		}
+	}
+
+	private void submitProbe(String sessionEndpoint, Consumer<RpcResponseMessage> then) {
+		ExecutorService executor = m_probeExecutor;
+		if ( executor == null || !m_watches.containsKey(sessionEndpoint) ) {
+			return;
+		}
+		try {
+			executor.execute(() -> {
+				// 같은 세션의 상태 확인이 이미 수행 중이면 그 결과로 대신한다.
+				if ( !m_probing.add(sessionEndpoint) ) {
+					return;
+				}
+				RpcResponseMessage resp;
+				try {
+					resp = probe(sessionEndpoint);
+				}
+				finally {
+					m_probing.remove(sessionEndpoint);
+				}
+				then.accept(resp);
+			});
+		}
+		catch ( RejectedExecutionException e ) {
+			// 허브가 닫힌 경우
+		}
+	}
+
+	private @Nullable RpcResponseMessage probe(String sessionEndpoint) {
+		try {
+			RpcResponseMessage resp = m_probe.probe(sessionEndpoint);
+			publish(sessionEndpoint, resp);
+			return resp;
+		}
+		catch ( Exception e ) {
+			s_logger.warn("failed to probe session state: session={}", sessionEndpoint, e);
+			return null;
+		}
+	}
+
+	private @Nullable RpcResponseMessage detach(String sessionEndpoint, Consumer<Watch> remover) {
+		AtomicReference<RpcResponseMessage> last = new AtomicReference<>();
+		m_watches.computeIfPresent(sessionEndpoint, (ep, watch) -> {
+			remover.accept(watch);
+			last.set(watch.m_last);
+			return watch.isIdle() ? null : watch;
+		});
+		return last.get();
+	}
+
+	private static boolean sendState(SseEmitter emitter, RpcResponseMessage resp) {
+		try {
+			emitter.send(SseEmitter.event().name("state").data(resp, MediaType.APPLICATION_JSON));
+			return true;
+		}
+		catch ( IOException | IllegalStateException e ) {
+			// 클라이언트 연결이 끊겼거나 이미 종료된 스트림
+			emitter.completeWithError(e);
+			return false;
+		}
+	}
+
+	private static void sendGone(SseEmitter emitter, String sessionEndpoint) {
+		try {
+			emitter.send(SseEmitter.event().name("gone").data(sessionEndpoint));
+			emitter.complete();
+		}
+		catch ( IOException | IllegalStateException e ) {
+			emitter.completeWithError(e);
+		}
+	}
+}
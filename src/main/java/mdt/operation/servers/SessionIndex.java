@@ -0,0 +1,134 @@
+package mdt.operation.servers;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import utils.Preconditions;
+
+
+/**
+ * 세션 엔드포인트 → 세션을 수행 중인 RPC 서버 색인.
+ * <p>
+ * 세션이 생성될 때 등록되고, RPC 서버가 세션을 더 이상 보유하지 않는 것이 확인될 때(상태 조회/취소 결과가
+ * 없거나 {@link #pruneRetired()}에서 확인된 경우) 제거된다. 따라서 색인 항목은 접근 빈도와 무관하게
+ * RPC 서버가 세션을 보유하는 동안 유지되며, 상태 조회·취소 시 세션을 수행하는 서버를 등록된 연산의
+ * 수와 무관하게 상수 시간에 찾을 수 있다.
+ *
+ * @author Kang-Woo Lee (ETRI)
+ */
+public class SessionIndex {
+	private static final Logger s_logger = LoggerFactory.getLogger(SessionIndex.class);
+
+	private final Map<String,Entry> m_entries = new ConcurrentHashMap<>();
+
+	/**
+	 * 색인 항목.
+	 *
+	 * @param sessionEndpoint	세션 엔드포인트.
+	 * @param server			세션을 수행하는 RPC 서버 정보.
+	 * @param createdAt			등록 시각.
+	 */
+	record Entry(String sessionEndpoint, RpcServerInfo server, Instant createdAt) { }
+
+	/**
+	 * 세션을 등록한다.
+	 *
+	 * @param sessionEndpoint	세션 엔드포인트.
+	 * @param server			세션을 수행하는 RPC 서버 정보.
+	 * @return	등록된 항목.
+	 */
+	Entry register(String sessionEndpoint, RpcServerInfo server) {
+		Preconditions.checkNotNullArgument(sessionEndpoint, "sessionEndpoint is null");
+		Preconditions.checkNotNullArgument(server, "server is null");
+
+		Entry entry = new Entry(sessionEndpoint, server, Instant.now());
+		m_entries.put(sessionEndpoint, entry);
+		return entry;
+	}
+
+	/**
+	 * 세션 엔드포인트에 해당하는 항목을 반환한다.
+	 *
+	 * @param sessionEndpoint	세션 엔드포인트.
+	 * @return	색인 항목. 없으면 {@code null}.
+	 */
+	@Nullable Entry get(String sessionEndpoint) {
+		return m_entries.get(sessionEndpoint);
+	}
+
+	/**
+	 * 여러 세션 엔드포인트에 해당하는 항목들을 한 번에 찾는다.
+	 *
+	 * @param sessionEndpoints	세션 엔드포인트들.
+	 * @return	세션 엔드포인트와 색인 항목의 맵. 색인에 없는 세션은 포함되지 않는다.
+	 */
+	Map<String,Entry> getAll(Collection<String> sessionEndpoints) {
+		Preconditions.checkNotNullArgument(sessionEndpoints, "sessionEndpoints is null");
+
+		Map<String,Entry> found = new HashMap<>();
+		for ( String sessionEndpoint: sessionEndpoints ) {
+			Entry entry = m_entries.get(sessionEndpoint);
+			if ( entry != null ) {
+				found.put(sessionEndpoint, entry);
+			}
+		}
+		return found;
+	}
+
+	/**
+	 * 세션을 색인에서 제거한다.
+	 *
+	 * @param sessionEndpoint	세션 엔드포인트.
+	 * @return	제거된 항목. 없었으면 {@code null}.
+	 */
+	@Nullable Entry remove(String sessionEndpoint) {
+		return m_entries.remove(sessionEndpoint);
+	}
+
+	/**
+	 * 색인된 세션의 개수를 반환한다.
+	 *
+	 * @return	세션 개수.
+	 */
+	public int size() {
+		return m_entries.size();
+	}
+
+	/**
+	 * 색인된 모든 항목을 반환한다.
+	 *
+	 * @return	색인 항목들의 읽기 전용 뷰.
+	 */
+	Collection<Entry> entries() {
+		return Collections.unmodifiableCollection(m_entries.values());
+	}
+
+	/**
+	 * RPC 서버가 더 이상 보유하지 않는(보존 기간이 지나 회수된) 세션들을 색인에서 제거한다.
+	 *
+	 * @return	제거된 항목 수.
+	 */
+	public int pruneRetired() {
+		int count = 0;
+		for ( Entry entry: m_entries.values() ) {
+			if ( entry.server().rpcServer().getSession(entry.sessionEndpoint()) == null ) {
+				if ( m_entries.remove(entry.sessionEndpoint(), entry) ) {
+					++count;
+				}
+			}
+		}
+		if ( count > 0 ) {
+			s_logger.debug("pruned {} retired session(s) from index", count);
+		}
+
+		return count;
+	}
+}
@@ -0,0 +1,566 @@
+package mdt.operation.servers;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+import javax.annotation.concurrent.GuardedBy;
+
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import utils.Preconditions;
+import utils.json.JacksonUtils;
+
+
+/**
+ * 디스패처 재기동 후에도 세션을 복구할 수 있도록 세션의 생성·프로세스·종료 결과를 남기는 추가 전용 저널.
+ * <p>
+ * 저널은 {@code <dir>/}{@value #JOURNAL_FILE} 파일에 한 줄에 하나씩 JSON 레코드로 기록된다. 레코드는
+ * <ul>
+ *   <li>세션 생성({@link #created}): 세션 엔드포인트, 연산 식별자, 출력 변수 JSON, 변수 파일 디렉토리와
+ *   		출력 변수 파일들의 시작 시점 상태,</li>
+ *   <li>프로세스 확인({@link #attached}): 세션 프로세스 식별자와 시작 시각,</li>
+ *   <li>세션 종료({@link #terminated}): 종료 응답 메시지 JSON,</li>
+ *   <li>세션 제거({@link #removed}): 종료를 확인하지 못하고 회수된 세션</li>
+ * </ul>
+ * 이다. 레코드는 메모리 버퍼에 모았다가 {@link #sync()} 호출 때 한 번의 쓰기와 {@code fsync}로 기록된다
+ * (group commit). 따라서 비정상 종료 시에는 마지막 동기화 이후의 레코드만 잃으며, 끝이 잘린 마지막 레코드는
+ * 복구 시 무시된다.
+ * <p>
+ * 저널은 메모리에 수행 중인 세션과 최근 종료된 세션 최대 {@code retained}개의 현재 상태를 유지하며, 파일의
+ * 레코드 수가 그 상태를 나타내는 데 필요한 수보다 크게 많아지면 현재 상태만 담은 파일로 교체(compaction)한다.
+ * 따라서 기동 시 읽는 레코드 수는 저널의 전체 이력이 아니라 보관 중인 세션 수에 비례한다.
+ *
+ * @author Kang-Woo Lee (ETRI)
+ */
+public class SessionJournal implements AutoCloseable {
+	private static final Logger s_logger = LoggerFactory.getLogger(SessionJournal.class);
+
+	/** 저널 파일 이름. */
+	public static final String JOURNAL_FILE = "sessions.journal";
+	private static final String COMPACT_FILE = JOURNAL_FILE + ".compact";
+	/** 기본 최대 보관 종료 세션 수. */
+	public static final int DEFAULT_RETAINED = 1024;
+	private static final int MIN_COMPACT_RECORDS = 1024;
+	private static final int COMPACT_FACTOR = 4;
+
+	private static final String KIND = "k";
+	private static final String CREATED = "c";
+	private static final String ATTACHED = "p";
+	private static final String TERMINATED = "t";
+	private static final String REMOVED = "x";
+
+	private final File m_file;
+	private final File m_compactFile;
+	private final int m_retained;
+	private final List<Session> m_recovered;
+	private final ReentrantLock m_syncLock = new ReentrantLock();
+	@GuardedBy("m_syncLock") private FileChannel m_channel;
+
+	private final ReentrantLock m_lock = new ReentrantLock();
+	@GuardedBy("m_lock") private final LinkedHashMap<String,Session> m_live = new LinkedHashMap<>();
+	@GuardedBy("m_lock") private final LinkedHashMap<String,Session> m_terminated = new LinkedHashMap<>();
+	@GuardedBy("m_lock") private ByteArrayOutputStream m_pending = new ByteArrayOutputStream();
+	@GuardedBy("m_lock") private long m_records = 0;
+	@GuardedBy("m_lock") private boolean m_closed = false;
+	private final AtomicLong m_syncs = new AtomicLong();
+
+	/**
+	 * 저널에 기록된 세션 하나의 상태.
+	 *
+	 * @param endpoint		세션 엔드포인트.
+	 * @param opId			연산 식별자.
+	 * @param outputs		출력 변수 이름과 출력 JSON 객체.
+	 * @param varDir		변수 파일 디렉토리. 알 수 없으면 {@code null}.
+	 * @param fingerprints	세션 시작 시점의 출력 변수 파일 상태({@link #fingerprintOf}) 객체.
+	 * @param pid			세션 프로세스 식별자. 알 수 없으면 0.
+	 * @param pidStartedAt	세션 프로세스 시작 시각(epoch 밀리초). 알 수 없으면 0.
+	 * @param createdAt		세션 생성 시각(epoch 밀리초).
+	 * @param result		종료 응답 메시지 JSON. 아직 종료되지 않았으면 {@code null}.
+	 */
+	public record Session(String endpoint, String opId, JsonNode outputs, @Nullable String varDir,
+							JsonNode fingerprints, long pid, long pidStartedAt, long createdAt,
+							@Nullable JsonNode result) {
+		/**
+		 * 세션이 종료되었는지 여부를 반환한다.
+		 *
+		 * @return	종료 응답 메시지가 기록되었으면 {@code true}.
+		 */
+		public boolean isTerminated() {
+			return result != null;
+		}
+
+		private Session withProcess(long pid, long startedAt) {
+			return new Session(endpoint, opId, outputs, varDir, fingerprints, pid, startedAt, createdAt, result);
+		}
+
+		private Session withResult(JsonNode result) {
+			return new Session(endpoint, opId, outputs, varDir, fingerprints, pid, pidStartedAt, createdAt, result);
+		}
+	}
+
+	/**
+	 * 저널을 연다. 기존 저널 파일이 있으면 읽어 세션 상태를 복구하고({@link #getRecovered()}), 현재 상태만
+	 * 담은 파일로 교체한 뒤 이어서 기록한다.
+	 *
+	 * @param dir		저널 디렉토리.
+	 * @param retained	최대 보관 종료 세션 수. (1 이상)
+	 * @throws IOException	저널 파일을 읽거나 쓰는 중 오류가 발생한 경우.
+	 */
+	public SessionJournal(File dir, int retained) throws IOException {
+		Preconditions.checkNotNullArgument(dir, "dir is null");
+		Preconditions.checkArgument(retained >= 1, "retained must be positive: " + retained);
+
+		Files.createDirectories(dir.toPath());
+		m_file = new File(dir, JOURNAL_FILE);
+		m_compactFile = new File(dir, COMPACT_FILE);
+		m_retained = retained;
+
+		// 교체 도중 중단되어 남은 파일은 완전하지 않을 수 있으므로 버린다.
+		Files.deleteIfExists(m_compactFile.toPath());
+		long read = replay();
+
+		m_lock.lock();
+		try {
+			List<Session> recovered = new ArrayList<>(m_terminated.values());
+			recovered.addAll(m_live.values());
+			m_recovered = List.copyOf(recovered);
+		}
+		finally {
+			m_lock.unlock();
+		}
+
+		m_syncLock.lock();
+		try {
+			compact();
+		}
+		finally {
+			m_syncLock.unlock();
+		}
+		s_logger.info("opened session journal: file={}, records={}, live={}, retained={}",
+						m_file.getAbsolutePath(), read, getLiveCount(), getRetainedCount());
+	}
+
+	/**
+	 * 저널을 열 때 복구된 세션들을 반환한다. 종료된 세션들이 먼저, 생성 순서대로 담긴다.
+	 *
+	 * @return	복구된 세션 목록.
+	 */
+	public List<Session> getRecovered() {
+		return m_recovered;
+	}
+
+	/**
+	 * 세션 생성을 기록한다.
+	 *
+	 * @param endpoint		세션 엔드포인트.
+	 * @param opId			연산 식별자.
+	 * @param outputs		출력 변수 이름과 출력 JSON의 맵.
+	 * @param varDir		변수 파일 디렉토리. 알 수 없으면 {@code null}.
+	 */
+	public void created(String endpoint, String opId, Map<String,JsonNode> outputs, @Nullable File varDir) {
+		Preconditions.checkNotNullArgument(endpoint, "endpoint is null");
+		Preconditions.checkNotNullArgument(opId, "opId is null");
+		Preconditions.checkNotNullArgument(outputs, "outputs is null");
+
+		ObjectNode record = newRecord(CREATED, endpoint);
+		record.put("op", opId);
+		record.set("out", JacksonUtils.MAPPER.valueToTree(outputs));
+		if ( varDir != null ) {
+			record.put("dir", varDir.getAbsolutePath());
+			ObjectNode fingerprints = record.putObject("fp");
+			outputs.keySet().forEach(name -> fingerprints.put(name, fingerprintOf(new File(varDir, name))));
+		}
+		record.put("at", System.currentTimeMillis());
+		append(record);
+	}
+
+	/**
+	 * 세션 프로세스를 기록한다.
+	 *
+	 * @param endpoint	세션 엔드포인트.
+	 * @param pid		프로세스 식별자.
+	 * @param startedAt	프로세스 시작 시각(epoch 밀리초). 알 수 없으면 0.
+	 */
+	public void attached(String endpoint, long pid, long startedAt) {
+		Preconditions.checkNotNullArgument(endpoint, "endpoint is null");
+
+		ObjectNode record = newRecord(ATTACHED, endpoint);
+		record.put("pid", pid);
+		record.put("st", startedAt);
+		append(record);
+	}
+
+	/**
+	 * 세션 종료를 기록한다.
+	 *
+	 * @param endpoint	세션 엔드포인트.
+	 * @param result	종료 응답 메시지 JSON.
+	 */
+	public void terminated(String endpoint, JsonNode result) {
+		Preconditions.checkNotNullArgument(endpoint, "endpoint is null");
+		Preconditions.checkNotNullArgument(result, "result is null");
+
+		ObjectNode record = newRecord(TERMINATED, endpoint);
+		record.set("r", result);
+		append(record);
+	}
+
+	/**
+	 * 종료를 확인하지 못하고 회수된 세션을 저널에서 제거한다.
+	 *
+	 * @param endpoint	세션 엔드포인트.
+	 */
+	public void removed(String endpoint) {
+		Preconditions.checkNotNullArgument(endpoint, "endpoint is null");
+
+		append(newRecord(REMOVED, endpoint));
+	}
+
+	/**
+	 * 세션이 수행 중인 것으로 기록되어 있는지 여부를 반환한다.
+	 *
+	 * @param endpoint	세션 엔드포인트.
+	 * @return	생성이 기록되고 아직 종료·제거되지 않았으면 {@code true}.
+	 */
+	public boolean isLive(String endpoint) {
+		m_lock.lock();
+		try {
+			return m_live.containsKey(endpoint);
+		}
+		finally {
+			m_lock.unlock();
+		}
+	}
+
+	/**
+	 * 수행 중인 것으로 기록된 세션 수를 반환한다.
+	 *
+	 * @return	세션 수.
+	 */
+	public int getLiveCount() {
+		m_lock.lock();
+		try {
+			return m_live.size();
+		}
+		finally {
+			m_lock.unlock();
+		}
+	}
+
+	/**
+	 * 보관 중인 종료 세션 수를 반환한다.
+	 *
+	 * @return	세션 수.
+	 */
+	public int getRetainedCount() {
+		m_lock.lock();
+		try {
+			return m_terminated.size();
+		}
+		finally {
+			m_lock.unlock();
+		}
+	}
+
+	/**
+	 * 저널 파일에 {@code fsync}를 수행한 횟수를 반환한다.
+	 *
+	 * @return	동기화 횟수.
+	 */
+	public long getSyncCount() {
+		return m_syncs.get();
+	}
+
+	/**
+	 * 모아 둔 레코드들을 저널 파일에 쓰고 {@code fsync}한다. 파일의 레코드 수가 보관 중인 세션 수에 비해
+	 * 너무 많으면 현재 상태만 담은 파일로 교체한다.
+	 *
+	 * @throws IOException	저널 파일 기록 중 오류가 발생한 경우.
+	 */
+	public void sync() throws IOException {
+		m_syncLock.lock();
+		try {
+			if ( m_channel == null ) {
+				return;
+			}
+
+			byte[] bytes;
+			boolean compact;
+			m_lock.lock();
+			try {
+				compact = m_records > MIN_COMPACT_RECORDS
+						&& m_records > COMPACT_FACTOR * (long)(m_live.size() + m_terminated.size());
+				if ( compact || m_pending.size() == 0 ) {
+					bytes = null;
+				}
+				else {
+					bytes = m_pending.toByteArray();
+					m_pending = new ByteArrayOutputStream();
+				}
+			}
+			finally {
+				m_lock.unlock();
+			}
+
+			if ( compact ) {
+				compact();
+			}
+			else if ( bytes != null ) {
+				ByteBuffer buf = ByteBuffer.wrap(bytes);
+				while ( buf.hasRemaining() ) {
+					m_channel.write(buf);
+				}
+				m_channel.force(false);
+				m_syncs.incrementAndGet();
+			}
+		}
+		finally {
+			m_syncLock.unlock();
+		}
+	}
+
+	/**
+	 * 주기적 동기화 작업에서 사용하는 {@link #sync()}. 오류는 기록만 하고 던지지 않는다.
+	 */
+	public void syncQuietly() {
+		try {
+			sync();
+		}
+		catch ( IOException e ) {
+			s_logger.warn("failed to sync session journal: file={}", m_file, e);
+		}
+	}
+
+	@Override
+	public void close() throws IOException {
+		m_syncLock.lock();
+		try {
+			sync();
+			m_lock.lock();
+			try {
+				m_closed = true;
+			}
+			finally {
+				m_lock.unlock();
+			}
+			if ( m_channel != null ) {
+				m_channel.close();
+				m_channel = null;
+			}
+		}
+		finally {
+			m_syncLock.unlock();
+		}
+	}
+
+	/**
+	 * 출력 변수 파일의 현재 상태(수정 시각과 크기)를 나타내는 문자열을 반환한다. 세션 시작 시점과 비교하여
+	 * 프로세스가 출력을 기록했는지 판단하는 데 사용한다.
+	 *
+	 * @param file	출력 변수 파일.
+	 * @return	파일 상태 문자열. 파일이 없으면 빈 문자열.
+	 */
+	static String fingerprintOf(File file) {
+		return file.exists() ? String.format("%x:%x", file.lastModified(), file.length()) : "";
+	}
+
+	private static ObjectNode newRecord(String kind, String endpoint) {
+		ObjectNode record = JsonNodeFactory.instance.objectNode();
+		record.put(KIND, kind);
+		record.put("s", endpoint);
+		return record;
+	}
+
+	private void append(ObjectNode record) {
+		byte[] line;
+		try {
+			line = JacksonUtils.MAPPER.writeValueAsBytes(record);
+		}
+		catch ( JsonProcessingException e ) {
+			s_logger.warn("failed to encode session journal record: {}", record.path("s").asText(), e);
+			return;
+		}
+
+		m_lock.lock();
+		try {
+			if ( m_closed ) {
+				return;
+			}
+			apply(record);
+			m_pending.writeBytes(line);
+			m_pending.write('\n');
+			++m_records;
+		}
+		finally {
+			m_lock.unlock();
+		}
+	}
+
+	@GuardedBy("m_lock")
+	private void apply(JsonNode record) {
+		String endpoint = record.path("s").asText();
+		switch ( record.path(KIND).asText() ) {
+			case CREATED -> {
+				Session session = new Session(endpoint, record.path("op").asText(), objectOf(record, "out"),
+												record.hasNonNull("dir") ? record.get("dir").asText() : null,
+												objectOf(record, "fp"), record.path("pid").asLong(),
+												record.path("st").asLong(), record.path("at").asLong(), null);
+				m_terminated.remove(endpoint);
+				if ( record.hasNonNull("r") ) {
+					retain(session.withResult(record.get("r")));
+				}
+				else {
+					m_live.put(endpoint, session);
+				}
+			}
+			case ATTACHED -> {
+				Session session = m_live.get(endpoint);
+				if ( session != null ) {
+					m_live.put(endpoint, session.withProcess(record.path("pid").asLong(), record.path("st").asLong()));
+				}
+			}
+			case TERMINATED -> {
+				Session session = m_live.remove(endpoint);
+				if ( session != null ) {
+					retain(session.withResult(record.get("r")));
+				}
+			}
+			case REMOVED -> {
+				m_live.remove(endpoint);
+				m_terminated.remove(endpoint);
+			}
+			default -> s_logger.warn("unknown session journal record: {}", record);
+		}
+	}
+
+	private static JsonNode objectOf(JsonNode record, String field) {
+		JsonNode node = record.get(field);
+		return (node != null && node.isObject()) ? node : JsonNodeFactory.instance.objectNode();
+	}
+
+	@GuardedBy("m_lock")
+	private void retain(Session session) {
+		m_terminated.put(session.endpoint(), session);
+		for ( Iterator<Session> it = m_terminated.values().iterator(); m_terminated.size() > m_retained; ) {
+			it.next();
+			it.remove();
+		}
+	}
+
+	private long replay() throws IOException {
+		if ( !m_file.exists() ) {
+			return 0;
+		}
+
+		long read = 0;
+		try ( BufferedReader reader = Files.newBufferedReader(m_file.toPath(), StandardCharsets.UTF_8) ) {
+			m_lock.lock();
+			try {
+				for ( String line = reader.readLine(); line != null; line = reader.readLine() ) {
+					if ( line.isBlank() ) {
+						continue;
+					}
+					JsonNode record;
+					try {
+						record = JacksonUtils.MAPPER.readTree(line);
+					}
+					catch ( JsonProcessingException e ) {
+						// 비정상 종료로 끝이 잘린 레코드 이후는 무시한다.
+						s_logger.warn("ignored truncated session journal record: file={}, line={}", m_file, read + 1);
+						break;
+					}
+					apply(record);
+					++read;
+				}
+			}
+			finally {
+				m_lock.unlock();
+			}
+		}
+		return read;
+	}
+
+	@GuardedBy("m_syncLock")
+	private void compact() throws IOException {
+		// 상태를 나타내는 레코드들을 만드는 동안에는 새 레코드가 추가되지 않도록 하며, 그때까지 모아 둔 레코드는
+		// 이미 상태에 반영되어 있으므로 버린다.
+		ByteArrayOutputStream snapshot = new ByteArrayOutputStream();
+		long records = 0;
+		m_lock.lock();
+		try {
+			for ( Session session: m_terminated.values() ) {
+				writeSnapshot(snapshot, session);
+				++records;
+			}
+			for ( Session session: m_live.values() ) {
+				writeSnapshot(snapshot, session);
+				++records;
+			}
+			m_pending = new ByteArrayOutputStream();
+			m_records = records;
+		}
+		finally {
+			m_lock.unlock();
+		}
+
+		if ( m_channel != null ) {
+			m_channel.close();
+			m_channel = null;
+		}
+		try ( FileChannel out = FileChannel.open(m_compactFile.toPath(), StandardOpenOption.CREATE,
+												StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE) ) {
+			ByteBuffer buf = ByteBuffer.wrap(snapshot.toByteArray());
+			while ( buf.hasRemaining() ) {
+				out.write(buf);
+			}
+			out.force(false);
+		}
+		Files.move(m_compactFile.toPath(), m_file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+					StandardCopyOption.ATOMIC_MOVE);
+		m_channel = FileChannel.open(m_file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+									StandardOpenOption.APPEND);
+		m_syncs.incrementAndGet();
+	}
+
+	private static void writeSnapshot(ByteArrayOutputStream out, Session session) throws IOException {
+		ObjectNode record = newRecord(CREATED, session.endpoint());
+		record.put("op", session.opId());
+		record.set("out", session.outputs());
+		if ( session.varDir() != null ) {
+			record.put("dir", session.varDir());
+		}
+		record.set("fp", session.fingerprints());
+		if ( session.pid() > 0 ) {
+			record.put("pid", session.pid());
+			record.put("st", session.pidStartedAt());
+		}
+		record.put("at", session.createdAt());
+		if ( session.result() != null ) {
+			record.set("r", session.result());
+		}
+		out.writeBytes(JacksonUtils.MAPPER.writeValueAsBytes(record));
+		out.write('\n');
+	}
+}
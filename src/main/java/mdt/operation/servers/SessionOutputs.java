@@ -0,0 +1,273 @@
+package mdt.operation.servers;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+import javax.annotation.concurrent.GuardedBy;
+
+import org.apache.commons.io.FileUtils;
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.util.UriUtils;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import utils.Preconditions;
+
+
+/**
+ * 세션 엔드포인트 → 출력 변수 파일 보관소.
+ * <p>
+ * 세션의 출력 변수가 직렬화될 때 변수 파일을 이 보관소의 디렉토리로 하드 링크(다른 파일 시스템이면 복사)해
+ * 두어, 세션 작업 디렉토리가 정리된 뒤에도 출력 파일을 내려받을 수 있게 한다
+ * ({@code GET /api/v1/sessions/{id}/outputs/{name}}). 최대 {@code capacity}개의 최근 세션 출력만 유지하며, 가득
+ * 차면 가장 먼저 등록된 세션의 출력 파일부터 삭제한다.
+ * <p>
+ * 크기가 {@code linkThreshold}를 넘는 출력은 세션 상태 응답에 값 대신
+ * {@code {"@type":"mdt:link","href":...,"size":...}} 형식의 링크로 담긴다({@link #linkLargeOutputs}).
+ *
+ * @author Kang-Woo Lee (ETRI)
+ */
+public class SessionOutputs {
+	private static final Logger s_logger = LoggerFactory.getLogger(SessionOutputs.class);
+	/** 세션 상태 응답에서 출력 값 대신 담기는 링크의 {@code @type}. */
+	public static final String LINK_TYPE = "mdt:link";
+	/** 기본 최대 보관 세션 수. */
+	public static final int DEFAULT_CAPACITY = 256;
+
+	private final File m_dir;
+	private final int m_capacity;
+	private final long m_linkThreshold;
+	private final ReentrantLock m_lock = new ReentrantLock();
+	@GuardedBy("m_lock") private final LinkedHashMap<String,Collector> m_sessions = new LinkedHashMap<>();
+
+	/**
+	 * 보관된 출력 파일 하나.
+	 *
+	 * @param file	출력 파일.
+	 * @param size	파일 크기(바이트).
+	 * @param etag	내용 식별자(따옴표 포함). 보관된 파일은 바뀌지 않으므로 강한 검증자로 사용한다.
+	 */
+	public record Output(File file, long size, String etag) { }
+
+	/**
+	 * 보관소를 생성한다. 디렉토리에 남아 있는 이전 실행의 출력 파일들은 삭제된다.
+	 *
+	 * @param dir			출력 파일 디렉토리.
+	 * @param capacity		최대 보관 세션 수. (1 이상)
+	 * @param linkThreshold	세션 상태 응답에서 링크로 바꿀 출력의 최소 크기(바이트). 0이면 바꾸지 않는다.
+	 * @throws IOException	디렉토리 생성 또는 정리 중 오류가 발생한 경우.
+	 */
+	public SessionOutputs(File dir, int capacity, long linkThreshold) throws IOException {
+		Preconditions.checkNotNullArgument(dir, "dir is null");
+		Preconditions.checkArgument(capacity >= 1, "capacity must be positive: " + capacity);
+		Preconditions.checkArgument(linkThreshold >= 0, "linkThreshold must not be negative: " + linkThreshold);
+
+		m_dir = dir;
+		m_capacity = capacity;
+		m_linkThreshold = linkThreshold;
+
+		Files.createDirectories(dir.toPath());
+		FileUtils.cleanDirectory(dir);
+	}
+
+	/**
+	 * 한 요청의 출력 파일 수집기를 생성한다. 세션이 생성되면 {@link #register}로 등록하고, 그렇지 않으면
+	 * {@link Collector#discard()}로 버려야 한다.
+	 *
+	 * @return	출력 파일 수집기.
+	 * @throws IOException	수집기 디렉토리 생성 중 오류가 발생한 경우.
+	 */
+	public Collector newCollector() throws IOException {
+		return new Collector(new File(m_dir, UUID.randomUUID().toString()));
+	}
+
+	/**
+	 * 세션의 출력 파일 수집기를 등록한다.
+	 *
+	 * @param sessionEndpoint	세션 엔드포인트.
+	 * @param collector			출력 파일 수집기.
+	 */
+	public void register(String sessionEndpoint, Collector collector) {
+		Preconditions.checkNotNullArgument(sessionEndpoint, "sessionEndpoint is null");
+		Preconditions.checkNotNullArgument(collector, "collector is null");
+
+		m_lock.lock();
+		try {
+			m_sessions.put(sessionEndpoint, collector);
+			for ( Iterator<Collector> it = m_sessions.values().iterator(); m_sessions.size() > m_capacity; ) {
+				it.next().discard();
+				it.remove();
+			}
+		}
+		finally {
+			m_lock.unlock();
+		}
+	}
+
+	/**
+	 * 세션의 출력 파일을 반환한다.
+	 *
+	 * @param sessionEndpoint	세션 엔드포인트.
+	 * @param name				출력 변수 이름.
+	 * @return	출력 파일. 없거나 이미 삭제되었으면 {@code null}.
+	 */
+	public @Nullable Output get(String sessionEndpoint, String name) {
+		Collector collector = find(sessionEndpoint);
+		return (collector != null) ? collector.m_outputs.get(name) : null;
+	}
+
+	/**
+	 * 세션에 크기가 링크 기준을 넘는 출력이 있는지 여부를 반환한다.
+	 *
+	 * @param sessionEndpoint	세션 엔드포인트.
+	 * @return	링크로 바꿀 출력이 있으면 {@code true}.
+	 */
+	public boolean hasLargeOutputs(String sessionEndpoint) {
+		Collector collector = (m_linkThreshold > 0) ? find(sessionEndpoint) : null;
+		return collector != null
+			&& collector.m_outputs.values().stream().anyMatch(out -> out.size() > m_linkThreshold);
+	}
+
+	/**
+	 * 세션 상태 응답 JSON에서 크기가 기준을 넘는 출력 값들을 내려받기 링크로 바꾼다.
+	 * <p>
+	 * 출력 값은 응답 메시지에서 출력 변수 이름의 속성으로 찾는다.
+	 *
+	 * @param sessionEndpoint	세션 엔드포인트.
+	 * @param tree				세션 상태 응답 JSON. 링크로 바뀐 속성이 직접 수정된다.
+	 * @return	링크로 바꾼 출력이 있으면 {@code true}.
+	 */
+	public boolean linkLargeOutputs(String sessionEndpoint, JsonNode tree) {
+		Collector collector = (m_linkThreshold > 0) ? find(sessionEndpoint) : null;
+		if ( collector == null ) {
+			return false;
+		}
+
+		boolean linked = false;
+		for ( Map.Entry<String,Output> ent: collector.m_outputs.entrySet() ) {
+			long size = ent.getValue().size();
+			if ( size > m_linkThreshold ) {
+				linked |= replace(tree, ent.getKey(), linkOf(sessionEndpoint, ent.getKey(), size));
+			}
+		}
+		return linked;
+	}
+
+	/**
+	 * 보관 중인 세션 수를 반환한다.
+	 *
+	 * @return	세션 수.
+	 */
+	public int size() {
+		m_lock.lock();
+		try {
+			return m_sessions.size();
+		}
+		finally {
+			m_lock.unlock();
+		}
+	}
+
+	private @Nullable Collector find(String sessionEndpoint) {
+		m_lock.lock();
+		try {
+			return m_sessions.get(sessionEndpoint);
+		}
+		finally {
+			m_lock.unlock();
+		}
+	}
+
+	private static ObjectNode linkOf(String sessionEndpoint, String name, long size) {
+		ObjectNode link = JsonNodeFactory.instance.objectNode();
+		link.put("@type", LINK_TYPE);
+		link.put("href", "/api/v1" + sessionEndpoint + "/outputs/" + UriUtils.encodePathSegment(name, "UTF-8"));
+		link.put("size", size);
+		return link;
+	}
+
+	private static boolean replace(JsonNode tree, String name, ObjectNode link) {
+		if ( tree instanceof ObjectNode obj ) {
+			JsonNode value = obj.get(name);
+			if ( value != null && !LINK_TYPE.equals(value.path("@type").asText()) ) {
+				obj.set(name, link);
+				return true;
+			}
+			for ( JsonNode child: obj ) {
+				if ( replace(child, name, link) ) {
+					return true;
+				}
+			}
+		}
+		else if ( tree.isArray() ) {
+			for ( JsonNode child: tree ) {
+				if ( replace(child, name, link) ) {
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * 한 세션의 출력 파일 수집기.
+	 * <p>
+	 * 출력 변수가 직렬화될 때마다 {@link #record}로 변수 파일을 보관소로 옮겨 둔다.
+	 */
+	public static class Collector {
+		private final File m_dir;
+		private final Map<String,Output> m_outputs = new ConcurrentHashMap<>();
+		private final AtomicInteger m_seq = new AtomicInteger();
+
+		private Collector(File dir) throws IOException {
+			m_dir = dir;
+			Files.createDirectories(dir.toPath());
+		}
+
+		/**
+		 * 출력 변수 파일을 보관한다. 실패하면 그 출력은 내려받을 수 없다.
+		 *
+		 * @param name	출력 변수 이름.
+		 * @param file	출력 변수 파일.
+		 */
+		void record(String name, File file) {
+			// 출력 변수 이름은 파일 이름으로 쓰지 않는다. (경로 구분자 등이 포함될 수 있다)
+			int seq = m_seq.incrementAndGet();
+			File target = new File(m_dir, String.valueOf(seq));
+			try {
+				try {
+					Files.createLink(target.toPath(), file.toPath());
+				}
+				catch ( IOException | UnsupportedOperationException e ) {
+					AttachmentStreams.copy(file, target);
+				}
+				long size = target.length();
+				String etag = String.format("\"%s-%x-%x\"", m_dir.getName(), seq, size);
+				m_outputs.put(name, new Output(target, size, etag));
+			}
+			catch ( IOException e ) {
+				s_logger.warn("failed to keep session output: output={}, file={}", name, file, e);
+			}
+		}
+
+		/**
+		 * 보관한 출력 파일들을 삭제한다.
+		 */
+		void discard() {
+			m_outputs.clear();
+			FileUtils.deleteQuietly(m_dir);
+		}
+	}
+}
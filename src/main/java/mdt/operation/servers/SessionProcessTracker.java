@@ -0,0 +1,255 @@
+package mdt.operation.servers;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import utils.Preconditions;
+
+
+/**
+ * 세션의 연산 프로세스를 찾아 알려 주는 추적기.
+ * <p>
+ * 연산 프로세스는 RPC 서버({@link utils.rpc.restful.process.RESTfulCommandExecutionServer})가 띄우므로 디스패처는
+ * 그 {@link Process} 객체를 갖지 못한다. 대신 세션의 변수 파일 디렉토리를 작업 디렉토리로 쓰거나 명령 인자로
+ * 받는 디스패처의 자식 프로세스를 세션의 프로세스로 본다. 같은 조건을 만족하는 프로세스가 여럿이면 가장 먼저
+ * 시작된 것을 택한다.
+ * <p>
+ * 찾을 세션들은 모아서 한 번에 찾는다. 한 번의 탐색은 디스패처의 자식 프로세스 목록을 한 번만 훑고, 각 프로세스의
+ * 작업 디렉토리·명령 인자는 처음 본 때 한 번만 읽어 둔다. 따라서 탐색 비용은 추적 중인 세션 수와 무관하게 새로 생긴
+ * 자식 프로세스 수에 비례한다. 탐색과 결과 통지는 추적기 전용 스레드 하나에서 수행되며, RPC 서버가 프로세스를 비동기로
+ * 띄울 수 있으므로 찾지 못한 세션은 간격을 늘려 가며 몇 차례 다시 찾는다.
+ *
+ * @author Kang-Woo Lee (ETRI)
+ */
+public class SessionProcessTracker implements AutoCloseable {
+	private static final Logger s_logger = LoggerFactory.getLogger(SessionProcessTracker.class);
+	private static final Path PROC = Path.of("/proc");
+	/** 세션 하나를 찾는 기본 최대 시도 횟수. */
+	public static final int DEFAULT_ATTEMPTS = 6;
+	/** 첫 재시도까지의 기본 간격. 이후 시도마다 두 배로 늘어난다. */
+	public static final long DEFAULT_DELAY_MILLIS = 50;
+
+	/**
+	 * 세션 프로세스 탐색 결과 수신자. 추적기 스레드에서 호출되므로 오래 걸리는 작업을 수행하면 안 된다.
+	 */
+	public interface Listener {
+		/**
+		 * 세션 프로세스를 찾은 경우 호출된다.
+		 *
+		 * @param process	세션 프로세스.
+		 */
+		public void found(ProcessHandle process);
+
+		/**
+		 * 정해진 횟수 동안 세션 프로세스를 찾지 못한 경우 호출된다.
+		 */
+		public void notFound();
+	}
+
+	private static final class Pending {
+		private final String m_sessionEndpoint;
+		private final Listener m_listener;
+		private int m_attempts = 0;
+
+		private Pending(String sessionEndpoint, Listener listener) {
+			m_sessionEndpoint = sessionEndpoint;
+			m_listener = listener;
+		}
+	}
+
+	private final Supplier<Stream<ProcessHandle>> m_children;
+	private final int m_maxAttempts;
+	private final long m_delayMillis;
+	private final ScheduledExecutorService m_executor;
+	private final Map<String,Pending> m_pending = new ConcurrentHashMap<>();	// 변수 파일 디렉토리 -> 탐색 요청
+	private final Map<Long,List<String>> m_seen = new HashMap<>();	// 추적기 스레드에서만 접근
+	private final AtomicBoolean m_scheduled = new AtomicBoolean(false);
+
+	/**
+	 * 디스패처의 자식 프로세스들에서 세션 프로세스를 찾는 추적기를 생성한다. 추적기 스레드는 데몬 플랫폼
+	 * 스레드이다.
+	 */
+	public SessionProcessTracker() {
+		this(Thread.ofPlatform().daemon().name("session-process-tracker").factory());
+	}
+
+	/**
+	 * 디스패처의 자식 프로세스들에서 세션 프로세스를 찾는 추적기를 생성한다.
+	 *
+	 * @param threads	추적기 스레드를 만들 스레드 팩토리.
+	 */
+	public SessionProcessTracker(ThreadFactory threads) {
+		this(() -> ProcessHandle.current().children(), DEFAULT_ATTEMPTS, DEFAULT_DELAY_MILLIS, threads);
+	}
+
+	SessionProcessTracker(Supplier<Stream<ProcessHandle>> children, int maxAttempts, long delayMillis) {
+		this(children, maxAttempts, delayMillis,
+			Thread.ofPlatform().daemon().name("session-process-tracker").factory());
+	}
+
+	SessionProcessTracker(Supplier<Stream<ProcessHandle>> children, int maxAttempts, long delayMillis,
+							ThreadFactory threads) {
+		Preconditions.checkNotNullArgument(children, "children is null");
+		Preconditions.checkArgument(maxAttempts > 0, "maxAttempts must be positive: " + maxAttempts);
+		Preconditions.checkNotNullArgument(threads, "threads is null");
+
+		m_children = children;
+		m_maxAttempts = maxAttempts;
+		m_delayMillis = Math.max(delayMillis, 1);
+		m_executor = Executors.newSingleThreadScheduledExecutor(threads);
+	}
+
+	/**
+	 * 세션 프로세스 탐색을 요청한다. 탐색은 추적기 스레드에서 비동기로 수행된다.
+	 *
+	 * @param sessionEndpoint	세션 엔드포인트.
+	 * @param varDir			세션의 변수 파일 디렉토리.
+	 * @param listener			탐색 결과 수신자.
+	 */
+	public void track(String sessionEndpoint, File varDir, Listener listener) {
+		Preconditions.checkNotNullArgument(sessionEndpoint, "sessionEndpoint is null");
+		Preconditions.checkNotNullArgument(varDir, "varDir is null");
+		Preconditions.checkNotNullArgument(listener, "listener is null");
+
+		m_pending.put(varDir.getAbsolutePath(), new Pending(sessionEndpoint, listener));
+		schedule(0);
+	}
+
+	/**
+	 * 탐색을 기다리는 세션 수를 반환한다.
+	 *
+	 * @return	세션 수.
+	 */
+	public int getPendingCount() {
+		return m_pending.size();
+	}
+
+	@Override
+	public void close() {
+		m_executor.shutdownNow();
+	}
+
+	private void schedule(long delayMillis) {
+		if ( m_scheduled.compareAndSet(false, true) ) {
+			try {
+				m_executor.schedule(this::scan, delayMillis, TimeUnit.MILLISECONDS);
+			}
+			catch ( RuntimeException e ) {
+				// 추적기가 닫힌 경우
+				m_scheduled.set(false);
+			}
+		}
+	}
+
+	private void scan() {
+		m_scheduled.set(false);
+		if ( m_pending.isEmpty() ) {
+			return;
+		}
+
+		// 자식 프로세스 목록을 한 번 훑으며, 처음 본 프로세스만 작업 디렉토리·명령 인자를 읽는다.
+		Map<String,ProcessHandle> matches = new HashMap<>();
+		Map<Long,List<String>> alive = new HashMap<>();
+		try ( Stream<ProcessHandle> children = m_children.get() ) {
+			for ( Iterator<ProcessHandle> it = children.iterator(); it.hasNext(); ) {
+				ProcessHandle proc = it.next();
+				List<String> dirs = m_seen.get(proc.pid());
+				if ( dirs == null ) {
+					dirs = candidateDirs(proc);
+				}
+				alive.put(proc.pid(), dirs);
+				for ( String dir: dirs ) {
+					if ( m_pending.containsKey(dir) ) {
+						matches.merge(dir, proc, SessionProcessTracker::earlier);
+					}
+				}
+			}
+		}
+		catch ( RuntimeException e ) {
+			s_logger.warn("failed to list child processes: cause={}", e.toString());
+		}
+		m_seen.clear();
+		m_seen.putAll(alive);
+
+		matches.forEach((dir, proc) -> {
+			Pending pending = m_pending.remove(dir);
+			if ( pending != null ) {
+				notify(pending, () -> pending.m_listener.found(proc));
+			}
+		});
+
+		// 찾지 못한 세션은 정해진 횟수까지 간격을 늘려 가며 다시 찾는다.
+		int minAttempts = Integer.MAX_VALUE;
+		for ( Iterator<Map.Entry<String,Pending>> it = m_pending.entrySet().iterator(); it.hasNext(); ) {
+			Pending pending = it.next().getValue();
+			if ( ++pending.m_attempts >= m_maxAttempts ) {
+				it.remove();
+				notify(pending, pending.m_listener::notFound);
+			}
+			else {
+				minAttempts = Math.min(minAttempts, pending.m_attempts);
+			}
+		}
+		if ( !m_pending.isEmpty() ) {
+			schedule(m_delayMillis << Math.min(minAttempts - 1, 16));
+		}
+	}
+
+	private static void notify(Pending pending, Runnable action) {
+		try {
+			action.run();
+		}
+		catch ( Exception e ) {
+			s_logger.warn("session process listener failed: session={}", pending.m_sessionEndpoint, e);
+		}
+	}
+
+	private static ProcessHandle earlier(ProcessHandle p1, ProcessHandle p2) {
+		return (SessionProcesses.startedAt(p2) < SessionProcesses.startedAt(p1)) ? p2 : p1;
+	}
+
+	/**
+	 * 프로세스가 사용하는 것으로 보이는 디렉토리들(작업 디렉토리와 명령 인자로 받은 절대 경로 및 그 상위
+	 * 디렉토리들)을 반환한다.
+	 */
+	private static List<String> candidateDirs(ProcessHandle proc) {
+		List<String> dirs = new ArrayList<>();
+
+		// 리눅스에서는 작업 디렉토리를 직접 확인한다.
+		Path cwd = PROC.resolve(String.valueOf(proc.pid())).resolve("cwd");
+		try {
+			dirs.add(Files.readSymbolicLink(cwd).toString());
+		}
+		catch ( IOException | UnsupportedOperationException | SecurityException ignored ) { }
+
+		for ( String arg: proc.info().arguments().orElse(new String[0]) ) {
+			// '--input=/path/...'과 같은 인자도 경로 부분만 본다.
+			int start = arg.indexOf(File.separatorChar);
+			if ( start < 0 ) {
+				continue;
+			}
+			for ( File dir = new File(arg.substring(start)); dir != null; dir = dir.getParentFile() ) {
+				dirs.add(dir.getPath());
+			}
+		}
+		return dirs;
+	}
+}
@@ -0,0 +1,58 @@
+package mdt.operation.servers;
+
+import java.time.Instant;
+import java.util.Optional;
+
+import org.jetbrains.annotations.Nullable;
+
+
+/**
+ * 세션의 연산 프로세스를 확인하는 유틸리티. 세션 프로세스는 {@link SessionProcessTracker}가 찾는다.
+ * <p>
+ * 프로세스 식별자는 재사용될 수 있으므로, 재기동 후 프로세스를 다시 확인할 때는 식별자와 함께 기록해 둔
+ * 시작 시각이 같은지 확인한다({@link #reattach}).
+ *
+ * @author Kang-Woo Lee (ETRI)
+ */
+public final class SessionProcesses {
+	private SessionProcesses() {
+		throw new AssertionError("Should not be called: class=" + getClass());
+	}
+
+	/**
+	 * 프로세스의 시작 시각을 반환한다.
+	 *
+	 * @param proc	프로세스.
+	 * @return	시작 시각(epoch 밀리초). 알 수 없으면 0.
+	 */
+	public static long startedAt(ProcessHandle proc) {
+		return proc.info().startInstant().map(Instant::toEpochMilli).orElse(0L);
+	}
+
+	/**
+	 * 기록해 둔 프로세스가 아직 수행 중이면 그 프로세스를 반환한다.
+	 *
+	 * @param pid		프로세스 식별자.
+	 * @param startedAt	기록해 둔 시작 시각(epoch 밀리초). 0이면 시작 시각을 확인하지 않는다.
+	 * @return	수행 중인 프로세스. 종료되었거나 식별자가 다른 프로세스에 재사용되었으면 {@code null}.
+	 */
+	public static @Nullable ProcessHandle reattach(long pid, long startedAt) {
+		if ( pid <= 0 ) {
+			return null;
+		}
+
+		Optional<ProcessHandle> found = ProcessHandle.of(pid);
+		if ( found.isEmpty() || !found.get().isAlive() ) {
+			return null;
+		}
+		ProcessHandle proc = found.get();
+		if ( startedAt > 0 ) {
+			long actual = startedAt(proc);
+			// 시작 시각은 플랫폼에 따라 초 단위로 잘릴 수 있다.
+			if ( actual > 0 && Math.abs(actual - startedAt) >= 1000 ) {
+				return null;
+			}
+		}
+		return proc;
+	}
+}
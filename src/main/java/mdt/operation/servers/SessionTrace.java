@@ -0,0 +1,184 @@
+package mdt.operation.servers;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+import javax.annotation.concurrent.GuardedBy;
+
+import org.jetbrains.annotations.Nullable;
+
+import utils.Preconditions;
+
+
+/**
+ * 한 연산 요청의 수행 시간표.
+ * <p>
+ * 요청이 접수된 시점을 기준으로, 참조 입력별 해석({@code resolve}), 실행 슬롯 대기({@code admission}),
+ * 세션 시작({@code start}), 변수별 역직렬화({@code deserialize}), 프로세스 시작부터 종료까지({@code run}),
+ * 출력 변수별 기록({@code write_back}) 구간들을 시작 시각·소요 시간·결과와 함께 남긴다. 구간 이름은
+ * {@link DispatcherMetrics.Phase}와 같다. 지연이 급증했을 때 어느 참조나 서브모델이 느렸는지 세션 단위로
+ * 확인하는 데 사용하며, 세션 엔드포인트별로 {@link SessionTraces}에 보관된다.
+ *
+ * @author Kang-Woo Lee (ETRI)
+ */
+public class SessionTrace {
+	private final String m_opId;
+	private final Instant m_acceptedAt;
+	private final long m_acceptedNanos;
+	private volatile boolean m_summaryRequested = false;
+	private final ReentrantLock m_lock = new ReentrantLock();
+	@GuardedBy("m_lock") private final List<Span> m_spans = new ArrayList<>();
+
+	/**
+	 * 수행 구간.
+	 *
+	 * @param phase			구간 이름.
+	 * @param variable		구간이 다룬 변수 이름. 변수 단위 구간이 아니면 {@code null}.
+	 * @param startedAt		구간 시작 시각(ISO-8601).
+	 * @param offsetMs		요청 접수부터 구간 시작까지의 시간(밀리초).
+	 * @param durationMs	구간 소요 시간(밀리초).
+	 * @param outcome		구간 결과.
+	 */
+	public record Span(String phase, @Nullable String variable, String startedAt, double offsetMs,
+						double durationMs, String outcome) { }
+
+	/**
+	 * 수행 시간표.
+	 *
+	 * @param operation		연산 식별자.
+	 * @param acceptedAt	요청 접수 시각(ISO-8601).
+	 * @param elapsedMs		요청 접수부터 마지막 구간 종료까지의 시간(밀리초).
+	 * @param spans			구간들. 시작 시각 순.
+	 */
+	public record Timeline(String operation, String acceptedAt, double elapsedMs, List<Span> spans) { }
+
+	/**
+	 * 수행 시간표 요약.
+	 *
+	 * @param elapsedMs			요청 접수부터 마지막 구간 종료까지의 시간(밀리초).
+	 * @param phases			구간 이름별 소요 시간 합(밀리초).
+	 * @param slowestResolve	가장 오래 걸린 참조 입력 해석 구간. 없으면 {@code null}.
+	 * @param slowestWriteBack	가장 오래 걸린 출력 기록 구간. 없으면 {@code null}.
+	 */
+	public record Summary(double elapsedMs, Map<String,Double> phases, @Nullable Span slowestResolve,
+							@Nullable Span slowestWriteBack) { }
+
+	/**
+	 * 요청 접수 시점의 시간표를 생성한다.
+	 *
+	 * @param opId	연산 식별자.
+	 */
+	public SessionTrace(String opId) {
+		Preconditions.checkNotNullArgument(opId, "opId is null");
+
+		m_opId = opId;
+		m_acceptedAt = Instant.now();
+		m_acceptedNanos = System.nanoTime();
+	}
+
+	/**
+	 * 최종 응답 메시지에 요약을 포함하도록 요청되었는지 여부를 반환한다.
+	 *
+	 * @return	요청되었으면 {@code true}.
+	 */
+	public boolean isSummaryRequested() {
+		return m_summaryRequested;
+	}
+
+	/**
+	 * 최종 응답 메시지에 요약을 포함할지 여부를 설정한다.
+	 *
+	 * @param requested	포함하려면 {@code true}.
+	 */
+	public void setSummaryRequested(boolean requested) {
+		m_summaryRequested = requested;
+	}
+
+	/**
+	 * 구간을 추가한다.
+	 *
+	 * @param phase			구간.
+	 * @param variable		구간이 다룬 변수 이름. 변수 단위 구간이 아니면 {@code null}.
+	 * @param outcome		구간 결과.
+	 * @param startNanos	구간 시작 시각({@link System#nanoTime()}).
+	 * @param endNanos		구간 종료 시각({@link System#nanoTime()}).
+	 */
+	public void add(DispatcherMetrics.Phase phase, @Nullable String variable, String outcome, long startNanos,
+					long endNanos) {
+		long offsetNanos = startNanos - m_acceptedNanos;
+		Span span = new Span(phase.tag(), variable, m_acceptedAt.plusNanos(offsetNanos).toString(),
+							toMillis(offsetNanos), toMillis(endNanos - startNanos), outcome);
+		m_lock.lock();
+		try {
+			m_spans.add(span);
+		}
+		finally {
+			m_lock.unlock();
+		}
+	}
+
+	/**
+	 * 현재까지의 시간표를 반환한다.
+	 *
+	 * @return	시간표.
+	 */
+	public Timeline getTimeline() {
+		List<Span> spans = sortedSpans();
+		return new Timeline(m_opId, m_acceptedAt.toString(), elapsedMs(spans), spans);
+	}
+
+	/**
+	 * 현재까지의 시간표 요약을 반환한다.
+	 *
+	 * @return	요약.
+	 */
+	public Summary getSummary() {
+		List<Span> spans = sortedSpans();
+		Map<String,Double> phases = new LinkedHashMap<>();
+		for ( DispatcherMetrics.Phase phase: DispatcherMetrics.Phase.values() ) {
+			double sum = spans.stream()
+								.filter(span -> span.phase().equals(phase.tag()))
+								.mapToDouble(Span::durationMs)
+								.sum();
+			if ( sum > 0 ) {
+				phases.put(phase.tag(), sum);
+			}
+		}
+		return new Summary(elapsedMs(spans), phases, slowest(spans, DispatcherMetrics.Phase.RESOLVE),
+							slowest(spans, DispatcherMetrics.Phase.WRITE_BACK));
+	}
+
+	private List<Span> sortedSpans() {
+		List<Span> spans;
+		m_lock.lock();
+		try {
+			spans = new ArrayList<>(m_spans);
+		}
+		finally {
+			m_lock.unlock();
+		}
+		spans.sort(Comparator.comparingDouble(Span::offsetMs));
+		return spans;
+	}
+
+	private static double elapsedMs(List<Span> spans) {
+		return spans.stream().mapToDouble(span -> span.offsetMs() + span.durationMs()).max().orElse(0);
+	}
+
+	private static @Nullable Span slowest(List<Span> spans, DispatcherMetrics.Phase phase) {
+		return spans.stream()
+					.filter(span -> span.phase().equals(phase.tag()))
+					.max(Comparator.comparingDouble(Span::durationMs))
+					.orElse(null);
+	}
+
+	private static double toMillis(long nanos) {
+		return nanos / (double)TimeUnit.MILLISECONDS.toNanos(1);
+	}
+}
@@ -0,0 +1,98 @@
+package mdt.operation.servers;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+
+import javax.annotation.concurrent.GuardedBy;
+
+import org.jetbrains.annotations.Nullable;
+
+import utils.Preconditions;
+
+
+/**
+ * 세션 엔드포인트 → 수행 시간표({@link SessionTrace}) 보관소.
+ * <p>
+ * 세션이 종료·회수된 뒤에도 시간표를 조회할 수 있도록 세션 색인과 별도로 보관하며, 최대 {@code capacity}개의
+ * 최근 세션 시간표만 유지한다. 가득 차면 가장 먼저 등록된 세션의 시간표부터 버린다.
+ *
+ * @author Kang-Woo Lee (ETRI)
+ */
+public class SessionTraces {
+	/** 기본 최대 보관 세션 수. */
+	public static final int DEFAULT_CAPACITY = 1024;
+
+	private final int m_capacity;
+	private final ReentrantLock m_lock = new ReentrantLock();
+	@GuardedBy("m_lock") private final LinkedHashMap<String,SessionTrace> m_traces;
+
+	/**
+	 * 보관소를 생성한다.
+	 *
+	 * @param capacity	최대 보관 세션 수. 0이면 보관하지 않는다.
+	 */
+	public SessionTraces(int capacity) {
+		Preconditions.checkArgument(capacity >= 0, "capacity must not be negative: " + capacity);
+
+		m_capacity = capacity;
+		m_traces = new LinkedHashMap<>() {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String,SessionTrace> eldest) {
+				return size() > m_capacity;
+			}
+		};
+	}
+
+	/**
+	 * 세션의 시간표를 등록한다.
+	 *
+	 * @param sessionEndpoint	세션 엔드포인트.
+	 * @param trace				시간표.
+	 */
+	public void put(String sessionEndpoint, SessionTrace trace) {
+		Preconditions.checkNotNullArgument(sessionEndpoint, "sessionEndpoint is null");
+		Preconditions.checkNotNullArgument(trace, "trace is null");
+
+		m_lock.lock();
+		try {
+			m_traces.put(sessionEndpoint, trace);
+		}
+		finally {
+			m_lock.unlock();
+		}
+	}
+
+	/**
+	 * 세션의 시간표를 반환한다.
+	 *
+	 * @param sessionEndpoint	세션 엔드포인트.
+	 * @return	시간표. 없거나 이미 버려졌으면 {@code null}.
+	 */
+	public @Nullable SessionTrace get(String sessionEndpoint) {
+		m_lock.lock();
+		try {
+			return m_traces.get(sessionEndpoint);
+		}
+		finally {
+			m_lock.unlock();
+		}
+	}
+
+	/**
+	 * 보관 중인 시간표의 개수를 반환한다.
+	 *
+	 * @return	시간표 개수.
+	 */
+	public int size() {
+		m_lock.lock();
+		try {
+			return m_traces.size();
+		}
+		finally {
+			m_lock.unlock();
+		}
+	}
+}
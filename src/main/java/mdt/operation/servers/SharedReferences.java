@@ -0,0 +1,91 @@
+package mdt.operation.servers;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+
+/**
+ * 일괄 요청의 여러 항목이 공통으로 사용하는 MDT 요소 참조 입력들을 한 번만 해석해 둔 결과.
+ * <p>
+ * {@link MDTCommandVariableSerDe#resolveShared}가 둘 이상의 항목에 나타나는 참조 입력들을 정규화된 참조
+ * ({@link ReferenceKeys#canonical(JsonNode)}) 단위로 해석하여 생성한다. 각 항목의
+ * {@link MDTCommandVariableSerDe#resolveAll(Map, Map, SharedReferences)}는 이 결과의 사본을 항목의
+ * {@link ReferenceBatch}에 넣어 원격 호출 없이 사용한다. 미리 받아 둔 첨부 파일은 변수 파일로 옮겨지므로 항목마다
+ * 복사하여 넘겨 주며, 원본은 {@link #close()} 시 삭제된다.
+ *
+ * @author Kang-Woo Lee (ETRI)
+ */
+public class SharedReferences implements AutoCloseable {
+	private static final Logger s_logger = LoggerFactory.getLogger(SharedReferences.class);
+
+	private final Map<String,ReferenceBatch.Resolution> m_resolutions = new ConcurrentHashMap<>();
+
+	/**
+	 * 공유되는 참조 입력의 개수를 반환한다.
+	 *
+	 * @return	해석 결과 개수.
+	 */
+	public int size() {
+		return m_resolutions.size();
+	}
+
+	void put(String refKey, ReferenceBatch.Resolution resolution) {
+		m_resolutions.put(refKey, resolution);
+	}
+
+	/**
+	 * 주어진 참조 입력에 대한 해석 결과의 사본을 반환한다.
+	 * <p>
+	 * 첨부 파일이 있으면 새 임시 파일로 복사하며, 복사에 실패하면 그 오류를 해석 오류로 갖는 결과를 반환한다.
+	 *
+	 * @param jnode	항목의 참조 JSON.
+	 * @return	해석 결과 사본. 공유되는 참조가 아니면 {@code null}.
+	 */
+	@Nullable ReferenceBatch.Resolution copyFor(JsonNode jnode) {
+		ReferenceBatch.Resolution shared = m_resolutions.get(ReferenceKeys.canonical(jnode));
+		if ( shared == null ) {
+			return null;
+		}
+		if ( shared.attachment() == null ) {
+			return new ReferenceBatch.Resolution(jnode, shared.ref(), shared.value(), null, shared.failure());
+		}
+
+		File copy = null;
+		try {
+			copy = Files.createTempFile("mdt-ref-", ".attachment").toFile();
+			Files.copy(shared.attachment().toPath(), copy.toPath(), StandardCopyOption.REPLACE_EXISTING);
+			return new ReferenceBatch.Resolution(jnode, shared.ref(), shared.value(), copy, null);
+		}
+		catch ( IOException e ) {
+			if ( copy != null ) {
+				copy.delete();
+			}
+			return new ReferenceBatch.Resolution(jnode, null, null, null, e);
+		}
+	}
+
+	@Override
+	public void close() {
+		for ( ReferenceBatch.Resolution resolution: m_resolutions.values() ) {
+			if ( resolution.attachment() != null ) {
+				try {
+					Files.deleteIfExists(resolution.attachment().toPath());
+				}
+				catch ( IOException e ) {
+					s_logger.warn("failed to delete shared attachment: {}", resolution.attachment(), e);
+				}
+			}
+		}
+		m_resolutions.clear();
+	}
+}
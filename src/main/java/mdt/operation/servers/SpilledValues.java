@@ -0,0 +1,149 @@
+package mdt.operation.servers;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import utils.Preconditions;
+
+
+/**
+ * 한 연산 요청의 큰 일반 값 입력들을 요청 본문에서 바로 옮겨 적어 둔 임시 파일 묶음.
+ * <p>
+ * {@link StreamingRequestReader}가 요청 본문을 읽으면서 크기가 기준을 넘는 일반 값 입력을 임시 파일로 기록하고,
+ * 요청 JSON에는 그 자리에 {@value StreamingRequestReader#SPILL_TYPE} 표식을 남긴다. 표식이 붙은 입력을
+ * 역직렬화할 때 {@link MDTCommandVariableSerDe#deserialize}는 이 묶음(요청의 {@link ReferenceBatch}에 설정된
+ * 것)의 파일을 변수 파일로 옮기므로 값이 메모리에 올라오지 않는다. 변수 파일로 옮겨지지 않은 파일은
+ * {@link #close()} 시 삭제된다.
+ * <p>
+ * 파라미터 스윕처럼 같은 요청이 여러 번 시작되는 경우에는 {@link #share()}로 얻은 묶음을 사용한다. 이
+ * 묶음은 파일을 옮기는 대신 복사하여 넘겨 준다.
+ *
+ * @author Kang-Woo Lee (ETRI)
+ */
+public class SpilledValues implements AutoCloseable {
+	private static final Logger s_logger = LoggerFactory.getLogger(SpilledValues.class);
+
+	private final Map<String,File> m_files = new ConcurrentHashMap<>();
+	private final boolean m_shared;
+
+	/**
+	 * 빈 묶음을 생성한다.
+	 */
+	public SpilledValues() {
+		this(false);
+	}
+
+	private SpilledValues(boolean shared) {
+		m_shared = shared;
+	}
+
+	/**
+	 * 임시 파일로 기록된 입력의 개수를 반환한다.
+	 *
+	 * @return	입력 개수.
+	 */
+	public int size() {
+		return m_files.size();
+	}
+
+	/**
+	 * 여러 요청이 나눠 쓰는 묶음인지 여부를 반환한다.
+	 *
+	 * @return	파일을 복사하여 넘겨 주는 묶음이면 {@code true}.
+	 */
+	public boolean isShared() {
+		return m_shared;
+	}
+
+	void put(String name, File file) {
+		File prev = m_files.put(name, file);
+		if ( prev != null ) {
+			// 같은 이름의 입력이 요청 본문에 두 번 나타나면 나중 것이 사용된다.
+			delete(prev);
+		}
+	}
+
+	/**
+	 * 주어진 입력의 임시 파일을 변수 파일로 넘겨 준다.
+	 * <p>
+	 * 파일은 한 번만 옮길 수 있으며, 나눠 쓰는 묶음이면 복사하여 원본을 남겨 둔다.
+	 *
+	 * @param name	입력 변수 이름.
+	 * @param dst	변수 파일. 이미 있으면 덮어쓴다.
+	 * @throws IOException	해당 입력의 임시 파일이 없거나 파일을 옮기는 중 오류가 발생한 경우.
+	 */
+	void transferTo(String name, File dst) throws IOException {
+		Preconditions.checkNotNullArgument(name, "name is null");
+		Preconditions.checkNotNullArgument(dst, "dst is null");
+
+		if ( m_shared ) {
+			File src = m_files.get(name);
+			if ( src == null ) {
+				throw new IOException("no spilled value: name=" + name);
+			}
+			AttachmentStreams.copy(src, dst);
+		}
+		else {
+			File src = m_files.remove(name);
+			if ( src == null ) {
+				throw new IOException("no spilled value: name=" + name);
+			}
+			AttachmentStreams.move(src, dst);
+		}
+	}
+
+	/**
+	 * 이 묶음의 파일들을 옮겨 담은, 여러 요청이 나눠 쓰는 묶음을 반환한다. 이 묶음은 빈 묶음이 된다.
+	 *
+	 * @return	나눠 쓰는 묶음. 호출자가 닫아야 한다.
+	 */
+	public SpilledValues share() {
+		return transfer(true);
+	}
+
+	/**
+	 * 이 묶음의 파일들을 옮겨 담은 새 묶음을 반환한다. 이 묶음은 빈 묶음이 된다. 요청 처리를 다른 스레드로 넘길 때
+	 * 사용한다.
+	 *
+	 * @return	새 묶음. 호출자가 닫아야 한다.
+	 */
+	public SpilledValues handOver() {
+		return transfer(m_shared);
+	}
+
+	private SpilledValues transfer(boolean shared) {
+		SpilledValues taken = new SpilledValues(shared);
+		for ( String name: m_files.keySet() ) {
+			File file = m_files.remove(name);
+			if ( file != null ) {
+				taken.m_files.put(name, file);
+			}
+		}
+		return taken;
+	}
+
+	@Override
+	public void close() {
+		for ( String name: m_files.keySet() ) {
+			File file = m_files.remove(name);
+			if ( file != null ) {
+				delete(file);
+			}
+		}
+	}
+
+	private static void delete(File file) {
+		try {
+			Files.deleteIfExists(file.toPath());
+		}
+		catch ( IOException e ) {
+			s_logger.warn("failed to delete spilled value: {}", file, e);
+		}
+	}
+}
@@ -0,0 +1,242 @@
+package mdt.operation.servers;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+
+import org.apache.commons.io.output.DeferredFileOutputStream;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import utils.Preconditions;
+
+
+/**
+ * 연산 요청 본문을 스트림으로 읽어 요청 JSON으로 변환하는 읽기기.
+ * <p>
+ * 요청 본문 전체를 문자열로 받지 않고 {@link JsonParser}로 토큰 단위로 읽는다. {@code inputs}의 입력 값들은
+ * 하나씩 {@link JsonGenerator}로 옮겨 적으며, 옮겨 적은 크기가 {@code threshold} 바이트를 넘으면 나머지는
+ * 메모리 대신 {@code spillDir}의 임시 파일에 기록된다. 임시 파일로 기록된 값이
+ * <ul>
+ *   <li>{@code @type} 속성이 없는 일반 값이면 파일을 {@link SpilledValues}에 넣고, 요청 JSON의 그 자리에는
+ *   		{@code {"@type":"mdt:spill","size":...,"sha256":...}} 표식을 남긴다. 표식은 값의 내용으로 정해지므로
+ *   		결과 재사용 키({@link ResultMemo#keyOf})는 원래 값과 같이 내용별로 구분된다.</li>
+ *   <li>{@code @type} 속성이 있는 값(요소 참조나 {@code ElementValue})이면 디스패처가 내용을 해석해야 하므로
+ *   		파일에서 다시 읽어 요청 JSON에 넣고 파일은 삭제한다.</li>
+ * </ul>
+ * 다만 {@code @type}이 첫 속성인 값(MDT 모델 직렬화기가 만드는 형식)은 임시 파일에 기록하지 않고 바로 JSON
+ * 트리로 읽는다. 나머지 속성과 크기가 기준 이하인 입력 값도 JSON 트리로 읽는다.
+ *
+ * @author Kang-Woo Lee (ETRI)
+ */
+public class StreamingRequestReader {
+	/** 임시 파일로 기록된 입력 값의 자리에 남기는 표식의 {@code @type}. */
+	public static final String SPILL_TYPE = "mdt:spill";
+	private static final String INPUTS_FIELD = "inputs";
+	private static final String TYPE_FIELD = "@type";
+
+	private final JsonMapper m_mapper;
+	private final int m_threshold;
+	private final File m_spillDir;
+
+	/**
+	 * 읽기기를 생성한다.
+	 *
+	 * @param mapper	JSON 매퍼.
+	 * @param threshold	입력 값을 임시 파일로 기록하기 시작하는 크기(바이트). 0이면 임시 파일을 사용하지 않는다.
+	 * 					기준 크기까지는 메모리 버퍼에 담기므로 2GB 미만이어야 한다.
+	 * @param spillDir	임시 파일을 만들 디렉토리.
+	 * @throws IllegalArgumentException	{@code threshold}가 음수이거나 2GB 이상인 경우.
+	 */
+	public StreamingRequestReader(JsonMapper mapper, long threshold, File spillDir) {
+		Preconditions.checkNotNullArgument(mapper, "mapper is null");
+		Preconditions.checkArgument(threshold >= 0, "threshold must not be negative: " + threshold);
+		Preconditions.checkArgument(threshold <= Integer.MAX_VALUE, "threshold is too large: " + threshold);
+		Preconditions.checkNotNullArgument(spillDir, "spillDir is null");
+
+		m_mapper = mapper;
+		m_threshold = (int)threshold;
+		m_spillDir = spillDir;
+	}
+
+	/**
+	 * 요청 본문을 읽어 요청 JSON으로 변환한다.
+	 *
+	 * @param body		요청 본문 스트림. 닫지 않는다.
+	 * @param spills	임시 파일로 기록된 입력 값들을 넣을 묶음.
+	 * @return	요청 JSON.
+	 * @throws IOException	요청 본문이 올바른 JSON이 아니거나 임시 파일 기록 중 오류가 발생한 경우.
+	 * @throws IllegalArgumentException	요청 본문이 비어 있는 경우.
+	 */
+	public JsonNode read(InputStream body, SpilledValues spills) throws IOException {
+		Preconditions.checkNotNullArgument(body, "body is null");
+		Preconditions.checkNotNullArgument(spills, "spills is null");
+
+		try ( JsonParser parser = m_mapper.createParser(body) ) {
+			parser.disable(JsonParser.Feature.AUTO_CLOSE_SOURCE);
+			Preconditions.checkArgument(parser.nextToken() != null, "request body is empty");
+			return readRequest(parser, spills);
+		}
+	}
+
+	/**
+	 * 일괄 요청 본문(요청 본문들의 JSON 배열)을 읽어 항목별 요청 JSON으로 변환한다.
+	 * <p>
+	 * 각 항목은 {@link #read}와 같이 읽으며, 임시 파일로 기록된 입력 값들은 항목마다 새 묶음에 넣는다. 묶음들은
+	 * 항목 순서대로 {@code spillsList}에 추가되며, 오류가 발생해도 그때까지 추가된 묶음은 남으므로 호출자가 닫는다.
+	 *
+	 * @param body			요청 본문 스트림. 닫지 않는다.
+	 * @param maxItems		최대 항목 수.
+	 * @param spillsList	항목별 입력 묶음을 추가할 목록.
+	 * @return	항목별 요청 JSON 목록.
+	 * @throws IOException	요청 본문이 올바른 JSON이 아니거나 임시 파일 기록 중 오류가 발생한 경우.
+	 * @throws IllegalArgumentException	요청 본문이 배열이 아니거나 항목 수가 {@code maxItems}를 넘는 경우.
+	 */
+	public List<JsonNode> readBatch(InputStream body, int maxItems, List<SpilledValues> spillsList)
+		throws IOException {
+		Preconditions.checkNotNullArgument(body, "body is null");
+		Preconditions.checkNotNullArgument(spillsList, "spillsList is null");
+
+		try ( JsonParser parser = m_mapper.createParser(body) ) {
+			parser.disable(JsonParser.Feature.AUTO_CLOSE_SOURCE);
+			Preconditions.checkArgument(parser.nextToken() == JsonToken.START_ARRAY,
+										"batch request must be a JSON array");
+
+			List<JsonNode> items = new ArrayList<>();
+			for ( JsonToken token = parser.nextToken(); token != JsonToken.END_ARRAY; token = parser.nextToken() ) {
+				if ( token == null ) {
+					throw new IOException("unexpected end of batch request");
+				}
+				Preconditions.checkArgument(items.size() < maxItems, "too many batch items: max=" + maxItems);
+
+				SpilledValues spills = new SpilledValues();
+				spillsList.add(spills);
+				items.add(readRequest(parser, spills));
+			}
+			return items;
+		}
+	}
+
+	private JsonNode readRequest(JsonParser parser, SpilledValues spills) throws IOException {
+		if ( parser.currentToken() != JsonToken.START_OBJECT || m_threshold == 0 ) {
+			// 객체가 아니면 그대로 읽어, 요청 메시지 변환 단계에서 오류가 보고되게 한다.
+			return parser.readValueAsTree();
+		}
+
+		ObjectNode request = m_mapper.createObjectNode();
+		while ( parser.nextToken() == JsonToken.FIELD_NAME ) {
+			String field = parser.currentName();
+			if ( parser.nextToken() == JsonToken.START_OBJECT && INPUTS_FIELD.equals(field) ) {
+				request.set(field, readInputs(parser, spills));
+			}
+			else {
+				request.set(field, (JsonNode)parser.readValueAsTree());
+			}
+		}
+		return request;
+	}
+
+	private ObjectNode readInputs(JsonParser parser, SpilledValues spills) throws IOException {
+		ObjectNode inputs = m_mapper.createObjectNode();
+		while ( parser.nextToken() == JsonToken.FIELD_NAME ) {
+			String name = parser.currentName();
+			JsonToken token = parser.nextToken();
+			if ( token.isStructStart() || token == JsonToken.VALUE_STRING ) {
+				inputs.set(name, readInput(parser, name, spills));
+			}
+			else {
+				// 숫자·논리값 등은 기준 크기를 넘을 수 없다.
+				inputs.set(name, (JsonNode)parser.readValueAsTree());
+			}
+		}
+		return inputs;
+	}
+
+	private JsonNode readInput(JsonParser parser, String name, SpilledValues spills) throws IOException {
+		// '@type'으로 시작하는 값은 어차피 JSON 트리로 읽어야 하므로 임시 파일을 거치지 않는다.
+		boolean object = parser.currentToken() == JsonToken.START_OBJECT;
+		if ( object && parser.nextToken() == JsonToken.FIELD_NAME && TYPE_FIELD.equals(parser.currentName()) ) {
+			return parser.readValueAsTree();
+		}
+
+		MessageDigest digest = newDigest();
+		DeferredFileOutputStream out = DeferredFileOutputStream.builder()
+															.setThreshold(m_threshold)
+															.setDirectory(m_spillDir)
+															.setPrefix("mdt-spill-")
+															.setSuffix(".json")
+															.get();
+		boolean typed = false;
+		try {
+			try ( JsonGenerator gen = m_mapper.createGenerator(new DigestOutputStream(out, digest)) ) {
+				int depth = 0;
+				if ( object ) {
+					// 객체의 시작 토큰은 첫 속성을 확인하면서 이미 읽었다.
+					gen.writeStartObject();
+					depth = 1;
+				}
+				do {
+					JsonToken token = parser.currentToken();
+					if ( depth == 1 && token == JsonToken.FIELD_NAME && TYPE_FIELD.equals(parser.currentName()) ) {
+						typed = true;
+					}
+					gen.copyCurrentEvent(parser);
+					if ( token.isStructStart() ) {
+						++depth;
+					}
+					else if ( token.isStructEnd() ) {
+						--depth;
+					}
+				} while ( depth > 0 && parser.nextToken() != null );
+			}
+		}
+		catch ( IOException | RuntimeException e ) {
+			out.close();
+			if ( !out.isInMemory() ) {
+				Files.deleteIfExists(out.getFile().toPath());
+			}
+			throw e;
+		}
+
+		if ( out.isInMemory() ) {
+			return m_mapper.readTree(out.getData());
+		}
+		File file = out.getFile();
+		if ( typed ) {
+			try {
+				return m_mapper.readTree(file);
+			}
+			finally {
+				Files.deleteIfExists(file.toPath());
+			}
+		}
+
+		spills.put(name, file);
+		ObjectNode marker = m_mapper.createObjectNode();
+		marker.put(TYPE_FIELD, SPILL_TYPE);
+		marker.put("size", out.getByteCount());
+		marker.put("sha256", HexFormat.of().formatHex(digest.digest()));
+		return marker;
+	}
+
+	private static MessageDigest newDigest() {
+		try {
+			return MessageDigest.getInstance("SHA-256");
+		}
+		catch ( NoSuchAlgorithmException e ) {
+			throw new IllegalStateException(e);
+		}
+	}
+}
@@ -0,0 +1,329 @@
+package mdt.operation.servers;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.locks.ReentrantLock;
+
+import javax.annotation.concurrent.GuardedBy;
+
+import org.jetbrains.annotations.Nullable;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import utils.Preconditions;
+
+
+/**
+ * 파라미터 스윕({@link ParameterSweep}) 한 건의 수행 상태.
+ * <p>
+ * 스윕의 조합마다 하나씩 생성되는 세션(조합 세션)들의 상태를 모아 하나의 세션처럼 보여 준다. 스윕 상태는
+ * 모든 조합이 끝날 때까지 {@code RUNNING}이며, 끝나면 스윕이 취소되었으면 {@code CANCELLED}, 실패한 조합이
+ * 있으면 {@code FAILED}, 취소된 조합이 있으면 {@code CANCELLED}, 아니면 {@code COMPLETED}가 된다. 스윕이 끝나면 조합별 입력과 출력을 열 단위로 모은 결과 표
+ * ({@link Table})가 상태에 포함된다.
+ * <p>
+ * 조합 세션의 출력 값은 종료 응답 메시지에서 출력 변수 이름의 속성으로 찾으며, {@code mdt:value:*} 형식이면
+ * 그 {@code value}만 표에 담는다.
+ *
+ * @author Kang-Woo Lee (ETRI)
+ */
+public class SweepSession {
+	/** 스윕 세션 식별자의 접두사. 일반 세션과 구분하는 데 사용된다. */
+	public static final String ID_PREFIX = "sweep-";
+
+	static final String PENDING = "PENDING";
+	static final String RUNNING = "RUNNING";
+	static final String COMPLETED = "COMPLETED";
+	static final String CANCELLED = "CANCELLED";
+
+	private final String m_id;
+	private final String m_opId;
+	private final ParameterSweep m_sweep;
+	private final List<String> m_outputNames;
+
+	private final ReentrantLock m_lock = new ReentrantLock();
+	@GuardedBy("m_lock") private final String[] m_states;
+	@GuardedBy("m_lock") private final String[] m_sessions;
+	@GuardedBy("m_lock") private final JsonNode[][] m_outputs;
+	@GuardedBy("m_lock") private final JsonNode[] m_errors;
+	@GuardedBy("m_lock") private int m_done = 0;
+	@GuardedBy("m_lock") private boolean m_cancelled = false;
+
+	/**
+	 * 스윕 세션 상태.
+	 *
+	 * @param sessionEndpoint	스윕 세션 엔드포인트.
+	 * @param operation			연산 식별자.
+	 * @param state				스윕 상태.
+	 * @param progress			조합 세션들의 진행 현황.
+	 * @param result			결과 표. 스윕이 끝나지 않았으면 {@code null}.
+	 */
+	public record Status(String sessionEndpoint, String operation, String state, Progress progress,
+						@Nullable Table result) { }
+
+	/**
+	 * 조합 세션들의 상태별 개수.
+	 *
+	 * @param total		전체 조합 수.
+	 * @param pending	아직 시작되지 않은 조합 수.
+	 * @param running	수행 중인 조합 수.
+	 * @param completed	완료된 조합 수.
+	 * @param failed	실패(시작 거절 포함)한 조합 수.
+	 * @param cancelled	취소된 조합 수.
+	 */
+	public record Progress(int total, int pending, int running, int completed, int failed, int cancelled) { }
+
+	/**
+	 * 열 단위 결과 표. 모든 열의 i번째 원소가 i번째 조합에 해당한다.
+	 *
+	 * @param state		조합 세션의 종료 상태.
+	 * @param session	조합 세션 엔드포인트. 세션 없이 끝났으면 {@code null}.
+	 * @param inputs	스윕 파라미터별 입력 값 열.
+	 * @param outputs	출력 변수별 출력 값 열. 값을 얻지 못한 조합은 {@code null}.
+	 * @param error		조합의 오류 정보 열. 오류가 없으면 {@code null}.
+	 */
+	public record Table(List<String> state, List<String> session, Map<String,List<JsonNode>> inputs,
+						Map<String,List<JsonNode>> outputs, List<JsonNode> error) { }
+
+	/**
+	 * 스윕 세션을 생성한다.
+	 *
+	 * @param opId			연산 식별자.
+	 * @param sweep			파라미터 스윕.
+	 * @param outputNames	요청의 출력 변수 이름들.
+	 */
+	public SweepSession(String opId, ParameterSweep sweep, List<String> outputNames) {
+		Preconditions.checkNotNullArgument(opId, "opId is null");
+		Preconditions.checkNotNullArgument(sweep, "sweep is null");
+		Preconditions.checkNotNullArgument(outputNames, "outputNames is null");
+
+		m_id = ID_PREFIX + UUID.randomUUID();
+		m_opId = opId;
+		m_sweep = sweep;
+		m_outputNames = List.copyOf(outputNames);
+
+		int count = sweep.size();
+		m_states = new String[count];
+		Arrays.fill(m_states, PENDING);
+		m_sessions = new String[count];
+		m_outputs = new JsonNode[count][];
+		m_errors = new JsonNode[count];
+	}
+
+	/**
+	 * 스윕 세션 식별자를 반환한다.
+	 *
+	 * @return	{@value #ID_PREFIX}로 시작하는 식별자.
+	 */
+	public String getId() {
+		return m_id;
+	}
+
+	/**
+	 * 스윕 세션 엔드포인트를 반환한다.
+	 *
+	 * @return	세션 엔드포인트({@code /sessions/<id>}).
+	 */
+	public String getSessionEndpoint() {
+		return "/sessions/" + m_id;
+	}
+
+	/**
+	 * 파라미터 스윕을 반환한다.
+	 *
+	 * @return	파라미터 스윕.
+	 */
+	public ParameterSweep getSweep() {
+		return m_sweep;
+	}
+
+	/**
+	 * 조합 세션이 시작되었음을 기록한다.
+	 *
+	 * @param index				조합 순번.
+	 * @param sessionEndpoint	조합 세션 엔드포인트.
+	 */
+	void started(int index, String sessionEndpoint) {
+		m_lock.lock();
+		try {
+			m_sessions[index] = sessionEndpoint;
+			m_states[index] = RUNNING;
+		}
+		finally {
+			m_lock.unlock();
+		}
+	}
+
+	/**
+	 * 조합이 종료 응답 메시지로 끝났음을 기록한다.
+	 *
+	 * @param index		조합 순번.
+	 * @param response	종료 응답 메시지 JSON. 세션이 종료 확인 전에 회수되었으면 {@code null}.
+	 */
+	void finished(int index, @Nullable JsonNode response) {
+		String state = (response != null) ? RpcResponses.stateOf(response) : null;
+		JsonNode[] outputs = new JsonNode[m_outputNames.size()];
+		if ( response != null ) {
+			for ( int i = 0; i < outputs.length; ++i ) {
+				outputs[i] = valueOf(response.findValue(m_outputNames.get(i)));
+			}
+		}
+		JsonNode error = (response != null) ? response.get("error") : null;
+		complete(index, RpcResponses.isTerminal(state) ? state : RpcResponses.FAILED, outputs,
+				(error != null && !error.isNull()) ? error : null);
+	}
+
+	/**
+	 * 조합을 시작하지 못했음을 기록한다.
+	 *
+	 * @param index	조합 순번.
+	 * @param error	오류 정보.
+	 */
+	void failed(int index, JsonNode error) {
+		complete(index, RpcResponses.FAILED, null, error);
+	}
+
+	/**
+	 * 주어진 순번부터의 조합들을 시작하지 않았음을 기록한다. 이미 끝난 조합은 바뀌지 않는다.
+	 *
+	 * @param from	시작하지 않은 첫 조합 순번.
+	 * @param error	시작하지 못한 원인. 스윕이 취소되어 시작하지 않았으면 {@code null}.
+	 */
+	void abandonFrom(int from, @Nullable JsonNode error) {
+		for ( int i = from; i < m_states.length; ++i ) {
+			complete(i, (error != null) ? RpcResponses.FAILED : CANCELLED, null, error);
+		}
+	}
+
+	/**
+	 * 스윕을 취소한다. 이후의 조합들은 시작되지 않는다.
+	 *
+	 * @return	수행 중인 조합 세션 엔드포인트들. 호출자가 이들을 취소해야 한다.
+	 */
+	List<String> cancel() {
+		m_lock.lock();
+		try {
+			m_cancelled = true;
+			List<String> running = new ArrayList<>();
+			for ( int i = 0; i < m_states.length; ++i ) {
+				if ( RUNNING.equals(m_states[i]) ) {
+					running.add(m_sessions[i]);
+				}
+			}
+			return running;
+		}
+		finally {
+			m_lock.unlock();
+		}
+	}
+
+	/**
+	 * 스윕이 취소되었는지 여부를 반환한다.
+	 *
+	 * @return	취소되었으면 {@code true}.
+	 */
+	boolean isCancelled() {
+		m_lock.lock();
+		try {
+			return m_cancelled;
+		}
+		finally {
+			m_lock.unlock();
+		}
+	}
+
+	/**
+	 * 모든 조합이 끝났는지 여부를 반환한다.
+	 *
+	 * @return	모든 조합이 끝났으면 {@code true}.
+	 */
+	boolean isTerminal() {
+		m_lock.lock();
+		try {
+			return m_done == m_states.length;
+		}
+		finally {
+			m_lock.unlock();
+		}
+	}
+
+	/**
+	 * 스윕 세션의 현재 상태를 반환한다.
+	 *
+	 * @return	스윕 세션 상태.
+	 */
+	public Status getStatus() {
+		m_lock.lock();
+		try {
+			int pending = 0, running = 0, completed = 0, failed = 0, cancelled = 0;
+			for ( String state: m_states ) {
+				switch ( state ) {
+					case PENDING -> ++pending;
+					case RUNNING -> ++running;
+					case COMPLETED -> ++completed;
+					case CANCELLED -> ++cancelled;
+					default -> ++failed;
+				}
+			}
+			Progress progress = new Progress(m_states.length, pending, running, completed, failed, cancelled);
+
+			boolean done = m_done == m_states.length;
+			String state = !done ? RUNNING
+							: m_cancelled ? CANCELLED
+							: (failed > 0) ? RpcResponses.FAILED
+							: (cancelled > 0) ? CANCELLED : COMPLETED;
+			return new Status(getSessionEndpoint(), m_opId, state, progress, done ? buildTable() : null);
+		}
+		finally {
+			m_lock.unlock();
+		}
+	}
+
+	@GuardedBy("m_lock")
+	private Table buildTable() {
+		Map<String,List<JsonNode>> inputs = new LinkedHashMap<>();
+		for ( String name: m_sweep.getParameterNames() ) {
+			inputs.put(name, new ArrayList<>(m_states.length));
+		}
+		Map<String,List<JsonNode>> outputs = new LinkedHashMap<>();
+		for ( String name: m_outputNames ) {
+			outputs.put(name, new ArrayList<>(m_states.length));
+		}
+
+		for ( int i = 0; i < m_states.length; ++i ) {
+			m_sweep.getPoint(i).forEach((name, value) -> inputs.get(name).add(value));
+			for ( int j = 0; j < m_outputNames.size(); ++j ) {
+				JsonNode value = (m_outputs[i] != null) ? m_outputs[i][j] : null;
+				outputs.get(m_outputNames.get(j)).add(value);
+			}
+		}
+		return new Table(Arrays.asList(m_states.clone()), Arrays.asList(m_sessions.clone()), inputs, outputs,
+						Arrays.asList(m_errors.clone()));
+	}
+
+	private void complete(int index, String state, @Nullable JsonNode[] outputs, @Nullable JsonNode error) {
+		m_lock.lock();
+		try {
+			if ( !PENDING.equals(m_states[index]) && !RUNNING.equals(m_states[index]) ) {
+				return;
+			}
+			++m_done;
+			m_states[index] = state;
+			m_outputs[index] = outputs;
+			m_errors[index] = error;
+		}
+		finally {
+			m_lock.unlock();
+		}
+	}
+
+	private static @Nullable JsonNode valueOf(@Nullable JsonNode output) {
+		if ( output != null && output.path("@type").asText().startsWith("mdt:value:") && output.has("value") ) {
+			return output.get("value");
+		}
+		return output;
+	}
+}
@@ -0,0 +1,94 @@
+package mdt.operation.servers;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+import javax.annotation.concurrent.GuardedBy;
+
+import org.jetbrains.annotations.Nullable;
+
+import utils.Preconditions;
+
+
+/**
+ * 스윕 세션 식별자 → 스윕 세션({@link SweepSession}) 보관소.
+ * <p>
+ * 끝난 스윕의 결과 표를 조회할 수 있도록 최대 {@code capacity}개까지 보관한다. 가득 차면 끝난 스윕들 중
+ * 가장 먼저 등록된 것부터 버리며, 수행 중인 스윕은 버리지 않는다.
+ *
+ * @author Kang-Woo Lee (ETRI)
+ */
+public class SweepSessions {
+	/** 기본 최대 보관 스윕 수. */
+	public static final int DEFAULT_CAPACITY = 256;
+
+	private final int m_capacity;
+	private final ReentrantLock m_lock = new ReentrantLock();
+	@GuardedBy("m_lock") private final LinkedHashMap<String,SweepSession> m_sweeps = new LinkedHashMap<>();
+
+	/**
+	 * 보관소를 생성한다.
+	 *
+	 * @param capacity	최대 보관 스윕 수.
+	 */
+	public SweepSessions(int capacity) {
+		Preconditions.checkArgument(capacity >= 1, "capacity must be positive: " + capacity);
+
+		m_capacity = capacity;
+	}
+
+	/**
+	 * 스윕 세션을 등록한다.
+	 *
+	 * @param sweep	스윕 세션.
+	 */
+	public void put(SweepSession sweep) {
+		Preconditions.checkNotNullArgument(sweep, "sweep is null");
+
+		m_lock.lock();
+		try {
+			m_sweeps.put(sweep.getId(), sweep);
+			for ( Iterator<SweepSession> it = m_sweeps.values().iterator();
+					m_sweeps.size() > m_capacity && it.hasNext(); ) {
+				if ( it.next().isTerminal() ) {
+					it.remove();
+				}
+			}
+		}
+		finally {
+			m_lock.unlock();
+		}
+	}
+
+	/**
+	 * 스윕 세션을 반환한다.
+	 *
+	 * @param id	스윕 세션 식별자.
+	 * @return	스윕 세션. 없거나 이미 버려졌으면 {@code null}.
+	 */
+	public @Nullable SweepSession get(String id) {
+		m_lock.lock();
+		try {
+			return m_sweeps.get(id);
+		}
+		finally {
+			m_lock.unlock();
+		}
+	}
+
+	/**
+	 * 보관 중인 스윕 세션의 개수를 반환한다.
+	 *
+	 * @return	스윕 세션 개수.
+	 */
+	public int size() {
+		m_lock.lock();
+		try {
+			return m_sweeps.size();
+		}
+		finally {
+			m_lock.unlock();
+		}
+	}
+}
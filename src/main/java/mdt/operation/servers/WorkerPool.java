@@ -0,0 +1,373 @@
+package mdt.operation.servers;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import utils.Preconditions;
+
+
+/**
+ * 한 연산의 장기 실행 작업자(worker) 프로세스 풀.
+ * <p>
+ * 인터프리터 기반 연산은 세션마다 인터프리터 기동과 무거운 모듈 import 비용을 치른다. 풀 작업자 모드의
+ * 연산은 {@link OperationPolicy.WorkerPoolSpec#size()}개의 작업자 프로세스({@code mdt_worker.py})를 미리
+ * 띄워 모듈들을 읽어 두고, 세션마다 RPC 서버가 띄우는 가벼운 클라이언트({@code mdt_worker_client.py})가
+ * 이 풀의 중개(broker) 소켓에서 유휴 작업자를 임대받아 수행을 맡긴다. 작업자는 수행마다 fork한 자식에서
+ * 스크립트를 수행하고, 입출력 변수 파일({@code ${Var:path}}, {@code ${Var:value}})과 표준 입출력은
+ * 클라이언트의 것을 그대로 사용하므로 스크립트 입장에서는 일반 모드와 차이가 없다.
+ * <p>
+ * 중개 프로토콜은 Unix 도메인 소켓 위의 줄 단위 텍스트이다.
+ * <pre>
+ *   client → broker : LEASE
+ *   broker → client : &lt;작업자 소켓 경로&gt;		(유휴 작업자가 생길 때까지 대기)
+ *   client → broker : DONE &lt;종료 코드&gt;
+ * </pre>
+ * {@code DONE} 없이 연결이 끊기거나(클라이언트 강제 종료 등) 종료 코드가 0이 아니면 해당 작업자는
+ * 실패한 것으로 보고 교체한다. 성공한 작업자도 {@link OperationPolicy.WorkerPoolSpec#maxRuns()}회를
+ * 수행하면 교체한다. 작업자 교체(재기동)는 별도 스레드에서 수행되며, 기동에 실패하면 간격을 늘려 가며
+ * 다시 시도한다.
+ *
+ * @author Kang-Woo Lee (ETRI)
+ */
+public class WorkerPool implements Closeable {
+	private static final Logger s_logger = LoggerFactory.getLogger(WorkerPool.class);
+	private static final AtomicLong s_seqno = new AtomicLong();
+
+	private static final Duration RESPAWN_INITIAL_DELAY = Duration.ofSeconds(1);
+	private static final Duration RESPAWN_MAX_DELAY = Duration.ofMinutes(1);
+
+	private final String m_opId;
+	private final String m_interpreter;
+	private final File m_workingDir;
+	private final OperationPolicy.WorkerPoolSpec m_spec;
+	private final Path m_runtimeDir;
+	private final Path m_workerScript;
+	private final long m_poolId = s_seqno.incrementAndGet();
+	private final Path m_brokerSocket;
+
+	private final LinkedBlockingQueue<Worker> m_idle = new LinkedBlockingQueue<>();
+	private final AtomicInteger m_workerSeqno = new AtomicInteger();
+	private final AtomicLong m_recycleCount = new AtomicLong();
+	private final ServerSocketChannel m_broker;
+	private volatile boolean m_closed = false;
+
+	private static final class Worker {
+		private final Process m_process;
+		private final Path m_socket;
+		private int m_runs = 0;
+
+		Worker(Process process, Path socket) {
+			m_process = process;
+			m_socket = socket;
+		}
+
+		void destroy() {
+			m_process.destroy();
+			try {
+				Files.deleteIfExists(m_socket);
+			}
+			catch ( IOException ignored ) { }
+		}
+	}
+
+	/**
+	 * 작업자 풀을 생성하고 중개 소켓을 연 뒤, 작업자들을 비동기적으로 기동한다.
+	 *
+	 * @param opId			연산 식별자.
+	 * @param interpreter	작업자 프로세스를 수행할 인터프리터 (연산 명령의 첫 인자).
+	 * @param workingDir	작업자 프로세스의 작업 디렉토리.
+	 * @param spec			풀 작업자 모드 설정.
+	 * @param runtimeDir	중개·작업자 소켓 파일이 만들어질 디렉토리.
+	 * @param workerScript	작업자 스크립트({@code mdt_worker.py}) 경로.
+	 * @throws IOException	중개 소켓을 열지 못한 경우.
+	 */
+	public WorkerPool(String opId, String interpreter, File workingDir, OperationPolicy.WorkerPoolSpec spec,
+						Path runtimeDir, Path workerScript) throws IOException {
+		Preconditions.checkNotNullArgument(opId, "opId is null");
+		Preconditions.checkNotNullArgument(interpreter, "interpreter is null");
+		Preconditions.checkNotNullArgument(workingDir, "workingDir is null");
+		Preconditions.checkNotNullArgument(spec, "spec is null");
+		Preconditions.checkNotNullArgument(runtimeDir, "runtimeDir is null");
+		Preconditions.checkNotNullArgument(workerScript, "workerScript is null");
+
+		m_opId = opId;
+		m_interpreter = interpreter;
+		m_workingDir = workingDir;
+		m_spec = spec;
+		m_runtimeDir = runtimeDir;
+		m_workerScript = workerScript;
+
+		// Unix 도메인 소켓 경로 길이 제한 때문에 소켓 파일 이름은 짧은 일련번호로 정한다.
+		m_brokerSocket = runtimeDir.resolve("b" + m_poolId + ".sock");
+		Files.deleteIfExists(m_brokerSocket);
+		m_broker = ServerSocketChannel.open(StandardProtocolFamily.UNIX);
+		m_broker.bind(UnixDomainSocketAddress.of(m_brokerSocket));
+
+		for ( int i = 0; i < spec.size(); ++i ) {
+			respawn();
+		}
+		Thread.ofPlatform().daemon().name("worker-broker-" + opId).start(this::acceptLoop);
+		s_logger.info("started worker pool: op={}, size={}, maxRuns={}, preload={}",
+						opId, spec.size(), spec.maxRuns(), spec.preload());
+	}
+
+	/**
+	 * 클라이언트가 연결할 중개 소켓 경로를 반환한다.
+	 *
+	 * @return	중개 소켓 경로.
+	 */
+	public Path getBrokerSocket() {
+		return m_brokerSocket;
+	}
+
+	/**
+	 * 이 풀이 주어진 인터프리터와 설정으로 생성되었는지 여부를 반환한다.
+	 *
+	 * @param interpreter	인터프리터.
+	 * @param spec			풀 작업자 모드 설정.
+	 * @return	같으면 {@code true}.
+	 */
+	public boolean matches(String interpreter, OperationPolicy.WorkerPoolSpec spec) {
+		return m_interpreter.equals(interpreter) && m_spec.equals(spec);
+	}
+
+	/**
+	 * 현재 유휴 상태인 작업자 수를 반환한다.
+	 *
+	 * @return	유휴 작업자 수.
+	 */
+	public int getIdleCount() {
+		return m_idle.size();
+	}
+
+	/**
+	 * 지금까지 교체된 작업자 수를 반환한다.
+	 *
+	 * @return	교체된 작업자 수.
+	 */
+	public long getRecycleCount() {
+		return m_recycleCount.get();
+	}
+
+	/**
+	 * 풀을 닫는다.
+	 * <p>
+	 * 중개 소켓을 닫고 유휴 작업자들을 종료한다. 수행 중인 작업자는 수행이 끝나는 대로 종료된다.
+	 */
+	@Override
+	public void close() {
+		if ( m_closed ) {
+			return;
+		}
+		m_closed = true;
+
+		try {
+			m_broker.close();
+			Files.deleteIfExists(m_brokerSocket);
+		}
+		catch ( IOException e ) {
+			s_logger.warn("failed to close worker broker: op={}", m_opId, e);
+		}
+
+		Worker worker;
+		while ( (worker = m_idle.poll()) != null ) {
+			worker.destroy();
+		}
+		s_logger.info("closed worker pool: op={}", m_opId);
+	}
+
+	private void acceptLoop() {
+		while ( !m_closed ) {
+			try {
+				SocketChannel ch = m_broker.accept();
+				Thread.ofVirtual().name("worker-lease-" + m_opId).start(() -> serve(ch));
+			}
+			catch ( IOException e ) {
+				if ( !m_closed ) {
+					s_logger.warn("worker broker failed: op={}", m_opId, e);
+				}
+				return;
+			}
+		}
+	}
+
+	private void serve(SocketChannel ch) {
+		Worker worker = null;
+		boolean handedOver = false;
+		boolean succeeded = false;
+		try ( ch ) {
+			BufferedReader reader = new BufferedReader(new InputStreamReader(Channels.newInputStream(ch),
+																			StandardCharsets.UTF_8));
+			OutputStream out = Channels.newOutputStream(ch);
+			if ( !"LEASE".equals(reader.readLine()) ) {
+				return;
+			}
+
+			worker = lease();
+			out.write((worker.m_socket.toString() + "\n").getBytes(StandardCharsets.UTF_8));
+			out.flush();
+			handedOver = true;
+
+			String done = reader.readLine();
+			succeeded = done != null && done.equals("DONE 0");
+			if ( !succeeded && s_logger.isDebugEnabled() ) {
+				s_logger.debug("pooled run failed: op={}, report={}", m_opId, done);
+			}
+		}
+		catch ( InterruptedException e ) {
+			Thread.currentThread().interrupt();
+		}
+		catch ( IOException e ) {
+			s_logger.debug("worker lease connection failed: op={}, cause={}", m_opId, e.toString());
+		}
+		finally {
+			if ( worker != null ) {
+				// 작업자를 넘겨주기 전에 클라이언트가 사라졌으면 작업자는 수행 없이 돌려놓는다.
+				release(worker, handedOver, succeeded);
+			}
+		}
+	}
+
+	private Worker lease() throws InterruptedException, IOException {
+		while ( true ) {
+			Worker worker = m_idle.poll(1, TimeUnit.SECONDS);
+			if ( m_closed ) {
+				if ( worker != null ) {
+					m_idle.offer(worker);
+				}
+				throw new IOException("worker pool closed: op=" + m_opId);
+			}
+			if ( worker == null ) {
+				continue;
+			}
+			if ( worker.m_process.isAlive() ) {
+				return worker;
+			}
+
+			// 유휴 중에 죽은 작업자는 교체한다.
+			s_logger.warn("idle worker died: op={}, exit={}", m_opId, worker.m_process.exitValue());
+			retire(worker);
+		}
+	}
+
+	private void release(Worker worker, boolean used, boolean succeeded) {
+		if ( used ) {
+			++worker.m_runs;
+		}
+		if ( m_closed ) {
+			worker.destroy();
+		}
+		else if ( (used && !succeeded) || worker.m_runs >= m_spec.maxRuns() || !worker.m_process.isAlive() ) {
+			retire(worker);
+		}
+		else {
+			offerIdle(worker);
+		}
+	}
+
+	private void offerIdle(Worker worker) {
+		m_idle.offer(worker);
+		if ( m_closed && m_idle.remove(worker) ) {
+			// close()가 유휴 작업자들을 정리한 뒤에 돌아온 작업자
+			worker.destroy();
+		}
+	}
+
+	private void retire(Worker worker) {
+		worker.destroy();
+		m_recycleCount.incrementAndGet();
+		respawn();
+	}
+
+	private void respawn() {
+		Thread.ofVirtual().name("worker-spawn-" + m_opId).start(() -> {
+			Duration delay = RESPAWN_INITIAL_DELAY;
+			while ( !m_closed ) {
+				try {
+					offerIdle(spawn());
+					return;
+				}
+				catch ( IOException e ) {
+					s_logger.warn("failed to start worker: op={}, retry after {}", m_opId, delay, e);
+				}
+				try {
+					Thread.sleep(delay);
+				}
+				catch ( InterruptedException e ) {
+					return;
+				}
+				delay = (delay.compareTo(RESPAWN_MAX_DELAY.dividedBy(2)) < 0) ? delay.multipliedBy(2)
+																				: RESPAWN_MAX_DELAY;
+			}
+		});
+	}
+
+	private Worker spawn() throws IOException {
+		Path socket = m_runtimeDir.resolve("w" + m_poolId + "-" + m_workerSeqno.incrementAndGet() + ".sock");
+		List<String> command = new ArrayList<>(List.of(m_interpreter, "-u", m_workerScript.toString(),
+														"--socket", socket.toString()));
+		for ( String module: m_spec.preload() ) {
+			command.add("--preload");
+			command.add(module);
+		}
+
+		// 작업자의 표준 입력은 디스패처 종료를 알리는 용도로만 사용한다. (닫히면 작업자가 종료한다)
+		Process process = new ProcessBuilder(command).directory(m_workingDir)
+													.redirectErrorStream(true)
+													.start();
+		BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream(),
+																		StandardCharsets.UTF_8));
+		try {
+			String line;
+			while ( (line = reader.readLine()) != null ) {
+				if ( line.equals("READY") ) {
+					break;
+				}
+				s_logger.info("[worker:{}] {}", m_opId, line);
+			}
+			if ( line == null ) {
+				throw new IOException("worker exited before ready: op=" + m_opId + ", command=" + command);
+			}
+		}
+		catch ( IOException e ) {
+			process.destroyForcibly();
+			throw e;
+		}
+
+		// 작업자가 남기는 이후의 출력(수행 외 진단 메시지)은 로그로 옮긴다.
+		Thread.ofVirtual().name("worker-log-" + m_opId).start(() -> {
+			try ( reader ) {
+				String line;
+				while ( (line = reader.readLine()) != null ) {
+					s_logger.info("[worker:{}] {}", m_opId, line);
+				}
+			}
+			catch ( IOException ignored ) { }
+		});
+		s_logger.debug("started worker: op={}, pid={}, socket={}", m_opId, process.pid(), socket);
+
+		return new Worker(process, socket);
+	}
+}
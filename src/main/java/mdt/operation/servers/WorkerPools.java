@@ -0,0 +1,179 @@
+package mdt.operation.servers;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+import javax.annotation.concurrent.GuardedBy;
+
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import utils.Preconditions;
+import utils.json.JacksonUtils;
+
+
+/**
+ * 연산별 작업자 풀({@link WorkerPool}) 관리자.
+ * <p>
+ * 풀 작업자 모드({@code dispatch.json}의 {@code workerPool})로 설정된 연산은 RPC 서버를 생성하기 전에
+ * {@link #prepare(String, File, OperationPolicy.WorkerPoolSpec)}를 거친다. 이때 연산의 작업자 풀을 띄우고,
+ * 연산 디스크립터의 명령 {@code [인터프리터, 스크립트, 인자...]}를 작업자 풀 클라이언트 호출
+ * {@code [인터프리터, -S, -E, mdt_worker_client.py, 중개 소켓, --, 스크립트, 인자...]}로 바꾼 디스크립터
+ * ({@value #POOLED_DESCRIPTOR_FILE_NAME})를 연산 디렉토리에 만들어 반환한다. RPC 서버 라이브러리는
+ * 프로세스 생성과 변수 치환({@code ${Var:path}} 등)을 그대로 수행하므로, 세션 관리·변수 파일 처리는
+ * 일반 모드와 동일하다.
+ * <p>
+ * 디스크립터가 바뀌어도 인터프리터와 풀 설정이 같으면 기존 풀(미리 띄운 작업자들)을 그대로 사용하고,
+ * 달라지면 새 풀을 띄운 뒤 이전 풀을 닫는다. 작업자 풀은 Unix 도메인 소켓과 {@code fork}를 사용하므로
+ * Windows에서는 경고를 남기고 일반 모드로 수행한다.
+ *
+ * @author Kang-Woo Lee (ETRI)
+ */
+public class WorkerPools implements Closeable {
+	private static final Logger s_logger = LoggerFactory.getLogger(WorkerPools.class);
+
+	/** 명령을 작업자 풀 클라이언트 호출로 바꾼 디스크립터 파일 이름. */
+	static final String POOLED_DESCRIPTOR_FILE_NAME = ".operation.pooled.json";
+	private static final String WORKER_SCRIPT = "mdt_worker.py";
+	private static final String CLIENT_SCRIPT = "mdt_worker_client.py";
+
+	private final File m_runtimeDir;
+	private final ConcurrentHashMap<String,WorkerPool> m_pools = new ConcurrentHashMap<>();
+	private final ReentrantLock m_lock = new ReentrantLock();
+	@GuardedBy("m_lock") private boolean m_installed = false;
+
+	/**
+	 * 관리자를 생성한다. 런타임 디렉토리는 첫 풀이 생성될 때 만들어진다.
+	 *
+	 * @param runtimeDir	작업자 스크립트와 소켓 파일이 만들어질 디렉토리.
+	 */
+	public WorkerPools(File runtimeDir) {
+		Preconditions.checkNotNullArgument(runtimeDir, "runtimeDir is null");
+
+		m_runtimeDir = runtimeDir;
+	}
+
+	/**
+	 * 연산의 작업자 풀을 준비하고, RPC 서버 생성에 사용할 디스크립터 파일을 반환한다.
+	 *
+	 * @param opId		연산 식별자.
+	 * @param descFile	연산 디스크립터 파일.
+	 * @param spec		풀 작업자 모드 설정. {@code null}이면 일반 모드이며, 연산의 기존 풀이 있으면 닫는다.
+	 * @return	RPC 서버 생성에 사용할 디스크립터 파일. 일반 모드이면 {@code descFile}.
+	 * @throws IOException	디스크립터를 읽거나 쓰는 중 오류가 발생하거나, 명령이 풀 작업자 모드에 맞지 않거나,
+	 * 						작업자 풀을 띄우지 못한 경우.
+	 */
+	public File prepare(String opId, File descFile, @Nullable OperationPolicy.WorkerPoolSpec spec)
+		throws IOException {
+		Preconditions.checkNotNullArgument(opId, "opId is null");
+		Preconditions.checkNotNullArgument(descFile, "descFile is null");
+
+		if ( spec == null ) {
+			retire(opId);
+			return descFile;
+		}
+		if ( File.separatorChar == '\\' ) {
+			s_logger.warn("worker pool is not supported on this platform, running per-session processes: op={}",
+							opId);
+			return descFile;
+		}
+
+		JsonNode desc = JacksonUtils.MAPPER.readTree(descFile);
+		JsonNode command = desc.path("command");
+		if ( !(desc instanceof ObjectNode) || !command.isArray() || command.size() < 2 ) {
+			throw new IOException("worker pool requires a command of [interpreter, script, args...]: desc="
+									+ descFile.getAbsolutePath());
+		}
+		String interpreter = command.get(0).asText();
+
+		installScripts();
+		WorkerPool pool = m_pools.get(opId);
+		if ( pool == null || !pool.matches(interpreter, spec) ) {
+			// 새 풀을 띄운 뒤 이전 풀을 닫는다. 이전 풀의 작업자들은 수행 중인 세션이 끝나는 대로 종료된다.
+			pool = new WorkerPool(opId, interpreter, descFile.getParentFile(), spec, m_runtimeDir.toPath(),
+									m_runtimeDir.toPath().resolve(WORKER_SCRIPT));
+			WorkerPool prev = m_pools.put(opId, pool);
+			if ( prev != null ) {
+				prev.close();
+			}
+		}
+
+		ArrayNode pooled = JacksonUtils.MAPPER.createArrayNode();
+		pooled.add(interpreter).add("-S").add("-E")
+				.add(m_runtimeDir.toPath().resolve(CLIENT_SCRIPT).toString())
+				.add(pool.getBrokerSocket().toString())
+				.add("--");
+		for ( int i = 1; i < command.size(); ++i ) {
+			pooled.add(command.get(i));
+		}
+		ObjectNode rewritten = ((ObjectNode)desc).deepCopy();
+		rewritten.set("command", pooled);
+
+		File pooledFile = new File(descFile.getParentFile(), POOLED_DESCRIPTOR_FILE_NAME);
+		Path tmp = Files.createTempFile(descFile.getParentFile().toPath(), POOLED_DESCRIPTOR_FILE_NAME, ".tmp");
+		JacksonUtils.MAPPER.writerWithDefaultPrettyPrinter().writeValue(tmp.toFile(), rewritten);
+		Files.move(tmp, pooledFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+		return pooledFile;
+	}
+
+	/**
+	 * 연산의 작업자 풀을 반환한다.
+	 *
+	 * @param opId	연산 식별자.
+	 * @return	작업자 풀. 풀 작업자 모드가 아니면 {@code null}.
+	 */
+	public @Nullable WorkerPool get(String opId) {
+		return m_pools.get(opId);
+	}
+
+	/**
+	 * 연산의 작업자 풀을 닫는다.
+	 *
+	 * @param opId	연산 식별자.
+	 */
+	public void retire(String opId) {
+		WorkerPool pool = m_pools.remove(opId);
+		if ( pool != null ) {
+			pool.close();
+		}
+	}
+
+	@Override
+	public void close() {
+		m_pools.keySet().forEach(this::retire);
+	}
+
+	private void installScripts() throws IOException {
+		m_lock.lock();
+		try {
+			if ( !m_installed ) {
+				Files.createDirectories(m_runtimeDir.toPath());
+				for ( String script: new String[] { WORKER_SCRIPT, CLIENT_SCRIPT } ) {
+					try ( InputStream is = WorkerPools.class.getResourceAsStream("/worker-pool/" + script) ) {
+						if ( is == null ) {
+							throw new IOException("worker pool script not found: " + script);
+						}
+						Files.copy(is, m_runtimeDir.toPath().resolve(script), StandardCopyOption.REPLACE_EXISTING);
+					}
+				}
+				m_installed = true;
+			}
+		}
+		finally {
+			m_lock.unlock();
+		}
+	}
+}
@@ -0,0 +1,140 @@
+"""
+MDT 연산 작업자 풀의 작업자(worker) 프로세스.
+
+디스패처(WorkerPool)가 연산별로 미리 띄워 두는 장기 실행 인터프리터이다. 기동 시 --preload로 지정된
+모듈들을 미리 import한 뒤, --socket 경로의 Unix 도메인 소켓에서 수행 요청을 기다린다.
+
+수행 요청은 작업자 풀 클라이언트(mdt_worker_client.py)가 보내며, 클라이언트의 표준 입출력 파일
+디스크립터(0, 1, 2)가 SCM_RIGHTS로 함께 전달된다. 작업자는 요청마다 fork한 자식 프로세스에서
+스크립트를 __main__으로 수행하므로, 미리 읽어 둔 모듈은 그대로 공유하면서 수행 간 전역 상태는 섞이지
+않는다. 자식의 표준 입출력은 전달받은 디스크립터로 바뀌므로 출력은 클라이언트(즉, RPC 서버가 띄운
+프로세스)의 출력으로 그대로 나간다. 수행이 끝나면 종료 코드를 클라이언트에 돌려준다. 수행 중 클라이언트
+연결이 끊기면(세션 취소 등) 자식 프로세스를 강제 종료한다.
+
+표준 입력이 닫히면(디스패처 종료) 작업자도 종료한다.
+"""
+import argparse
+import importlib
+import json
+import os
+import select
+import signal
+import socket
+import sys
+import traceback
+
+MAX_FDS = 3
+RECV_SIZE = 64 * 1024
+POLL_INTERVAL = 0.02
+
+
+def main():
+    parser = argparse.ArgumentParser()
+    parser.add_argument('--socket', required=True)
+    parser.add_argument('--preload', action='append', default=[])
+    args = parser.parse_args()
+
+    for module in args.preload:
+        try:
+            importlib.import_module(module)
+        except Exception as e:
+            print('failed to preload module: {}, cause={}'.format(module, e), file=sys.stderr, flush=True)
+
+    if os.path.exists(args.socket):
+        os.unlink(args.socket)
+    server = socket.socket(socket.AF_UNIX, socket.SOCK_STREAM)
+    server.bind(args.socket)
+    server.listen(1)
+    print('READY', flush=True)
+
+    try:
+        while True:
+            readable, _, _ = select.select([server, sys.stdin], [], [])
+            if sys.stdin in readable and not sys.stdin.buffer.read1(1):
+                break
+            if server in readable:
+                conn, _ = server.accept()
+                with conn:
+                    serve(server, conn)
+    finally:
+        server.close()
+        if os.path.exists(args.socket):
+            os.unlink(args.socket)
+
+
+def serve(server, conn):
+    msg, fds, _, _ = socket.recv_fds(conn, RECV_SIZE, MAX_FDS)
+    try:
+        while not msg.endswith(b'\n'):
+            chunk = conn.recv(RECV_SIZE)
+            if not chunk:
+                return
+            msg += chunk
+        request = json.loads(msg)
+
+        pid = os.fork()
+        if pid == 0:
+            server.close()
+            conn.close()
+            run(request, fds)
+    finally:
+        for fd in fds:
+            os.close(fd)
+
+    code = wait(pid, conn)
+    if code is not None:
+        conn.sendall((json.dumps({'exit': code}) + '\n').encode())
+
+
+def run(request, fds):
+    code = 1
+    try:
+        signal.signal(signal.SIGTERM, signal.SIG_DFL)
+        for target, fd in enumerate(fds):
+            os.dup2(fd, target)
+        os.environ.clear()
+        os.environ.update(request.get('env', {}))
+        os.chdir(request.get('cwd', os.getcwd()))
+
+        argv = request['argv']
+        sys.argv = list(argv)
+        sys.path[0] = os.path.dirname(os.path.abspath(argv[0]))
+        try:
+            import runpy
+            runpy.run_path(argv[0], run_name='__main__')
+            code = 0
+        except SystemExit as e:
+            if e.code is None:
+                code = 0
+            elif isinstance(e.code, int):
+                code = e.code
+            else:
+                print(e.code, file=sys.stderr)
+                code = 1
+        except BaseException:
+            traceback.print_exc()
+            code = 1
+    finally:
+        try:
+            sys.stdout.flush()
+            sys.stderr.flush()
+        finally:
+            os._exit(code)
+
+
+def wait(pid, conn):
+    # 자식 프로세스의 종료를 기다리면서, 그 사이 클라이언트 연결이 끊기면 자식을 강제 종료한다.
+    while True:
+        done, status = os.waitpid(pid, os.WNOHANG)
+        if done:
+            code = os.waitstatus_to_exitcode(status)
+            return code if code >= 0 else 128 - code
+        readable, _, _ = select.select([conn], [], [], POLL_INTERVAL)
+        if readable and not conn.recv(1, socket.MSG_PEEK):
+            os.kill(pid, signal.SIGKILL)
+            os.waitpid(pid, 0)
+            return None
+
+
+if __name__ == '__main__':
+    main()
@@ -0,0 +1,57 @@
+"""
+MDT 연산 작업자 풀의 클라이언트.
+
+풀 작업자 모드로 설정된 연산의 명령은 디스패처가 이 클라이언트를 호출하도록 바꿔 둔다.
+    <python> -S -E mdt_worker_client.py <broker-socket> -- <script> <args...>
+
+클라이언트는 무거운 모듈을 읽지 않으므로 인터프리터 기동 비용만 든다. 디스패처의 중개 소켓에서 유휴
+작업자를 임대(LEASE)받아 그 작업자의 소켓에 연결한 뒤, 현재 작업 디렉토리·환경 변수·명령 인자와 함께
+자신의 표준 입출력 디스크립터를 넘겨 스크립트를 수행시킨다. 작업자가 돌려준 종료 코드를 중개 소켓에
+보고(DONE)하고, 같은 코드로 종료한다. 이 프로세스가 강제 종료되면 두 연결이 모두 끊기므로, 작업자는
+수행 중인 스크립트를 종료하고 디스패처는 해당 작업자를 교체한다.
+"""
+import json
+import os
+import socket
+import sys
+
+
+def readline(sock):
+    buf = b''
+    while not buf.endswith(b'\n'):
+        chunk = sock.recv(1)
+        if not chunk:
+            raise ConnectionError('connection closed')
+        buf += chunk
+    return buf[:-1].decode()
+
+
+def main():
+    if len(sys.argv) < 4 or sys.argv[2] != '--':
+        print('usage: mdt_worker_client.py <broker-socket> -- <script> [args...]', file=sys.stderr)
+        return 2
+    broker_path, argv = sys.argv[1], sys.argv[3:]
+
+    with socket.socket(socket.AF_UNIX, socket.SOCK_STREAM) as broker:
+        broker.connect(broker_path)
+        broker.sendall(b'LEASE\n')
+        worker_path = readline(broker)
+
+        with socket.socket(socket.AF_UNIX, socket.SOCK_STREAM) as worker:
+            worker.connect(worker_path)
+            request = {'argv': argv, 'cwd': os.getcwd(), 'env': dict(os.environ)}
+            sys.stdout.flush()
+            sys.stderr.flush()
+            socket.send_fds(worker, [(json.dumps(request) + '\n').encode()], [0, 1, 2])
+            code = json.loads(readline(worker))['exit']
+
+        broker.sendall('DONE {}\n'.format(code).encode())
+    return code
+
+
+if __name__ == '__main__':
+    try:
+        sys.exit(main())
+    except (OSError, ValueError, KeyError) as e:
+        print('worker pool failure: {}'.format(e), file=sys.stderr)
+        sys.exit(1)
@@ -0,0 +1,233 @@
+package mdt.operation.servers;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import mdt.operation.servers.AdmissionController.AdmissionRejectedException;
+import mdt.operation.servers.AdmissionController.Permit;
+
+
+/**
+ * {@link AdmissionController}의 동시 실행 제한/대기열 순서/거절 테스트와 {@link OperationPolicy} 로딩 테스트.
+ *
+ * @author Kang-Woo Lee (ETRI)
+ */
+public class AdmissionControllerTest {
+	private static final Duration LONG = Duration.ofSeconds(30);
+
+	@Rule public TemporaryFolder m_temp = new TemporaryFolder();
+
+	private ExecutorService m_executor;
+
+	@Before
+	public void setup() {
+		m_executor = Executors.newCachedThreadPool();
+	}
+
+	@After
+	public void tearDown() {
+		m_executor.shutdownNow();
+	}
+
+	private static OperationPolicy policy(int maxConcurrency, int maxQueued, OperationPolicy.QueueOrder order) {
+		return new OperationPolicy(maxConcurrency, maxQueued, order);
+	}
+
+	private static void awaitQueued(AdmissionController ctrl, int count) throws InterruptedException {
+		long due = System.currentTimeMillis() + 10_000;
+		while ( ctrl.getQueuedCount() < count ) {
+			assertTrue(System.currentTimeMillis() < due);
+			Thread.sleep(10);
+		}
+	}
+
+	@Test
+	public void testQueuedUntilSlotFreed() throws Exception {
+		AdmissionController ctrl = new AdmissionController(0, 16);
+		OperationPolicy one = policy(1, 4, OperationPolicy.QueueOrder.FIFO);
+
+		Permit first = ctrl.acquire("op", one, 0, LONG);
+		Future<Permit> second = m_executor.submit(() -> ctrl.acquire("op", one, 0, LONG));
+		awaitQueued(ctrl, 1);
+		assertEquals(1, ctrl.getRunningCount());
+
+		first.close();
+		second.get(10, TimeUnit.SECONDS).close();
+		assertEquals(0, ctrl.getRunningCount());
+		assertEquals(0, ctrl.getQueuedCount());
+	}
+
+	@Test
+	public void testRejectedWhenQueueFull() throws Exception {
+		AdmissionController ctrl = new AdmissionController(0, 16);
+		OperationPolicy one = policy(1, 0, OperationPolicy.QueueOrder.FIFO);
+
+		Permit first = ctrl.acquire("op", one, 0, LONG);
+		AdmissionRejectedException e = assertThrows(AdmissionRejectedException.class,
+													() -> ctrl.acquire("op", one, 0, LONG));
+		assertTrue(e.getRetryAfter().toSeconds() >= 1);
+		first.close();
+	}
+
+	@Test
+	public void testGlobalLimit() throws Exception {
+		AdmissionController ctrl = new AdmissionController(1, 0);
+
+		Permit first = ctrl.acquire("a", OperationPolicy.DEFAULT, 0, LONG);
+		assertThrows(AdmissionRejectedException.class, () -> ctrl.acquire("b", OperationPolicy.DEFAULT, 0, LONG));
+		first.close();
+		ctrl.acquire("b", OperationPolicy.DEFAULT, 0, LONG).close();
+	}
+
+	@Test
+	public void testTimedOut() throws Exception {
+		AdmissionController ctrl = new AdmissionController(0, 16);
+		OperationPolicy one = policy(1, 4, OperationPolicy.QueueOrder.FIFO);
+
+		Permit first = ctrl.acquire("op", one, 0, LONG);
+		assertThrows(AdmissionRejectedException.class, () -> ctrl.acquire("op", one, 0, Duration.ofMillis(50)));
+		assertEquals(0, ctrl.getQueuedCount());
+		first.close();
+	}
+
+	@Test
+	public void testPriorityOrder() throws Exception {
+		AdmissionController ctrl = new AdmissionController(0, 16);
+		OperationPolicy one = policy(1, 4, OperationPolicy.QueueOrder.PRIORITY);
+		List<Integer> order = new CopyOnWriteArrayList<>();
+
+		Permit first = ctrl.acquire("op", one, 0, LONG);
+		Future<?> low = m_executor.submit(() -> {
+			try ( Permit p = ctrl.acquire("op", one, 1, LONG) ) {
+				order.add(1);
+			}
+			return null;
+		});
+		awaitQueued(ctrl, 1);
+		Future<?> high = m_executor.submit(() -> {
+			try ( Permit p = ctrl.acquire("op", one, 9, LONG) ) {
+				order.add(9);
+			}
+			return null;
+		});
+		awaitQueued(ctrl, 2);
+
+		first.close();
+		low.get(10, TimeUnit.SECONDS);
+		high.get(10, TimeUnit.SECONDS);
+		assertEquals(List.of(9, 1), order);
+	}
+
+	@Test
+	public void testPermitClosedOnce() throws Exception {
+		AdmissionController ctrl = new AdmissionController(0, 16);
+		Permit permit = ctrl.acquire("op", OperationPolicy.DEFAULT, 0, LONG);
+		permit.close();
+		permit.close();
+		assertEquals(0, ctrl.getRunningCount());
+	}
+
+	@Test
+	public void testAsyncQueuedWithoutThread() throws Exception {
+		AdmissionController ctrl = new AdmissionController(0, 16);
+		OperationPolicy one = policy(1, 4, OperationPolicy.QueueOrder.FIFO);
+
+		CompletableFuture<Permit> first = ctrl.acquireAsync("op", one, 0, LONG);
+		assertTrue(first.isDone());
+		CompletableFuture<Permit> second = ctrl.acquireAsync("op", one, 0, LONG);
+		assertFalse(second.isDone());
+		assertEquals(1, ctrl.getQueuedCount());
+
+		first.join().close();
+		second.get(10, TimeUnit.SECONDS).close();
+		assertEquals(0, ctrl.getRunningCount());
+		assertEquals(0, ctrl.getQueuedCount());
+	}
+
+	@Test
+	public void testAsyncCancelWithdraws() throws Exception {
+		AdmissionController ctrl = new AdmissionController(0, 16);
+		OperationPolicy one = policy(1, 4, OperationPolicy.QueueOrder.FIFO);
+
+		Permit first = ctrl.acquire("op", one, 0, LONG);
+		CompletableFuture<Permit> second = ctrl.acquireAsync("op", one, 0, LONG);
+		CompletableFuture<Permit> third = ctrl.acquireAsync("op", one, 0, LONG);
+		second.cancel(false);
+		assertEquals(1, ctrl.getQueuedCount());
+
+		// 취소된 요청은 건너뛰고 다음 요청이 슬롯을 얻는다.
+		first.close();
+		third.get(10, TimeUnit.SECONDS).close();
+		assertEquals(0, ctrl.getRunningCount());
+	}
+
+	@Test
+	public void testAsyncTimedOut() throws Exception {
+		AdmissionController ctrl = new AdmissionController(0, 16);
+		OperationPolicy one = policy(1, 4, OperationPolicy.QueueOrder.FIFO);
+
+		Permit first = ctrl.acquire("op", one, 0, LONG);
+		CompletableFuture<Permit> second = ctrl.acquireAsync("op", one, 0, Duration.ofMillis(50));
+		ExecutionException e = assertThrows(ExecutionException.class, () -> second.get(10, TimeUnit.SECONDS));
+		assertTrue(e.getCause() instanceof AdmissionRejectedException);
+		assertEquals(0, ctrl.getQueuedCount());
+		first.close();
+	}
+
+	@Test
+	public void testForgetDropsIdleState() throws Exception {
+		AdmissionController ctrl = new AdmissionController(0, 16);
+		OperationPolicy one = policy(1, 4, OperationPolicy.QueueOrder.FIFO);
+
+		ctrl.acquire("idle", one, 0, LONG).close();
+		Permit busy = ctrl.acquire("busy", one, 0, LONG);
+		assertEquals(2, ctrl.getOperationCount());
+
+		ctrl.forget("idle");
+		ctrl.forget("busy");
+		assertEquals(1, ctrl.getOperationCount());
+
+		// 수행 중인 세션이 끝나면 제거된다.
+		busy.close();
+		assertEquals(0, ctrl.getOperationCount());
+	}
+
+	@Test
+	public void testLoadPolicy() throws IOException {
+		File opDir = m_temp.newFolder("op");
+		assertEquals(OperationPolicy.DEFAULT, OperationPolicy.load(opDir));
+
+		Files.writeString(new File(opDir, OperationPolicy.POLICY_FILE_NAME).toPath(),
+							"{ \"maxConcurrency\": 2, \"maxQueued\": 8, \"queueOrder\": \"priority\" }");
+		assertEquals(policy(2, 8, OperationPolicy.QueueOrder.PRIORITY), OperationPolicy.load(opDir));
+	}
+
+	@Test
+	public void testLoadInvalidPolicy() throws IOException {
+		File opDir = m_temp.newFolder("op");
+		Files.writeString(new File(opDir, OperationPolicy.POLICY_FILE_NAME).toPath(),
+							"{ \"queueOrder\": \"random\" }");
+		assertThrows(IOException.class, () -> OperationPolicy.load(opDir));
+	}
+}
@@ -0,0 +1,290 @@
+package mdt.operation.servers;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.net.HttpURLConnection;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Assume;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.fasterxml.jackson.databind.node.TextNode;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import mdt.model.sm.ref.MDTElementReference;
+import mdt.model.sm.value.FileValue;
+
+
+/**
+ * {@link AttachmentStreams}의 첨부 파일 이동·복사·다이제스트 테스트.
+ * <p>
+ * 대용량 테스트는 힙을 {@value #CAPPED_HEAP}로 제한한 별도 JVM에서 첨부 파일(기본 3GB, 시스템 프로퍼티
+ * {@code mdt.test.attachmentSize}로 변경)을 로컬 HTTP 스텁 → 스테이징 파일 → 변수 파일 → 참조 대상 갱신(스텁으로
+ * 업로드)까지 옮긴다. 내용 전체를 메모리에 올리는 단계가 있으면 {@link OutOfMemoryError}로 실패한다. 수 분이 걸리므로
+ * 기본 {@code test} 작업에서는 건너뛰며, {@code ./gradlew largeTest}(시스템 프로퍼티 {@value #LARGE_TEST_PROPERTY})로
+ * 실행한다.
+ *
+ * @author Kang-Woo Lee (ETRI)
+ */
+public class AttachmentStreamsTest {
+	private static final String CAPPED_HEAP = "-Xmx64m";
+	private static final long DEFAULT_LARGE_SIZE = 3L * 1024 * 1024 * 1024;
+	private static final String LARGE_TEST_PROPERTY = "mdt.test.large";
+	private static final long LARGE_TEST_TIMEOUT_MINUTES = 10;
+
+	@Rule public TemporaryFolder m_temp = new TemporaryFolder();
+
+	private static byte[] sha256(byte[] bytes) throws Exception {
+		return MessageDigest.getInstance("SHA-256").digest(bytes);
+	}
+
+	@Test
+	public void testCopyAndDigest() throws Exception {
+		byte[] content = "mesh-data-".repeat(20_000).getBytes(StandardCharsets.UTF_8);
+		File src = m_temp.newFile("src");
+		File dst = m_temp.newFile("dst");
+		Files.write(src.toPath(), content);
+		Files.writeString(dst.toPath(), "previous content that is longer than nothing");
+
+		assertEquals(content.length, AttachmentStreams.copy(src, dst));
+		assertArrayEquals(content, Files.readAllBytes(dst.toPath()));
+
+		MessageDigest digest = MessageDigest.getInstance("SHA-256");
+		assertEquals(content.length, AttachmentStreams.digest(dst, digest));
+		assertArrayEquals(sha256(content), digest.digest());
+	}
+
+	@Test
+	public void testMoveReplacesTarget() throws Exception {
+		File src = m_temp.newFile("src");
+		File dst = m_temp.newFile("dst");
+		Files.writeString(src.toPath(), "new");
+		Files.writeString(dst.toPath(), "old");
+
+		AttachmentStreams.move(src, dst);
+		assertFalse(src.exists());
+		assertEquals("new", Files.readString(dst.toPath()));
+	}
+
+	@Test
+	public void testLargeAttachmentWithCappedHeap() throws Exception {
+		Assume.assumeTrue("large attachment test is disabled (run with -D" + LARGE_TEST_PROPERTY + "=true)",
+							Boolean.getBoolean(LARGE_TEST_PROPERTY));
+
+		long size = Long.getLong("mdt.test.attachmentSize", DEFAULT_LARGE_SIZE);
+		String java = ProcessHandle.current().info().command().orElse("java");
+		List<String> command = List.of(java, CAPPED_HEAP, "-cp", System.getProperty("java.class.path"),
+										LargeTransfer.class.getName(), m_temp.newFolder().getAbsolutePath(),
+										String.valueOf(size));
+
+		// 자식 JVM이 멈춰도 출력을 읽느라 기다리지 않도록 출력은 파일로 받는다.
+		File log = m_temp.newFile("large-transfer.log");
+		Process proc = new ProcessBuilder(command).redirectErrorStream(true)
+													.redirectOutput(log)
+													.start();
+		if ( !proc.waitFor(LARGE_TEST_TIMEOUT_MINUTES, TimeUnit.MINUTES) ) {
+			proc.destroyForcibly().waitFor();
+			fail("large attachment transfer timed out: " + Files.readString(log.toPath()));
+		}
+		assertEquals(Files.readString(log.toPath()), 0, proc.exitValue());
+	}
+
+	/**
+	 * 힙이 제한된 JVM에서 대용량 첨부 파일을 옮기는 프로그램.
+	 * <p>
+	 * 참조 대상의 첨부 파일 읽기·갱신({@link MDTElementReference#readAttachment(File)},
+	 * {@link MDTElementReference#updateAttachment(File)})은 로컬 HTTP 스텁({@link AttachmentStub})과 스트리밍으로
+	 * 주고받도록 대역을 둔다. 첨부 파일을 스텁에서 스테이징 파일로 받아 변수 파일로 옮기고, 참조 대상이
+	 * {@link FileValue}인 출력 변수로 직렬화하여 변수 파일을 다시 스텁으로 올린 뒤, 각 단계의 내용 다이제스트를
+	 * 원본과 비교한다.
+	 */
+	public static class LargeTransfer {
+		public static void main(String... args) throws Exception {
+			File dir = new File(args[0]);
+			long size = Long.parseLong(args[1]);
+
+			// 참조 대상에 저장된 첨부 파일. 내용은 희소 파일의 0과 끝부분의 표식이다.
+			File remote = new File(dir, "remote");
+			try ( RandomAccessFile raf = new RandomAccessFile(remote, "rw") ) {
+				raf.setLength(size);
+				raf.seek(size - 4);
+				raf.write(new byte[] { 'M', 'D', 'T', '!' });
+			}
+			MessageDigest expected = MessageDigest.getInstance("SHA-256");
+			AttachmentStreams.digest(remote, expected);
+			byte[] expectedDigest = expected.digest();
+
+			try ( AttachmentStub stub = new AttachmentStub(remote) ) {
+				MDTElementReference ref = mock(MDTElementReference.class);
+				FileValue proto = mock(FileValue.class);
+				FileValue updated = mock(FileValue.class);
+				when(updated.toJsonNode()).thenReturn(TextNode.valueOf("mesh"));
+				doAnswer(inv -> {
+					stub.download(inv.getArgument(0));
+					return null;
+				}).when(ref).readAttachment(any(File.class));
+				when(ref.updateAttachment(any(File.class))).thenAnswer(inv -> {
+					stub.upload(inv.getArgument(0));
+					return updated;
+				});
+
+				// 입력: 스텁에서 스테이징 파일로 받아 변수 파일로 옮긴다.
+				File staged = new File(dir, "staged");
+				ref.readAttachment(staged);
+				File cvDir = new File(dir, "cv");
+				cvDir.mkdirs();
+				File varFile = new File(cvDir, "mesh");
+				AttachmentStreams.move(staged, varFile);
+				check(varFile.length() == size, "var file size=" + varFile.length() + ", size=" + size);
+
+				MessageDigest actual = MessageDigest.getInstance("SHA-256");
+				AttachmentStreams.digest(varFile, actual);
+				check(MessageDigest.isEqual(expectedDigest, actual.digest()), "downloaded digest mismatch");
+
+				// 출력: 변수 파일을 참조 대상 갱신으로 스텁에 올린다.
+				MDTCommandVariable var = new MDTCommandVariable("mesh", varFile, ref, proto);
+				check(TextNode.valueOf("mesh").equals(var.toJsonNode()), "unexpected serialized value");
+				verify(ref).updateAttachment(varFile);
+				check(stub.getUploadedSize() == size, "uploaded=" + stub.getUploadedSize() + ", size=" + size);
+				check(MessageDigest.isEqual(expectedDigest, stub.getUploadedDigest()), "uploaded digest mismatch");
+			}
+		}
+
+		private static void check(boolean cond, String msg) throws IOException {
+			if ( !cond ) {
+				throw new IOException(msg);
+			}
+		}
+	}
+
+	/**
+	 * 참조 대상의 첨부 파일 저장소 역할을 하는 로컬 HTTP 스텁.
+	 * <p>
+	 * {@code GET /attachment}는 주어진 파일을 내려 보내고, {@code PUT /attachment}는 받은 내용을 저장하지 않고
+	 * 크기와 다이제스트만 기록한다. 양방향 모두 고정 크기 버퍼로 흘려 보낸다.
+	 */
+	static class AttachmentStub implements AutoCloseable {
+		private final File m_content;
+		private final HttpServer m_server;
+		private volatile long m_uploadedSize = -1;
+		private volatile byte[] m_uploadedDigest;
+
+		AttachmentStub(File content) throws IOException {
+			m_content = content;
+			m_server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+			m_server.createContext("/attachment", this::handle);
+			m_server.start();
+		}
+
+		long getUploadedSize() {
+			return m_uploadedSize;
+		}
+
+		byte[] getUploadedDigest() {
+			return m_uploadedDigest;
+		}
+
+		void download(File file) throws IOException {
+			HttpURLConnection conn = open();
+			try ( InputStream in = conn.getInputStream() ) {
+				check(conn);
+				Files.copy(in, file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+			}
+			finally {
+				conn.disconnect();
+			}
+		}
+
+		void upload(File file) throws IOException {
+			HttpURLConnection conn = open();
+			conn.setRequestMethod("PUT");
+			conn.setDoOutput(true);
+			conn.setFixedLengthStreamingMode(file.length());
+			try ( OutputStream out = conn.getOutputStream() ) {
+				Files.copy(file.toPath(), out);
+			}
+			try {
+				check(conn);
+			}
+			finally {
+				conn.disconnect();
+			}
+		}
+
+		@Override
+		public void close() {
+			m_server.stop(0);
+		}
+
+		private HttpURLConnection open() throws IOException {
+			URL url = URI.create("http://" + InetAddress.getLoopbackAddress().getHostAddress() + ":"
+									+ m_server.getAddress().getPort() + "/attachment").toURL();
+			return (HttpURLConnection)url.openConnection();
+		}
+
+		private static void check(HttpURLConnection conn) throws IOException {
+			int code = conn.getResponseCode();
+			if ( code != HttpURLConnection.HTTP_OK ) {
+				throw new IOException("attachment stub failed: code=" + code);
+			}
+		}
+
+		private void handle(HttpExchange exchange) throws IOException {
+			try ( exchange ) {
+				switch ( exchange.getRequestMethod() ) {
+					case "GET":
+						exchange.sendResponseHeaders(HttpURLConnection.HTTP_OK, m_content.length());
+						try ( OutputStream out = exchange.getResponseBody() ) {
+							Files.copy(m_content.toPath(), out);
+						}
+						break;
+					case "PUT":
+						MessageDigest digest = MessageDigest.getInstance("SHA-256");
+						byte[] buf = new byte[64 * 1024];
+						long total = 0;
+						try ( InputStream in = exchange.getRequestBody() ) {
+							for ( int n; (n = in.read(buf)) >= 0; ) {
+								digest.update(buf, 0, n);
+								total += n;
+							}
+						}
+						m_uploadedSize = total;
+						m_uploadedDigest = digest.digest();
+						exchange.sendResponseHeaders(HttpURLConnection.HTTP_OK, -1);
+						break;
+					default:
+						exchange.sendResponseHeaders(HttpURLConnection.HTTP_BAD_METHOD, -1);
+				}
+			}
+			catch ( NoSuchAlgorithmException e ) {
+				throw new IOException(e);
+			}
+		}
+	}
+}
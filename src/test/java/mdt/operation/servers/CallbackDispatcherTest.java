@@ -0,0 +1,133 @@
+package mdt.operation.servers;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.sun.net.httpserver.HttpServer;
+
+
+/**
+ * {@link CallbackDispatcher}의 전달/재시도 테스트. 로컬 HTTP 스텁 서버를 대상으로 한다.
+ *
+ * @author Kang-Woo Lee (ETRI)
+ */
+public class CallbackDispatcherTest {
+	private HttpServer m_server;
+	private URI m_target;
+	private final List<String> m_bodies = new CopyOnWriteArrayList<>();
+	private final List<String> m_sessions = new CopyOnWriteArrayList<>();
+	private final List<String> m_events = new CopyOnWriteArrayList<>();
+	private final AtomicInteger m_failuresLeft = new AtomicInteger();
+	private volatile int m_failureStatus = 503;
+	private CountDownLatch m_received;
+	private CallbackDispatcher m_dispatcher;
+
+	@Before
+	public void setup() throws IOException {
+		m_received = new CountDownLatch(1);
+		m_server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+		m_server.createContext("/callback", exchange -> {
+			try ( InputStream is = exchange.getRequestBody() ) {
+				String body = new String(is.readAllBytes(), StandardCharsets.UTF_8);
+				int status = (m_failuresLeft.getAndDecrement() > 0) ? m_failureStatus : 204;
+				if ( status == 204 ) {
+					m_bodies.add(body);
+					m_sessions.add(exchange.getRequestHeaders().getFirst(CallbackDispatcher.SESSION_HEADER));
+					m_events.add(exchange.getRequestHeaders().getFirst(CallbackDispatcher.EVENT_HEADER));
+					m_received.countDown();
+				}
+				exchange.sendResponseHeaders(status, -1);
+			}
+			finally {
+				exchange.close();
+			}
+		});
+		m_server.start();
+		m_target = URI.create("http://127.0.0.1:" + m_server.getAddress().getPort() + "/callback");
+		m_dispatcher = new CallbackDispatcher(2, 16, 3, Duration.ofMillis(20), Duration.ofSeconds(5));
+	}
+
+	@After
+	public void tearDown() {
+		m_dispatcher.close();
+		m_server.stop(0);
+	}
+
+	@Test
+	public void testDelivered() throws Exception {
+		assertTrue(m_dispatcher.submit(m_target, "/sessions/s1", "{\"state\":\"COMPLETED\"}"));
+
+		assertTrue(m_received.await(10, TimeUnit.SECONDS));
+		assertEquals(List.of("{\"state\":\"COMPLETED\"}"), m_bodies);
+		assertEquals(List.of("/sessions/s1"), m_sessions);
+		assertEquals(List.of(CallbackDispatcher.EVENT_STATE), m_events);
+	}
+
+	@Test
+	public void testGoneDelivered() throws Exception {
+		assertTrue(m_dispatcher.submitGone(m_target, "/sessions/s1"));
+
+		assertTrue(m_received.await(10, TimeUnit.SECONDS));
+		assertEquals(List.of("{\"session\":\"/sessions/s1\"}"), m_bodies);
+		assertEquals(List.of(CallbackDispatcher.EVENT_GONE), m_events);
+	}
+
+	@Test
+	public void testRetriedOnServerError() throws Exception {
+		m_failuresLeft.set(2);
+		m_dispatcher.submit(m_target, "/sessions/s1", "{}");
+
+		assertTrue(m_received.await(10, TimeUnit.SECONDS));
+		assertEquals(1, m_bodies.size());
+	}
+
+	@Test
+	public void testNotRetriedOnClientError() throws Exception {
+		m_failureStatus = 400;
+		m_failuresLeft.set(1);
+		m_dispatcher.submit(m_target, "/sessions/s1", "{}");
+
+		assertFalse(m_received.await(500, TimeUnit.MILLISECONDS));
+		assertTrue(m_bodies.isEmpty());
+	}
+
+	@Test
+	public void testInvalidCallbackUrlRejected() {
+		assertThrows(IllegalArgumentException.class, () -> CallbackDispatcher.toCallbackUri("relative/path"));
+		assertThrows(IllegalArgumentException.class, () -> CallbackDispatcher.toCallbackUri("ftp://host/x"));
+		assertEquals(m_target, CallbackDispatcher.toCallbackUri(m_target.toString()));
+	}
+
+	@Test
+	public void testCallbackHostAllowList() {
+		List<String> allowed = List.of("hooks.example.com", "*.internal.example.org", "127.0.0.1");
+
+		assertEquals(m_target, CallbackDispatcher.toCallbackUri(m_target.toString(), allowed));
+		CallbackDispatcher.toCallbackUri("https://HOOKS.example.com/cb", allowed);
+		CallbackDispatcher.toCallbackUri("http://a.b.internal.example.org:8080/cb", allowed);
+		assertThrows(IllegalArgumentException.class,
+					() -> CallbackDispatcher.toCallbackUri("http://169.254.169.254/latest", allowed));
+		assertThrows(IllegalArgumentException.class,
+					() -> CallbackDispatcher.toCallbackUri("http://evilhooks.example.com/cb", allowed));
+		assertThrows(IllegalArgumentException.class,
+					() -> CallbackDispatcher.toCallbackUri("http://internal.example.org.evil.com/cb", allowed));
+	}
+}
@@ -0,0 +1,87 @@
+package mdt.operation.servers;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import mdt.operation.servers.DispatcherMetrics.Phase;
+
+
+/**
+ * {@link DispatcherMetrics}의 단계 타이머 태그, 세션 게이지, 세션 조회 카운터 테스트.
+ *
+ * @author Kang-Woo Lee (ETRI)
+ */
+public class DispatcherMetricsTest {
+	private SimpleMeterRegistry m_registry;
+	private DispatcherMetrics m_metrics;
+
+	@Before
+	public void setup() {
+		m_registry = new SimpleMeterRegistry();
+		m_metrics = new DispatcherMetrics(m_registry);
+	}
+
+	private Timer timer(Phase phase, String opId, String outcome) {
+		return m_registry.find(DispatcherMetrics.PHASE_TIMER)
+						.tag("phase", phase.name().toLowerCase())
+						.tag("operation", opId)
+						.tag("outcome", outcome)
+						.timer();
+	}
+
+	@Test
+	public void testPhaseTimersAreTaggedByOperationAndOutcome() {
+		m_metrics.record(Phase.PARSE, "op1", DispatcherMetrics.OK, TimeUnit.MILLISECONDS.toNanos(3));
+		m_metrics.record(Phase.PARSE, "op1", DispatcherMetrics.OK, TimeUnit.MILLISECONDS.toNanos(5));
+		m_metrics.scope("op1").record(Phase.WRITE_BACK, DispatcherMetrics.ERROR, System.nanoTime());
+		m_metrics.scope("op2").record(Phase.RUN, "completed", System.nanoTime());
+
+		Timer parse = timer(Phase.PARSE, "op1", DispatcherMetrics.OK);
+		assertNotNull(parse);
+		assertEquals(2, parse.count());
+		assertEquals(8, parse.totalTime(TimeUnit.MILLISECONDS), 0.001);
+
+		assertEquals(1, timer(Phase.WRITE_BACK, "op1", DispatcherMetrics.ERROR).count());
+		assertEquals(1, timer(Phase.RUN, "op2", "completed").count());
+		assertNull(timer(Phase.RUN, "op1", "completed"));
+	}
+
+	@Test
+	public void testSessionGauges() throws Exception {
+		AdmissionController admission = new AdmissionController(1, 1);
+		SessionIndex index = new SessionIndex();
+		m_metrics.bindSessionGauges(admission, index);
+
+		AdmissionController.Permit permit = admission.acquire("op", OperationPolicy.DEFAULT, 0, Duration.ofSeconds(1));
+		assertEquals(1, m_registry.get("mdt.sessions.active").gauge().value(), 0);
+		assertEquals(0, m_registry.get("mdt.sessions.queued").gauge().value(), 0);
+		assertEquals(0, m_registry.get("mdt.sessions.indexed").gauge().value(), 0);
+
+		permit.close();
+		assertEquals(0, m_registry.get("mdt.sessions.active").gauge().value(), 0);
+	}
+
+	@Test
+	public void testSessionLookupCounters() {
+		m_metrics.recordSessionLookup(true);
+		m_metrics.recordSessionLookup(true);
+		m_metrics.recordSessionLookup(false);
+
+		assertEquals(2, lookups("index"), 0);
+		assertEquals(1, lookups("miss"), 0);
+	}
+
+	private double lookups(String result) {
+		return m_registry.get(DispatcherMetrics.SESSION_LOOKUP_COUNTER).tag("result", result).counter().count();
+	}
+}
@@ -1,13 +1,30 @@
 package mdt.operation.servers;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertThrows;
 import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 
 import java.io.File;
 import java.io.IOException;
 import java.nio.file.Files;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.junit.Before;
 import org.junit.Rule;
@@ -22,13 +39,16 @@ import utils.async.command.CommandVariable;
 
 import mdt.model.MDTModelSerDe;
 import mdt.model.instance.MDTInstanceManager;
+import mdt.model.sm.ref.MDTElementReference;
+import mdt.model.sm.value.ElementValue;
+import mdt.model.sm.value.FileValue;
 
 
 /**
  * {@link MDTCommandVariableSerDe} 역직렬화/직렬화 테스트.
  * <p>
- * MDT 요소 참조({@code mdt:ref:*})/{@link mdt.model.sm.value.ElementValue}({@code mdt:value:*}) 경로는
- * 실제 MDT 인스턴스 인프라가 필요하므로, 인프라 없이 검증 가능한 일반 값 경로와 인자 검증을 다룬다.
+ * MDT 요소 참조({@code mdt:ref:*}) 경로는 참조 JSON을 모의(mock) 참조로 변환하는 SerDe로 검증하며,
+ * {@link mdt.model.sm.value.ElementValue}({@code mdt:value:*}) 경로는 실제 값 파서가 필요하므로 다루지 않는다.
  *
  * @author Kang-Woo Lee (ETRI)
  */
@@ -52,6 +72,26 @@ public class MDTCommandVariableSerDeTest {
 		return MAPPER.readTree(literal);
 	}
 
+	private JsonNode refJson(String ref) throws IOException {
+		return json("{\"@type\":\"mdt:ref:elm\",\"ref\":\"" + ref + "\"}");
+	}
+
+	/**
+	 * 참조 JSON의 {@code ref} 속성으로 {@code refs}의 모의 참조를 찾아 쓰는 SerDe를 생성한다.
+	 */
+	private MDTCommandVariableSerDe serdeOf(Map<String,MDTElementReference> refs, int concurrency) {
+		return new MDTCommandVariableSerDe(m_manager, concurrency,
+											new ElementPrototypeCache(ElementPrototypeCache.DEFAULT_MAX_SIZE,
+																		ElementPrototypeCache.DEFAULT_TTL),
+											jnode -> refs.get(jnode.path("ref").asText()));
+	}
+
+	private static ElementValue valueOf(Object valueObject) {
+		ElementValue value = mock(ElementValue.class);
+		doReturn(valueObject).when(value).toValueObject();
+		return value;
+	}
+
 	// ----- deserialize: 일반 값 (@type 없음) -----
 
 	@Test
@@ -72,6 +112,47 @@ public class MDTCommandVariableSerDeTest {
 		assertEquals(input, kv.value());
 	}
 
+	@Test
+	public void testPlainOutputParsedFromVariableFile() throws IOException {
+		CommandVariable var = m_serde.deserialize("y", m_dir, json("[]"));
+
+		// 연산 프로세스가 변수 파일에 기록한 큰 출력을 그대로 읽어 변환하고, 읽은 뒤에는 파일을 닫는다.
+		StringBuilder series = new StringBuilder("[");
+		for ( int i = 0; i < 50_000; ++i ) {
+			series.append(i > 0 ? "," : "").append(i * 0.5);
+		}
+		File file = new File(m_dir, "y");
+		Files.writeString(file.toPath(), series.append(']').toString());
+
+		JsonNode output = m_serde.serialize(var).value();
+		assertEquals(50_000, output.size());
+		assertEquals(24_999.5, output.get(49_999).asDouble(), 0);
+		Files.delete(file.toPath());
+	}
+
+	@Test
+	public void testSpilledValueMovedToVariableFile() throws IOException {
+		File spilled = m_temp.newFile("spilled.json");
+		Files.writeString(spilled.toPath(), "{\"v\":[1,2,3]}");
+		JsonNode marker = json("{\"@type\":\"" + StreamingRequestReader.SPILL_TYPE + "\",\"size\":15}");
+
+		try ( SpilledValues spills = new SpilledValues(); ReferenceBatch batch = m_serde.resolveAll(Map.of()) ) {
+			spills.put("x", spilled);
+			batch.setSpills(spills);
+
+			CommandVariable var = m_serde.deserialize("x", m_dir, marker);
+			assertEquals(json("{\"v\":[1,2,3]}"), m_serde.serialize(var).value());
+			assertTrue(new File(m_dir, "x").exists());
+			assertFalse(spilled.exists());
+		}
+	}
+
+	@Test
+	public void testSpillMarkerWithoutFileRejected() throws IOException {
+		JsonNode marker = json("{\"@type\":\"" + StreamingRequestReader.SPILL_TYPE + "\"}");
+		assertThrows(IOException.class, () -> m_serde.deserialize("x", m_dir, marker));
+	}
+
 	// ----- deserialize: 인자 검증 -----
 
 	@Test
@@ -104,6 +185,253 @@ public class MDTCommandVariableSerDeTest {
 					() -> m_serde.deserialize("x", m_dir, json("{\"@type\":\"foo:bar\"}")));
 	}
 
+	// ----- resolveAll: 참조 입력 병렬 해석 -----
+
+	@Test
+	public void testResolveAllIgnoresNonReferenceInputs() throws IOException {
+		Map<String,JsonNode> inputs = Map.of("x", json("{\"v\":7}"),
+											"y", json("{\"@type\":\"mdt:value:property\"}"));
+		try ( ReferenceBatch batch = m_serde.resolveAll(inputs) ) {
+			assertEquals(0, batch.size());
+			assertEquals(batch, ReferenceBatch.current());
+
+			CommandVariable var = m_serde.deserialize("x", m_dir, inputs.get("x"));
+			assertEquals("x", var.getName());
+		}
+		assertNull(ReferenceBatch.current());
+	}
+
+	@Test
+	public void testResolveAllNullRejected() {
+		assertThrows(IllegalArgumentException.class, () -> m_serde.resolveAll(null));
+	}
+
+	// ----- resolveShared: 일괄 요청 항목들의 공통 참조 입력 -----
+
+	@Test
+	public void testResolveSharedSkipsReferencesUsedOnce() throws IOException {
+		JsonNode ref1 = json("{\"@type\":\"mdt:ref:elm\",\"ref\":\"param:a:p1\"}");
+		JsonNode ref2 = json("{\"@type\":\"mdt:ref:elm\",\"ref\":\"param:a:p2\"}");
+		List<Map<String,JsonNode>> items = List.of(Map.of("x", ref1, "y", ref1), Map.of("x", ref2));
+		try ( SharedReferences shared = m_serde.resolveShared(items) ) {
+			assertEquals(0, shared.size());
+		}
+	}
+
+	@Test
+	public void testResolveAllUsesSharedResolution() throws IOException {
+		JsonNode ref = json("{\"@type\":\"mdt:ref:elm\",\"ref\":\"param:a:p1\"}");
+		// 속성 순서만 다른 참조도 같은 공유 결과를 사용한다.
+		JsonNode reordered = json("{\"ref\":\"param:a:p1\",\"@type\":\"mdt:ref:elm\"}");
+		IOException failure = new IOException("shared failure");
+		try ( SharedReferences shared = new SharedReferences() ) {
+			shared.put(ReferenceKeys.canonical(ref), new ReferenceBatch.Resolution(ref, null, null, null, failure));
+
+			try ( ReferenceBatch batch = m_serde.resolveAll(Map.of("x", reordered), Map.of(), shared) ) {
+				assertEquals(1, batch.size());
+				IOException thrown = assertThrows(IOException.class,
+												() -> m_serde.deserialize("x", m_dir, reordered));
+				assertSame(failure, thrown.getCause());
+			}
+		}
+	}
+
+	@Test
+	public void testResolveAllResolvesReferencesInParallel() throws Exception {
+		// 모든 참조가 동시에 읽혀야만 래치가 열리므로, 순차 해석이면 시간 초과로 실패한다.
+		int count = 4;
+		CountDownLatch latch = new CountDownLatch(count);
+		Map<String,MDTElementReference> refs = new HashMap<>();
+		Map<String,JsonNode> inputs = new HashMap<>();
+		for ( int i = 0; i < count; ++i ) {
+			MDTElementReference ref = mock(MDTElementReference.class);
+			ElementValue value = valueOf(i);
+			doAnswer(inv -> {
+				latch.countDown();
+				if ( !latch.await(5, TimeUnit.SECONDS) ) {
+					throw new IOException("references were not resolved in parallel");
+				}
+				return value;
+			}).when(ref).readValue();
+			refs.put("param:a:p" + i, ref);
+			inputs.put("x" + i, refJson("param:a:p" + i));
+		}
+
+		MDTCommandVariableSerDe serde = serdeOf(refs, count);
+		try ( ReferenceBatch batch = serde.resolveAll(inputs) ) {
+			assertEquals(count, batch.size());
+			for ( int i = 0; i < count; ++i ) {
+				CommandVariable var = serde.deserialize("x" + i, m_dir, inputs.get("x" + i));
+				assertEquals(Integer.toString(i), var.getValue());
+			}
+			batch.checkConsumed();
+		}
+		// 역직렬화는 미리 해석된 결과를 사용하므로 참조 대상을 다시 읽지 않는다.
+		for ( MDTElementReference ref: refs.values() ) {
+			verify(ref).activate(m_manager);
+			verify(ref, times(1)).readValue();
+		}
+	}
+
+	@Test
+	public void testResolveAllBoundsConcurrency() throws Exception {
+		AtomicInteger inFlight = new AtomicInteger();
+		AtomicInteger maxInFlight = new AtomicInteger();
+		Map<String,MDTElementReference> refs = new HashMap<>();
+		Map<String,JsonNode> inputs = new HashMap<>();
+		for ( int i = 0; i < 6; ++i ) {
+			MDTElementReference ref = mock(MDTElementReference.class);
+			ElementValue value = valueOf(i);
+			doAnswer(inv -> {
+				maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+				try {
+					Thread.sleep(50);
+					return value;
+				}
+				finally {
+					inFlight.decrementAndGet();
+				}
+			}).when(ref).readValue();
+			refs.put("param:a:p" + i, ref);
+			inputs.put("x" + i, refJson("param:a:p" + i));
+		}
+
+		try ( ReferenceBatch batch = serdeOf(refs, 2).resolveAll(inputs) ) {
+			assertEquals(6, batch.size());
+		}
+		assertEquals(2, maxInFlight.get());
+	}
+
+	@Test
+	public void testResolveAllPropagatesFailureToItsVariableOnly() throws Exception {
+		IOException failure = new IOException("instance is not running");
+		MDTElementReference good = mock(MDTElementReference.class);
+		doReturn(valueOf(7)).when(good).readValue();
+		MDTElementReference bad = mock(MDTElementReference.class);
+		doThrow(failure).when(bad).readValue();
+
+		MDTCommandVariableSerDe serde = serdeOf(Map.of("param:a:good", good, "param:a:bad", bad), 2);
+		Map<String,JsonNode> inputs = Map.of("x", refJson("param:a:good"), "y", refJson("param:a:bad"));
+		try ( ReferenceBatch batch = serde.resolveAll(inputs) ) {
+			assertEquals(2, batch.size());
+			CommandVariable var = serde.deserialize("x", m_dir, inputs.get("x"));
+			assertEquals("7", var.getValue());
+
+			IOException thrown = assertThrows(IOException.class,
+											() -> serde.deserialize("y", m_dir, inputs.get("y")));
+			assertSame(failure, thrown.getCause());
+		}
+		// 실패한 결과도 꺼내 썼으므로 다시 해석하지 않는다.
+		verify(bad, times(1)).readValue();
+	}
+
+	@Test
+	public void testOutputReferenceReadsOnlyPrototype() throws Exception {
+		MDTElementReference ref = mock(MDTElementReference.class);
+		MDTCommandVariableSerDe serde = serdeOf(Map.of("param:a:file", ref), 2);
+		JsonNode output = refJson("param:a:file");
+		serde.getPrototypeCache().put(ReferenceKeys.canonical(output), mock(FileValue.class));
+
+		try ( ReferenceBatch batch = serde.resolveAll(Map.of(), Map.of("y", output)) ) {
+			CommandVariable var = serde.deserialize("y", m_dir, output);
+			assertSame(ref, ((MDTCommandVariable)var).getReference());
+			batch.checkConsumed();
+		}
+		// 출력은 프로세스가 기록하므로 참조 대상의 값이나 첨부 파일을 읽지 않는다.
+		verify(ref, never()).readValue();
+		verify(ref, never()).readAttachment(any(File.class));
+	}
+
+	@Test
+	public void testFailedWriteBackIsNotRetried() throws Exception {
+		IOException failure = new IOException("update failed");
+		MDTElementReference ref = mock(MDTElementReference.class);
+		doThrow(failure).when(ref).updateAttachment(any(File.class));
+		MDTCommandVariableSerDe serde = serdeOf(Map.of("param:a:file", ref), 2);
+		JsonNode output = refJson("param:a:file");
+		String refKey = ReferenceKeys.canonical(output);
+		serde.getPrototypeCache().put(refKey, mock(FileValue.class));
+
+		try ( ReferenceBatch batch = serde.resolveAll(Map.of(), Map.of("y", output)) ) {
+			CommandVariable var = serde.deserialize("y", m_dir, output);
+			IOException thrown = assertThrows(IOException.class, () -> serde.serialize(var));
+			assertSame(failure, thrown);
+		}
+		// 기록 실패는 형태 불일치가 아니므로 다시 기록하지 않고, 다음 요청이 형태를 다시 읽도록 캐시만 비운다.
+		verify(ref, times(1)).updateAttachment(any(File.class));
+		verify(ref, never()).readValue();
+		assertNull(serde.getPrototypeCache().get(refKey));
+	}
+
+	@Test
+	public void testUnconsumedBatchDetected() throws Exception {
+		MDTElementReference ref = mock(MDTElementReference.class);
+		doReturn(valueOf(7)).when(ref).readValue();
+		MDTCommandVariableSerDe serde = serdeOf(Map.of("param:a:p1", ref), 2);
+		Map<String,JsonNode> inputs = Map.of("x", refJson("param:a:p1"), "y", json("{\"v\":1}"));
+		try ( ReferenceBatch batch = serde.resolveAll(inputs) ) {
+			// 다른 스레드에서 역직렬화된 변수는 사용된 것으로 보지 않는다.
+			Thread other = Thread.ofVirtual().start(() -> {
+				try {
+					serde.deserialize("x", m_temp.newFolder("other"), inputs.get("x"));
+				}
+				catch ( IOException e ) {
+					throw new AssertionError(e);
+				}
+			});
+			other.join();
+			serde.deserialize("y", m_dir, inputs.get("y"));
+			assertThrows(IllegalStateException.class, batch::checkConsumed);
+
+			serde.deserialize("x", m_dir, inputs.get("x"));
+			batch.checkConsumed();
+		}
+	}
+
+	@Test
+	public void testPlainVariablesAreNotRequiredToBeConsumed() throws Exception {
+		MDTElementReference ref = mock(MDTElementReference.class);
+		MDTCommandVariableSerDe serde = serdeOf(Map.of("param:a:out", ref), 2);
+		serde.getPrototypeCache().put(ReferenceKeys.canonical(refJson("param:a:out")), valueOf(0));
+		JsonNode marker = json("{\"@type\":\"" + StreamingRequestReader.SPILL_TYPE + "\"}");
+		Map<String,JsonNode> inputs = Map.of("plain", json("{\"v\":1}"), "spilled", marker,
+											"undeclared", json("3"));
+		Map<String,JsonNode> outputs = Map.of("y", refJson("param:a:out"), "z", json("0"));
+		try ( ReferenceBatch batch = serde.resolveAll(inputs, outputs, null) ) {
+			// 묶음 없이도 같은 결과로 역직렬화되는 일반 값 변수들은 역직렬화되지 않아도 된다.
+			serde.deserialize("y", m_dir, outputs.get("y"));
+			assertThrows(IllegalStateException.class, batch::checkConsumed);
+
+			// 임시 파일로 옮겨 적은 입력은 이 묶음을 통해야만 값을 얻을 수 있다.
+			batch.deserialized("spilled");
+			batch.checkConsumed();
+		}
+	}
+
+	@Test
+	public void testNonPositiveResolveConcurrencyRejected() {
+		assertThrows(IllegalArgumentException.class, () -> new MDTCommandVariableSerDe(m_manager, 0));
+	}
+
+	// ----- ElementPrototypeCache -----
+
+	@Test
+	public void testPrototypeCachePutGetInvalidate() {
+		ElementPrototypeCache cache = m_serde.getPrototypeCache();
+		ElementValue proto = mock(ElementValue.class);
+
+		cache.put("ref", proto);
+		assertEquals(proto, cache.get("ref"));
+
+		cache.invalidate("ref");
+		assertNull(cache.get("ref"));
+	}
+
+	@Test
+	public void testPrototypeCacheZeroTtlRejected() {
+		assertThrows(IllegalArgumentException.class, () -> new ElementPrototypeCache(10, Duration.ZERO));
+	}
+
 	// ----- serialize: 인자 검증 -----
 
 	@Test
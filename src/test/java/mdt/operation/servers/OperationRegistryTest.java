@@ -0,0 +1,112 @@
+package mdt.operation.servers;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.mockito.Mockito.mock;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import utils.rpc.restful.RESTfulAsyncRpcServer;
+
+
+/**
+ * {@link OperationRegistry}의 지연 로딩/단일 생성/부정 캐시 테스트.
+ *
+ * @author Kang-Woo Lee (ETRI)
+ */
+public class OperationRegistryTest {
+	@Rule public TemporaryFolder m_temp = new TemporaryFolder();
+
+	private File m_opsDir;
+	private AtomicInteger m_loadCount;
+	private OperationRegistry m_registry;
+
+	@Before
+	public void setup() throws IOException {
+		m_opsDir = m_temp.newFolder("operations");
+		m_loadCount = new AtomicInteger();
+		m_registry = new OperationRegistry(() -> m_opsDir, (id, desc) -> {
+			m_loadCount.incrementAndGet();
+			return mock(RESTfulAsyncRpcServer.class);
+		}, 16, Duration.ofMinutes(1));
+	}
+
+	private void createOperation(String opId) throws IOException {
+		File dir = new File(m_opsDir, opId);
+		dir.mkdirs();
+		Files.writeString(new File(dir, OperationRegistry.DESCRIPTOR_FILE_NAME).toPath(), "{}");
+	}
+
+	@Test
+	public void testLoadAll() throws IOException {
+		createOperation("a");
+		createOperation("b");
+		new File(m_opsDir, "no-descriptor").mkdirs();
+
+		assertEquals(2, m_registry.loadAll());
+		assertNotNull(m_registry.get("a"));
+		assertNotNull(m_registry.get("b"));
+		assertNull(m_registry.get("no-descriptor"));
+	}
+
+	@Test
+	public void testConcurrentFirstRequestsBuildOnce() throws Exception {
+		createOperation("op");
+
+		int nthreads = 16;
+		CountDownLatch start = new CountDownLatch(1);
+		ExecutorService executor = Executors.newFixedThreadPool(nthreads);
+		try {
+			List<Future<RpcServerInfo>> futures = new ArrayList<>();
+			for ( int i = 0; i < nthreads; ++i ) {
+				futures.add(executor.submit(() -> {
+					start.await();
+					return m_registry.getOrLoad("op");
+				}));
+			}
+			start.countDown();
+
+			RpcServerInfo first = futures.get(0).get();
+			for ( Future<RpcServerInfo> future: futures ) {
+				assertSame(first, future.get());
+			}
+		}
+		finally {
+			executor.shutdownNow();
+		}
+		assertEquals(1, m_loadCount.get());
+	}
+
+	@Test
+	public void testUnknownIdServedFromNegativeCache() throws IOException {
+		assertNull(m_registry.getOrLoad("later"));
+
+		// 부정 캐시가 유효한 동안은 디스크립터가 생겨도 디렉토리를 다시 확인하지 않는다.
+		createOperation("later");
+		assertNull(m_registry.getOrLoad("later"));
+		assertEquals(0, m_loadCount.get());
+	}
+
+	@Test
+	public void testPathLikeIdRejected() throws IOException {
+		assertNull(m_registry.getOrLoad(".."));
+		assertNull(m_registry.getOrLoad("a/b"));
+	}
+}
@@ -0,0 +1,133 @@
+package mdt.operation.servers;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import utils.rpc.restful.RESTfulAsyncRpcServer;
+
+
+/**
+ * {@link OperationsDirectoryWatcher}의 등록/교체/해제 반영 테스트.
+ *
+ * @author Kang-Woo Lee (ETRI)
+ */
+public class OperationsDirectoryWatcherTest {
+	private static final long TIMEOUT_MILLIS = 15_000;
+
+	@Rule public TemporaryFolder m_temp = new TemporaryFolder();
+
+	private File m_opsDir;
+	private AtomicInteger m_loadCount;
+	private OperationRegistry m_registry;
+	private List<RpcServerInfo> m_retired;
+	private OperationsDirectoryWatcher m_watcher;
+
+	@Before
+	public void setup() throws IOException {
+		m_opsDir = m_temp.newFolder("operations");
+		m_loadCount = new AtomicInteger();
+		m_retired = new CopyOnWriteArrayList<>();
+	}
+
+	@After
+	public void tearDown() throws IOException {
+		if ( m_watcher != null ) {
+			m_watcher.close();
+		}
+	}
+
+	private void startWatcher() throws IOException {
+		OperationRegistry.ServerLoader loader = (id, desc) -> {
+			String content = Files.readString(desc.toPath());
+			if ( content.contains("broken") ) {
+				throw new IOException("invalid descriptor: " + desc);
+			}
+			m_loadCount.incrementAndGet();
+			return mock(RESTfulAsyncRpcServer.class);
+		};
+		m_registry = new OperationRegistry(() -> m_opsDir, loader);
+		m_watcher = new OperationsDirectoryWatcher(m_opsDir, m_registry, loader, Duration.ofMillis(50),
+													m_retired::add);
+	}
+
+	private File writeDescriptor(String opId, String content) throws IOException {
+		File dir = new File(m_opsDir, opId);
+		dir.mkdirs();
+		File desc = new File(dir, OperationRegistry.DESCRIPTOR_FILE_NAME);
+		Files.writeString(desc.toPath(), content);
+		return desc;
+	}
+
+	private static void await(BooleanSupplier cond) throws InterruptedException {
+		long due = System.currentTimeMillis() + TIMEOUT_MILLIS;
+		while ( !cond.getAsBoolean() ) {
+			assertTrue("condition not satisfied in time", System.currentTimeMillis() < due);
+			Thread.sleep(20);
+		}
+	}
+
+	@Test
+	public void testInitialReconcile() throws IOException {
+		writeDescriptor("a", "{}");
+		new File(m_opsDir, "no-descriptor").mkdirs();
+		startWatcher();
+
+		assertNotNull(m_registry.get("a"));
+		assertNull(m_registry.get("no-descriptor"));
+		assertEquals(1, m_registry.size());
+	}
+
+	@Test
+	public void testAddReplaceRetire() throws Exception {
+		startWatcher();
+
+		writeDescriptor("op", "{}");
+		await(() -> m_registry.get("op") != null);
+		RpcServerInfo first = m_registry.get("op");
+
+		// 내용(길이)이 바뀌면 새 RPC 서버로 교체된다.
+		writeDescriptor("op", "{ \"changed\": true }");
+		await(() -> m_registry.get("op") != first);
+		RpcServerInfo second = m_registry.get("op");
+		assertNotSame(first, second);
+		assertEquals(List.of(first), m_retired);
+
+		// 교체·해제된 서버는 닫을 수 있도록 전달된다.
+		Files.delete(new File(new File(m_opsDir, "op"), OperationRegistry.DESCRIPTOR_FILE_NAME).toPath());
+		await(() -> m_registry.get("op") == null);
+		assertEquals(List.of(first, second), m_retired);
+	}
+
+	@Test
+	public void testBrokenDescriptorKeepsPreviousServer() throws Exception {
+		writeDescriptor("op", "{}");
+		startWatcher();
+		RpcServerInfo first = m_registry.get("op");
+		assertNotNull(first);
+
+		writeDescriptor("op", "{ \"broken\": true }");
+		writeDescriptor("other", "{}");
+		await(() -> m_registry.get("other") != null);
+		assertEquals(first, m_registry.get("op"));
+		assertEquals(List.of(), m_retired);
+	}
+}
@@ -0,0 +1,104 @@
+package mdt.operation.servers;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThrows;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.IntNode;
+
+import mdt.model.MDTModelSerDe;
+
+
+/**
+ * {@link OutputWriteBack}의 그룹 일괄 기록 및 {@link ReferenceKeys} 키 생성 테스트.
+ *
+ * @author Kang-Woo Lee (ETRI)
+ */
+public class OutputWriteBackTest {
+	@Rule public TemporaryFolder m_temp = new TemporaryFolder();
+
+	private OutputWriteBack m_writeBack;
+
+	@Before
+	public void setup() {
+		m_writeBack = new OutputWriteBack(4);
+	}
+
+	private MDTCommandVariable output(String name, int value) throws IOException {
+		File file = m_temp.newFile(name);
+		MDTCommandVariable var = mock(MDTCommandVariable.class);
+		when(var.getName()).thenReturn(name);
+		when(var.getFile()).thenReturn(file);
+		when(var.toJsonNode()).thenReturn(IntNode.valueOf(value));
+		return var;
+	}
+
+	@Test
+	public void testAllOutputsWrittenBackOnce() throws IOException {
+		MDTCommandVariable a = output("a", 1);
+		MDTCommandVariable b = output("b", 2);
+		MDTCommandVariable c = output("c", 3);
+		m_writeBack.add(a, "inst1/sm1");
+		m_writeBack.add(b, "inst1/sm1");
+		m_writeBack.add(c, "inst2/sm1");
+
+		assertEquals(IntNode.valueOf(2), m_writeBack.writeBack(b));
+		assertEquals(IntNode.valueOf(1), m_writeBack.writeBack(a));
+		assertEquals(IntNode.valueOf(3), m_writeBack.writeBack(c));
+
+		verify(a, times(1)).toJsonNode();
+		verify(b, times(1)).toJsonNode();
+		verify(c, times(1)).toJsonNode();
+	}
+
+	@Test
+	public void testFailureReportedForFailedOutputOnly() throws IOException {
+		MDTCommandVariable ok = output("ok", 1);
+		MDTCommandVariable bad = output("bad", 2);
+		when(bad.toJsonNode()).thenThrow(new IOException("update failed"));
+		m_writeBack.add(ok, "inst1/sm1");
+		m_writeBack.add(bad, "inst2/sm1");
+
+		assertThrows(IOException.class, () -> m_writeBack.writeBack(bad));
+		assertEquals(IntNode.valueOf(1), m_writeBack.writeBack(ok));
+	}
+
+	@Test
+	public void testNonPositiveConcurrencyRejected() {
+		assertThrows(IllegalArgumentException.class, () -> new OutputWriteBack(0));
+	}
+
+	// ----- ReferenceKeys -----
+
+	private static JsonNode json(String literal) throws IOException {
+		return MDTModelSerDe.getJsonMapper().readTree(literal);
+	}
+
+	@Test
+	public void testCanonicalIgnoresFieldOrder() throws IOException {
+		JsonNode r1 = json("{\"@type\":\"mdt:ref:elm\",\"a\":1,\"b\":{\"y\":2,\"x\":1}}");
+		JsonNode r2 = json("{\"b\":{\"x\":1,\"y\":2},\"a\":1,\"@type\":\"mdt:ref:elm\"}");
+		assertEquals(ReferenceKeys.canonical(r1), ReferenceKeys.canonical(r2));
+	}
+
+	@Test
+	public void testSubmodelKeyGroupsElementsOfSameSubmodel() throws IOException {
+		JsonNode r1 = json("{\"@type\":\"mdt:ref:elm\",\"submodelReference\":{\"instanceId\":\"i\","
+							+ "\"submodelIdShort\":\"s\"},\"elementPath\":\"A\"}");
+		JsonNode r2 = json("{\"@type\":\"mdt:ref:elm\",\"submodelReference\":{\"submodelIdShort\":\"s\","
+							+ "\"instanceId\":\"i\"},\"elementPath\":\"B\"}");
+		assertEquals(ReferenceKeys.submodelKey(r1), ReferenceKeys.submodelKey(r2));
+	}
+}
@@ -0,0 +1,146 @@
+package mdt.operation.servers;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+
+/**
+ * {@link ParameterSweep}의 조합 생성·요청 변환과 {@link SweepSession}의 상태 집계 테스트.
+ *
+ * @author Kang-Woo Lee (ETRI)
+ */
+public class ParameterSweepTest {
+	private static final JsonMapper MAPPER = JsonMapper.builder().build();
+
+	@Test
+	public void testGridVariesLastParameterFastest() throws Exception {
+		ParameterSweep sweep = parse("{\"parameters\":{\"a\":[1,2],\"b\":{\"values\":[\"x\",\"y\",\"z\"]}}}");
+
+		assertEquals(List.of("a", "b"), sweep.getParameterNames());
+		assertEquals(6, sweep.size());
+		assertEquals(1, sweep.getParallelism());
+		assertEquals(Map.of("a", MAPPER.readTree("1"), "b", MAPPER.readTree("\"y\"")), sweep.getPoint(1));
+		assertEquals(Map.of("a", MAPPER.readTree("2"), "b", MAPPER.readTree("\"x\"")), sweep.getPoint(3));
+	}
+
+	@Test
+	public void testRangesIncludeBothEnds() throws Exception {
+		ParameterSweep step = parse("{\"parameters\":{\"t\":{\"from\":0,\"to\":1,\"step\":0.1}}}");
+		assertEquals(11, step.size());
+		assertEquals(0.3, step.getPoint(3).get("t").asDouble(), 0);
+		assertEquals(1, step.getPoint(10).get("t").asDouble(), 0);
+
+		ParameterSweep count = parse("{\"parameters\":{\"n\":{\"from\":10,\"to\":0,\"count\":3}}}");
+		assertEquals(3, count.size());
+		assertTrue(count.getPoint(1).get("n").isIntegralNumber());
+		assertEquals(5, count.getPoint(1).get("n").asInt());
+		assertEquals(0, count.getPoint(2).get("n").asInt());
+	}
+
+	@Test
+	public void testRandomSamplingIsReproducibleWithSeed() throws Exception {
+		String spec = "{\"mode\":\"random\",\"samples\":20,\"seed\":7,"
+					+ "\"parameters\":{\"g\":{\"from\":0.5,\"to\":2.0},\"m\":[\"fast\",\"safe\"]}}";
+		ParameterSweep first = parse(spec);
+		ParameterSweep second = parse(spec);
+
+		assertEquals(20, first.size());
+		for ( int i = 0; i < first.size(); ++i ) {
+			assertEquals(first.getPoint(i), second.getPoint(i));
+			double g = first.getPoint(i).get("g").asDouble();
+			assertTrue(g >= 0.5 && g <= 2.0);
+		}
+	}
+
+	@Test
+	public void testInvalidSpecsRejected() {
+		assertThrows(IllegalArgumentException.class, () -> parse("{\"parameters\":{}}"));
+		assertThrows(IllegalArgumentException.class, () -> parse("{\"parameters\":{\"g\":{\"from\":0,\"to\":1}}}"));
+		assertThrows(IllegalArgumentException.class,
+					() -> parse("{\"parameters\":{\"t\":{\"from\":0,\"to\":1,\"step\":-0.5}}}"));
+		assertThrows(IllegalArgumentException.class,
+					() -> parse("{\"parallelism\":0,\"parameters\":{\"a\":[1]}}"));
+		assertThrows(IllegalArgumentException.class,
+					() -> parse("{\"parameters\":{\"a\":[1,2,3,4,5],\"b\":[1,2,3,4,5]}}"));
+	}
+
+	@Test
+	public void testRequestForReplacesOnlySweptInputs() throws Exception {
+		ParameterSweep sweep = parse("{\"parameters\":{\"speed\":[10,20],\"mode\":[\"safe\"]}}");
+		JsonNode request = MAPPER.readTree("{\"inputs\":{"
+									+ "\"speed\":{\"@type\":\"mdt:value:number\",\"value\":0},"
+									+ "\"gain\":{\"@type\":\"mdt:ref:element\",\"ref\":\"x\"}}}");
+
+		ObjectNode second = sweep.requestFor(request, 1);
+		assertEquals(20, second.at("/inputs/speed/value").asInt());
+		assertEquals("mdt:value:number", second.at("/inputs/speed/@type").asText());
+		assertEquals("safe", second.at("/inputs/mode").asText());
+		assertEquals(request.at("/inputs/gain"), second.at("/inputs/gain"));
+		assertEquals(0, request.at("/inputs/speed/value").asInt());
+	}
+
+	@Test
+	public void testTemplateRejectsReferenceOutputsAndSweptReferences() throws Exception {
+		ParameterSweep sweep = parse("{\"parameters\":{\"gain\":[1,2]}}");
+		JsonNode ref = MAPPER.readTree("{\"@type\":\"mdt:ref:element\",\"ref\":\"x\"}");
+
+		assertThrows(IllegalArgumentException.class, () -> sweep.checkTemplate(Map.of(), Map.of("out", ref)));
+		assertThrows(IllegalArgumentException.class, () -> sweep.checkTemplate(Map.of("gain", ref), Map.of()));
+		sweep.checkTemplate(Map.of("other", ref), Map.of("out", MAPPER.readTree("{}")));
+	}
+
+	@Test
+	public void testSessionAggregatesProgressAndColumns() throws Exception {
+		ParameterSweep sweep = parse("{\"parameters\":{\"x\":[1,2,3]}}");
+		SweepSession session = new SweepSession("op", sweep, List.of("y"));
+		assertTrue(session.getId().startsWith(SweepSession.ID_PREFIX));
+
+		session.started(0, "/sessions/a");
+		session.finished(0, MAPPER.readTree("{\"state\":\"COMPLETED\",\"result\":{"
+											+ "\"y\":{\"@type\":\"mdt:value:number\",\"value\":10}}}"));
+		session.started(1, "/sessions/b");
+		SweepSession.Status running = session.getStatus();
+		assertEquals("RUNNING", running.state());
+		assertEquals(new SweepSession.Progress(3, 1, 1, 1, 0, 0), running.progress());
+		assertNull(running.result());
+
+		assertEquals(List.of("/sessions/b"), session.cancel());
+		session.finished(1, MAPPER.readTree("{\"state\":\"CANCELLED\"}"));
+		session.abandonFrom(2, null);
+
+		SweepSession.Status done = session.getStatus();
+		assertEquals("CANCELLED", done.state());
+		SweepSession.Table table = done.result();
+		assertEquals(List.of("COMPLETED", "CANCELLED", "CANCELLED"), table.state());
+		assertEquals(MAPPER.readTree("[1,2,3]"), MAPPER.valueToTree(table.inputs().get("x")));
+		assertEquals(10, table.outputs().get("y").get(0).asInt());
+		assertNull(table.outputs().get("y").get(2));
+		assertNull(table.session().get(2));
+	}
+
+	@Test
+	public void testSessionFailsWhenAnyPointFails() throws Exception {
+		SweepSession session = new SweepSession("op", parse("{\"parameters\":{\"x\":[1,2]}}"), List.of());
+		session.finished(0, MAPPER.readTree("{\"state\":\"COMPLETED\"}"));
+		session.failed(1, MAPPER.readTree("{\"message\":\"rejected\"}"));
+
+		SweepSession.Status status = session.getStatus();
+		assertEquals("FAILED", status.state());
+		assertEquals("rejected", status.result().error().get(1).path("message").asText());
+	}
+
+	private static ParameterSweep parse(String json) throws Exception {
+		return ParameterSweep.parse(MAPPER.readTree(json), 20);
+	}
+}
@@ -0,0 +1,257 @@
+package mdt.operation.servers;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.IntNode;
+
+import utils.json.JacksonUtils;
+
+import mdt.model.instance.MDTInstanceManager;
+import mdt.model.sm.ref.MDTElementReference;
+import mdt.model.sm.value.FileValue;
+
+
+/**
+ * {@link ResultMemo}의 키 계산, 항목 확정·조회·재사용 시 참조 출력 기록, 크기 제한에 따른 삭제, 재기동 시 색인
+ * 복원 테스트.
+ *
+ * @author Kang-Woo Lee (ETRI)
+ */
+public class ResultMemoTest {
+	private static final byte[] DESCRIPTOR = "{ \"command\": [ \"python3\", \"op.py\" ] }"
+												.getBytes(StandardCharsets.UTF_8);
+
+	@Rule public TemporaryFolder m_temp = new TemporaryFolder();
+
+	private File m_memoDir;
+	private ReferenceBatch m_batch;
+
+	@Before
+	public void setup() throws IOException {
+		m_memoDir = m_temp.newFolder("memo");
+		m_batch = new ReferenceBatch(Set.of("out"), new OutputWriteBack(1));
+	}
+
+	@After
+	public void tearDown() {
+		m_batch.close();
+	}
+
+	private static Map<String,JsonNode> inputs(String... nameValues) throws IOException {
+		Map<String,JsonNode> inputs = new LinkedHashMap<>();
+		for ( int i = 0; i < nameValues.length; i += 2 ) {
+			inputs.put(nameValues[i], JacksonUtils.MAPPER.readTree(nameValues[i+1]));
+		}
+		return inputs;
+	}
+
+	private String key(Map<String,JsonNode> inputs) throws IOException {
+		return ResultMemo.keyOf(DESCRIPTOR, inputs, Set.of("out"), m_batch);
+	}
+
+	// 출력 "out"의 원본 출력 파일과 직렬화 값을 기록한 뒤 완료 응답으로 확정한다.
+	private void store(ResultMemo memo, String key, String output) throws IOException {
+		File file = m_temp.newFile();
+		Files.writeString(file.toPath(), output);
+
+		ResultMemo.Recorder recorder = memo.newRecorder(key);
+		recorder.record("out", file, IntNode.valueOf(output.length()));
+		recorder.commit(JacksonUtils.MAPPER.readTree("{ \"state\": \"COMPLETED\", \"sessionEndpoint\": \"/s/1\","
+													+ " \"result\": { \"out\": " + output.length() + " } }"));
+	}
+
+	@Test
+	public void testKeyIgnoresInputOrder() throws IOException {
+		String key1 = key(inputs("a", "{ \"x\": 1, \"y\": 2 }", "b", "3"));
+		String key2 = key(inputs("b", "3", "a", "{ \"y\": 2, \"x\": 1 }"));
+		assertEquals(key1, key2);
+
+		assertNotEquals(key1, key(inputs("a", "{ \"x\": 1, \"y\": 2 }", "b", "4")));
+		assertNotEquals(key1, ResultMemo.keyOf("{}".getBytes(StandardCharsets.UTF_8),
+												inputs("a", "{ \"x\": 1, \"y\": 2 }", "b", "3"), Set.of("out"), m_batch));
+		assertNotEquals(key1, ResultMemo.keyOf(DESCRIPTOR, inputs("a", "{ \"x\": 1, \"y\": 2 }", "b", "3"),
+												Set.of("out", "out2"), m_batch));
+	}
+
+	@Test
+	public void testKeyReflectsAttachmentContent() throws IOException {
+		Map<String,JsonNode> inputs = inputs("img", "{ \"@type\": \"mdt:ref:elm\", \"ref\": \"param:a:img\" }");
+		File attachment = m_temp.newFile();
+		Files.writeString(attachment.toPath(), "v1");
+		m_batch.put("img", new ReferenceBatch.Resolution(inputs.get("img"), null, null, attachment, null));
+		String key1 = key(inputs);
+
+		Files.writeString(attachment.toPath(), "v2");
+		assertNotEquals(key1, key(inputs));
+
+		m_batch.put("img", new ReferenceBatch.Resolution(inputs.get("img"), null, null, null,
+															new IOException("unreachable")));
+		assertNull(key(inputs));
+	}
+
+	@Test
+	public void testStoreAndLookup() throws IOException {
+		ResultMemo memo = new ResultMemo(m_memoDir, 1024 * 1024);
+		assertNull(memo.lookup("k1"));
+
+		store(memo, "k1", "hello");
+		ResultMemo.Entry entry = memo.lookup("k1");
+		assertNotNull(entry);
+
+		JsonNode replayed = memo.replay(entry, Map.of(), null);
+		assertEquals(5, replayed.path("result").path("out").asInt());
+		assertFalse(replayed.has("sessionEndpoint"));
+		assertEquals("hello", Files.readString(new File(new File(entry.dir(), ResultMemo.OUTPUT_DIR), "out").toPath()));
+
+		ResultMemo.Stats stats = memo.getStats();
+		assertEquals(1, stats.hits());
+		assertEquals(1, stats.misses());
+		assertEquals(1, stats.stores());
+		assertEquals(1, stats.entries());
+	}
+
+	@Test
+	public void testReplayWritesBackReferenceOutputs() throws IOException {
+		ResultMemo memo = new ResultMemo(m_memoDir, 1024 * 1024);
+		store(memo, "k1", "hello");
+
+		// 참조 출력은 보관된 원본 출력을 참조 대상의 첨부 파일로 다시 기록한다.
+		MDTElementReference ref = mock(MDTElementReference.class);
+		FileValue updated = mock(FileValue.class);
+		doReturn(IntNode.valueOf(99)).when(updated).toJsonNode();
+		List<String> written = new ArrayList<>();
+		doAnswer(inv -> {
+			written.add(Files.readString(inv.getArgument(0, File.class).toPath()));
+			return updated;
+		}).when(ref).updateAttachment(any(File.class));
+		MDTCommandVariableSerDe serde = new MDTCommandVariableSerDe(mock(MDTInstanceManager.class), 2,
+											new ElementPrototypeCache(ElementPrototypeCache.DEFAULT_MAX_SIZE,
+																		ElementPrototypeCache.DEFAULT_TTL),
+											jnode -> ref);
+		JsonNode output = JacksonUtils.MAPPER.readTree("{ \"@type\": \"mdt:ref:elm\", \"ref\": \"param:a:out\" }");
+		serde.getPrototypeCache().put(ReferenceKeys.canonical(output), mock(FileValue.class));
+
+		JsonNode replayed;
+		try ( ReferenceBatch batch = serde.resolveAll(Map.of(), Map.of("out", output)) ) {
+			replayed = memo.replay(memo.lookup("k1"), Map.of("out", output), serde);
+		}
+		verify(ref, times(1)).updateAttachment(any(File.class));
+		verify(ref, never()).updateValue(any());
+		assertEquals(List.of("hello"), written);
+		assertEquals(99, replayed.path("result").path("out").asInt());
+	}
+
+	@Test
+	public void testFingerprintReflectsOperationFiles() throws Exception {
+		File opDir = m_temp.newFolder("op");
+		Files.writeString(new File(opDir, OperationRegistry.DESCRIPTOR_FILE_NAME).toPath(), "{}");
+		File script = new File(opDir, "op.py");
+		Files.writeString(script.toPath(), "print(1)");
+		byte[] fp1 = ResultMemo.fingerprint(opDir);
+
+		// 수행 중 생기는 파일은 반영하지 않는다.
+		File cache = new File(opDir, "__pycache__");
+		cache.mkdir();
+		Files.writeString(new File(cache, "op.pyc").toPath(), "x");
+		assertArrayEquals(fp1, ResultMemo.fingerprint(opDir));
+
+		// 연산 스크립트가 바뀌면 지문이 바뀌어 이전 결과를 재사용하지 않는다.
+		Files.writeString(script.toPath(), "print(22)");
+		byte[] fp2 = ResultMemo.fingerprint(opDir);
+		assertFalse(Arrays.equals(fp1, fp2));
+		assertNotEquals(ResultMemo.keyOf(fp1, Map.of(), Set.of("out"), m_batch),
+						ResultMemo.keyOf(fp2, Map.of(), Set.of("out"), m_batch));
+
+		Files.writeString(new File(opDir, OperationRegistry.DESCRIPTOR_FILE_NAME).toPath(), "{ }");
+		assertFalse(Arrays.equals(fp2, ResultMemo.fingerprint(opDir)));
+	}
+
+	@Test
+	public void testDiscardUnlessCompleted() throws IOException {
+		ResultMemo memo = new ResultMemo(m_memoDir, 1024 * 1024);
+		ResultMemo.Recorder recorder = memo.newRecorder("k1");
+		recorder.complete(null);
+
+		assertNull(memo.lookup("k1"));
+		assertEquals(0, memo.getStats().stores());
+		File[] pendings = new File(m_memoDir, ".pending").listFiles();
+		assertEquals(0, pendings.length);
+	}
+
+	@Test
+	public void testEvictLeastRecentlyUsed() throws IOException {
+		ResultMemo probe = new ResultMemo(m_temp.newFolder("probe"), 1024 * 1024);
+		store(probe, "k0", "x".repeat(100));
+		long entrySize = probe.getStats().bytes();
+
+		// 항목 두 개까지만 들어가는 크기.
+		ResultMemo memo = new ResultMemo(m_memoDir, entrySize * 2 + entrySize / 2);
+		store(memo, "k1", "x".repeat(100));
+		store(memo, "k2", "y".repeat(100));
+		assertNotNull(memo.lookup("k1"));
+		store(memo, "k3", "z".repeat(100));
+
+		assertNotNull(memo.lookup("k1"));
+		assertNull(memo.lookup("k2"));
+		assertNotNull(memo.lookup("k3"));
+		assertFalse(new File(m_memoDir, "k2").exists());
+		assertEquals(1, memo.getStats().evictions());
+	}
+
+	@Test
+	public void testRebuildIndexOnRestart() throws IOException {
+		ResultMemo memo = new ResultMemo(m_memoDir, 1024 * 1024);
+		store(memo, "k1", "hello");
+		long bytes = memo.getStats().bytes();
+		memo.newRecorder("k2");
+
+		ResultMemo restarted = new ResultMemo(m_memoDir, 1024 * 1024);
+		assertEquals(1, restarted.getStats().entries());
+		assertEquals(bytes, restarted.getStats().bytes());
+		assertNotNull(restarted.lookup("k1"));
+		assertEquals(0, new File(m_memoDir, ".pending").listFiles().length);
+
+		restarted.clear();
+		assertNull(restarted.lookup("k1"));
+		assertFalse(new File(m_memoDir, "k1").exists());
+	}
+
+	@Test
+	public void testLoadDeterministicPolicy() throws IOException {
+		File opDir = m_temp.newFolder("op");
+		Files.writeString(new File(opDir, OperationPolicy.POLICY_FILE_NAME).toPath(), "{ \"deterministic\": true }");
+		assertTrue(OperationPolicy.load(opDir).deterministic());
+		assertFalse(OperationPolicy.DEFAULT.deterministic());
+	}
+}
@@ -0,0 +1,79 @@
+package mdt.operation.servers;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Mockito.mock;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import utils.rpc.restful.RESTfulAsyncRpcServer;
+
+
+/**
+ * {@link RetiredServers}의 지연 닫기 테스트.
+ *
+ * @author Kang-Woo Lee (ETRI)
+ */
+public class RetiredServersTest {
+	private List<RpcServerInfo> m_closed;
+	private RetiredServers m_retired;
+	private SessionIndex m_index;
+
+	@Before
+	public void setup() {
+		m_closed = new ArrayList<>();
+		m_retired = new RetiredServers(m_closed::add);
+		m_index = new SessionIndex();
+	}
+
+	private static RpcServerInfo server(String opId) {
+		return new RpcServerInfo(opId, mock(RESTfulAsyncRpcServer.class));
+	}
+
+	@Test
+	public void testServerClosedAfterLastSessionRemoved() {
+		RpcServerInfo old = server("op");
+		m_index.register("/sessions/a", old);
+		m_retired.retire(old);
+
+		// 수행 중인 세션이 있으면 닫지 않는다.
+		assertEquals(0, m_retired.closeIdle(m_index));
+		assertEquals(List.of(), m_closed);
+
+		m_index.remove("/sessions/a");
+		assertEquals(1, m_retired.closeIdle(m_index));
+		assertEquals(List.of(old), m_closed);
+		assertEquals(0, m_retired.size());
+
+		// 한 번만 닫는다.
+		assertEquals(0, m_retired.closeIdle(m_index));
+		assertEquals(1, m_closed.size());
+	}
+
+	@Test
+	public void testOnlyIdleServersClosed() {
+		RpcServerInfo busy = server("op");
+		RpcServerInfo idle = server("op");
+		m_index.register("/sessions/a", busy);
+		m_retired.retire(busy);
+		m_retired.retire(idle);
+
+		assertEquals(1, m_retired.closeIdle(m_index));
+		assertEquals(List.of(idle), m_closed);
+		assertEquals(1, m_retired.size());
+	}
+
+	@Test
+	public void testCloseAllClosesBusyServers() {
+		RpcServerInfo busy = server("op");
+		m_index.register("/sessions/a", busy);
+		m_retired.retire(busy);
+
+		m_retired.closeAll();
+		assertEquals(List.of(busy), m_closed);
+		assertEquals(0, m_retired.size());
+	}
+}
@@ -1,12 +1,36 @@
 package mdt.operation.servers;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 
-import java.io.File;
-import java.lang.reflect.Field;
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.junit.Before;
 import org.junit.Rule;
@@ -15,14 +39,29 @@ import org.junit.rules.TemporaryFolder;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import utils.json.JacksonUtils;
+import utils.rpc.restful.RESTfulAsyncRpcServer;
+import utils.rpc.restful.RpcRequestMessage;
+import utils.rpc.restful.RpcResponseMessage;
+
 import mdt.model.ResourceNotFoundException;
+import mdt.model.instance.MDTInstanceManager;
+import mdt.model.sm.ref.MDTElementReference;
+import mdt.model.sm.value.ElementValue;
 
 
 /**
- * {@link RpcServerDispatcher}의 not-found 라우팅 로직 테스트.
+ * {@link RpcServerDispatcher}의 not-found 라우팅 로직과 일괄 요청 처리 테스트.
  * <p>
  * {@code spring-boot-starter-test}(MockMvc)에 의존하지 않고, 등록된 연산/세션이 없는 상태에서
- * 컨트롤러 메소드를 직접 호출하여 미존재 처리를 검증한다.
+ * 컨트롤러 메소드를 직접 호출하여 미존재 처리를 검증한다. 일괄 요청은 모의 RPC 서버를 등록하여 검증한다.
  *
  * @author Kang-Woo Lee (ETRI)
  */
@@ -42,6 +81,45 @@ public class RpcServerDispatcherTest {
 		assertEquals(HttpStatus.NOT_FOUND.value(), resp.getStatusCode().value());
 	}
 
+	@Test
+	public void testUnknownSessionLookupIsCounted() throws Exception {
+		SimpleMeterRegistry registry = new SimpleMeterRegistry();
+		m_dispatcher = new RpcServerDispatcher(new RpcServersConfiguration(), null, null, null,
+												new DispatcherMetrics(registry));
+
+		m_dispatcher.status("unknown");
+		assertEquals(1, registry.get(DispatcherMetrics.SESSION_LOOKUP_COUNTER).tag("result", "miss")
+								.counter().count(), 0);
+	}
+
+	@Test
+	public void testSessionLookupUsesIndexOnly() throws Exception {
+		m_dispatcher = new RpcServerDispatcher(emptyOperationsConfig());
+		RESTfulAsyncRpcServer server = mock(RESTfulAsyncRpcServer.class);
+		OperationRegistry registry = m_dispatcher.getRegistry();
+		registry.put("op", server);
+
+		// 색인에 없는 세션은 등록된 RPC 서버들에 묻지 않고 없는 세션으로 처리한다.
+		assertNull(m_dispatcher.findRpcServer("/sessions/a"));
+		verify(server, never()).getSession(anyString());
+
+		m_dispatcher.getSessionIndex().register("/sessions/a", registry.get("op"));
+		assertSame(server, m_dispatcher.findRpcServer("/sessions/a").rpcServer());
+	}
+
+	@Test
+	public void testTraceUnknownSessionReturns404() {
+		ResponseEntity<?> resp = m_dispatcher.trace("unknown");
+		assertEquals(HttpStatus.NOT_FOUND.value(), resp.getStatusCode().value());
+	}
+
+	@Test
+	public void testUnknownOutputThrowsNotFound() {
+		assertThrows(ResourceNotFoundException.class,
+					() -> m_dispatcher.output("unknown", "out", mock(HttpServletRequest.class),
+												mock(HttpServletResponse.class)));
+	}
+
 	@Test
 	public void testDeleteUnknownSessionThrowsNotFound() {
 		assertThrows(ResourceNotFoundException.class, () -> m_dispatcher.delete("unknown"));
@@ -49,18 +127,217 @@ public class RpcServerDispatcherTest {
 
 	@Test
 	public void testRunUnknownOperationReturns404() throws Exception {
-		File emptyOpsDir = m_temp.newFolder("operations");
-		RpcServersConfiguration config = mock(RpcServersConfiguration.class);
-		when(config.getOperationsDir()).thenReturn(emptyOpsDir);
-		setField(m_dispatcher, "m_config", config);
+		m_dispatcher = new RpcServerDispatcher(emptyOperationsConfig());
+
+		// 없는 연산이면 요청 본문을 읽지 않는다.
+		InputStream body = mock(InputStream.class);
+		ResponseEntity<?> resp = m_dispatcher.run("unknown", body);
+		assertEquals(HttpStatus.NOT_FOUND.value(), resp.getStatusCode().value());
+		verifyNoInteractions(body);
+	}
+
+	@Test
+	public void testRunBatchUnknownOperationReturns404() throws Exception {
+		m_dispatcher = new RpcServerDispatcher(emptyOperationsConfig());
+
+		// 없는 연산이면 요청 본문을 읽지 않는다.
+		InputStream body = mock(InputStream.class);
+		ResponseEntity<?> resp = m_dispatcher.runBatch("unknown", body);
+		assertEquals(HttpStatus.NOT_FOUND.value(), resp.getStatusCode().value());
+		verifyNoInteractions(body);
+	}
+
+	@Test
+	public void testRunBatchRejectsNonArrayBody() throws Exception {
+		m_dispatcher = new RpcServerDispatcher(emptyOperationsConfig());
+		m_dispatcher.getRegistry().put("op", mock(RESTfulAsyncRpcServer.class));
+
+		assertThrows(IllegalArgumentException.class,
+					() -> m_dispatcher.runBatch("op", stream("{\"inputs\":{}}")));
+	}
 
-		ResponseEntity<?> resp = m_dispatcher.run("unknown", "{\"inputs\":{}}");
+	@Test
+	public void testRunBatchRejectsTooManyItems() throws Exception {
+		RpcServersConfiguration config = emptyOperationsConfig();
+		config.setMaxBatchSize(1);
+		m_dispatcher = new RpcServerDispatcher(config);
+		m_dispatcher.getRegistry().put("op", mock(RESTfulAsyncRpcServer.class));
+
+		assertThrows(IllegalArgumentException.class,
+					() -> m_dispatcher.runBatch("op", stream("[{\"inputs\":{}},{\"inputs\":{}}]")));
+	}
+
+	@Test
+	public void testStatusesMarksUnknownSessionsNotFound() throws Exception {
+		SimpleMeterRegistry registry = new SimpleMeterRegistry();
+		m_dispatcher = new RpcServerDispatcher(emptyOperationsConfig(), null, null, null,
+												new DispatcherMetrics(registry));
+
+		ResponseEntity<?> resp = m_dispatcher.statuses(List.of("a", "b"));
+		assertEquals(HttpStatus.OK.value(), resp.getStatusCode().value());
+
+		List<?> states = (List<?>)resp.getBody();
+		assertEquals(2, states.size());
+		RpcServerDispatcher.SessionState first = (RpcServerDispatcher.SessionState)states.get(0);
+		assertEquals("a", first.session());
+		assertEquals(HttpStatus.NOT_FOUND.value(), first.status());
+		assertEquals(2, registry.get(DispatcherMetrics.SESSION_LOOKUP_COUNTER).tag("result", "miss")
+								.counter().count(), 0);
+	}
+
+	@Test
+	public void testRunRejectsOversizedSweep() throws Exception {
+		RpcServersConfiguration config = emptyOperationsConfig();
+		config.setMaxSweepSize(2);
+		m_dispatcher = new RpcServerDispatcher(config);
+		m_dispatcher.getRegistry().put("op", mock(RESTfulAsyncRpcServer.class));
+
+		String request = "{\"inputs\":{},\"sweep\":{\"parameters\":{\"x\":[1,2,3]}}}";
+		assertThrows(IllegalArgumentException.class, () -> m_dispatcher.run("op", stream(request)));
+	}
+
+	@Test
+	public void testUnknownSweepSessionReturns404() throws Exception {
+		ResponseEntity<?> resp = m_dispatcher.status(SweepSession.ID_PREFIX + "unknown");
+		assertEquals(HttpStatus.NOT_FOUND.value(), resp.getStatusCode().value());
+		assertThrows(ResourceNotFoundException.class,
+					() -> m_dispatcher.delete(SweepSession.ID_PREFIX + "unknown"));
+	}
+
+	@Test
+	public void testQueuedRequestStatusAndCancel() throws Exception {
+		CompletableFuture<AdmissionController.Permit> admission = new CompletableFuture<>();
+		QueuedRequest handle = new QueuedRequest("op", admission);
+		m_dispatcher.getQueuedRequests().put(handle);
+
+		ResponseEntity<?> resp = m_dispatcher.status(handle.getId());
+		assertEquals(HttpStatus.OK.value(), resp.getStatusCode().value());
+		assertEquals(QueuedRequest.QUEUED, ((QueuedRequest.Status)resp.getBody()).state());
+
+		// 대기 중인 요청을 취소하면 슬롯 요청도 취소된다.
+		assertEquals(HttpStatus.NO_CONTENT.value(), m_dispatcher.delete(handle.getId()).getStatusCode().value());
+		assertTrue(admission.isCancelled());
+		assertEquals(QueuedRequest.CANCELLED, handle.getStatus().state());
+	}
+
+	@Test
+	public void testStartedQueuedRequestResolvesToSession() throws Exception {
+		RESTfulAsyncRpcServer server = mock(RESTfulAsyncRpcServer.class);
+		m_dispatcher.getSessionIndex().register("/sessions/a", new RpcServerInfo("op", server));
+
+		QueuedRequest handle = new QueuedRequest("op", new CompletableFuture<>());
+		handle.started("/sessions/a");
+		m_dispatcher.getQueuedRequests().put(handle);
+
+		// 세션이 시작된 대기 핸들은 시작된 세션을 가리킨다.
+		m_dispatcher.status(handle.getId());
+		verify(server).status("/sessions/a");
+	}
+
+	@Test
+	public void testUnknownQueuedRequestReturns404() throws Exception {
+		ResponseEntity<?> resp = m_dispatcher.status(QueuedRequest.ID_PREFIX + "unknown");
 		assertEquals(HttpStatus.NOT_FOUND.value(), resp.getStatusCode().value());
+		assertThrows(ResourceNotFoundException.class,
+					() -> m_dispatcher.delete(QueuedRequest.ID_PREFIX + "unknown"));
+	}
+
+	@Test
+	public void testRunBatchSharesReferenceAndRespectsOperationLimit() throws Exception {
+		RpcServersConfiguration config = emptyOperationsConfig();
+		config.setAdmissionQueueTimeout(Duration.ofMinutes(1));
+		
+		// 공통 참조 입력은 읽은 횟수를 센다.
+		MDTElementReference ref = mock(MDTElementReference.class);
+		ElementValue value = mock(ElementValue.class);
+		doReturn(7).when(value).toValueObject();
+		doReturn(value).when(ref).readValue();
+		MDTCommandVariableSerDe serde
+					= new MDTCommandVariableSerDe(mock(MDTInstanceManager.class), 2,
+												new ElementPrototypeCache(ElementPrototypeCache.DEFAULT_MAX_SIZE,
+																			ElementPrototypeCache.DEFAULT_TTL),
+												jnode -> ref);
+		
+		// 세션 상태는 모의 응답 메시지별로 정해 둔다.
+		Map<RpcResponseMessage,String> states = Collections.synchronizedMap(new HashMap<>());
+		SessionEventHub events = new SessionEventHub(ep -> null, states::get);
+		m_dispatcher = new RpcServerDispatcher(config, serde, events, new AdmissionController(0, 10),
+												new DispatcherMetrics(new SimpleMeterRegistry()));
+		
+		// 모의 RPC 서버는 RPC 서버처럼 start() 호출 스레드에서 입력 변수를 역직렬화하고 세션을 만든다.
+		JsonNode input = JacksonUtils.MAPPER.readTree("{\"@type\":\"mdt:ref:elm\",\"ref\":\"param:a:shared\"}");
+		List<String> sessions = Collections.synchronizedList(new ArrayList<>());
+		BlockingQueue<String> startedSessions = new LinkedBlockingQueue<>();
+		AtomicInteger running = new AtomicInteger();
+		AtomicInteger maxRunning = new AtomicInteger();
+		RESTfulAsyncRpcServer server = mock(RESTfulAsyncRpcServer.class);
+		when(server.start(any(RpcRequestMessage.class))).thenAnswer(inv -> {
+			serde.deserialize("x", m_temp.newFolder(), input);
+			maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+			
+			String sessionEndpoint = "/sessions/s" + sessions.size();
+			RpcResponseMessage resp = mock(RpcResponseMessage.class);
+			when(resp.getSessionEndpoint()).thenReturn(sessionEndpoint);
+			states.put(resp, "RUNNING");
+			sessions.add(sessionEndpoint);
+			startedSessions.add(sessionEndpoint);
+			return resp;
+		});
+		m_dispatcher.getRegistry().put("op", server, new OperationPolicy(1, 10, OperationPolicy.QueueOrder.FIFO, null, false));
+		
+		// 연산의 동시 세션 수가 1이어도 요청 스레드는 기다리지 않고 항목별 대기 핸들을 바로 반환한다.
+		String item = "{\"inputs\":{\"x\":" + input + "}}";
+		ResponseEntity<?> resp = m_dispatcher.runBatch("op", stream("[" + item + "," + item + "," + item + "]"));
+		assertEquals(HttpStatus.ACCEPTED.value(), resp.getStatusCode().value());
+		List<?> results = (List<?>)resp.getBody();
+		assertEquals(3, results.size());
+		List<QueuedRequest.Status> handles = new ArrayList<>();
+		for ( Object result: results ) {
+			RpcServerDispatcher.BatchItem batchItem = (RpcServerDispatcher.BatchItem)result;
+			assertEquals(HttpStatus.ACCEPTED.value(), batchItem.status());
+			QueuedRequest.Status status = (QueuedRequest.Status)batchItem.body();
+			assertEquals(QueuedRequest.QUEUED, status.state());
+			assertEquals(status.sessionEndpoint(), batchItem.sessionEndpoint());
+			handles.add(status);
+		}
+		
+		// 세션이 끝날 때마다 다음 항목이 시작되며, 동시에 수행되는 세션은 하나를 넘지 않는다.
+		for ( int i = 0; i < 3; ++i ) {
+			String sessionEndpoint = startedSessions.poll(10, TimeUnit.SECONDS);
+			assertNotNull("timed out waiting for session #" + (i + 1), sessionEndpoint);
+			
+			RpcResponseMessage completed = mock(RpcResponseMessage.class);
+			states.put(completed, "COMPLETED");
+			running.decrementAndGet();
+			events.publish(sessionEndpoint, completed);
+		}
+		assertEquals(1, maxRunning.get());
+		assertEquals(3, sessions.size());
+		
+		// 공통 참조 입력은 항목 수와 관계없이 한 번만 읽는다.
+		verify(ref, times(1)).readValue();
+		
+		// 각 항목의 대기 핸들은 서로 다른 시작된 세션을 가리킨다.
+		QueuedRequests queued = m_dispatcher.getQueuedRequests();
+		List<String> started = new ArrayList<>();
+		for ( QueuedRequest.Status handle: handles ) {
+			QueuedRequest request = queued.get(handle.sessionEndpoint().substring("/sessions/".length()));
+			assertTrue("timed out waiting for " + request.getId(), request.awaitTerminal(10, TimeUnit.SECONDS));
+			QueuedRequest.Status status = request.getStatus();
+			assertEquals(QueuedRequest.STARTED, status.state());
+			assertFalse(started.contains(status.session()));
+			started.add(status.session());
+		}
+		assertTrue(sessions.containsAll(started));
+	}
+	
+	private RpcServersConfiguration emptyOperationsConfig() throws Exception {
+		RpcServersConfiguration config = new RpcServersConfiguration();
+		config.setOperationsDir(m_temp.newFolder("operations"));
+		return config;
 	}
 
-	private static void setField(Object target, String name, Object value) throws Exception {
-		Field field = RpcServerDispatcher.class.getDeclaredField(name);
-		field.setAccessible(true);
-		field.set(target, value);
+	private static ByteArrayInputStream stream(String body) {
+		return new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8));
 	}
 }
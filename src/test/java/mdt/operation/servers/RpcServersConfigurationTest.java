@@ -4,6 +4,7 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertThrows;
 
 import java.io.File;
+import java.time.Duration;
 
 import org.junit.Test;
 
@@ -52,4 +53,37 @@ public class RpcServersConfigurationTest {
 		RpcServersConfiguration config = new RpcServersConfiguration();
 		assertThrows(IllegalArgumentException.class, () -> config.setInstanceManagerUrl(null));
 	}
+
+	@Test
+	public void testDefaultReferenceResolveConcurrency() {
+		RpcServersConfiguration config = new RpcServersConfiguration();
+		assertEquals(MDTCommandVariableSerDe.DEFAULT_RESOLVE_CONCURRENCY,
+					config.getReferenceResolveConcurrency());
+	}
+
+	@Test
+	public void testSetReferenceResolveConcurrencyNonPositiveRejected() {
+		RpcServersConfiguration config = new RpcServersConfiguration();
+		assertThrows(IllegalArgumentException.class, () -> config.setReferenceResolveConcurrency(0));
+	}
+
+	@Test
+	public void testDefaultPrototypeCacheSettings() {
+		RpcServersConfiguration config = new RpcServersConfiguration();
+		assertEquals(ElementPrototypeCache.DEFAULT_MAX_SIZE, config.getPrototypeCacheSize());
+		assertEquals(ElementPrototypeCache.DEFAULT_TTL, config.getPrototypeCacheTtl());
+	}
+
+	@Test
+	public void testSetPrototypeCacheTtlNullRejected() {
+		RpcServersConfiguration config = new RpcServersConfiguration();
+		assertThrows(IllegalArgumentException.class, () -> config.setPrototypeCacheTtl(null));
+	}
+
+	@Test
+	public void testSetPrototypeCacheTtlNonPositiveRejected() {
+		RpcServersConfiguration config = new RpcServersConfiguration();
+		assertThrows(IllegalArgumentException.class, () -> config.setPrototypeCacheTtl(Duration.ZERO));
+		assertThrows(IllegalArgumentException.class, () -> config.setPrototypeCacheTtl(Duration.ofSeconds(-1)));
+	}
 }
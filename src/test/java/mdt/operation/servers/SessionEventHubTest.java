@@ -0,0 +1,182 @@
+package mdt.operation.servers;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.context.request.async.DeferredResult;
+
+import utils.rpc.restful.RpcResponseMessage;
+
+
+/**
+ * {@link SessionEventHub}의 long-poll 대기/상태 전이 전달 테스트.
+ *
+ * @author Kang-Woo Lee (ETRI)
+ */
+public class SessionEventHubTest {
+	private static final String SESSION = "/sessions/s1";
+	private static final Duration TIMEOUT = Duration.ofSeconds(30);
+
+	private Map<RpcResponseMessage,String> m_states;
+	private SessionEventHub m_hub;
+
+	@Before
+	public void setup() {
+		m_states = new HashMap<>();
+		m_hub = new SessionEventHub(ep -> null, m_states::get);
+	}
+
+	private RpcResponseMessage response(String state) {
+		RpcResponseMessage resp = mock(RpcResponseMessage.class);
+		m_states.put(resp, state);
+		return resp;
+	}
+
+	@Test
+	public void testReturnsImmediatelyWhenStateDiffersFromSince() {
+		RpcResponseMessage running = response("RUNNING");
+
+		DeferredResult<ResponseEntity<?>> result = m_hub.await(SESSION, running, "starting", TIMEOUT);
+		assertTrue(result.hasResult());
+		assertSame(running, ((ResponseEntity<?>)result.getResult()).getBody());
+		assertEquals(0, m_hub.size());
+	}
+
+	@Test
+	public void testReturnsImmediatelyWhenTerminal() {
+		DeferredResult<ResponseEntity<?>> result = m_hub.await(SESSION, response("COMPLETED"), null, TIMEOUT);
+		assertTrue(result.hasResult());
+	}
+
+	@Test
+	public void testCompletesOnStateChange() {
+		DeferredResult<ResponseEntity<?>> result = m_hub.await(SESSION, response("RUNNING"), null, TIMEOUT);
+		assertFalse(result.hasResult());
+		assertEquals(1, m_hub.size());
+
+		// 같은 상태의 관측은 대기자를 깨우지 않는다.
+		m_hub.publish(SESSION, response("RUNNING"));
+		assertFalse(result.hasResult());
+
+		RpcResponseMessage completed = response("COMPLETED");
+		m_hub.publish(SESSION, completed);
+		assertTrue(result.hasResult());
+		assertSame(completed, ((ResponseEntity<?>)result.getResult()).getBody());
+		assertEquals(0, m_hub.size());
+	}
+
+	@Test
+	public void testNewerStateObservedBeforeRegistration() {
+		DeferredResult<ResponseEntity<?>> first = m_hub.await(SESSION, response("RUNNING"), null, TIMEOUT);
+		RpcResponseMessage completed = response("COMPLETED");
+		m_hub.publish(SESSION, completed);
+		assertTrue(first.hasResult());
+
+		// 다른 대기자가 RUNNING 상태를 기준으로 대기를 요청해도 바로 반환된다.
+		DeferredResult<ResponseEntity<?>> second = m_hub.await(SESSION, response("RUNNING"), "RUNNING", TIMEOUT);
+		assertFalse(second.hasResult());
+		m_hub.publish(SESSION, completed);
+		assertTrue(second.hasResult());
+	}
+
+	@Test
+	public void testSessionGoneCompletesWithNotFound() {
+		DeferredResult<ResponseEntity<?>> result = m_hub.await(SESSION, response("RUNNING"), null, TIMEOUT);
+		m_hub.publish(SESSION, null);
+
+		assertTrue(result.hasResult());
+		assertEquals(HttpStatus.NOT_FOUND, ((ResponseEntity<?>)result.getResult()).getStatusCode());
+		assertEquals(0, m_hub.size());
+	}
+
+	@Test
+	public void testPublishWithoutWaitersKeepsNothing() {
+		m_hub.publish(SESSION, response("RUNNING"));
+		assertEquals(0, m_hub.size());
+	}
+
+	@Test
+	public void testTerminalListener() {
+		AtomicReference<RpcResponseMessage> last = new AtomicReference<>();
+		m_hub.onTerminal(SESSION, response("RUNNING"), last::set);
+		assertEquals(1, m_hub.size());
+
+		m_hub.publish(SESSION, response("RUNNING"));
+		assertNull(last.get());
+
+		RpcResponseMessage failed = response("FAILED");
+		m_hub.publish(SESSION, failed);
+		assertSame(failed, last.get());
+		assertEquals(0, m_hub.size());
+	}
+
+	@Test
+	public void testProcessExitTriggersProbe() throws InterruptedException {
+		RpcResponseMessage completed = response("COMPLETED");
+		AtomicInteger probes = new AtomicInteger();
+		SessionEventHub hub = new SessionEventHub(ep -> {
+			probes.incrementAndGet();
+			return completed;
+		}, m_states::get);
+		hub.start(Duration.ofHours(1));
+		try {
+			DeferredResult<ResponseEntity<?>> result = hub.await(SESSION, response("RUNNING"), null, TIMEOUT);
+			CompletableFuture<Void> exit = new CompletableFuture<>();
+			hub.attachExit(SESSION, exit);
+			assertFalse(result.hasResult());
+			assertEquals(0, probes.get());
+
+			exit.complete(null);
+			for ( int i = 0; i < 500 && !result.hasResult(); ++i ) {
+				Thread.sleep(10);
+			}
+			assertTrue(result.hasResult());
+			assertSame(completed, ((ResponseEntity<?>)result.getResult()).getBody());
+		}
+		finally {
+			hub.close();
+		}
+	}
+
+	@Test
+	public void testBackstopSkipsExitTrackedSessions() throws InterruptedException {
+		Map<String,AtomicInteger> probes = new HashMap<>();
+		probes.put("/sessions/tracked", new AtomicInteger());
+		probes.put("/sessions/untracked", new AtomicInteger());
+		RpcResponseMessage running = response("RUNNING");
+		SessionEventHub hub = new SessionEventHub(ep -> {
+			probes.get(ep).incrementAndGet();
+			return running;
+		}, m_states::get);
+		hub.start(Duration.ofMillis(10));
+		try {
+			hub.attachExit("/sessions/tracked", new CompletableFuture<>());
+			hub.await("/sessions/tracked", running, null, TIMEOUT);
+			hub.await("/sessions/untracked", running, null, TIMEOUT);
+
+			for ( int i = 0; i < 500 && probes.get("/sessions/untracked").get() < 3; ++i ) {
+				Thread.sleep(10);
+			}
+			assertTrue(probes.get("/sessions/untracked").get() >= 3);
+			assertEquals(0, probes.get("/sessions/tracked").get());
+		}
+		finally {
+			hub.close();
+		}
+	}
+}
@@ -0,0 +1,75 @@
+package mdt.operation.servers;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import utils.rpc.restful.RESTfulAsyncRpcServer;
+
+
+/**
+ * {@link SessionIndex} 등록/조회/회수 세션 제거 테스트.
+ *
+ * @author Kang-Woo Lee (ETRI)
+ */
+public class SessionIndexTest {
+	private SessionIndex m_index;
+	private RESTfulAsyncRpcServer m_server;
+	private RpcServerInfo m_info;
+
+	@Before
+	public void setup() {
+		m_index = new SessionIndex();
+		m_server = mock(RESTfulAsyncRpcServer.class);
+		m_info = new RpcServerInfo("test", m_server);
+	}
+
+	@Test
+	public void testRegisterAndGet() {
+		m_index.register("/sessions/1", m_info);
+
+		assertSame(m_info, m_index.get("/sessions/1").server());
+		assertNull(m_index.get("/sessions/2"));
+		assertEquals(1, m_index.size());
+	}
+
+	@Test
+	public void testGetAllReturnsOnlyIndexedSessions() {
+		m_index.register("/sessions/1", m_info);
+		m_index.register("/sessions/2", m_info);
+
+		Map<String,SessionIndex.Entry> found = m_index.getAll(List.of("/sessions/1", "/sessions/2", "/sessions/3"));
+		assertEquals(Set.of("/sessions/1", "/sessions/2"), found.keySet());
+		assertSame(m_info, found.get("/sessions/1").server());
+	}
+
+	@Test
+	public void testRemove() {
+		m_index.register("/sessions/1", m_info);
+		m_index.remove("/sessions/1");
+
+		assertNull(m_index.get("/sessions/1"));
+		assertEquals(0, m_index.size());
+	}
+
+	@Test
+	public void testPruneRetiredRemovesOnlyReclaimedSessions() {
+		m_index.register("/sessions/live", m_info);
+		m_index.register("/sessions/gone", m_info);
+		when(m_server.getSession("/sessions/live")).thenAnswer(inv -> mock(inv.getMethod().getReturnType()));
+		when(m_server.getSession("/sessions/gone")).thenReturn(null);
+
+		assertEquals(1, m_index.pruneRetired());
+		assertEquals(1, m_index.size());
+		assertSame(m_info, m_index.get("/sessions/live").server());
+	}
+}
@@ -0,0 +1,226 @@
+package mdt.operation.servers;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.fasterxml.jackson.databind.node.TextNode;
+
+
+/**
+ * {@link SessionJournal}의 기록·복구·교체와 {@link RecoveredSessions}의 복구 세션 종료 처리 테스트.
+ *
+ * @author Kang-Woo Lee (ETRI)
+ */
+public class SessionJournalTest {
+	private static final JsonMapper MAPPER = JsonMapper.builder().build();
+
+	@Rule public TemporaryFolder m_temp = new TemporaryFolder();
+
+	private File m_dir;
+
+	@Before
+	public void setup() throws IOException {
+		m_dir = m_temp.newFolder("journal");
+	}
+
+	@Test
+	public void testSessionsSurviveReopen() throws Exception {
+		try ( SessionJournal journal = new SessionJournal(m_dir, 8) ) {
+			journal.created("/sessions/a", "op", Map.of("y", MAPPER.readTree("{}")), null);
+			journal.attached("/sessions/a", 1234, 5678);
+			journal.created("/sessions/b", "op", Map.of(), null);
+			journal.terminated("/sessions/b", MAPPER.readTree("{\"state\":\"COMPLETED\"}"));
+			journal.created("/sessions/c", "op", Map.of(), null);
+			journal.removed("/sessions/c");
+			journal.sync();
+			assertTrue(journal.isLive("/sessions/a"));
+			assertFalse(journal.isLive("/sessions/b"));
+		}
+
+		try ( SessionJournal journal = new SessionJournal(m_dir, 8) ) {
+			List<SessionJournal.Session> recovered = journal.getRecovered();
+			assertEquals(2, recovered.size());
+
+			SessionJournal.Session b = recovered.get(0);
+			assertEquals("/sessions/b", b.endpoint());
+			assertEquals("COMPLETED", b.result().path("state").asText());
+
+			SessionJournal.Session a = recovered.get(1);
+			assertEquals("/sessions/a", a.endpoint());
+			assertFalse(a.isTerminated());
+			assertEquals(1234, a.pid());
+			assertEquals(5678, a.pidStartedAt());
+			assertTrue(a.outputs().has("y"));
+		}
+	}
+
+	@Test
+	public void testUnsyncedRecordsAreNotWritten() throws Exception {
+		SessionJournal journal = new SessionJournal(m_dir, 8);
+		journal.created("/sessions/a", "op", Map.of(), null);
+		long syncs = journal.getSyncCount();
+		assertEquals(0, new File(m_dir, SessionJournal.JOURNAL_FILE).length());
+
+		journal.created("/sessions/b", "op", Map.of(), null);
+		journal.sync();
+		assertEquals(syncs + 1, journal.getSyncCount());
+		journal.sync();
+		assertEquals(syncs + 1, journal.getSyncCount());
+		journal.close();
+	}
+
+	@Test
+	public void testTruncatedLastRecordIsIgnored() throws Exception {
+		try ( SessionJournal journal = new SessionJournal(m_dir, 8) ) {
+			journal.created("/sessions/a", "op", Map.of(), null);
+		}
+		Files.writeString(new File(m_dir, SessionJournal.JOURNAL_FILE).toPath(), "{\"k\":\"t\",\"s\":\"/sessions/a\",\"r\":{",
+							StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+
+		try ( SessionJournal journal = new SessionJournal(m_dir, 8) ) {
+			assertEquals(1, journal.getRecovered().size());
+			assertFalse(journal.getRecovered().get(0).isTerminated());
+		}
+	}
+
+	@Test
+	public void testOldestTerminatedSessionsAreDropped() throws Exception {
+		try ( SessionJournal journal = new SessionJournal(m_dir, 2) ) {
+			for ( int i = 0; i < 3; ++i ) {
+				journal.created("/sessions/s" + i, "op", Map.of(), null);
+				journal.terminated("/sessions/s" + i, TextNode.valueOf("done"));
+			}
+			assertEquals(2, journal.getRetainedCount());
+		}
+		try ( SessionJournal journal = new SessionJournal(m_dir, 2) ) {
+			assertEquals(List.of("/sessions/s1", "/sessions/s2"),
+						journal.getRecovered().stream().map(SessionJournal.Session::endpoint).toList());
+		}
+	}
+
+	@Test
+	public void testCompactionBoundsJournalToLiveSessions() throws Exception {
+		File file = new File(m_dir, SessionJournal.JOURNAL_FILE);
+		try ( SessionJournal journal = new SessionJournal(m_dir, 4) ) {
+			journal.created("/sessions/live", "op", Map.of(), null);
+			for ( int i = 0; i < 3000; ++i ) {
+				journal.created("/sessions/s" + i, "op", Map.of(), null);
+				journal.terminated("/sessions/s" + i, TextNode.valueOf("done"));
+			}
+			journal.sync();
+			assertEquals(5, Files.readAllLines(file.toPath()).size());
+		}
+		try ( SessionJournal journal = new SessionJournal(m_dir, 4) ) {
+			assertEquals(1, journal.getLiveCount());
+			assertEquals(4, journal.getRetainedCount());
+		}
+	}
+
+	@Test
+	public void testRecoveredSessionWithoutProcessFailsWithoutWriteBack() throws Exception {
+		File varDir = m_temp.newFolder("vars");
+		File written = new File(varDir, "y");
+		Files.writeString(written.toPath(), "1");
+
+		try ( SessionJournal journal = new SessionJournal(m_dir, 8) ) {
+			journal.created("/sessions/a", "op", Map.of("y", MAPPER.readTree("{}")), varDir);
+			journal.created("/sessions/b", "op", Map.of("z", MAPPER.readTree("{}")), varDir);
+			journal.created("/sessions/c", "op", Map.of(), null);
+			journal.terminated("/sessions/c", MAPPER.readTree("{\"state\":\"COMPLETED\"}"));
+		}
+		// 'y'는 세션 시작 이후 프로세스가 기록한 것으로 본다.
+		assertTrue(written.setLastModified(written.lastModified() + 10_000));
+
+		try ( SessionJournal journal = new SessionJournal(m_dir, 8);
+				RecoveredSessions recovered = new RecoveredSessions(journal) ) {
+			assertEquals(0, recovered.recover(journal.getRecovered()));
+			assertEquals(3, recovered.size());
+
+			JsonNode c = recovered.status("/sessions/c");
+			assertEquals("COMPLETED", c.path("state").asText());
+			assertTrue(c.path(RecoveredSessions.RECOVERED_FIELD).asBoolean());
+
+			// 종료 코드를 알 수 없으므로 출력이 기록되었더라도 결과 없이 실패로 종료된다.
+			JsonNode a = await(recovered, "/sessions/a");
+			assertEquals(RpcResponses.FAILED, a.path("state").asText());
+			assertTrue(a.path("result").isMissingNode());
+			assertEquals(MAPPER.readTree("[\"y\"]"), a.at("/error/writtenOutputs"));
+
+			JsonNode b = await(recovered, "/sessions/b");
+			assertEquals(RpcResponses.FAILED, b.path("state").asText());
+			assertEquals(0, b.at("/error/writtenOutputs").size());
+
+			assertNull(recovered.status("/sessions/unknown"));
+			assertFalse(recovered.cancel("/sessions/unknown"));
+		}
+
+		try ( SessionJournal journal = new SessionJournal(m_dir, 8) ) {
+			assertEquals(0, journal.getLiveCount());
+			assertEquals(3, journal.getRetainedCount());
+		}
+	}
+
+	@Test
+	public void testReattachedLiveProcess() throws Exception {
+		Process running = new ProcessBuilder("sleep", "30").start();
+		// 이전 디스패처가 끝나 출력 파이프를 읽는 쪽이 없어진 상황을 만든다.
+		Process writer = new ProcessBuilder("sh", "-c", "sleep 1; echo done; sleep 30").start();
+		writer.getInputStream().close();
+		try {
+			try ( SessionJournal journal = new SessionJournal(m_dir, 8) ) {
+				journal.created("/sessions/a", "op", Map.of(), null);
+				journal.attached("/sessions/a", running.pid(), SessionProcesses.startedAt(running.toHandle()));
+				journal.created("/sessions/b", "op", Map.of(), null);
+				journal.attached("/sessions/b", writer.pid(), SessionProcesses.startedAt(writer.toHandle()));
+			}
+
+			try ( SessionJournal journal = new SessionJournal(m_dir, 8);
+					RecoveredSessions recovered = new RecoveredSessions(journal) ) {
+				assertEquals(2, recovered.recover(journal.getRecovered()));
+				assertEquals("RUNNING", recovered.status("/sessions/a").path("state").asText());
+
+				// 다시 연결한 프로세스는 취소할 수 있다.
+				assertTrue(recovered.cancel("/sessions/a"));
+				assertEquals("CANCELLED", await(recovered, "/sessions/a").path("state").asText());
+				assertFalse(running.isAlive());
+
+				// 출력 파이프에 쓰는 프로세스는 SIGPIPE로 끝나며, 세션은 실패로 종료된다.
+				JsonNode b = await(recovered, "/sessions/b");
+				assertEquals(RpcResponses.FAILED, b.path("state").asText());
+				assertFalse(writer.isAlive());
+			}
+		}
+		finally {
+			running.destroyForcibly();
+			writer.destroyForcibly();
+		}
+	}
+
+	private static JsonNode await(RecoveredSessions recovered, String endpoint) throws InterruptedException {
+		for ( int i = 0; i < 500; ++i ) {
+			JsonNode resp = recovered.status(endpoint);
+			if ( RpcResponses.isTerminal(RpcResponses.stateOf(resp)) ) {
+				return resp;
+			}
+			Thread.sleep(10);
+		}
+		return recovered.status(endpoint);
+	}
+}
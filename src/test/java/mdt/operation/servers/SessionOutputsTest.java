@@ -0,0 +1,234 @@
+package mdt.operation.servers;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+
+/**
+ * {@link SessionOutputs}의 출력 파일 보관·링크 변환과 {@link OutputDownload}의 내려받기 응답 테스트.
+ *
+ * @author Kang-Woo Lee (ETRI)
+ */
+public class SessionOutputsTest {
+	private static final JsonMapper MAPPER = JsonMapper.builder().build();
+	private static final String SESSION = "/sessions/s1";
+
+	@Rule public TemporaryFolder m_temp = new TemporaryFolder();
+
+	private File m_dir;
+	private SessionOutputs m_outputs;
+
+	@Before
+	public void setup() throws IOException {
+		m_dir = m_temp.newFolder("outputs");
+		m_outputs = new SessionOutputs(m_dir, 2, 16);
+	}
+
+	@Test
+	public void testRecordedOutputSurvivesVariableFile() throws Exception {
+		File var = write("y", "\"" + "x".repeat(32) + "\"");
+		SessionOutputs.Collector collector = m_outputs.newCollector();
+		collector.record("y", var);
+		m_outputs.register(SESSION, collector);
+		Files.delete(var.toPath());
+
+		SessionOutputs.Output output = m_outputs.get(SESSION, "y");
+		assertNotNull(output);
+		assertEquals(34, output.size());
+		assertEquals("\"" + "x".repeat(32) + "\"", Files.readString(output.file().toPath()));
+		assertNull(m_outputs.get(SESSION, "z"));
+		assertNull(m_outputs.get("/sessions/other", "y"));
+	}
+
+	@Test
+	public void testLargeOutputsAreLinked() throws Exception {
+		SessionOutputs.Collector collector = m_outputs.newCollector();
+		collector.record("big out", write("big", "\"" + "x".repeat(32) + "\""));
+		collector.record("small", write("small", "1"));
+		m_outputs.register(SESSION, collector);
+		assertTrue(m_outputs.hasLargeOutputs(SESSION));
+
+		JsonNode tree = MAPPER.readTree("{\"state\":\"COMPLETED\",\"result\":{\"big out\":\"...\",\"small\":1}}");
+		assertTrue(m_outputs.linkLargeOutputs(SESSION, tree));
+
+		JsonNode link = tree.at("/result/big out");
+		assertEquals(SessionOutputs.LINK_TYPE, link.path("@type").asText());
+		assertEquals("/api/v1/sessions/s1/outputs/big%20out", link.path("href").asText());
+		assertEquals(34, link.path("size").asLong());
+		assertEquals(1, tree.at("/result/small").asInt());
+	}
+
+	@Test
+	public void testZeroThresholdDisablesLinks() throws Exception {
+		SessionOutputs outputs = new SessionOutputs(m_temp.newFolder("nolink"), 2, 0);
+		SessionOutputs.Collector collector = outputs.newCollector();
+		collector.record("big", write("big", "\"" + "x".repeat(32) + "\""));
+		outputs.register(SESSION, collector);
+
+		assertFalse(outputs.hasLargeOutputs(SESSION));
+		assertFalse(outputs.linkLargeOutputs(SESSION, MAPPER.readTree("{\"big\":\"...\"}")));
+	}
+
+	@Test
+	public void testOldestSessionIsEvicted() throws Exception {
+		for ( int i = 1; i <= 3; ++i ) {
+			SessionOutputs.Collector collector = m_outputs.newCollector();
+			collector.record("y", write("y" + i, String.valueOf(i)));
+			m_outputs.register("/sessions/s" + i, collector);
+		}
+
+		assertEquals(2, m_outputs.size());
+		assertNull(m_outputs.get("/sessions/s1", "y"));
+		assertNotNull(m_outputs.get("/sessions/s3", "y"));
+		assertEquals(2, m_dir.list().length);
+	}
+
+	@Test
+	public void testDownloadWholeFile() throws Exception {
+		SessionOutputs.Output output = record("0123456789");
+		HttpServletRequest req = mock(HttpServletRequest.class);
+		HttpServletResponse resp = mock(HttpServletResponse.class);
+		ByteArrayOutputStream body = new ByteArrayOutputStream();
+		when(resp.getOutputStream()).thenReturn(servletStream(body));
+
+		OutputDownload.send(output, req, resp);
+		verify(resp).setHeader("ETag", output.etag());
+		verify(resp).setContentLengthLong(10);
+		verify(resp, never()).setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+		assertEquals("0123456789", body.toString(StandardCharsets.UTF_8));
+	}
+
+	@Test
+	public void testDownloadRange() throws Exception {
+		SessionOutputs.Output output = record("0123456789");
+		HttpServletRequest req = mock(HttpServletRequest.class);
+		HttpServletResponse resp = mock(HttpServletResponse.class);
+		ByteArrayOutputStream body = new ByteArrayOutputStream();
+		when(req.getHeader("Range")).thenReturn("bytes=2-5");
+		when(resp.getOutputStream()).thenReturn(servletStream(body));
+
+		OutputDownload.send(output, req, resp);
+		verify(resp).setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+		verify(resp).setHeader("Content-Range", "bytes 2-5/10");
+		verify(resp).setContentLengthLong(4);
+		assertEquals("2345", body.toString(StandardCharsets.UTF_8));
+	}
+
+	@Test
+	public void testDownloadSuffixRangeUsesSendfile() throws Exception {
+		SessionOutputs.Output output = record("0123456789");
+		HttpServletRequest req = mock(HttpServletRequest.class);
+		HttpServletResponse resp = mock(HttpServletResponse.class);
+		when(req.getHeader("Range")).thenReturn("bytes=-3");
+		when(req.getAttribute(OutputDownload.SENDFILE_SUPPORT_ATTR)).thenReturn(Boolean.TRUE);
+
+		OutputDownload.send(output, req, resp);
+		verify(resp).setHeader("Content-Range", "bytes 7-9/10");
+		verify(req).setAttribute(OutputDownload.SENDFILE_FILENAME_ATTR, output.file().getCanonicalPath());
+		verify(req).setAttribute(OutputDownload.SENDFILE_START_ATTR, 7L);
+		verify(req).setAttribute(OutputDownload.SENDFILE_END_ATTR, 10L);
+		verify(resp, never()).getOutputStream();
+	}
+
+	@Test
+	public void testDownloadNotModified() throws Exception {
+		SessionOutputs.Output output = record("0123456789");
+		HttpServletRequest req = mock(HttpServletRequest.class);
+		HttpServletResponse resp = mock(HttpServletResponse.class);
+		when(req.getHeader("If-None-Match")).thenReturn("\"other\", " + output.etag());
+
+		OutputDownload.send(output, req, resp);
+		verify(resp).setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+		verify(resp, never()).getOutputStream();
+	}
+
+	@Test
+	public void testDownloadUnsatisfiableRange() throws Exception {
+		SessionOutputs.Output output = record("0123456789");
+		HttpServletRequest req = mock(HttpServletRequest.class);
+		HttpServletResponse resp = mock(HttpServletResponse.class);
+		when(req.getHeader("Range")).thenReturn("bytes=10-");
+
+		OutputDownload.send(output, req, resp);
+		verify(resp).setStatus(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+		verify(resp).setHeader("Content-Range", "bytes */10");
+		verify(resp, never()).getOutputStream();
+	}
+
+	@Test
+	public void testStaleIfRangeSendsWholeFile() throws Exception {
+		SessionOutputs.Output output = record("0123456789");
+		HttpServletRequest req = mock(HttpServletRequest.class);
+		HttpServletResponse resp = mock(HttpServletResponse.class);
+		ByteArrayOutputStream body = new ByteArrayOutputStream();
+		when(req.getHeader("Range")).thenReturn("bytes=2-5");
+		when(req.getHeader("If-Range")).thenReturn("\"stale\"");
+		when(resp.getOutputStream()).thenReturn(servletStream(body));
+
+		OutputDownload.send(output, req, resp);
+		verify(resp, never()).setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+		assertArrayEquals("0123456789".getBytes(StandardCharsets.UTF_8), body.toByteArray());
+	}
+
+	private SessionOutputs.Output record(String content) throws IOException {
+		SessionOutputs.Collector collector = m_outputs.newCollector();
+		collector.record("y", write("y", content));
+		m_outputs.register(SESSION, collector);
+		return m_outputs.get(SESSION, "y");
+	}
+
+	private File write(String name, String content) throws IOException {
+		File file = new File(m_temp.getRoot(), name);
+		Files.writeString(file.toPath(), content);
+		return file;
+	}
+
+	private static ServletOutputStream servletStream(ByteArrayOutputStream out) {
+		return new ServletOutputStream() {
+			@Override
+			public void write(int b) {
+				out.write(b);
+			}
+
+			@Override
+			public void write(byte[] buf, int off, int len) {
+				out.write(buf, off, len);
+			}
+
+			@Override
+			public boolean isReady() {
+				return true;
+			}
+
+			@Override
+			public void setWriteListener(WriteListener listener) { }
+		};
+	}
+}
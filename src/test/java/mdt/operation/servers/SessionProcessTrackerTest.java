@@ -0,0 +1,104 @@
+package mdt.operation.servers;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+
+/**
+ * {@link SessionProcessTracker}의 세션 프로세스 탐색 테스트.
+ *
+ * @author Kang-Woo Lee (ETRI)
+ */
+public class SessionProcessTrackerTest {
+	@Rule public TemporaryFolder m_tempDir = new TemporaryFolder();
+
+	private static SessionProcessTracker.Listener listener(CompletableFuture<ProcessHandle> found) {
+		return new SessionProcessTracker.Listener() {
+			@Override
+			public void found(ProcessHandle process) {
+				found.complete(process);
+			}
+
+			@Override
+			public void notFound() {
+				found.complete(null);
+			}
+		};
+	}
+
+	@Test
+	public void testFindsChildByWorkingDirectory() throws Exception {
+		File varDir = m_tempDir.newFolder("vars");
+		File otherDir = m_tempDir.newFolder("other");
+		Process other = new ProcessBuilder("sleep", "30").directory(otherDir).start();
+		Process proc = new ProcessBuilder("sleep", "30").directory(varDir).start();
+		try ( SessionProcessTracker tracker = new SessionProcessTracker() ) {
+			CompletableFuture<ProcessHandle> found = new CompletableFuture<>();
+			tracker.track("/sessions/s1", varDir, listener(found));
+
+			assertEquals(proc.pid(), found.get(10, TimeUnit.SECONDS).pid());
+			assertEquals(0, tracker.getPendingCount());
+		}
+		finally {
+			proc.destroyForcibly();
+			other.destroyForcibly();
+		}
+	}
+
+	@Test
+	public void testFindsChildByArgument() throws Exception {
+		File varDir = m_tempDir.newFolder("vars");
+		Process proc = new ProcessBuilder("sh", "-c", "sleep 30; true", "--vars=" + new File(varDir, "x.json")).start();
+		try ( SessionProcessTracker tracker = new SessionProcessTracker(() -> Stream.of(proc.toHandle()), 3, 1) ) {
+			CompletableFuture<ProcessHandle> found = new CompletableFuture<>();
+			tracker.track("/sessions/s1", varDir, listener(found));
+
+			assertEquals(proc.pid(), found.get(10, TimeUnit.SECONDS).pid());
+		}
+		finally {
+			proc.destroyForcibly();
+		}
+	}
+
+	@Test
+	public void testNotFoundAfterAttempts() throws Exception {
+		AtomicInteger scans = new AtomicInteger();
+		try ( SessionProcessTracker tracker = new SessionProcessTracker(() -> {
+													scans.incrementAndGet();
+													return Stream.empty();
+												}, 3, 1) ) {
+			CompletableFuture<ProcessHandle> found = new CompletableFuture<>();
+			tracker.track("/sessions/s1", m_tempDir.newFolder("vars"), listener(found));
+
+			assertNull(found.get(10, TimeUnit.SECONDS));
+			assertEquals(3, scans.get());
+			assertEquals(0, tracker.getPendingCount());
+		}
+	}
+
+	@Test
+	public void testScansOnGivenThreads() throws Exception {
+		CompletableFuture<Boolean> virtual = new CompletableFuture<>();
+		try ( SessionProcessTracker tracker = new SessionProcessTracker(() -> {
+													virtual.complete(Thread.currentThread().isVirtual());
+													return Stream.empty();
+												}, 1, 1, Thread.ofVirtual().factory()) ) {
+			CompletableFuture<ProcessHandle> found = new CompletableFuture<>();
+			tracker.track("/sessions/s1", m_tempDir.newFolder("vars"), listener(found));
+
+			assertNull(found.get(10, TimeUnit.SECONDS));
+			assertTrue(virtual.get(10, TimeUnit.SECONDS));
+		}
+	}
+}
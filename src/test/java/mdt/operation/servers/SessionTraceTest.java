@@ -0,0 +1,86 @@
+package mdt.operation.servers;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import mdt.operation.servers.DispatcherMetrics.Phase;
+
+
+/**
+ * {@link SessionTrace}의 구간 기록·요약과 {@link SessionTraces}의 보관 수 제한 테스트.
+ *
+ * @author Kang-Woo Lee (ETRI)
+ */
+public class SessionTraceTest {
+	private static final long MS = TimeUnit.MILLISECONDS.toNanos(1);
+
+	@Test
+	public void testTimelineIsOrderedByStart() {
+		SessionTrace trace = new SessionTrace("op");
+		long base = System.nanoTime();
+		trace.add(Phase.RUN, null, "completed", base + 20 * MS, base + 120 * MS);
+		trace.add(Phase.RESOLVE, "mesh", DispatcherMetrics.OK, base, base + 15 * MS);
+		trace.add(Phase.RESOLVE, "params", DispatcherMetrics.ERROR, base + 1 * MS, base + 4 * MS);
+
+		SessionTrace.Timeline timeline = trace.getTimeline();
+		assertEquals("op", timeline.operation());
+		List<SessionTrace.Span> spans = timeline.spans();
+		assertEquals(List.of("mesh", "params"), List.of(spans.get(0).variable(), spans.get(1).variable()));
+		assertEquals("run", spans.get(2).phase());
+		assertNull(spans.get(2).variable());
+		assertEquals(100, spans.get(2).durationMs(), 0.001);
+		assertEquals(spans.get(2).offsetMs() + 100, timeline.elapsedMs(), 0.001);
+	}
+
+	@Test
+	public void testSummaryPointsAtSlowestVariables() {
+		SessionTrace trace = new SessionTrace("op");
+		long base = System.nanoTime();
+		trace.add(Phase.RESOLVE, "a", DispatcherMetrics.OK, base, base + 5 * MS);
+		trace.add(Phase.RESOLVE, "b", DispatcherMetrics.OK, base, base + 50 * MS);
+		trace.add(Phase.WRITE_BACK, "out", DispatcherMetrics.OK, base + 60 * MS, base + 70 * MS);
+
+		SessionTrace.Summary summary = trace.getSummary();
+		assertEquals(55, summary.phases().get("resolve"), 0.001);
+		assertEquals(10, summary.phases().get("write_back"), 0.001);
+		assertNull(summary.phases().get("run"));
+		assertEquals("b", summary.slowestResolve().variable());
+		assertEquals("out", summary.slowestWriteBack().variable());
+	}
+
+	@Test
+	public void testScopeRecordsIntoTrace() {
+		SessionTrace trace = new SessionTrace("op");
+		DispatcherMetrics metrics = new DispatcherMetrics(new SimpleMeterRegistry());
+		metrics.scope("op", trace).record(Phase.DESERIALIZE, "mesh", DispatcherMetrics.OK, System.nanoTime());
+
+		SessionTrace.Span span = trace.getTimeline().spans().get(0);
+		assertEquals("deserialize", span.phase());
+		assertEquals("mesh", span.variable());
+	}
+
+	@Test
+	public void testStoreKeepsMostRecentSessions() {
+		SessionTraces traces = new SessionTraces(2);
+		SessionTrace first = new SessionTrace("op");
+		traces.put("/sessions/1", first);
+		traces.put("/sessions/2", new SessionTrace("op"));
+		traces.put("/sessions/3", new SessionTrace("op"));
+
+		assertEquals(2, traces.size());
+		assertNull(traces.get("/sessions/1"));
+		assertNotNull(traces.get("/sessions/3"));
+
+		SessionTraces disabled = new SessionTraces(0);
+		disabled.put("/sessions/1", first);
+		assertNull(disabled.get("/sessions/1"));
+	}
+}
@@ -0,0 +1,211 @@
+package mdt.operation.servers;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+
+
+/**
+ * {@link StreamingRequestReader}의 요청 본문 읽기와 {@link SpilledValues}의 임시 파일 관리 테스트.
+ *
+ * @author Kang-Woo Lee (ETRI)
+ */
+public class StreamingRequestReaderTest {
+	private static final JsonMapper MAPPER = JsonMapper.builder().build();
+	private static final String LARGE = "\"" + "x".repeat(256) + "\"";
+
+	@Rule public TemporaryFolder m_temp = new TemporaryFolder();
+
+	private File m_spillDir;
+	private StreamingRequestReader m_reader;
+
+	@Before
+	public void setup() throws IOException {
+		m_spillDir = m_temp.newFolder("spill");
+		m_reader = new StreamingRequestReader(MAPPER, 64, m_spillDir);
+	}
+
+	@Test
+	public void testSmallValuesStayInMemory() throws Exception {
+		String body = "{\"inputs\":{\"a\":{\"v\":[1,2]},\"b\":3,\"c\":\"s\"},\"outputs\":{\"y\":{}},\"priority\":2}";
+		try ( SpilledValues spills = new SpilledValues() ) {
+			JsonNode request = m_reader.read(stream(body), spills);
+
+			assertEquals(MAPPER.readTree(body), request);
+			assertEquals(0, spills.size());
+			assertEquals(0, m_spillDir.list().length);
+		}
+	}
+
+	@Test
+	public void testLargePlainValueIsSpilledWithMarker() throws Exception {
+		String large = "{\"data\":" + LARGE + "}";
+		String body = "{\"inputs\":{\"big\":" + large + ",\"small\":1}}";
+		try ( SpilledValues spills = new SpilledValues() ) {
+			JsonNode request = m_reader.read(stream(body), spills);
+
+			JsonNode marker = request.at("/inputs/big");
+			assertEquals(StreamingRequestReader.SPILL_TYPE, marker.path("@type").asText());
+			assertEquals(large.length(), marker.path("size").asLong());
+			assertEquals(64, marker.path("sha256").asText().length());
+			assertEquals(1, request.at("/inputs/small").asInt());
+			assertEquals(1, spills.size());
+
+			File var = new File(m_temp.getRoot(), "big");
+			spills.transferTo("big", var);
+			assertEquals(MAPPER.readTree(large), MAPPER.readTree(var));
+			assertEquals(0, spills.size());
+			assertThrows(IOException.class, () -> spills.transferTo("big", var));
+		}
+	}
+
+	@Test
+	public void testSameContentYieldsSameMarker() throws Exception {
+		String body = "{\"inputs\":{\"big\":" + LARGE + "}}";
+		try ( SpilledValues first = new SpilledValues(); SpilledValues second = new SpilledValues() ) {
+			assertEquals(m_reader.read(stream(body), first).at("/inputs/big"),
+						m_reader.read(stream(body), second).at("/inputs/big"));
+		}
+	}
+
+	@Test
+	public void testLargeTypedValueIsNotSpilled() throws Exception {
+		// 임시 파일을 만들 수 없는 디렉토리를 주어, 값이 임시 파일을 거치지 않았음을 확인한다.
+		StreamingRequestReader reader = new StreamingRequestReader(MAPPER, 64, new File(m_spillDir, "missing"));
+		String typed = "{\"@type\":\"mdt:value:property\",\"value\":" + LARGE + "}";
+		String body = "{\"inputs\":{\"p\":" + typed + ",\"q\":{}},\"outputs\":{}}";
+		try ( SpilledValues spills = new SpilledValues() ) {
+			JsonNode request = reader.read(stream(body), spills);
+
+			assertEquals(MAPPER.readTree(body), request);
+			assertEquals(0, spills.size());
+		}
+	}
+
+	@Test
+	public void testLargeValueTypedAfterFirstFieldIsReadBack() throws Exception {
+		String typed = "{\"value\":" + LARGE + ",\"@type\":\"mdt:value:property\"}";
+		try ( SpilledValues spills = new SpilledValues() ) {
+			JsonNode request = m_reader.read(stream("{\"inputs\":{\"p\":" + typed + "}}"), spills);
+
+			assertEquals(MAPPER.readTree(typed), request.at("/inputs/p"));
+			assertEquals(0, spills.size());
+			assertEquals(0, m_spillDir.list().length);
+		}
+	}
+
+	@Test
+	public void testSharedSpillsAreCopiedAndDeletedOnClose() throws Exception {
+		SpilledValues spills = new SpilledValues();
+		m_reader.read(stream("{\"inputs\":{\"big\":" + LARGE + "}}"), spills);
+
+		try ( SpilledValues shared = spills.share() ) {
+			assertEquals(0, spills.size());
+			assertTrue(shared.isShared());
+
+			shared.transferTo("big", new File(m_temp.getRoot(), "first"));
+			shared.transferTo("big", new File(m_temp.getRoot(), "second"));
+			assertEquals(LARGE, Files.readString(new File(m_temp.getRoot(), "second").toPath()));
+			assertEquals(1, m_spillDir.list().length);
+		}
+		assertEquals(0, m_spillDir.list().length);
+		spills.close();
+	}
+
+	@Test
+	public void testUnconsumedSpillsDeletedOnClose() throws Exception {
+		SpilledValues spills = new SpilledValues();
+		m_reader.read(stream("{\"inputs\":{\"a\":" + LARGE + ",\"b\":[" + LARGE + "]}}"), spills);
+		assertEquals(2, m_spillDir.list().length);
+
+		spills.close();
+		assertEquals(0, m_spillDir.list().length);
+	}
+
+	@Test
+	public void testZeroThresholdDisablesSpill() throws Exception {
+		StreamingRequestReader reader = new StreamingRequestReader(MAPPER, 0, m_spillDir);
+		String body = "{\"inputs\":{\"big\":" + LARGE + "}}";
+		try ( SpilledValues spills = new SpilledValues() ) {
+			assertEquals(MAPPER.readTree(body), reader.read(stream(body), spills));
+			assertEquals(0, spills.size());
+		}
+	}
+
+	@Test
+	public void testBatchItemsSpillIntoSeparateBundles() throws Exception {
+		String body = "[{\"inputs\":{\"big\":" + LARGE + "}},{\"inputs\":{\"small\":1}},{\"inputs\":{\"big\":" + LARGE + "}}]";
+		List<SpilledValues> spillsList = new ArrayList<>();
+		try {
+			List<JsonNode> items = m_reader.readBatch(stream(body), 3, spillsList);
+
+			assertEquals(3, items.size());
+			assertEquals(3, spillsList.size());
+			assertEquals(StreamingRequestReader.SPILL_TYPE, items.get(0).at("/inputs/big/@type").asText());
+			assertEquals(MAPPER.readTree("{\"inputs\":{\"small\":1}}"), items.get(1));
+			assertEquals(1, spillsList.get(0).size());
+			assertEquals(0, spillsList.get(1).size());
+			assertEquals(1, spillsList.get(2).size());
+		}
+		finally {
+			spillsList.forEach(SpilledValues::close);
+		}
+		assertEquals(0, m_spillDir.list().length);
+	}
+
+	@Test
+	public void testMalformedBatchRejected() throws Exception {
+		String item = "{\"inputs\":{\"big\":" + LARGE + "}}";
+		List<SpilledValues> spillsList = new ArrayList<>();
+		try {
+			assertThrows(IllegalArgumentException.class,
+						() -> m_reader.readBatch(stream(item), 3, spillsList));
+			assertThrows(IllegalArgumentException.class,
+						() -> m_reader.readBatch(stream("[" + item + "," + item + "]"), 1, spillsList));
+			assertThrows(IOException.class, () -> m_reader.readBatch(stream("[" + item + ","), 3, spillsList));
+		}
+		finally {
+			// 오류가 나기 전까지 읽은 항목들의 임시 파일은 호출자가 닫아 삭제한다.
+			spillsList.forEach(SpilledValues::close);
+		}
+		assertEquals(0, m_spillDir.list().length);
+	}
+
+	@Test
+	public void testThresholdOfTwoGigabytesRejected() {
+		// 기준 크기까지는 메모리 버퍼에 담기므로 int 범위를 넘는 크기는 받지 않는다.
+		assertThrows(IllegalArgumentException.class,
+					() -> new StreamingRequestReader(MAPPER, Integer.MAX_VALUE + 1L, m_spillDir));
+		assertThrows(IllegalArgumentException.class, () -> new StreamingRequestReader(MAPPER, -1, m_spillDir));
+	}
+
+	@Test
+	public void testMalformedBodyLeavesNoFiles() throws Exception {
+		try ( SpilledValues spills = new SpilledValues() ) {
+			assertThrows(IOException.class, () -> m_reader.read(stream("{\"inputs\":{\"big\":[" + LARGE), spills));
+			assertThrows(IllegalArgumentException.class, () -> m_reader.read(stream(""), spills));
+		}
+		assertEquals(0, m_spillDir.list().length);
+	}
+
+	private static ByteArrayInputStream stream(String body) {
+		return new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8));
+	}
+}
@@ -0,0 +1,179 @@
+package mdt.operation.servers;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import utils.json.JacksonUtils;
+
+
+/**
+ * {@link WorkerPools}/{@link WorkerPool}의 풀 작업자 수행·교체 테스트와 {@code workerPool} 정책 로딩 테스트.
+ * <p>
+ * 작업자 풀 테스트는 {@code python3}가 있는 Unix 환경에서만 수행된다.
+ *
+ * @author Kang-Woo Lee (ETRI)
+ */
+public class WorkerPoolTest {
+	private static final String SCRIPT
+		= "import os, sys\n"
+		+ "open(sys.argv[2], 'w').write('%s:%d' % (sys.argv[1], os.getppid()))\n"
+		+ "print('hello', sys.argv[1])\n"
+		+ "sys.exit(int(sys.argv[3]) if len(sys.argv) > 3 else 0)\n";
+
+	@Rule public TemporaryFolder m_temp = new TemporaryFolder();
+
+	private File m_opDir;
+	private WorkerPools m_pools;
+
+	@Before
+	public void setup() throws Exception {
+		m_opDir = m_temp.newFolder("op");
+		Files.writeString(new File(m_opDir, "echo.py").toPath(), SCRIPT);
+		Files.writeString(new File(m_opDir, OperationRegistry.DESCRIPTOR_FILE_NAME).toPath(),
+							"{ \"command\": [ \"python3\", \"" + new File(m_opDir, "echo.py").getAbsolutePath()
+							+ "\", \"${X}\", \"${Y:path}\" ], \"runAsync\": true }");
+		m_pools = new WorkerPools(m_temp.newFolder("rt"));
+	}
+
+	@After
+	public void tearDown() {
+		m_pools.close();
+	}
+
+	private static boolean isPythonAvailable() {
+		if ( File.separatorChar == '\\' ) {
+			return false;
+		}
+		try {
+			return new ProcessBuilder("python3", "--version").start().waitFor() == 0;
+		}
+		catch ( IOException | InterruptedException e ) {
+			return false;
+		}
+	}
+
+	private File prepare(int maxRuns) throws IOException {
+		Assume.assumeTrue(isPythonAvailable());
+
+		OperationPolicy.WorkerPoolSpec spec = new OperationPolicy.WorkerPoolSpec(1, maxRuns, List.of("json"));
+		return m_pools.prepare("op", new File(m_opDir, OperationRegistry.DESCRIPTOR_FILE_NAME), spec);
+	}
+
+	// RPC 서버 라이브러리를 대신해 디스크립터의 명령을 변수 치환하여 수행하고, 종료 코드를 반환한다.
+	private int run(File descFile, String x, File y, String... extra) throws Exception {
+		JsonNode desc = JacksonUtils.MAPPER.readTree(descFile);
+		List<String> command = new ArrayList<>();
+		desc.path("command").forEach(arg -> command.add(arg.asText().replace("${X}", x)
+																	.replace("${Y:path}", y.getAbsolutePath())));
+		command.addAll(List.of(extra));
+
+		Process proc = new ProcessBuilder(command).directory(m_opDir).start();
+		String stdout = new String(proc.getInputStream().readAllBytes(), StandardCharsets.UTF_8);
+		assertTrue(proc.waitFor(30, TimeUnit.SECONDS));
+		assertEquals("hello " + x, stdout.trim());
+		return proc.exitValue();
+	}
+
+	private void awaitIdle(WorkerPool pool) throws InterruptedException {
+		long due = System.currentTimeMillis() + 30_000;
+		while ( pool.getIdleCount() < 1 ) {
+			assertTrue(System.currentTimeMillis() < due);
+			Thread.sleep(20);
+		}
+	}
+
+	@Test
+	public void testRewriteDescriptor() throws Exception {
+		File pooled = prepare(10);
+		assertEquals(WorkerPools.POOLED_DESCRIPTOR_FILE_NAME, pooled.getName());
+
+		JsonNode command = JacksonUtils.MAPPER.readTree(pooled).path("command");
+		assertEquals("python3", command.get(0).asText());
+		assertEquals(m_pools.get("op").getBrokerSocket().toString(), command.get(4).asText());
+		assertEquals("--", command.get(5).asText());
+		assertEquals("${Y:path}", command.get(command.size() - 1).asText());
+		assertTrue(JacksonUtils.MAPPER.readTree(pooled).path("runAsync").asBoolean());
+	}
+
+	@Test
+	public void testRunOnWarmWorker() throws Exception {
+		File pooled = prepare(10);
+		WorkerPool pool = m_pools.get("op");
+
+		File out1 = new File(m_opDir, "out1");
+		File out2 = new File(m_opDir, "out2");
+		assertEquals(0, run(pooled, "a", out1));
+		awaitIdle(pool);
+		assertEquals(0, run(pooled, "b", out2));
+
+		// 두 수행 모두 같은 작업자 프로세스에서 fork되었다.
+		String[] first = Files.readString(out1.toPath()).split(":");
+		String[] second = Files.readString(out2.toPath()).split(":");
+		assertEquals("a", first[0]);
+		assertEquals("b", second[0]);
+		assertEquals(first[1], second[1]);
+		assertEquals(0, pool.getRecycleCount());
+	}
+
+	@Test
+	public void testRecycleAfterMaxRuns() throws Exception {
+		File pooled = prepare(1);
+		WorkerPool pool = m_pools.get("op");
+
+		File out1 = new File(m_opDir, "out1");
+		File out2 = new File(m_opDir, "out2");
+		assertEquals(0, run(pooled, "a", out1));
+		awaitIdle(pool);
+		assertEquals(0, run(pooled, "b", out2));
+
+		assertNotEquals(Files.readString(out1.toPath()).split(":")[1], Files.readString(out2.toPath()).split(":")[1]);
+		assertTrue(pool.getRecycleCount() >= 1);
+	}
+
+	@Test
+	public void testRecycleOnFailure() throws Exception {
+		File pooled = prepare(10);
+		WorkerPool pool = m_pools.get("op");
+
+		assertEquals(3, run(pooled, "a", new File(m_opDir, "out1"), "3"));
+		awaitIdle(pool);
+		assertEquals(1, pool.getRecycleCount());
+		assertEquals(0, run(pooled, "b", new File(m_opDir, "out2")));
+	}
+
+	@Test
+	public void testNoPoolWithoutSpec() throws Exception {
+		File descFile = new File(m_opDir, OperationRegistry.DESCRIPTOR_FILE_NAME);
+		assertEquals(descFile, m_pools.prepare("op", descFile, null));
+		assertNull(m_pools.get("op"));
+	}
+
+	@Test
+	public void testLoadWorkerPoolPolicy() throws IOException {
+		Files.writeString(new File(m_opDir, OperationPolicy.POLICY_FILE_NAME).toPath(),
+							"{ \"workerPool\": { \"size\": 2, \"preload\": [ \"numpy\" ] } }");
+		OperationPolicy policy = OperationPolicy.load(m_opDir);
+		assertEquals(new OperationPolicy.WorkerPoolSpec(2, OperationPolicy.WorkerPoolSpec.DEFAULT_MAX_RUNS,
+														List.of("numpy")), policy.workerPool());
+		assertNull(OperationPolicy.DEFAULT.workerPool());
+	}
+}